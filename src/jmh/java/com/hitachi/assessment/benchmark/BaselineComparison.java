@@ -0,0 +1,105 @@
+package com.hitachi.assessment.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result against a stored baseline and fails when a benchmark got slower.
+ * <p>
+ * Benchmarks are matched by name and parameters. A benchmark counts as a regression when it is worse than
+ * the baseline by more than the threshold (a fraction, e.g. 0.10) and by more than the two error margins
+ * combined, so noise alone does not fail the comparison. Benchmarks present on only one side are listed but
+ * never fail it. Exits with status 1 when any regression is found.
+ * <p>
+ * Usage: {@code BaselineComparison <baseline.json> <result.json> [threshold]}
+ */
+public class BaselineComparison {
+
+    private record Score(String mode, double score, double error, String unit) {
+
+        // Lower is better for time per operation, higher for throughput
+        boolean lowerIsBetter() {
+            return !"thrpt".equals(mode);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <result.json> [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-75s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-75s %14s %14s %9s%n", entry.getKey(), "-", format(now), "new");
+                continue;
+            }
+            double change = (now.score() - before.score()) / before.score();
+            double worse = now.lowerIsBetter() ? change : -change;
+            boolean beyondNoise = Math.abs(now.score() - before.score()) > now.error() + before.error();
+            boolean regressed = worse > threshold && beyondNoise;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-75s %14s %14s %+8.1f%%%s%n", entry.getKey(), format(before), format(now),
+                    change * 100, regressed ? "  REGRESSION" : "");
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-75s %14s %14s %9s%n", key, format(baseline.get(key)), "-", "missing"));
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+        System.out.println("No regressions beyond " + Math.round(threshold * 100) + "%");
+    }
+
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            JsonNode metric = run.get("primaryMetric");
+            // JMH reports the error as NaN when there were too few iterations to compute one
+            double error = metric.path("scoreError").asDouble(0.0);
+            scores.put(key(run), new Score(run.get("mode").asText(),
+                    metric.get("score").asDouble(),
+                    Double.isNaN(error) ? 0.0 : error,
+                    metric.get("scoreUnit").asText()));
+        }
+        return scores;
+    }
+
+    // Benchmark name without the package, plus its parameters in a stable order
+    private static String key(JsonNode run) {
+        String name = run.get("benchmark").asText();
+        name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1);
+        Map<String, String> params = new TreeMap<>();
+        JsonNode node = run.get("params");
+        if (node != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+        }
+        return params.isEmpty() ? name : name + params;
+    }
+
+    private static String format(Score score) {
+        return String.format("%.3f %s", score.score(), score.unit());
+    }
+}
@@ -0,0 +1,67 @@
+package com.hitachi.assessment.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Per-drone checks that run for every drone a request or a scheduler pass touches
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DroneBenchmark {
+
+    @Param({"100", "10000"})
+    private int fleetSize;
+
+    private Drone[] fleet;
+    private DroneState[] from;
+    private DroneState[] to;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        DroneModel[] models = DroneModel.values();
+        DroneState[] states = DroneState.values();
+        fleet = new Drone[fleetSize];
+        from = new DroneState[fleetSize];
+        to = new DroneState[fleetSize];
+        for (int i = 0; i < fleetSize; i++) {
+            DroneModel model = models[random.nextInt(models.length)];
+            fleet[i] = Drone.builder()
+                    .id((long) i + 1)
+                    .serialNumber("DRN-" + i)
+                    .model(model)
+                    .weightLimit(model.getWeightLimit())
+                    .batteryCapacity(random.nextInt(101))
+                    .state(states[random.nextInt(states.length)])
+                    .currentLoad(random.nextInt(model.getWeightLimit() + 1))
+                    .build();
+            from[i] = states[random.nextInt(states.length)];
+            to[i] = states[random.nextInt(states.length)];
+        }
+    }
+
+    @Benchmark
+    public long currentWeightAcrossFleet() {
+        long total = 0;
+        for (Drone drone : fleet) {
+            total += drone.getCurrentWeight();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int validTransitionsAcrossFleet() {
+        int valid = 0;
+        for (int i = 0; i < fleetSize; i++) {
+            if (from[i].canTransitionTo(to[i])) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+}
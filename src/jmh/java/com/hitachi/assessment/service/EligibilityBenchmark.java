@@ -0,0 +1,85 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// In-memory dispatch checks: drain prediction for one drone and a best-fit lookup that skips drones
+// without the battery for the load
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EligibilityBenchmark {
+
+    @Param({"100", "10000"})
+    private int fleetSize;
+
+    private DroneAvailabilityIndex index;
+    private BatteryDrainModel drainModel;
+    private DroneDTO drone;
+    private int[] weights;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        drainModel = new BatteryDrainModel();
+        ReflectionTestUtils.setField(drainModel, "priorBase", 5.0);
+        ReflectionTestUtils.setField(drainModel, "priorFullLoad", 10.0);
+        ReflectionTestUtils.setField(drainModel, "priorWeight", 1.0);
+        ReflectionTestUtils.setField(drainModel, "forgetting", 0.9);
+        ReflectionTestUtils.setField(drainModel, "reserveLevel", 15);
+
+        index = new DroneAvailabilityIndex(null);
+        ReflectionTestUtils.setField(index, "minBatteryLevel", 25);
+        ReflectionTestUtils.setField(index, "maxProbes", 64);
+        DroneModel[] models = DroneModel.values();
+        for (int i = 0; i < fleetSize; i++) {
+            DroneModel model = models[random.nextInt(models.length)];
+            DroneDTO dto = DroneDTO.builder()
+                    .id((long) i + 1)
+                    .serialNumber("DRN-" + i)
+                    .model(model)
+                    .weightLimit(model.getWeightLimit())
+                    .batteryCapacity(25 + random.nextInt(76))
+                    .state(DroneState.IDLE)
+                    .currentLoad(0)
+                    .build();
+            index.update(dto);
+            // Give every drone a learned model, as after a day of deliveries
+            for (int trip = 0; trip < 5; trip++) {
+                int load = random.nextInt(model.getWeightLimit() + 1);
+                drainModel.observe(DroneDTO.builder().id(dto.getId()).model(model)
+                        .state(DroneState.DELIVERING).batteryCapacity(90).currentLoad(load).build());
+                drainModel.observe(DroneDTO.builder().id(dto.getId()).model(model)
+                        .state(DroneState.IDLE).batteryCapacity(90 - 5 - 10 * load / model.getWeightLimit()).build());
+            }
+        }
+        drone = index.dispatchableDrones().iterator().next();
+        weights = new int[1024];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 1 + random.nextInt(1000);
+        }
+    }
+
+    @Benchmark
+    public boolean canComplete() {
+        int weight = weights[next++ & 1023];
+        return drainModel.canComplete(drone, weight);
+    }
+
+    @Benchmark
+    public Optional<DroneDTO> bestFitWithDrainCheck() {
+        int weight = weights[next++ & 1023];
+        return index.bestFit(weight, candidate -> drainModel.canComplete(candidate, candidate.getCurrentLoad() + weight));
+    }
+}
@@ -0,0 +1,43 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.model.Medication;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// The weight sum loadDrone computes over the medications of one load request
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadWeightBenchmark {
+
+    @Param({"1", "8", "32"})
+    private int medicationsPerLoad;
+
+    private List<Medication> medications;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        medications = new ArrayList<>(medicationsPerLoad);
+        for (int i = 0; i < medicationsPerLoad; i++) {
+            medications.add(Medication.builder()
+                    .id((long) i + 1)
+                    .name("Medication-" + i)
+                    .code("MED_" + i)
+                    .weight(1 + random.nextInt(1000 / medicationsPerLoad))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public int totalWeight() {
+        return DroneServiceImpl.totalWeight(medications);
+    }
+}
@@ -0,0 +1,72 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.model.Drone;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.model.Medication;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Entity to DTO mapping as done for every drone and medication a response returns. Half of the
+// medications carry a stored image, so both branches of the image link are covered.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private Drone[] drones;
+    private Medication[] medications;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        DroneModel[] models = DroneModel.values();
+        DroneState[] states = DroneState.values();
+        drones = new Drone[size];
+        medications = new Medication[size];
+        for (int i = 0; i < size; i++) {
+            DroneModel model = models[random.nextInt(models.length)];
+            drones[i] = Drone.builder()
+                    .id((long) i + 1)
+                    .serialNumber("DRN-" + i)
+                    .model(model)
+                    .weightLimit(model.getWeightLimit())
+                    .batteryCapacity(random.nextInt(101))
+                    .state(states[random.nextInt(states.length)])
+                    .currentLoad(random.nextInt(model.getWeightLimit() + 1))
+                    .build();
+            medications[i] = Medication.builder()
+                    .id((long) i + 1)
+                    .name("Medication-" + i)
+                    .code("MED_" + i)
+                    .weight(1 + random.nextInt(500))
+                    .imageHash(i % 2 == 0 ? String.format("%064x", i) : null)
+                    .imageSize(i % 2 == 0 ? 20_000L + random.nextInt(200_000) : null)
+                    .drone(random.nextBoolean() ? drones[random.nextInt(i + 1)] : null)
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public void droneToDTO(Blackhole blackhole) {
+        for (Drone drone : drones) {
+            blackhole.consume(DroneServiceImpl.convertToDTO(drone));
+        }
+    }
+
+    @Benchmark
+    public void medicationToDTO(Blackhole blackhole) {
+        for (Medication medication : medications) {
+            blackhole.consume(DroneServiceImpl.convertToMedicationDTO(medication));
+        }
+    }
+}
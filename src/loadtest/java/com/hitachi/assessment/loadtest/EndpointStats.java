@@ -0,0 +1,67 @@
+package com.hitachi.assessment.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram and outcome counts of one endpoint. Recording is wait-free, so clients never contend on it.
+final class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final String name;
+    private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    // status is the HTTP status, or 0 when the request did not complete
+    void record(long startNanos, int status) {
+        long micros = Math.min(MAX_LATENCY_MICROS, (System.nanoTime() - startNanos) / 1000);
+        recorder.recordValue(micros);
+        if (status >= 200 && status < 300) {
+            succeeded.increment();
+        } else if (status >= 400 && status < 500) {
+            rejected.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    // Drops everything recorded so far, e.g. at the end of the warm-up
+    void reset() {
+        recorder.getIntervalHistogram();
+        succeeded.reset();
+        rejected.reset();
+        failed.reset();
+    }
+
+    Map<String, Object> summarize(double seconds) {
+        Histogram histogram = recorder.getIntervalHistogram();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoint", name);
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("throughputPerSecond", histogram.getTotalCount() / seconds);
+        summary.put("succeeded", succeeded.sum());
+        summary.put("rejected", rejected.sum());
+        summary.put("failed", failed.sum());
+        summary.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+        summary.put("p90Ms", histogram.getValueAtPercentile(90) / 1000.0);
+        summary.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+        summary.put("p999Ms", histogram.getValueAtPercentile(99.9) / 1000.0);
+        summary.put("maxMs", histogram.getMaxValue() / 1000.0);
+        return summary;
+    }
+}
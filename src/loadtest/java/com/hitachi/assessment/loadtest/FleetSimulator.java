@@ -0,0 +1,324 @@
+package com.hitachi.assessment.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side model of the fleet that turns each operation of the mix into REST calls.
+ * <p>
+ * Drones move through queues that mirror their server state: idle drones get loaded, loaded drones are sent
+ * DELIVERING, and delivered drones are sent RETURNING. After the second trip leg the server's timer makes them
+ * IDLE again. Medications a drone delivered are deleted later by the medications operation, which frees the
+ * drone's capacity. Drones are charged back to 100% through telemetry every few trips, or after a load was
+ * rejected. This keeps the mix in a steady state however long the run is. An operation with nothing to work
+ * on returns false and sends no request.
+ */
+final class FleetSimulator {
+
+    private static final String[] MODELS = {"LIGHTWEIGHT", "MIDDLEWEIGHT", "CRUISERWEIGHT", "HEAVYWEIGHT"};
+    private static final int[] WEIGHT_LIMITS = {100, 250, 500, 1000};
+    private static final int TRIPS_PER_CHARGE = 3;
+    // Time the server's transition wheel may take beyond the leg duration
+    private static final long TIMER_SLACK_NANOS = Duration.ofMillis(250).toNanos();
+
+    private static final class SimDrone {
+        final long id;
+        final int weightLimit;
+        final AtomicInteger load = new AtomicInteger();
+        final List<SimMedication> cargo = new ArrayList<>();
+        volatile long phaseSince;
+        int tripsSinceCharge;
+
+        SimDrone(long id, int weightLimit) {
+            this.id = id;
+            this.weightLimit = weightLimit;
+        }
+    }
+
+    private record SimMedication(long id, int weight, SimDrone drone) {
+    }
+
+    private final HttpClient http;
+    private final URI base;
+    private final ObjectMapper json = new ObjectMapper();
+    private final long legNanos;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+
+    private final Queue<SimDrone> idle = new ConcurrentLinkedQueue<>();
+    private final Queue<SimDrone> loaded = new ConcurrentLinkedQueue<>();
+    private final Queue<SimDrone> delivering = new ConcurrentLinkedQueue<>();
+    private final Queue<SimDrone> returning = new ConcurrentLinkedQueue<>();
+    private final Queue<SimMedication> unassigned = new ConcurrentLinkedQueue<>();
+    private final Queue<SimMedication> delivered = new ConcurrentLinkedQueue<>();
+    private final AtomicLong highestMedicationId = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final EndpointStats loadStats = new EndpointStats("POST /api/drones/load");
+    private final EndpointStats stateStats = new EndpointStats("PUT /api/drones/{id}/state");
+    private final EndpointStats availableStats = new EndpointStats("GET /api/drones/available");
+    private final EndpointStats createMedicationStats = new EndpointStats("POST /api/medications");
+    private final EndpointStats getMedicationStats = new EndpointStats("GET /api/medications/{id}");
+    private final EndpointStats deleteMedicationStats = new EndpointStats("DELETE /api/medications/{id}");
+    private final EndpointStats telemetryStats = new EndpointStats("POST /api/telemetry");
+    private final EndpointStats seedStats = new EndpointStats("seed");
+
+    FleetSimulator(HttpClient http, URI base, Duration tripLeg) {
+        this.http = http;
+        this.base = base;
+        this.legNanos = tripLeg.toNanos();
+    }
+
+    Collection<EndpointStats> endpoints() {
+        return List.of(loadStats, stateStats, availableStats, createMedicationStats, getMedicationStats,
+                deleteMedicationStats, telemetryStats);
+    }
+
+    int idleDrones() {
+        return idle.size();
+    }
+
+    int unassignedMedications() {
+        return unassigned.size();
+    }
+
+    // Registers one drone of a random model with a full battery; returns false when the server refused it
+    boolean seedDrone(Random random) {
+        int model = random.nextInt(MODELS.length);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("serialNumber", "LT-" + runId + "-" + sequence.incrementAndGet());
+        body.put("model", MODELS[model]);
+        body.put("weightLimit", WEIGHT_LIMITS[model]);
+        body.put("batteryCapacity", 100);
+        body.put("state", "IDLE");
+        JsonNode created = send(seedStats, post("/api/drones", body));
+        if (created == null) {
+            return false;
+        }
+        idle.add(new SimDrone(created.get("id").asLong(), WEIGHT_LIMITS[model]));
+        return true;
+    }
+
+    boolean seedMedication(Random random) {
+        return createMedication(seedStats, random);
+    }
+
+    boolean run(HarnessConfig.Operation operation, Random random) {
+        return switch (operation) {
+            case LOAD -> load(random);
+            case STATE -> advanceTrip();
+            case AVAILABLE -> available(random);
+            case MEDICATIONS -> medications(random);
+        };
+    }
+
+    // Puts one to four unassigned medications that fit on the next idle drone
+    private boolean load(Random random) {
+        SimDrone drone = idle.poll();
+        if (drone == null) {
+            return false;
+        }
+        int room = drone.weightLimit - drone.load.get();
+        int wanted = 1 + random.nextInt(4);
+        List<SimMedication> picked = new ArrayList<>(wanted);
+        List<SimMedication> tooHeavy = new ArrayList<>();
+        int weight = 0;
+        for (int tries = 0; tries < wanted * 2 && picked.size() < wanted; tries++) {
+            SimMedication medication = unassigned.poll();
+            if (medication == null) {
+                break;
+            }
+            if (weight + medication.weight() <= room) {
+                picked.add(medication);
+                weight += medication.weight();
+            } else {
+                tooHeavy.add(medication);
+            }
+        }
+        unassigned.addAll(tooHeavy);
+        if (picked.isEmpty()) {
+            idle.add(drone);
+            return false;
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("droneId", drone.id);
+        body.put("medicationIds", picked.stream().map(SimMedication::id).toList());
+        if (send(loadStats, post("/api/drones/load", body)) != null) {
+            drone.load.addAndGet(weight);
+            picked.forEach(medication -> drone.cargo.add(new SimMedication(medication.id(), medication.weight(), drone)));
+            loaded.add(drone);
+        } else {
+            // Most rejections are battery ones; a charged drone can take the load next time round
+            unassigned.addAll(picked);
+            charge(drone);
+            idle.add(drone);
+        }
+        return true;
+    }
+
+    // Moves the oldest drone that can go on to its next state
+    private boolean advanceTrip() {
+        long now = System.nanoTime();
+        SimDrone drone = loaded.poll();
+        if (drone != null) {
+            if (send(stateStats, put("/api/drones/" + drone.id + "/state?state=DELIVERING")) != null) {
+                drone.phaseSince = now;
+                delivering.add(drone);
+            } else {
+                // The cargo stays on the server; the drone keeps it and delivers it on a later trip
+                idle.add(drone);
+            }
+            return true;
+        }
+
+        drone = pollDue(delivering, now);
+        if (drone != null) {
+            if (send(stateStats, put("/api/drones/" + drone.id + "/state?state=RETURNING")) != null) {
+                drone.phaseSince = now;
+                returning.add(drone);
+            } else {
+                // The server has not fired DELIVERED yet; try again later
+                delivering.add(drone);
+            }
+            return true;
+        }
+
+        // The server moves RETURNING drones to IDLE by itself; only the client model catches up here
+        drone = pollDue(returning, now);
+        if (drone == null) {
+            return false;
+        }
+        delivered.addAll(drone.cargo);
+        drone.cargo.clear();
+        if (++drone.tripsSinceCharge >= TRIPS_PER_CHARGE) {
+            charge(drone);
+        }
+        idle.add(drone);
+        return true;
+    }
+
+    private boolean available(Random random) {
+        String query = random.nextBoolean() ? "" : "?weight=" + (1 + random.nextInt(500));
+        send(availableStats, get("/api/drones/available" + query));
+        return true;
+    }
+
+    // Creates new stock, deletes delivered medications (freeing drone capacity), or reads one back
+    private boolean medications(Random random) {
+        double pick = random.nextDouble();
+        if (pick < 0.4) {
+            return createMedication(createMedicationStats, random);
+        }
+        if (pick < 0.8) {
+            SimMedication medication = delivered.poll();
+            if (medication == null) {
+                return createMedication(createMedicationStats, random);
+            }
+            if (send(deleteMedicationStats, delete("/api/medications/" + medication.id())) != null) {
+                medication.drone().load.addAndGet(-medication.weight());
+            }
+            return true;
+        }
+        long highest = highestMedicationId.get();
+        if (highest == 0) {
+            return false;
+        }
+        send(getMedicationStats, get("/api/medications/" + (1 + random.nextLong(highest))));
+        return true;
+    }
+
+    private boolean createMedication(EndpointStats stats, Random random) {
+        long n = sequence.incrementAndGet();
+        int weight = 10 + random.nextInt(191);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", "Load-" + runId + "-" + n);
+        body.put("code", "LT_" + runId + "_" + n);
+        body.put("weight", weight);
+        JsonNode created = send(stats, post("/api/medications", body));
+        if (created == null) {
+            return false;
+        }
+        long id = created.get("id").asLong();
+        highestMedicationId.accumulateAndGet(id, Math::max);
+        unassigned.add(new SimMedication(id, weight, null));
+        return true;
+    }
+
+    private void charge(SimDrone drone) {
+        Map<String, Object> reading = Map.of("droneId", drone.id, "batteryLevel", 100);
+        send(telemetryStats, post("/api/telemetry", List.of(reading)));
+        drone.tripsSinceCharge = 0;
+    }
+
+    private SimDrone pollDue(Queue<SimDrone> queue, long now) {
+        SimDrone head = queue.peek();
+        if (head == null || now - head.phaseSince < legNanos + TIMER_SLACK_NANOS) {
+            return null;
+        }
+        return queue.remove(head) ? head : null;
+    }
+
+    // Returns the parsed body of a 2xx response, an empty node for an empty body, or null otherwise
+    private JsonNode send(EndpointStats stats, HttpRequest request) {
+        long start = System.nanoTime();
+        int status = 0;
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            if (status < 200 || status >= 300) {
+                return null;
+            }
+            String body = response.body();
+            return body == null || body.isEmpty() ? json.createObjectNode() : json.readTree(body);
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            stats.record(start, status);
+        }
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return request(path).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body))).build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest put(String path) {
+        return request(path).PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest delete(String path) {
+        return request(path).DELETE().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(Duration.ofSeconds(30));
+    }
+}
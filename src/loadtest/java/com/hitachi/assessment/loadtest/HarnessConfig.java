@@ -0,0 +1,92 @@
+package com.hitachi.assessment.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Command line options of the load harness, all as --name=value
+record HarnessConfig(
+        String url,
+        int drones,
+        int medications,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        Duration tripLeg,
+        Map<Operation, Integer> mix,
+        String out) {
+
+    enum Operation {
+        LOAD, STATE, AVAILABLE, MEDICATIONS
+    }
+
+    static final String USAGE = """
+            Options (all optional):
+              --url=http://host:port   Drive an already running node instead of booting one on a free local port
+              --drones=1000            Drones to register before the run
+              --medications=5000       Medications to create before the run
+              --concurrency=64         Concurrent clients
+              --warmup=10s             Run time discarded before measuring
+              --duration=60s           Measured run time
+              --trip-leg=2s            DELIVERING and RETURNING time of the booted node
+              --mix=load=25,state=25,available=35,medications=15
+                                       Relative weights of the operations
+              --out=target/loadtest-result.json
+                                       Where to write the per-endpoint results as JSON""";
+
+    static HarnessConfig parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unrecognised argument: " + arg + "\n" + USAGE);
+            }
+            int split = arg.indexOf('=');
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        HarnessConfig config = new HarnessConfig(
+                options.remove("url"),
+                Integer.parseInt(options.getOrDefault("drones", "1000")),
+                Integer.parseInt(options.getOrDefault("medications", "5000")),
+                Integer.parseInt(options.getOrDefault("concurrency", "64")),
+                duration(options.getOrDefault("warmup", "10s")),
+                duration(options.getOrDefault("duration", "60s")),
+                duration(options.getOrDefault("trip-leg", "2s")),
+                mix(options.getOrDefault("mix", "load=25,state=25,available=35,medications=15")),
+                options.getOrDefault("out", "target/loadtest-result.json"));
+        options.keySet().removeAll(List.of("drones", "medications", "concurrency", "warmup", "duration",
+                "trip-leg", "mix", "out"));
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet() + "\n" + USAGE);
+        }
+        return config;
+    }
+
+    // 90s, 2m, 500ms, or plain seconds
+    private static Duration duration(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(v));
+    }
+
+    private static Map<Operation, Integer> mix(String value) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] kv = part.split("=");
+            weights.put(Operation.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(kv[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("The operation mix needs at least one positive weight");
+        }
+        return weights;
+    }
+}
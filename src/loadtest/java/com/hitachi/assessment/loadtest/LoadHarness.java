@@ -0,0 +1,223 @@
+package com.hitachi.assessment.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hitachi.assessment.AssessmentApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Closed-loop load harness for the REST API.
+ * <p>
+ * Boots the application on a free local port (or drives the node given by {@code --url}), registers the drones
+ * and medications, and then lets every client pick an operation from the weighted mix, run it and pick the next
+ * one without pausing. Results after the warm-up are reported per endpoint: request count, throughput, 2xx/4xx
+ * and failed counts, and HDR latency percentiles. They are printed as a table and written as JSON to
+ * {@code --out}.
+ * <p>
+ * Clients run on virtual threads when the JVM provides them (Java 21+) and on a platform thread each otherwise.
+ * <p>
+ * Run: {@code mvn -P loadtest test-compile exec:exec -Dloadtest.args="--drones=500 --duration=30s"}
+ */
+public class LoadHarness {
+
+    private static final long SKIP_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    public static void main(String[] args) throws Exception {
+        HarnessConfig config;
+        try {
+            config = HarnessConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        ConfigurableApplicationContext context = config.url() == null ? boot(config) : null;
+        try {
+            URI base = URI.create(context == null ? config.url()
+                    : "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+            run(config, base);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext boot(HarnessConfig config) throws IOException {
+        String historyDir = Files.createTempDirectory("loadtest-battery-history").toString();
+        String tripLegMs = Long.toString(config.tripLeg().toMillis());
+        return SpringApplication.run(AssessmentApplication.class,
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework=WARN",
+                "--drone.transition.delivering-ms=" + tripLegMs,
+                "--drone.transition.returning-ms=" + tripLegMs,
+                "--drone.battery.history.dir=" + historyDir);
+    }
+
+    private static void run(HarnessConfig config, URI base) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        FleetSimulator simulator = new FleetSimulator(http, base, config.tripLeg());
+        ExecutorService clients = clients(config.concurrency());
+        try {
+            System.out.printf("Seeding %d drones and %d medications on %s%n", config.drones(), config.medications(), base);
+            long seedStart = System.nanoTime();
+            int drones = seed(clients, config.concurrency(), config.drones(), simulator::seedDrone);
+            int medications = seed(clients, config.concurrency(), config.medications(), simulator::seedMedication);
+            System.out.printf("Seeded %d drones and %d medications in %.1fs%n", drones, medications,
+                    (System.nanoTime() - seedStart) / 1e9);
+
+            HarnessConfig.Operation[] mix = expand(config.mix());
+            LongAdder[] skipped = new LongAdder[HarnessConfig.Operation.values().length];
+            for (int i = 0; i < skipped.length; i++) {
+                skipped[i] = new LongAdder();
+            }
+            long end = System.nanoTime() + config.warmup().toNanos() + config.duration().toNanos();
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < config.concurrency(); i++) {
+                running.add(clients.submit(() -> drive(simulator, mix, skipped, end)));
+            }
+
+            System.out.printf("Warming up for %ds with %d clients%n", config.warmup().toSeconds(), config.concurrency());
+            Thread.sleep(config.warmup().toMillis());
+            simulator.endpoints().forEach(EndpointStats::reset);
+            for (LongAdder adder : skipped) {
+                adder.reset();
+            }
+            Instant measuredFrom = Instant.now();
+            System.out.printf("Measuring for %ds%n", config.duration().toSeconds());
+            for (Future<?> client : running) {
+                client.get();
+            }
+            double seconds = Duration.between(measuredFrom, Instant.now()).toNanos() / 1e9;
+
+            report(config, simulator, skipped, seconds);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    // Runs the operation until it succeeded count times, or gives up after as many failures
+    private static int seed(ExecutorService clients, int concurrency, int count, Predicate<Random> operation)
+            throws Exception {
+        AtomicInteger remaining = new AtomicInteger(count);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> seeding = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            seeding.add(clients.submit(() -> {
+                Random random = ThreadLocalRandom.current();
+                while (remaining.getAndDecrement() > 0) {
+                    if (operation.test(random)) {
+                        succeeded.incrementAndGet();
+                    } else if (failures.incrementAndGet() < count) {
+                        remaining.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : seeding) {
+            future.get();
+        }
+        return succeeded.get();
+    }
+
+    private static void drive(FleetSimulator simulator, HarnessConfig.Operation[] mix, LongAdder[] skipped, long end) {
+        Random random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+            HarnessConfig.Operation operation = mix[random.nextInt(mix.length)];
+            if (!simulator.run(operation, random)) {
+                // Nothing to do for this operation right now; back off briefly instead of spinning
+                skipped[operation.ordinal()].increment();
+                LockSupport.parkNanos(SKIP_BACKOFF_NANOS);
+            }
+        }
+    }
+
+    // One slot per unit of weight, so a uniform pick follows the mix
+    private static HarnessConfig.Operation[] expand(Map<HarnessConfig.Operation, Integer> weights) {
+        List<HarnessConfig.Operation> slots = new ArrayList<>();
+        weights.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        return slots.toArray(HarnessConfig.Operation[]::new);
+    }
+
+    private static void report(HarnessConfig config, FleetSimulator simulator, LongAdder[] skipped, double seconds)
+            throws IOException {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (EndpointStats stats : simulator.endpoints()) {
+            endpoints.add(stats.summarize(seconds));
+        }
+
+        System.out.printf("%n%-32s %9s %9s %8s %8s %7s %9s %9s %9s %9s %9s%n", "Endpoint", "Requests", "Req/s",
+                "2xx", "4xx", "Failed", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map<String, Object> e : endpoints) {
+            System.out.printf("%-32s %9d %9.1f %8d %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", e.get("endpoint"),
+                    e.get("requests"), e.get("throughputPerSecond"), e.get("succeeded"), e.get("rejected"),
+                    e.get("failed"), e.get("p50Ms"), e.get("p90Ms"), e.get("p99Ms"), e.get("p999Ms"), e.get("maxMs"));
+        }
+        Map<String, Long> skippedByOperation = new LinkedHashMap<>();
+        for (HarnessConfig.Operation operation : HarnessConfig.Operation.values()) {
+            skippedByOperation.put(operation.name().toLowerCase(), skipped[operation.ordinal()].sum());
+        }
+        System.out.printf("Skipped picks with nothing to do: %s (idle drones %d, unassigned medications %d)%n",
+                skippedByOperation, simulator.idleDrones(), simulator.unassignedMedications());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("drones", config.drones());
+        result.put("medications", config.medications());
+        result.put("concurrency", config.concurrency());
+        result.put("warmupSeconds", config.warmup().toSeconds());
+        result.put("measuredSeconds", seconds);
+        result.put("mix", config.mix());
+        result.put("endpoints", endpoints);
+        result.put("skipped", skippedByOperation);
+        File out = new File(config.out());
+        if (out.getParentFile() != null) {
+            Files.createDirectories(out.getParentFile().toPath());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out, result);
+        System.out.println("Results written to " + out.getPath());
+    }
+
+    // Virtual threads when the JVM has them; the application targets Java 17, so look them up reflectively
+    private static ExecutorService clients(int concurrency) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(concurrency);
+        }
+    }
+}
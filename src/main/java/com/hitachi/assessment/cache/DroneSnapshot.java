@@ -0,0 +1,18 @@
+package com.hitachi.assessment.cache;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+
+// Immutable copy of a drone as cached; every read gets a fresh DTO, so callers cannot change the cached values
+public record DroneSnapshot(Long id, String serialNumber, DroneModel model, Integer weightLimit,
+                            Integer batteryCapacity, DroneState state, Integer currentLoad) {
+
+    public static DroneSnapshot of(DroneDTO drone) {
+        return new DroneSnapshot(drone.getId(), drone.getSerialNumber(), drone.getModel(), drone.getWeightLimit(),
+                drone.getBatteryCapacity(), drone.getState(), drone.getCurrentLoad());
+    }
+
+    public DroneDTO toDTO() {
+        return new DroneDTO(id, serialNumber, model, weightLimit, batteryCapacity, state, currentLoad);
+    }
+}
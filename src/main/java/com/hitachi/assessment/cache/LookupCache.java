@@ -0,0 +1,100 @@
+package com.hitachi.assessment.cache;
+import com.hitachi.assessment.dto.CacheStatsDTO;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.MedicationChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.function.Supplier;
+
+// Read-through caches for the single-drone and single-medication lookups, keyed by id and by serial number or
+// code. Entries are dropped after the commit of any write that touches them: drone changes arrive as
+// DroneChangedEvent, and medication writes as MedicationChangedEvent with the drones whose load moved.
+@Component
+public class LookupCache {
+
+    private final SnapshotCache<DroneSnapshot> drones;
+    private final SnapshotCache<MedicationSnapshot> medications;
+
+    public LookupCache(MeterRegistry registry,
+                       @Value("${drone.cache.max-drones:10000}") int maxDrones,
+                       @Value("${drone.cache.max-medications:10000}") int maxMedications,
+                       @Value("${drone.cache.ttl-ms:30000}") long ttlMs) {
+        this.drones = new SnapshotCache<>("drones", maxDrones, ttlMs,
+                DroneSnapshot::id, DroneSnapshot::serialNumber);
+        this.medications = new SnapshotCache<>("medications", maxMedications, ttlMs,
+                MedicationSnapshot::id, MedicationSnapshot::code);
+        bind(registry, drones);
+        bind(registry, medications);
+    }
+
+    public DroneDTO drone(Long id, Supplier<DroneDTO> loader) {
+        return drones.get(id, () -> DroneSnapshot.of(loader.get())).toDTO();
+    }
+
+    public DroneDTO droneBySerialNumber(String serialNumber, Supplier<DroneDTO> loader) {
+        return drones.getByKey(serialNumber, () -> DroneSnapshot.of(loader.get())).toDTO();
+    }
+
+    public MedicationDTO medication(Long id, Supplier<MedicationDTO> loader) {
+        return medications.get(id, () -> MedicationSnapshot.of(loader.get())).toDTO();
+    }
+
+    public MedicationDTO medicationByCode(String code, Supplier<MedicationDTO> loader) {
+        return medications.getByKey(code, () -> MedicationSnapshot.of(loader.get())).toDTO();
+    }
+
+    public CacheStatsDTO getDroneStats() {
+        return drones.getStats();
+    }
+
+    public CacheStatsDTO getMedicationStats() {
+        return medications.getStats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDroneChanged(DroneChangedEvent event) {
+        event.getDrones().forEach(drone -> drones.invalidate(drone.getId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMedicationChanged(MedicationChangedEvent event) {
+        medications.invalidateAll(event.getMedicationIds());
+        drones.invalidateAll(event.getDroneIds());
+    }
+
+    // Same meter names as Micrometer's cache binders, so existing cache dashboards apply
+    private static void bind(MeterRegistry registry, SnapshotCache<?> cache) {
+        String name = cache.getName();
+        FunctionCounter.builder("cache.gets", cache, SnapshotCache::hits)
+                .tag("cache", name).tag("result", "hit")
+                .description("Lookups served from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, SnapshotCache::misses)
+                .tag("cache", name).tag("result", "miss")
+                .description("Lookups that went to the database")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, SnapshotCache::evictions)
+                .tag("cache", name)
+                .description("Entries evicted to make room")
+                .register(registry);
+        FunctionCounter.builder("cache.expirations", cache, SnapshotCache::expirations)
+                .tag("cache", name)
+                .description("Entries dropped after their TTL")
+                .register(registry);
+        FunctionCounter.builder("cache.invalidations", cache, SnapshotCache::invalidations)
+                .tag("cache", name)
+                .description("Entries invalidated by writes")
+                .register(registry);
+        Gauge.builder("cache.size", cache, SnapshotCache::size)
+                .tag("cache", name)
+                .description("Entries currently cached")
+                .register(registry);
+    }
+}
@@ -0,0 +1,24 @@
+package com.hitachi.assessment.cache;
+import com.hitachi.assessment.dto.MedicationDTO;
+
+// Immutable copy of a medication as cached, without the write-only image fields
+public record MedicationSnapshot(Long id, String name, Integer weight, String code, String imageUrl,
+                                 Long imageSize, Long droneId) {
+
+    public static MedicationSnapshot of(MedicationDTO medication) {
+        return new MedicationSnapshot(medication.getId(), medication.getName(), medication.getWeight(),
+                medication.getCode(), medication.getImageUrl(), medication.getImageSize(), medication.getDroneId());
+    }
+
+    public MedicationDTO toDTO() {
+        return MedicationDTO.builder()
+                .id(id)
+                .name(name)
+                .weight(weight)
+                .code(code)
+                .imageUrl(imageUrl)
+                .imageSize(imageSize)
+                .droneId(droneId)
+                .build();
+    }
+}
@@ -0,0 +1,250 @@
+package com.hitachi.assessment.cache;
+
+import com.hitachi.assessment.dto.CacheStatsDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Bounded read-through cache of immutable snapshots by id or unique key: LRU segments locked separately, a TTL on
+// every entry, and a load that raced with an invalidation of its segment is returned but not cached.
+public class SnapshotCache<V> {
+
+    private static final int SEGMENTS = 16;
+
+    private record Entry<V>(V value, String key, long expiresAt) {
+    }
+
+    private final class Segment extends LinkedHashMap<Long, Entry<V>> {
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry<V>> eldest) {
+            if (size() <= capacity) {
+                return false;
+            }
+            unmapKey(eldest.getValue(), eldest.getKey());
+            evictions.increment();
+            return true;
+        }
+    }
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Function<V, Long> idOf;
+    private final Function<V, String> keyOf;
+    private final LongSupplier clock;
+
+    private final Segment[] segments;
+    // Bumped under the segment lock by every invalidation, read without it before a load
+    private final AtomicLongArray generations = new AtomicLongArray(SEGMENTS);
+    private final Map<String, Long> idByKey = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public SnapshotCache(String name, int maxSize, long ttlMs, Function<V, Long> idOf, Function<V, String> keyOf) {
+        this(name, maxSize, ttlMs, idOf, keyOf, System::nanoTime);
+    }
+
+    SnapshotCache(String name, int maxSize, long ttlMs, Function<V, Long> idOf, Function<V, String> keyOf,
+                  LongSupplier clock) {
+        if (maxSize < 1 || ttlMs < 1) {
+            throw new IllegalArgumentException("Cache " + name + " needs a positive size and TTL");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.idOf = idOf;
+        this.keyOf = keyOf;
+        this.clock = clock;
+        this.segments = new SnapshotCache.Segment[SEGMENTS];
+        int perSegment = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public V get(Long id, Supplier<V> loader) {
+        V cached = lookup(id);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long generation = generations.get(segmentIndex(id));
+        V loaded = loader.get();
+        store(loaded, generation);
+        return loaded;
+    }
+
+    public V getByKey(String key, Supplier<V> loader) {
+        Long id = idByKey.get(key);
+        V cached = id != null ? lookup(id) : null;
+        if (cached != null && key.equals(keyOf.apply(cached))) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        // The id, and so the segment, is only known after the load
+        long[] before = new long[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            before[i] = generations.get(i);
+        }
+        V loaded = loader.get();
+        if (loaded != null) {
+            store(loaded, before[segmentIndex(idOf.apply(loaded))]);
+        }
+        return loaded;
+    }
+
+    public void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+        int index = segmentIndex(id);
+        Segment segment = segments[index];
+        synchronized (segment) {
+            generations.incrementAndGet(index);
+            Entry<V> removed = segment.remove(id);
+            if (removed != null) {
+                unmapKey(removed, id);
+            }
+        }
+        invalidations.increment();
+    }
+
+    public void invalidateAll(Iterable<Long> ids) {
+        ids.forEach(this::invalidate);
+    }
+
+    public void clear() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            synchronized (segments[i]) {
+                generations.incrementAndGet(i);
+                segments[i].forEach((id, entry) -> unmapKey(entry, id));
+                segments[i].clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long expirations() {
+        return expirations.sum();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    public CacheStatsDTO getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        return CacheStatsDTO.builder()
+                .name(name)
+                .size(size())
+                .maxSize(maxSize)
+                .ttlMs(TimeUnit.NANOSECONDS.toMillis(ttlNanos))
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRatio(lookups == 0 ? 0.0 : (double) hitCount / lookups)
+                .evictions(evictions.sum())
+                .expirations(expirations.sum())
+                .invalidations(invalidations.sum())
+                .build();
+    }
+
+    private V lookup(Long id) {
+        Segment segment = segments[segmentIndex(id)];
+        synchronized (segment) {
+            Entry<V> entry = segment.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (clock.getAsLong() - entry.expiresAt() >= 0) {
+                segment.remove(id);
+                unmapKey(entry, id);
+                expirations.increment();
+                return null;
+            }
+            return entry.value();
+        }
+    }
+
+    // Caches the loaded value unless its segment was invalidated since the load started
+    private void store(V value, long generation) {
+        if (value == null) {
+            return;
+        }
+        Long id = idOf.apply(value);
+        String key = keyOf.apply(value);
+        int index = segmentIndex(id);
+        Segment segment = segments[index];
+        synchronized (segment) {
+            if (generations.get(index) != generation) {
+                return;
+            }
+            Entry<V> previous = segment.put(id, new Entry<>(value, key, clock.getAsLong() + ttlNanos));
+            if (previous != null && !Objects.equals(previous.key(), key)) {
+                unmapKey(previous, id);
+            }
+            if (key != null) {
+                idByKey.put(key, id);
+            }
+        }
+    }
+
+    private void unmapKey(Entry<V> entry, Long id) {
+        if (entry.key() != null) {
+            idByKey.remove(entry.key(), id);
+        }
+    }
+
+    private static int segmentIndex(Long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 60) & (SEGMENTS - 1);
+    }
+}
@@ -0,0 +1,24 @@
+package com.hitachi.assessment.controller;
+import com.hitachi.assessment.dto.DispatchPlanDTO;
+import com.hitachi.assessment.service.interfaces.IDispatchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/dispatch")
+@RequiredArgsConstructor
+public class DispatchController {
+
+    private final IDispatchService dispatchService;
+
+    @PostMapping("/plan")
+    public ResponseEntity<DispatchPlanDTO> plan() {
+        return ResponseEntity.ok(dispatchService.plan());
+    }
+
+    @PostMapping("/apply")
+    public ResponseEntity<DispatchPlanDTO> apply() {
+        return ResponseEntity.ok(dispatchService.apply());
+    }
+}
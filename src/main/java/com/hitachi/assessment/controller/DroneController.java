@@ -1,14 +1,36 @@
 package com.hitachi.assessment.controller;
+import com.hitachi.assessment.dto.BatteryHistoryDTO;
+import com.hitachi.assessment.dto.CacheStatsDTO;
+import com.hitachi.assessment.dto.DrainPredictionDTO;
+import com.hitachi.assessment.dto.DroneBatchRequestDTO;
+import com.hitachi.assessment.dto.DroneBatchResultDTO;
 import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.DronePageDTO;
+import com.hitachi.assessment.dto.ImportResultDTO;
 import com.hitachi.assessment.dto.LoadDroneRequestDTO;
+import com.hitachi.assessment.dto.LoadJobDTO;
 import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.dto.RetryStatsDTO;
+import com.hitachi.assessment.service.interfaces.IDroneBatchService;
 import com.hitachi.assessment.service.interfaces.IDroneService;
+import com.hitachi.assessment.service.interfaces.IExportService;
+import com.hitachi.assessment.service.interfaces.IImportService;
+import com.hitachi.assessment.service.interfaces.ILoadJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 
@@ -17,16 +39,42 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class DroneController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final IDroneService droneService;
+    private final IImportService importService;
+    private final IExportService exportService;
+    private final ILoadJobService loadJobService;
+    private final IDroneBatchService droneBatchService;
 
     @PostMapping
     public ResponseEntity<DroneDTO> registerDrone(@Valid @RequestBody DroneDTO droneDTO) {
         return new ResponseEntity<>(droneService.registerDrone(droneDTO), HttpStatus.CREATED);
     }
 
+    // Rows are validated and inserted one batch at a time; rejected rows are listed in the result
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ResponseEntity<ImportResultDTO> registerDrones(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(importService.importDrones(request.getInputStream()));
+    }
+
+    // Every drone as NDJSON or CSV, streamed from a database cursor; gzip when the client accepts it
+    @GetMapping("/export")
+    public void exportDrones(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        IExportService.Format exportFormat = IExportService.Format.of(format);
+        try (OutputStream out = ExportResponse.open(response, exportFormat, acceptEncoding, "drones")) {
+            exportService.exportDrones(exportFormat, out);
+        }
+    }
+
     @GetMapping
-    public ResponseEntity<List<DroneDTO>> getAllDrones() {
-        return ResponseEntity.ok(droneService.getAllDrones());
+    public ResponseEntity<DronePageDTO> getDrones(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(droneService.getDrones(cursor, size));
     }
 
     @GetMapping("/{id}")
@@ -40,8 +88,18 @@ public class DroneController {
     }
 
     @GetMapping("/available")
-    public ResponseEntity<List<DroneDTO>> getAvailableDrones() {
-        return ResponseEntity.ok(droneService.getAvailableDrones());
+    public ResponseEntity<List<DroneDTO>> getAvailableDrones(@RequestParam(required = false) Integer weight) {
+        return ResponseEntity.ok(droneService.getAvailableDrones(weight));
+    }
+
+    @GetMapping("/best-fit")
+    public ResponseEntity<DroneDTO> findBestFitDrone(@RequestParam int weight) {
+        return ResponseEntity.ok(droneService.findBestFitDrone(weight));
+    }
+
+    @GetMapping("/battery/low")
+    public ResponseEntity<List<DroneDTO>> getLowBatteryDrones() {
+        return ResponseEntity.ok(droneService.getLowBatteryDrones());
     }
 
     @PostMapping("/load")
@@ -49,6 +107,31 @@ public class DroneController {
         return ResponseEntity.ok(droneService.loadDrone(loadRequest));
     }
 
+    // Queued for the load workers; poll the Location, or follow the drone's job events on /api/drones/events
+    @PostMapping("/load/async")
+    public ResponseEntity<LoadJobDTO> loadDroneAsync(@Valid @RequestBody LoadDroneRequestDTO loadRequest) {
+        LoadJobDTO job = loadJobService.submit(loadRequest);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    // Load and state-transition commands for many drones, applied in order in one transaction; one result per command
+    @PostMapping("/batch")
+    public ResponseEntity<DroneBatchResultDTO> executeBatch(@Valid @RequestBody DroneBatchRequestDTO batchRequest) {
+        return ResponseEntity.ok(droneBatchService.execute(batchRequest.getCommands()));
+    }
+
+    @GetMapping("/load/stats")
+    public ResponseEntity<RetryStatsDTO> getLoadRetryStats() {
+        return ResponseEntity.ok(droneService.getLoadRetryStats());
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(droneService.getCacheStats());
+    }
+
     @GetMapping("/{id}/medications")
     public ResponseEntity<List<MedicationDTO>> getDroneMedications(@PathVariable Long id) {
         return ResponseEntity.ok(droneService.getDroneMedications(id));
@@ -64,6 +147,20 @@ public class DroneController {
         ));
     }
 
+    @GetMapping("/{id}/battery/drain")
+    public ResponseEntity<DrainPredictionDTO> predictDrain(@PathVariable Long id, @RequestParam int load) {
+        return ResponseEntity.ok(droneService.predictDrain(id, load));
+    }
+
+    @GetMapping("/{id}/battery/history")
+    public ResponseEntity<BatteryHistoryDTO> getBatteryHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) Duration step) {
+        return ResponseEntity.ok(droneService.getBatteryHistory(id, from, to, step));
+    }
+
     @PutMapping("/{id}/state")
     public ResponseEntity<DroneDTO> updateDroneState(
             @PathVariable Long id,
@@ -0,0 +1,26 @@
+package com.hitachi.assessment.controller;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.stream.DroneEventBroadcaster;
+import com.hitachi.assessment.stream.DroneEventFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/drones/events")
+@RequiredArgsConstructor
+public class DroneEventController {
+
+    private final DroneEventBroadcaster broadcaster;
+
+    // Browsers' EventSource sends Last-Event-ID by itself when it reconnects
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam(required = false) Set<Long> droneIds,
+                                   @RequestParam(required = false) Set<DroneState> states,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return broadcaster.subscribe(new DroneEventFilter(droneIds, states), lastEventId);
+    }
+}
@@ -0,0 +1,25 @@
+package com.hitachi.assessment.controller;
+import com.hitachi.assessment.dto.LoadJobDTO;
+import com.hitachi.assessment.dto.LoadJobStatsDTO;
+import com.hitachi.assessment.service.interfaces.ILoadJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class LoadJobController {
+
+    private final ILoadJobService loadJobService;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<LoadJobDTO> getJob(@PathVariable String id) {
+        return ResponseEntity.ok(loadJobService.getJob(id));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<LoadJobStatsDTO> getStats() {
+        return ResponseEntity.ok(loadJobService.getStats());
+    }
+}
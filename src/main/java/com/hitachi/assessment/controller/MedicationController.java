@@ -1,7 +1,15 @@
 package com.hitachi.assessment.controller;
+import com.hitachi.assessment.dto.CacheStatsDTO;
+import com.hitachi.assessment.dto.ImportResultDTO;
 import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.service.interfaces.IExportService;
+import com.hitachi.assessment.service.interfaces.IImportService;
 import com.hitachi.assessment.service.interfaces.IMedicationService;
+import com.hitachi.assessment.storage.StoredImage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -9,6 +17,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.util.List;
 
 @RestController
@@ -16,7 +27,12 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MedicationController {
 
+    private static final String CSV = "text/csv";
+    private static final String NDJSON = "application/x-ndjson";
+
     private final IMedicationService medicationService;
+    private final IImportService importService;
+    private final IExportService exportService;
 
     @PostMapping
     public ResponseEntity<MedicationDTO> createMedication(@Valid @RequestBody MedicationDTO medicationDTO) {
@@ -41,6 +57,30 @@ public class MedicationController {
         return new ResponseEntity<>(medicationService.createMedication(medicationDTO), HttpStatus.CREATED);
     }
 
+    // Catalog upsert by code; rows are validated and written one batch at a time, rejected rows are listed
+    @PostMapping(value = "/import", consumes = CSV)
+    public ResponseEntity<ImportResultDTO> importMedicationsCsv(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(importService.importMedicationsCsv(request.getInputStream()));
+    }
+
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ResponseEntity<ImportResultDTO> importMedications(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(importService.importMedications(request.getInputStream()));
+    }
+
+    // Every medication as NDJSON or CSV, streamed from a database cursor; images=false leaves out the image columns
+    @GetMapping("/export")
+    public void exportMedications(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "true") boolean images,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        IExportService.Format exportFormat = IExportService.Format.of(format);
+        try (OutputStream out = ExportResponse.open(response, exportFormat, acceptEncoding, "medications")) {
+            exportService.exportMedications(exportFormat, images, out);
+        }
+    }
+
     @GetMapping
     public ResponseEntity<List<MedicationDTO>> getAllMedications() {
         return ResponseEntity.ok(medicationService.getAllMedications());
@@ -51,11 +91,58 @@ public class MedicationController {
         return ResponseEntity.ok(medicationService.getMedicationById(id));
     }
 
+    // Streams the stored image with ETag revalidation and single byte-range support
+    @GetMapping("/{id}/image")
+    public void getMedicationImage(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletResponse response) throws IOException {
+
+        StoredImage image = medicationService.getMedicationImage(id);
+        String etag = "\"" + image.hash() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(etag))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long size = image.size();
+        long start = 0;
+        long end = size - 1;
+        if (range != null) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == null) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            start = bounds[0];
+            end = bounds[1];
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        } else {
+            response.setStatus(HttpStatus.OK.value());
+        }
+
+        long length = end - start + 1;
+        response.setContentType(medicationService.getImageContentType(image));
+        response.setContentLengthLong(length);
+        medicationService.writeImage(image, start, length, Channels.newChannel(response.getOutputStream()));
+    }
+
     @GetMapping("/code/{code}")
     public ResponseEntity<MedicationDTO> getMedicationByCode(@PathVariable String code) {
         return ResponseEntity.ok(medicationService.getMedicationByCode(code));
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(medicationService.getCacheStats());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<MedicationDTO> updateMedication(
             @PathVariable Long id,
@@ -68,4 +155,29 @@ public class MedicationController {
         medicationService.deleteMedication(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Parses a single "bytes=a-b", "bytes=a-" or "bytes=-n" range; returns null when it cannot be served
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.contains(",") || size == 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String from = spec.substring(0, dash).trim();
+            String to = spec.substring(dash + 1).trim();
+            if (from.isEmpty()) {
+                long suffix = Long.parseLong(to);
+                return suffix <= 0 ? null : new long[]{Math.max(0, size - suffix), size - 1};
+            }
+            long start = Long.parseLong(from);
+            long end = to.isEmpty() ? size - 1 : Math.min(Long.parseLong(to), size - 1);
+            return start > end || start >= size ? null : new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.hitachi.assessment.controller;
+import com.hitachi.assessment.dto.TelemetryIngestResultDTO;
+import com.hitachi.assessment.dto.TelemetryStatsDTO;
+import com.hitachi.assessment.service.interfaces.ITelemetryService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/telemetry")
+@RequiredArgsConstructor
+public class TelemetryController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ITelemetryService telemetryService;
+
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ResponseEntity<TelemetryIngestResultDTO> ingestJson(HttpServletRequest request) throws IOException {
+        return accepted(telemetryService.ingestJson(request.getInputStream()));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<TelemetryIngestResultDTO> ingestBinary(HttpServletRequest request) throws IOException {
+        return accepted(telemetryService.ingestBinary(request.getInputStream()));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<TelemetryStatsDTO> getStats() {
+        return ResponseEntity.ok(telemetryService.getStats());
+    }
+
+    // Readings are written behind, so success is 202; a full buffer asks the sender to back off. A malformed body
+    // is a 400 that still reports the readings queued before the error.
+    private ResponseEntity<TelemetryIngestResultDTO> accepted(TelemetryIngestResultDTO result) {
+        if (result.getError() != null) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        if (result.getDropped() > 0) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(result);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+    }
+}
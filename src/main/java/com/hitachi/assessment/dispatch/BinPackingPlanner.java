@@ -0,0 +1,204 @@
+package com.hitachi.assessment.dispatch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Packs medications onto drones with first-fit-decreasing followed by a swap-based local search.
+ * <p>
+ * Items are placed heaviest first into the first drone (largest capacity first) that still has room.
+ * The first-fit lookup is a max segment tree over remaining capacities, so placing n items on m drones
+ * costs O(n log m). When items are left over, the local search swaps a packed item for a heavier
+ * unpacked one wherever the drone's slack allows it, which only ever raises the packed weight, and
+ * then retries the items it displaced.
+ */
+public class BinPackingPlanner {
+
+    private static final int MAX_IMPROVEMENT_PASSES = 3;
+
+    private final ForkJoinPool pool;
+
+    public BinPackingPlanner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public PackingPlan plan(List<PackItem> items, List<PackBin> bins) {
+        return pool.submit(() -> new Run(items, bins).execute()).join();
+    }
+
+    // Mutable state of a single planning run; confined to one task in the pool
+    private static final class Run {
+
+        private final List<PackItem> items;
+        private final List<PackBin> bins;
+        private final int[] remaining;
+        private final int[][] binItems;
+        private final int[] binItemCount;
+        private final int treeSize;
+        private final int[] tree;
+        private final TreeMap<Integer, ArrayDeque<Integer>> unplanned = new TreeMap<>();
+
+        Run(List<PackItem> items, List<PackBin> bins) {
+            this.items = items;
+
+            // Bins ordered by capacity, largest first, so heavy items land where they fit best
+            long[] binKeys = sortedKeys(bins.size(), i -> bins.get(i).capacity());
+            this.bins = new ArrayList<>(bins.size());
+            for (long key : binKeys) {
+                this.bins.add(bins.get((int) key));
+            }
+
+            int m = this.bins.size();
+            this.remaining = new int[m];
+            this.binItems = new int[m][];
+            this.binItemCount = new int[m];
+            int size = 1;
+            while (size < Math.max(1, m)) {
+                size <<= 1;
+            }
+            this.treeSize = size;
+            this.tree = new int[2 * size];
+            for (int i = 0; i < m; i++) {
+                remaining[i] = this.bins.get(i).capacity();
+                binItems[i] = new int[4];
+                tree[size + i] = remaining[i];
+            }
+            for (int node = size - 1; node > 0; node--) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        PackingPlan execute() {
+            long[] itemKeys = sortedKeys(items.size(), i -> items.get(i).weight());
+            for (long key : itemKeys) {
+                int item = (int) key;
+                if (!place(item)) {
+                    unplanned.computeIfAbsent(weight(item), w -> new ArrayDeque<>()).add(item);
+                }
+            }
+
+            for (int pass = 0; pass < MAX_IMPROVEMENT_PASSES && !unplanned.isEmpty(); pass++) {
+                if (!improve()) {
+                    break;
+                }
+            }
+            return toPlan();
+        }
+
+        // First-fit: leftmost bin in capacity order with enough room
+        private boolean place(int item) {
+            int weight = weight(item);
+            if (tree[1] < weight) {
+                return false;
+            }
+            int node = 1;
+            while (node < treeSize) {
+                node = tree[2 * node] >= weight ? 2 * node : 2 * node + 1;
+            }
+            int bin = node - treeSize;
+            add(bin, item);
+            setRemaining(bin, remaining[bin] - weight);
+            return true;
+        }
+
+        // Swap packed items for heavier unplanned ones that still fit, then retry whatever was displaced
+        private boolean improve() {
+            boolean improved = false;
+            for (int bin = 0; bin < bins.size() && !unplanned.isEmpty(); bin++) {
+                for (int slot = 0; slot < binItemCount[bin] && remaining[bin] > 0; slot++) {
+                    int packed = binItems[bin][slot];
+                    int packedWeight = weight(packed);
+                    Map.Entry<Integer, ArrayDeque<Integer>> candidate = unplanned.floorEntry(packedWeight + remaining[bin]);
+                    if (candidate == null || candidate.getKey() <= packedWeight) {
+                        continue;
+                    }
+                    int replacement = takeUnplanned(candidate);
+                    binItems[bin][slot] = replacement;
+                    setRemaining(bin, remaining[bin] - (weight(replacement) - packedWeight));
+                    unplanned.computeIfAbsent(packedWeight, w -> new ArrayDeque<>()).add(packed);
+                    improved = true;
+                }
+            }
+
+            List<Integer> retry = new ArrayList<>();
+            unplanned.descendingMap().values().forEach(retry::addAll);
+            unplanned.clear();
+            for (int item : retry) {
+                if (place(item)) {
+                    improved = true;
+                } else {
+                    unplanned.computeIfAbsent(weight(item), w -> new ArrayDeque<>()).add(item);
+                }
+            }
+            return improved;
+        }
+
+        private int takeUnplanned(Map.Entry<Integer, ArrayDeque<Integer>> entry) {
+            int item = entry.getValue().poll();
+            if (entry.getValue().isEmpty()) {
+                unplanned.remove(entry.getKey());
+            }
+            return item;
+        }
+
+        private void add(int bin, int item) {
+            if (binItemCount[bin] == binItems[bin].length) {
+                binItems[bin] = Arrays.copyOf(binItems[bin], binItems[bin].length * 2);
+            }
+            binItems[bin][binItemCount[bin]++] = item;
+        }
+
+        private void setRemaining(int bin, int value) {
+            remaining[bin] = value;
+            int node = treeSize + bin;
+            tree[node] = value;
+            for (node >>= 1; node > 0; node >>= 1) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        private int weight(int item) {
+            return items.get(item).weight();
+        }
+
+        private PackingPlan toPlan() {
+            List<PackedBin> packed = new ArrayList<>();
+            for (int bin = 0; bin < bins.size(); bin++) {
+                if (binItemCount[bin] == 0) {
+                    continue;
+                }
+                List<Long> ids = new ArrayList<>(binItemCount[bin]);
+                for (int slot = 0; slot < binItemCount[bin]; slot++) {
+                    ids.add(items.get(binItems[bin][slot]).id());
+                }
+                PackBin source = bins.get(bin);
+                packed.add(new PackedBin(source.id(), source.capacity(), source.capacity() - remaining[bin], ids));
+            }
+
+            int unplannedItems = 0;
+            long unplannedWeight = 0;
+            for (Map.Entry<Integer, ArrayDeque<Integer>> entry : unplanned.entrySet()) {
+                unplannedItems += entry.getValue().size();
+                unplannedWeight += (long) entry.getKey() * entry.getValue().size();
+            }
+            return new PackingPlan(packed, unplannedItems, unplannedWeight);
+        }
+
+        // Indices ordered by descending value (ties by index), sorted in parallel as packed primitive keys
+        private static long[] sortedKeys(int count, IntUnaryOperator value) {
+            return IntStream.range(0, count)
+                    .parallel()
+                    .mapToLong(i -> ((long) (Integer.MAX_VALUE - value.applyAsInt(i)) << 32) | i)
+                    .sorted()
+                    .map(key -> key & 0xFFFFFFFFL)
+                    .toArray();
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.hitachi.assessment.dispatch;
+
+// A dispatchable drone and the weight it can still take
+public record PackBin(Long id, Integer capacity) {
+}
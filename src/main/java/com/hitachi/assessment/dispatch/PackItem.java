@@ -0,0 +1,5 @@
+package com.hitachi.assessment.dispatch;
+
+// A medication waiting for a drone, reduced to what the planner needs
+public record PackItem(Long id, Integer weight) {
+}
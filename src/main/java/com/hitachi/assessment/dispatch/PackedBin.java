@@ -0,0 +1,7 @@
+package com.hitachi.assessment.dispatch;
+
+import java.util.List;
+
+// One drone's share of a plan: the medications to put on it and their total weight
+public record PackedBin(Long binId, int capacity, int load, List<Long> itemIds) {
+}
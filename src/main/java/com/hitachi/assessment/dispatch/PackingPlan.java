@@ -0,0 +1,18 @@
+package com.hitachi.assessment.dispatch;
+
+import java.util.List;
+
+public record PackingPlan(List<PackedBin> bins, int unplannedItems, long unplannedWeight) {
+
+    public long plannedWeight() {
+        return bins.stream().mapToLong(PackedBin::load).sum();
+    }
+
+    public long usedCapacity() {
+        return bins.stream().mapToLong(PackedBin::capacity).sum();
+    }
+
+    public int plannedItems() {
+        return bins.stream().mapToInt(bin -> bin.itemIds().size()).sum();
+    }
+}
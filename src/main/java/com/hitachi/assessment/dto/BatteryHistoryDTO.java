@@ -0,0 +1,26 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatteryHistoryDTO {
+
+    private Long droneId;
+
+    private Instant from;
+
+    private Instant to;
+
+    private long stepMs;
+
+    // Buckets holding at least one sample, oldest first
+    private List<BatteryHistoryPointDTO> points;
+}
@@ -0,0 +1,26 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatteryHistoryPointDTO {
+
+    // Start of the bucket
+    private Instant timestamp;
+
+    private int min;
+
+    private int max;
+
+    private double avg;
+
+    // Samples in the bucket
+    private int samples;
+}
@@ -0,0 +1,38 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsDTO {
+
+    private String name;
+
+    // Entries cached now, and the most the cache holds
+    private int size;
+
+    private int maxSize;
+
+    // How long an entry is served before it is read again
+    private long ttlMs;
+
+    private long hits;
+
+    private long misses;
+
+    // hits / (hits + misses)
+    private double hitRatio;
+
+    // Entries dropped to make room
+    private long evictions;
+
+    // Entries dropped because they outlived the TTL
+    private long expirations;
+
+    // Invalidations by the write paths
+    private long invalidations;
+}
@@ -0,0 +1,36 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DispatchPlanDTO {
+
+    // One load per drone that receives medications
+    private List<LoadDroneRequestDTO> loads;
+
+    private int dronesUsed;
+
+    private int medicationsPlanned;
+
+    // Medications that did not fit on any dispatchable drone
+    private int medicationsUnplanned;
+
+    private long plannedWeight;
+
+    private long unplannedWeight;
+
+    // Planned weight over the free capacity of the drones used, between 0 and 1
+    private double utilization;
+
+    private long planningTimeMs;
+
+    // False for a dry run, true once the loads were written
+    private boolean applied;
+}
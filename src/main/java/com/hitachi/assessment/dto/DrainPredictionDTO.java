@@ -0,0 +1,29 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DrainPredictionDTO {
+
+    private Long droneId;
+
+    // Total load of the trip in grams
+    private int load;
+
+    // Battery percentage points the trip is expected to use
+    private double predictedDrain;
+
+    // Battery level the drone would land with, from its current level
+    private double batteryAfter;
+
+    // Whether batteryAfter stays at or above the reserve level
+    private boolean feasible;
+
+    // Completed trips behind the prediction; 0 means the drone model's prior
+    private int trips;
+}
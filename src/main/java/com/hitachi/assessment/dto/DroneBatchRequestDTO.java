@@ -0,0 +1,21 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DroneBatchRequestDTO {
+
+    // Applied in order; a command sees the effect of the ones before it
+    @NotEmpty(message = "At least one command must be provided")
+    private List<@NotNull(message = "A command must not be null") @Valid DroneCommandDTO> commands;
+}
@@ -0,0 +1,25 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DroneBatchResultDTO {
+
+    private int received;
+
+    private int applied;
+
+    private int rejected;
+
+    // One per command, in request order
+    private List<DroneCommandResultDTO> results;
+
+    private long elapsedMs;
+}
@@ -0,0 +1,28 @@
+package com.hitachi.assessment.dto;
+import com.hitachi.assessment.model.DroneCommandType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DroneCommandDTO {
+
+    @NotNull(message = "Command type is required")
+    private DroneCommandType type;
+
+    @NotNull(message = "Drone ID is required")
+    private Long droneId;
+
+    // LOAD only
+    private List<Long> medicationIds;
+
+    // TRANSITION only; the state to move the drone to
+    private String state;
+}
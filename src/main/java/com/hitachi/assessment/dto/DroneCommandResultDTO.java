@@ -0,0 +1,30 @@
+package com.hitachi.assessment.dto;
+import com.hitachi.assessment.model.DroneCommandType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DroneCommandResultDTO {
+
+    // 0-based position of the command in the request
+    private int index;
+
+    private DroneCommandType type;
+
+    private Long droneId;
+
+    private boolean applied;
+
+    // The drone right after this command; null when the command was rejected
+    private DroneDTO drone;
+
+    // Why the command was rejected, and the matching drone.rejections reason tag
+    private String error;
+
+    private String reason;
+}
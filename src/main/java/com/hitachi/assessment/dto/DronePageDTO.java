@@ -0,0 +1,21 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DronePageDTO {
+
+    private List<DroneDTO> content;
+
+    private int size;
+
+    // Opaque token to pass as "cursor" for the next page, null on the last page
+    private String nextCursor;
+}
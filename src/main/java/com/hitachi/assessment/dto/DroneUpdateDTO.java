@@ -0,0 +1,40 @@
+package com.hitachi.assessment.dto;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DroneUpdateDTO {
+
+    private Long droneId;
+
+    private String serialNumber;
+
+    private DroneModel model;
+
+    private DroneState state;
+
+    // Null when the stream has not seen this drone before
+    private DroneState previousState;
+
+    private Integer currentLoad;
+
+    private Integer weightLimit;
+
+    private Integer batteryCapacity;
+
+    // STATE, LOAD and/or BATTERY; all three for a drone the stream has not seen before
+    private List<String> changes;
+
+    // When the change was published, after its commit
+    private Instant timestamp;
+}
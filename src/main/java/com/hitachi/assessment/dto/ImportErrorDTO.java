@@ -0,0 +1,20 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportErrorDTO {
+
+    // 1-based position of the row in the body
+    private long row;
+
+    // Serial number or code of the row, when it had one
+    private String key;
+
+    private String message;
+}
@@ -0,0 +1,33 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportResultDTO {
+
+    // Rows read from the body
+    private long received;
+
+    private long created;
+
+    // Existing rows changed by an upsert, and rows that matched what is stored
+    private long updated;
+
+    private long unchanged;
+
+    private long rejected;
+
+    // Rejected rows, in body order; only the first drone.import.max-errors rejections are listed
+    private List<ImportErrorDTO> errors;
+
+    private boolean errorsTruncated;
+
+    private long elapsedMs;
+}
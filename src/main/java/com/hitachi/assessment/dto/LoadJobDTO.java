@@ -0,0 +1,37 @@
+package com.hitachi.assessment.dto;
+import com.hitachi.assessment.model.LoadJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoadJobDTO {
+
+    private String id;
+
+    private LoadJobStatus status;
+
+    private Long droneId;
+
+    private List<Long> medicationIds;
+
+    // The loaded drone, once the job succeeded
+    private DroneDTO drone;
+
+    // Why the load was refused, as the synchronous endpoint would have said it
+    private String error;
+
+    // Machine-readable cause of a failure: overloaded, low_battery, invalid_state, ... (as in drone_rejections)
+    private String reason;
+
+    private Instant submittedAt;
+
+    private Instant completedAt;
+}
@@ -0,0 +1,33 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoadJobStatsDTO {
+
+    // Jobs accepted onto the queue
+    private long submitted;
+
+    // Submissions refused with 429 because the queue was full or the service was shutting down
+    private long rejected;
+
+    private long succeeded;
+
+    private long failed;
+
+    // Per-drone groups applied, each in one transaction
+    private long batches;
+
+    // Groups rolled back by a concurrent update and applied again one request at a time
+    private long fallbacks;
+
+    // Jobs waiting for a worker (approximate)
+    private long queued;
+
+    private long queueCapacity;
+}
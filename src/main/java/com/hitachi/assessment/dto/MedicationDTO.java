@@ -1,4 +1,5 @@
 package com.hitachi.assessment.dto;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -29,8 +30,14 @@ public class MedicationDTO {
     @Pattern(regexp = "^[A-Z0-9_]+$", message = "Code can only contain uppercase letters, underscore and numbers")
     private String code;
 
+    // Accepted on create/update only; responses link to the image instead
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String imageBase64;
 
+    private String imageUrl;
+
+    private Long imageSize;
+
     private MultipartFile imageFile;
 
     private Long droneId;
@@ -0,0 +1,27 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RetryStatsDTO {
+
+    // Calls made through the retry template
+    private long executions;
+
+    // Transaction attempts, including the first try of each call
+    private long attempts;
+
+    // Attempts that hit an optimistic locking conflict
+    private long conflicts;
+
+    // Calls that gave up after the last attempt
+    private long exhausted;
+
+    // conflicts / attempts
+    private double conflictRate;
+}
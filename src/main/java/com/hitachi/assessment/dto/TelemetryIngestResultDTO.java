@@ -0,0 +1,24 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TelemetryIngestResultDTO {
+
+    // Readings queued for writing
+    private long accepted;
+
+    // Readings skipped for a missing drone id or a battery level outside 0-100
+    private long invalid;
+
+    // Readings refused because the ingest buffer was full; resend them later
+    private long dropped;
+
+    // Why the body stopped being read; the counts above cover everything read before it
+    private String error;
+}
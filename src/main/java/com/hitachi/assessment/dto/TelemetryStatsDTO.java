@@ -0,0 +1,31 @@
+package com.hitachi.assessment.dto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TelemetryStatsDTO {
+
+    // Readings accepted into the ring buffer
+    private long received;
+
+    // Readings refused because the ring buffer was full
+    private long dropped;
+
+    // Readings superseded by a newer reading for the same drone, or older than the one already written
+    private long coalesced;
+
+    // Drone rows updated by flushes
+    private long written;
+
+    private long flushes;
+
+    // Readings waiting in the ring buffer (approximate)
+    private long buffered;
+
+    private long bufferCapacity;
+}
@@ -0,0 +1,14 @@
+package com.hitachi.assessment.event;
+import lombok.Value;
+
+// Published when a drone's battery crosses the low-battery threshold in either direction
+@Value
+public class BatteryAlertEvent {
+
+    public enum Kind { LOW, RECOVERED }
+
+    Kind kind;
+    Long droneId;
+    String serialNumber;
+    int batteryCapacity;
+}
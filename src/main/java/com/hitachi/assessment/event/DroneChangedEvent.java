@@ -0,0 +1,34 @@
+package com.hitachi.assessment.event;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.model.Drone;
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.List;
+
+// Published after a drone's state, battery or load changes; carries detached snapshots of the new values
+@Value
+public class DroneChangedEvent {
+
+    List<DroneDTO> drones;
+
+    public static DroneChangedEvent of(Drone drone) {
+        return new DroneChangedEvent(List.of(snapshot(drone)));
+    }
+
+    public static DroneChangedEvent of(Collection<Drone> drones) {
+        return new DroneChangedEvent(drones.stream().map(DroneChangedEvent::snapshot).toList());
+    }
+
+    private static DroneDTO snapshot(Drone drone) {
+        return DroneDTO.builder()
+                .id(drone.getId())
+                .serialNumber(drone.getSerialNumber())
+                .model(drone.getModel())
+                .weightLimit(drone.getWeightLimit())
+                .batteryCapacity(drone.getBatteryCapacity())
+                .state(drone.getState())
+                .currentLoad(drone.getCurrentWeight())
+                .build();
+    }
+}
@@ -0,0 +1,10 @@
+package com.hitachi.assessment.event;
+import com.hitachi.assessment.dto.LoadJobDTO;
+import lombok.Value;
+
+// Published once an asynchronous load job has succeeded or failed, after its transaction has ended
+@Value
+public class LoadJobCompletedEvent {
+
+    LoadJobDTO job;
+}
@@ -0,0 +1,25 @@
+package com.hitachi.assessment.event;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+// Published when medications are created, changed, assigned to a drone or deleted. Lists the medications and
+// the drones whose current load changed with them.
+@Value
+public class MedicationChangedEvent {
+
+    List<Long> medicationIds;
+    List<Long> droneIds;
+
+    public static MedicationChangedEvent of(Long medicationId, Long... droneIds) {
+        return new MedicationChangedEvent(List.of(medicationId),
+                Arrays.stream(droneIds).filter(Objects::nonNull).distinct().toList());
+    }
+
+    public static MedicationChangedEvent assigned(Collection<Long> medicationIds) {
+        return new MedicationChangedEvent(List.copyOf(medicationIds), List.of());
+    }
+}
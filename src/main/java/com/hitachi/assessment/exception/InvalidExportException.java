@@ -0,0 +1,11 @@
+package com.hitachi.assessment.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidExportException extends RuntimeException {
+    public InvalidExportException(String message) {
+        super(message);
+    }
+}
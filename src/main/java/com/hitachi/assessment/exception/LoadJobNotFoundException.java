@@ -0,0 +1,11 @@
+package com.hitachi.assessment.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class LoadJobNotFoundException extends RuntimeException {
+    public LoadJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.hitachi.assessment.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class MedicationAlreadyAssignedException extends RuntimeException {
+    public MedicationAlreadyAssignedException(String message) {
+        super(message);
+    }
+}
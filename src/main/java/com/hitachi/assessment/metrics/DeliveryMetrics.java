@@ -0,0 +1,169 @@
+package com.hitachi.assessment.metrics;
+import com.hitachi.assessment.exception.*;
+import com.hitachi.assessment.model.DroneState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers and counters for the delivery hot paths.
+ * <p>
+ * Every operation is timed with a percentile histogram and tagged with its outcome: {@code success}, or the
+ * rejection reason derived from the exception that ended it. Rejections are also counted on their own so
+ * rejection rates by cause need no histogram queries. Meters are created on first use and cached, so the
+ * cost per call is a map lookup and the recording itself.
+ */
+@Component
+public class DeliveryMetrics {
+
+    public static final String SUCCESS = "success";
+
+    private static final Map<Class<? extends RuntimeException>, String> REJECTION_REASONS = Map.ofEntries(
+            Map.entry(DroneOverloadedException.class, "overloaded"),
+            Map.entry(DroneLowBatteryException.class, "low_battery"),
+            Map.entry(DroneStateException.class, "invalid_state"),
+            Map.entry(DroneNotFoundException.class, "drone_not_found"),
+            Map.entry(MedicationNotFoundException.class, "medication_not_found"),
+            Map.entry(MedicationAlreadyAssignedException.class, "already_assigned"),
+            Map.entry(ConcurrentUpdateException.class, "conflict"),
+            Map.entry(ImageTooLargeException.class, "image_too_large"),
+            Map.entry(UploadCapacityExceededException.class, "upload_capacity"));
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final DistributionSummary imageSizes;
+    private final Timer transitionBatches;
+
+    public DeliveryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.imageSizes = DistributionSummary.builder("medication.image.size")
+                .description("Size of stored medication images")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.transitionBatches = Timer.builder("drone.transition.batch")
+                .description("Time to apply one tick of timed drone transitions")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public static String rejectionReason(RuntimeException e) {
+        return REJECTION_REASONS.getOrDefault(e.getClass(), "error");
+    }
+
+    // drone.operations{operation, outcome}, plus drone.rejections{operation, reason} when the action throws
+    public <T> T recordDroneOperation(String operation, Supplier<T> action) {
+        return record("drone", operation, action);
+    }
+
+    // Same meters, for a step inside a larger transaction: recorded only once that transaction commits, so a step
+    // whose work is rolled back and applied again elsewhere is not counted twice
+    public <T> T recordDroneOperationOnCommit(String operation, Supplier<T> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return recordDroneOperation(operation, action);
+        }
+        long start = System.nanoTime();
+        String[] outcome = {"error"};
+        try {
+            T result = action.get();
+            outcome[0] = SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            outcome[0] = rejectionReason(e);
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordOutcome("drone", operation, outcome[0], elapsed);
+                }
+            });
+        }
+    }
+
+    public <T> T recordMedicationOperation(String operation, Supplier<T> action) {
+        return record("medication", operation, action);
+    }
+
+    // drone.scheduler.task{task, outcome}; a failing task is timed and rethrown
+    public void recordSchedulerTask(String task, Runnable action) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            action.run();
+            outcome = SUCCESS;
+        } finally {
+            timer("drone.scheduler.task", "task", task, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // One tick of the transition wheel, and how many drones each transition moved
+    public void recordTransitionBatch(long durationNanos) {
+        transitionBatches.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTransitions(DroneState from, DroneState to, int drones) {
+        if (drones > 0) {
+            counter("drone.transitions", "from", from.name(), "to", to.name()).increment(drones);
+        }
+    }
+
+    // import.rows{entity, outcome}, moved as each import batch commits so a running import shows its progress
+    public void recordImportedRows(String entity, String outcome, long rows) {
+        if (rows > 0) {
+            counter("import.rows", "entity", entity, "outcome", outcome).increment(rows);
+        }
+    }
+
+    public void recordImageSize(long bytes) {
+        imageSizes.record(bytes);
+    }
+
+    private <T> T record(String domain, String operation, Supplier<T> action) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = action.get();
+            outcome = SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = rejectionReason(e);
+            throw e;
+        } finally {
+            recordOutcome(domain, operation, outcome, System.nanoTime() - start);
+        }
+    }
+
+    private void recordOutcome(String domain, String operation, String outcome, long durationNanos) {
+        if (!SUCCESS.equals(outcome)) {
+            counter(domain + ".rejections", "operation", operation, "reason", outcome).increment();
+        }
+        timer(domain + ".operations", "operation", operation, outcome).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String name, String key, String value, String outcome) {
+        return timers.computeIfAbsent(name + '|' + value + '|' + outcome, k -> Timer.builder(name)
+                .tag(key, value)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private Counter counter(String name, String key1, String value1, String key2, String value2) {
+        return counters.computeIfAbsent(name + '|' + value1 + '|' + value2, k -> Counter.builder(name)
+                .tag(key1, value1)
+                .tag(key2, value2)
+                .register(registry));
+    }
+}
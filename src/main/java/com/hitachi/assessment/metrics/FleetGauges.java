@@ -0,0 +1,108 @@
+package com.hitachi.assessment.metrics;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fleet composition as gauges: drone.fleet.drones{state, model, battery} counts drones per state, model and
+// battery band. The counts are moved one drone at a time from change events, so a scrape reads counters and
+// never queries the database. Every combination is registered up front so empty cells report 0.
+@Component
+@Slf4j
+public class FleetGauges {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    // Battery bands by lower bound: 0-24, 25-49, 50-74, 75-100
+    private static final String[] BANDS = {"0-24", "25-49", "50-74", "75-100"};
+
+    private final DroneRepository droneRepository;
+    private final AtomicInteger[] cells;
+    private final Map<Long, Integer> cellByDrone = new HashMap<>();
+
+    public FleetGauges(DroneRepository droneRepository, MeterRegistry registry) {
+        this.droneRepository = droneRepository;
+        this.cells = new AtomicInteger[DroneState.values().length * DroneModel.values().length * BANDS.length];
+        for (DroneState state : DroneState.values()) {
+            for (DroneModel model : DroneModel.values()) {
+                for (int band = 0; band < BANDS.length; band++) {
+                    AtomicInteger cell = new AtomicInteger();
+                    cells[index(state, model, band)] = cell;
+                    Gauge.builder("drone.fleet.drones", cell, AtomicInteger::get)
+                            .description("Drones per state, model and battery band")
+                            .tag("state", state.name())
+                            .tag("model", model.name())
+                            .tag("battery", BANDS[band])
+                            .register(registry);
+                }
+            }
+        }
+    }
+
+    public int count(DroneState state, DroneModel model, int batteryLevel) {
+        return cells[index(state, model, band(batteryLevel))].get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDroneChanged(DroneChangedEvent event) {
+        event.getDrones().forEach(this::update);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        cellByDrone.clear();
+        for (AtomicInteger cell : cells) {
+            cell.set(0);
+        }
+
+        long afterId = 0L;
+        List<DroneDTO> page;
+        do {
+            page = droneRepository.findPageAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+            page.forEach(this::update);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+
+        log.info("Fleet gauges rebuilt for {} drones", cellByDrone.size());
+    }
+
+    // Moves the drone from its previous cell to the one matching the snapshot
+    synchronized void update(DroneDTO drone) {
+        if (drone.getState() == null || drone.getModel() == null || drone.getBatteryCapacity() == null) {
+            return;
+        }
+        int cell = index(drone.getState(), drone.getModel(), band(drone.getBatteryCapacity()));
+        Integer previous = cellByDrone.put(drone.getId(), cell);
+        if (previous != null && previous == cell) {
+            return;
+        }
+        if (previous != null) {
+            cells[previous].decrementAndGet();
+        }
+        cells[cell].incrementAndGet();
+    }
+
+    private static int band(int batteryLevel) {
+        return Math.max(0, Math.min(BANDS.length - 1, batteryLevel / 25));
+    }
+
+    private static int index(DroneState state, DroneModel model, int band) {
+        return (state.ordinal() * DroneModel.values().length + model.ordinal()) * BANDS.length + band;
+    }
+}
@@ -3,6 +3,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
@@ -17,11 +19,17 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@DynamicUpdate // Entity saves write only changed columns, so they never clobber telemetry battery updates
 @Table(name = "drones")
 public class Drone {
 
+    public static final String ID_SEQUENCE = "drone_seq";
+    public static final int ID_BLOCK_SIZE = 50;
+
+    // Sequence ids handed out in blocks, so inserts can be batched; bulk imports draw from the same generator
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_BLOCK_SIZE)
     private Long id;
 
     @NotNull
@@ -47,14 +55,27 @@ public class Drone {
     @Enumerated(EnumType.STRING)
     private DroneState state;
 
+    // Total weight of loaded medications in grams. Never written by entity flushes; it is only
+    // changed through the atomic increments in DroneRepository so concurrent writers cannot lose updates.
+    @NotNull
+    @Min(0)
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "current_load", nullable = false, updatable = false)
+    private Integer currentLoad = 0;
+
+    // Optimistic lock: entity writes fail if another transaction changed the drone since it was read
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "drone", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Medication> medications = new ArrayList<>();
 
-    // Helper method to calculate current load weight
+    // Helper method to get current load weight
     public int getCurrentWeight() {
-        return medications.stream()
-                .mapToInt(Medication::getWeight)
-                .sum();
+        return currentLoad != null ? currentLoad : 0;
     }
 
     // Helper method to check if drone can be loaded
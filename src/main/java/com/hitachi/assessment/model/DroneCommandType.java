@@ -0,0 +1,6 @@
+package com.hitachi.assessment.model;
+
+public enum DroneCommandType {
+    LOAD,
+    TRANSITION
+}
@@ -1,10 +1,47 @@
 package com.hitachi.assessment.model;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum DroneState {
     IDLE,
     LOADING,
     LOADED,
     DELIVERING,
     DELIVERED,
-    RETURNING
+    RETURNING;
+
+    private Set<DroneState> successors;
+    private Set<DroneState> predecessors;
+
+    // Allowed transitions; predecessors are derived so the two views can never disagree
+    static {
+        IDLE.successors = EnumSet.of(LOADING);
+        LOADING.successors = EnumSet.of(LOADED, IDLE);
+        LOADED.successors = EnumSet.of(DELIVERING, IDLE);
+        DELIVERING.successors = EnumSet.of(DELIVERED);
+        DELIVERED.successors = EnumSet.of(RETURNING);
+        RETURNING.successors = EnumSet.of(IDLE);
+
+        for (DroneState state : values()) {
+            state.predecessors = EnumSet.noneOf(DroneState.class);
+        }
+        for (DroneState state : values()) {
+            state.successors.forEach(next -> next.predecessors.add(state));
+        }
+        for (DroneState state : values()) {
+            state.successors = Collections.unmodifiableSet(state.successors);
+            state.predecessors = Collections.unmodifiableSet(state.predecessors);
+        }
+    }
+
+    public boolean canTransitionTo(DroneState next) {
+        return successors.contains(next);
+    }
+
+    // States a drone may be in for a transition into this state to be valid
+    public Set<DroneState> predecessors() {
+        return predecessors;
+    }
 }
@@ -0,0 +1,12 @@
+package com.hitachi.assessment.model;
+
+public enum LoadJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
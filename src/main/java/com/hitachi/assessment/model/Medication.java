@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
@@ -13,7 +14,8 @@ import jakarta.validation.constraints.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "medications")
+// Looked up by code for single reads and for every chunk of a catalog import
+@Table(name = "medications", indexes = @Index(name = "idx_medications_code", columnList = "code"))
 public class Medication {
 
     @Id
@@ -32,9 +34,17 @@ public class Medication {
     @Pattern(regexp = "^[A-Z0-9_]+$", message = "Code can only contain uppercase letters, underscore and numbers")
     private String code;
 
-    @Lob
-    @Column(name = "image_data", length = 1000)
-    private byte[] image;
+    // SHA-256 of the image in the ImageStore; the bytes themselves never live in this table
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
+    @Column(name = "image_size")
+    private Long imageSize;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "drone_id")
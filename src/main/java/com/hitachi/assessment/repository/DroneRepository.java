@@ -1,10 +1,18 @@
 package com.hitachi.assessment.repository;
 
+import com.hitachi.assessment.dto.DroneDTO;
 import com.hitachi.assessment.model.Drone;
 import com.hitachi.assessment.model.DroneState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +26,92 @@ public interface DroneRepository extends JpaRepository<Drone, Long> {
     List<Drone> findByStateAndBatteryCapacityGreaterThanEqual(DroneState state, Integer batteryCapacity);
 
     List<Drone> findByBatteryCapacityLessThan(Integer batteryThreshold);
+
+    // Moves the drone to newState only if it is currently in one of the allowed states; returns rows changed
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Drone d SET d.state = :newState, d.version = d.version + 1 " +
+            "WHERE d.id = :id AND d.state IN :allowedStates")
+    int compareAndSetState(@Param("id") Long id,
+                           @Param("allowedStates") Collection<DroneState> allowedStates,
+                           @Param("newState") DroneState newState);
+
+    // Same as compareAndSetState, also draining the battery by the given amount (never below 0)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Drone d SET d.state = :newState, d.version = d.version + 1, " +
+            "d.batteryCapacity = CASE WHEN d.batteryCapacity > :reduction THEN d.batteryCapacity - :reduction ELSE 0 END " +
+            "WHERE d.id = :id AND d.state IN :allowedStates")
+    int compareAndSetStateAndDrainBattery(@Param("id") Long id,
+                                          @Param("allowedStates") Collection<DroneState> allowedStates,
+                                          @Param("newState") DroneState newState,
+                                          @Param("reduction") int reduction);
+
+    // Those of the given drones still in the given state, row-locked so a bulk transition changes exactly these rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d.id FROM Drone d WHERE d.id IN :ids AND d.state = :state ORDER BY d.id")
+    List<Long> lockIdsInState(@Param("ids") Collection<Long> ids, @Param("state") DroneState state);
+
+    // Bulk form of compareAndSetState for a chunk of drones that are all expected in currentState
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Drone d SET d.state = :newState, d.version = d.version + 1 " +
+            "WHERE d.id IN :ids AND d.state = :currentState")
+    int transitionAll(@Param("ids") Collection<Long> ids,
+                      @Param("currentState") DroneState currentState,
+                      @Param("newState") DroneState newState);
+
+    // Bulk form of compareAndSetStateAndDrainBattery
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Drone d SET d.state = :newState, d.version = d.version + 1, " +
+            "d.batteryCapacity = CASE WHEN d.batteryCapacity > :reduction THEN d.batteryCapacity - :reduction ELSE 0 END " +
+            "WHERE d.id IN :ids AND d.state = :currentState")
+    int transitionAllAndDrainBattery(@Param("ids") Collection<Long> ids,
+                                     @Param("currentState") DroneState currentState,
+                                     @Param("newState") DroneState newState,
+                                     @Param("reduction") int reduction);
+
+    // Keyset page of drones after the given id, projected straight into DTOs
+    @Query("SELECT new com.hitachi.assessment.dto.DroneDTO(d.id, d.serialNumber, d.model, d.weightLimit, " +
+            "d.batteryCapacity, d.state, d.currentLoad) " +
+            "FROM Drone d WHERE d.id > :afterId ORDER BY d.id")
+    List<DroneDTO> findPageAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT new com.hitachi.assessment.dto.DroneDTO(d.id, d.serialNumber, d.model, d.weightLimit, " +
+            "d.batteryCapacity, d.state, d.currentLoad) " +
+            "FROM Drone d WHERE d.id IN :ids")
+    List<DroneDTO> findSnapshotsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // IDLE drones with enough battery and room left, as input for the dispatch planner
+    @Query("SELECT new com.hitachi.assessment.dto.DroneDTO(d.id, d.serialNumber, d.model, d.weightLimit, " +
+            "d.batteryCapacity, d.state, d.currentLoad) " +
+            "FROM Drone d WHERE d.state = com.hitachi.assessment.model.DroneState.IDLE " +
+            "AND d.batteryCapacity >= :minBattery AND d.currentLoad < d.weightLimit")
+    List<DroneDTO> findDispatchableDrones(@Param("minBattery") int minBattery);
+
+    // Adds weight to the drone's load only if it still fits; returns 0 when the limit would be exceeded
+    @Modifying
+    @Query("UPDATE Drone d SET d.currentLoad = d.currentLoad + :weight " +
+            "WHERE d.id = :id AND d.currentLoad + :weight <= d.weightLimit")
+    int addLoadIfCapacity(@Param("id") Long id, @Param("weight") int weight);
+
+    @Modifying
+    @Query("UPDATE Drone d SET d.currentLoad = d.currentLoad + :delta WHERE d.id = :id")
+    int adjustCurrentLoad(@Param("id") Long id, @Param("delta") int delta);
+
+    // Removes a medication's weight from whichever drone carries it, without loading either entity
+    @Modifying
+    @Query("UPDATE Drone d SET d.currentLoad = d.currentLoad - " +
+            "(SELECT m.weight FROM Medication m WHERE m.id = :medicationId) " +
+            "WHERE d.id = (SELECT m.drone.id FROM Medication m WHERE m.id = :medicationId)")
+    int releaseMedicationLoad(@Param("medicationId") Long medicationId);
+
+    // Drones whose stored load no longer matches the sum of their medications
+    @Query(value = "SELECT d.id FROM drones d LEFT JOIN medications m ON m.drone_id = d.id " +
+            "GROUP BY d.id, d.current_load " +
+            "HAVING d.current_load <> COALESCE(SUM(m.weight), 0)", nativeQuery = true)
+    List<Long> findIdsWithLoadDrift();
+
+    @Modifying
+    @Query(value = "UPDATE drones d SET current_load = " +
+            "(SELECT COALESCE(SUM(m.weight), 0) FROM medications m WHERE m.drone_id = d.id) " +
+            "WHERE d.id IN (:ids)", nativeQuery = true)
+    int recomputeCurrentLoad(@Param("ids") List<Long> ids);
 }
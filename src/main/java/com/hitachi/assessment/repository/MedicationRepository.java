@@ -1,8 +1,14 @@
 package com.hitachi.assessment.repository;
+import com.hitachi.assessment.dispatch.PackItem;
+import com.hitachi.assessment.model.Drone;
 import com.hitachi.assessment.model.Medication;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +18,14 @@ public interface MedicationRepository extends JpaRepository<Medication, Long> {
     List<Medication> findByDroneId(Long droneId);
 
     Optional<Medication> findByCode(String code);
+
+    // Medications not yet on a drone, as input for the dispatch planner
+    @Query("SELECT new com.hitachi.assessment.dispatch.PackItem(m.id, m.weight) FROM Medication m WHERE m.drone IS NULL")
+    List<PackItem> findUnassignedItems();
+
+    // Assigns all listed medications to the drone in one statement, skipping any already on a drone
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Medication m SET m.drone = :drone, m.version = m.version + 1 " +
+            "WHERE m.id IN :ids AND m.drone IS NULL")
+    int assignToDrone(@Param("drone") Drone drone, @Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.hitachi.assessment.scheduler;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Moves a set of drones from one state to the next with set-based UPDATEs, one short transaction per chunk.
+// Each chunk's ids are row-locked before the update, so the returned ids are exactly the drones changed;
+// drones that already left the source state are skipped.
+@Component
+public class BulkStateTransitioner {
+
+    private final DroneRepository droneRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${drone.scheduler.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${drone.battery.reduction-per-delivery:10}")
+    private int batteryReductionPerDelivery;
+
+    public BulkStateTransitioner(DroneRepository droneRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager) {
+        this.droneRepository = droneRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Result transition(Collection<Long> droneIds, DroneState from, DroneState to) {
+        if (!from.canTransitionTo(to)) {
+            throw new IllegalArgumentException("Cannot transition drones from " + from + " to " + to);
+        }
+        List<Long> ids = new ArrayList<>(droneIds);
+        List<Long> transitioned = new ArrayList<>();
+        int chunks = 0;
+        for (int start = 0; start < ids.size(); start += chunkSize) {
+            List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + chunkSize));
+            List<Long> changed = transactionTemplate.execute(status -> transitionChunk(chunk, from, to));
+            chunks++;
+            if (changed != null) {
+                transitioned.addAll(changed);
+            }
+        }
+        return new Result(transitioned, chunks);
+    }
+
+    private List<Long> transitionChunk(List<Long> chunk, DroneState from, DroneState to) {
+        List<Long> ids = droneRepository.lockIdsInState(chunk, from);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Battery drains when a delivery completes
+        if (to == DroneState.DELIVERED) {
+            droneRepository.transitionAllAndDrainBattery(ids, from, to, batteryReductionPerDelivery);
+        } else {
+            droneRepository.transitionAll(ids, from, to);
+        }
+        eventPublisher.publishEvent(new DroneChangedEvent(droneRepository.findSnapshotsByIdIn(ids)));
+        return ids;
+    }
+
+    public record Result(List<Long> droneIds, int chunks) {
+    }
+}
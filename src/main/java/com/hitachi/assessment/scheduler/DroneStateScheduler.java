@@ -1,9 +1,13 @@
 package com.hitachi.assessment.scheduler;
-import com.hitachi.assessment.model.Drone;
-import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
 import com.hitachi.assessment.repository.DroneRepository;
+import com.hitachi.assessment.service.BatteryMonitor;
+import com.hitachi.assessment.storage.BatteryHistoryStore;
+import com.hitachi.assessment.stream.DroneEventBroadcaster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -18,61 +22,72 @@ import java.util.List;
 public class DroneStateScheduler {
 
     private final DroneRepository droneRepository;
+    private final DroneTransitionTimer transitionTimer;
+    private final BatteryMonitor batteryMonitor;
+    private final BatteryHistoryStore batteryHistoryStore;
+    private final DroneEventBroadcaster eventBroadcaster;
+    private final DeliveryMetrics metrics;
+    private final ApplicationEventPublisher eventPublisher;
 
-    // Run every minute
-    @Scheduled(fixedRate = 60000)
-    @Transactional(readOnly = true)
-    public void monitorDroneBattery() {
-        List<Drone> lowBatteryDrones = droneRepository.findByBatteryCapacityLessThan(25);
-
-        if (!lowBatteryDrones.isEmpty()) {
-            log.warn("Found {} drones with low battery level (<25%)", lowBatteryDrones.size());
-
-            lowBatteryDrones.forEach(drone ->
-                    log.warn("Drone {} (Serial: {}) has low battery: {}%",
-                            drone.getId(),
-                            drone.getSerialNumber(),
-                            drone.getBatteryCapacity())
-            );
-        }
+    // Battery alerts come from change events; this rare full pass only catches changes that bypassed them
+    @Scheduled(fixedRateString = "${drone.battery.reconcile-interval-ms:3600000}",
+            initialDelayString = "${drone.battery.reconcile-interval-ms:3600000}")
+    public void reconcileBatteryAlerts() {
+        metrics.recordSchedulerTask("battery_reconcile", () -> {
+            int crossings = batteryMonitor.reconcile();
+            if (crossings > 0) {
+                log.warn("Battery reconciliation found {} threshold crossings missed by change events", crossings);
+            }
+        });
     }
 
-    // Run every 2 minutes
-    @Scheduled(fixedRate = 120000)
+    // Repair any drift between the stored current load and the medications actually assigned
+    @Scheduled(fixedRateString = "${drone.load.reconcile-interval-ms:3600000}",
+            initialDelayString = "${drone.load.reconcile-interval-ms:3600000}")
     @Transactional
-    public void updateDroneStates() {
-        // Simulate state transitions for drones in various states
-        // This would be replaced with real logic based on actual drone status in a real system
+    public void reconcileCurrentLoad() {
+        metrics.recordSchedulerTask("load_reconcile", () -> {
+            List<Long> driftedDroneIds = droneRepository.findIdsWithLoadDrift();
 
-        // Example: Move DELIVERING drones to DELIVERED after a period
-        List<Drone> deliveringDrones = droneRepository.findByState(DroneState.DELIVERING);
-        if (!deliveringDrones.isEmpty()) {
-            log.info("Automatically transitioning {} drones from DELIVERING to DELIVERED state", deliveringDrones.size());
-
-            deliveringDrones.forEach(drone -> {
-                drone.setState(DroneState.DELIVERED);
-                // Reduce battery level after delivery
-                int newBatteryLevel = Math.max(0, drone.getBatteryCapacity() - 10);
-                drone.setBatteryCapacity(newBatteryLevel);
-                droneRepository.save(drone);
+            if (!driftedDroneIds.isEmpty()) {
+                int fixed = droneRepository.recomputeCurrentLoad(driftedDroneIds);
+                eventPublisher.publishEvent(new DroneChangedEvent(droneRepository.findSnapshotsByIdIn(driftedDroneIds)));
+                log.warn("Corrected current load drift on {} drones: {}", fixed, driftedDroneIds);
+            }
+        });
+    }
 
-                log.info("Drone {} (Serial: {}) transitioned to DELIVERED state, battery: {}%",
-                        drone.getId(), drone.getSerialNumber(), drone.getBatteryCapacity());
-            });
-        }
+    // Timed transitions fire from DroneTransitionTimer; this only picks up drones that entered a timed state
+    // without a change event reaching the timer
+    @Scheduled(fixedRateString = "${drone.transition.resync-interval-ms:600000}",
+            initialDelayString = "${drone.transition.resync-interval-ms:600000}")
+    public void resyncTimedTransitions() {
+        metrics.recordSchedulerTask("transition_resync", () -> {
+            int added = transitionTimer.resync();
+            if (added > 0) {
+                log.warn("Scheduled {} timed transitions that were missing from the transition wheel", added);
+            }
+        });
+    }
 
-        // Example: Move RETURNING drones back to IDLE
-        List<Drone> returningDrones = droneRepository.findByState(DroneState.RETURNING);
-        if (!returningDrones.isEmpty()) {
-            log.info("Automatically transitioning {} drones from RETURNING to IDLE state", returningDrones.size());
+    // Battery history is buffered in memory and appended to its column files in the background
+    @Scheduled(fixedDelayString = "${drone.battery.history.flush-interval-ms:5000}")
+    public void flushBatteryHistory() {
+        metrics.recordSchedulerTask("battery_history_flush", batteryHistoryStore::flush);
+    }
 
-            returningDrones.forEach(drone -> {
-                drone.setState(DroneState.IDLE);
-                droneRepository.save(drone);
+    @Scheduled(fixedRateString = "${drone.events.heartbeat-ms:15000}")
+    public void sendEventHeartbeats() {
+        metrics.recordSchedulerTask("event_heartbeat", eventBroadcaster::heartbeat);
+    }
 
-                log.info("Drone {} (Serial: {}) transitioned to IDLE state",
-                        drone.getId(), drone.getSerialNumber());
-            });
-        }
+    @Scheduled(fixedRateString = "${drone.battery.history.retention-check-ms:3600000}")
+    public void applyBatteryHistoryRetention() {
+        metrics.recordSchedulerTask("battery_history_retention", () -> {
+            int removed = batteryHistoryStore.applyRetention();
+            if (removed > 0) {
+                log.info("Removed {} expired battery history segments", removed);
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,159 @@
+package com.hitachi.assessment.scheduler;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Schedules each drone's automatic transition the moment it enters a timed state (DELIVERING, RETURNING)
+// and fires it once the model's configured duration has passed. Due drones are transitioned in one bulk
+// batch per source state. The wheel lives in memory and is rebuilt from the database on startup.
+@Component
+@Slf4j
+public class DroneTransitionTimer {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private static final Map<DroneState, DroneState> TIMED_TRANSITIONS = Map.of(
+            DroneState.DELIVERING, DroneState.DELIVERED,
+            DroneState.RETURNING, DroneState.IDLE);
+
+    private final DroneRepository droneRepository;
+    private final BulkStateTransitioner transitioner;
+    private final DeliveryMetrics metrics;
+    private final HashedTimingWheel<Long, DroneState> wheel;
+    private final Map<DroneState, Map<DroneModel, Long>> durations = new EnumMap<>(DroneState.class);
+    private final long retryMs;
+
+    public DroneTransitionTimer(DroneRepository droneRepository,
+                                BulkStateTransitioner transitioner,
+                                DeliveryMetrics metrics,
+                                Environment environment,
+                                @Value("${drone.transition.tick-ms:100}") long tickMs,
+                                @Value("${drone.transition.wheel-size:512}") int wheelSize,
+                                @Value("${drone.transition.retry-ms:1000}") long retryMs) {
+        this.droneRepository = droneRepository;
+        this.transitioner = transitioner;
+        this.metrics = metrics;
+        this.retryMs = retryMs;
+        this.wheel = new HashedTimingWheel<>(tickMs, wheelSize, this::fire);
+        for (DroneState state : TIMED_TRANSITIONS.keySet()) {
+            durations.put(state, loadDurations(environment, state));
+        }
+    }
+
+    // drone.transition.<state>-ms sets the default; drone.transition.<state>-ms.<MODEL> overrides it per model
+    private static Map<DroneModel, Long> loadDurations(Environment environment, DroneState state) {
+        String key = "drone.transition." + state.name().toLowerCase(Locale.ROOT) + "-ms";
+        long fallback = environment.getProperty(key, Long.class, 120_000L);
+        Map<DroneModel, Long> byModel = new EnumMap<>(DroneModel.class);
+        for (DroneModel model : DroneModel.values()) {
+            byModel.put(model, environment.getProperty(key + "." + model.name(), Long.class, fallback));
+        }
+        return byModel;
+    }
+
+    public long durationMs(DroneState state, DroneModel model) {
+        return durations.get(state).get(model);
+    }
+
+    public int pending() {
+        return wheel.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDroneChanged(DroneChangedEvent event) {
+        event.getDrones().forEach(this::track);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int scheduled = resync();
+        wheel.start("drone-transition-wheel");
+        log.info("Drone transition wheel started with {} pending transitions", scheduled);
+    }
+
+    // Puts every drone found in a timed state on the wheel unless it is already waiting there. The entry time of
+    // the state is not stored, so drones picked up here get their full duration from now.
+    public int resync() {
+        int added = 0;
+        long afterId = 0L;
+        List<DroneDTO> page;
+        do {
+            page = droneRepository.findPageAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+            for (DroneDTO drone : page) {
+                if (track(drone)) {
+                    added++;
+                }
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        return added;
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+    }
+
+    boolean track(DroneDTO drone) {
+        if (drone.getState() != null && TIMED_TRANSITIONS.containsKey(drone.getState())) {
+            return wheel.scheduleIfAbsent(drone.getId(), drone.getState(),
+                    durationMs(drone.getState(), drone.getModel()));
+        }
+        wheel.cancel(drone.getId());
+        return false;
+    }
+
+    // Runs on the wheel thread with everything that fell due in one tick. A state whose transition fails goes back
+    // on the wheel, otherwise its drones would wait for the next resync.
+    void fire(List<HashedTimingWheel.Expired<Long, DroneState>> due) {
+        long started = System.nanoTime();
+        Map<DroneState, List<Long>> byState = new EnumMap<>(DroneState.class);
+        due.forEach(expired -> byState.computeIfAbsent(expired.value(), s -> new ArrayList<>()).add(expired.key()));
+
+        int delivered = 0;
+        int returned = 0;
+        for (Map.Entry<DroneState, List<Long>> entry : byState.entrySet()) {
+            DroneState from = entry.getKey();
+            BulkStateTransitioner.Result result;
+            try {
+                result = transitioner.transition(entry.getValue(), from, TIMED_TRANSITIONS.get(from));
+            } catch (RuntimeException e) {
+                log.error("Timed transition of {} {} drones failed, retrying in {} ms",
+                        entry.getValue().size(), from, retryMs, e);
+                entry.getValue().forEach(id -> wheel.reschedule(id, from, retryMs));
+                continue;
+            }
+            metrics.recordTransitions(from, TIMED_TRANSITIONS.get(from), result.droneIds().size());
+            if (from == DroneState.DELIVERING) {
+                delivered += result.droneIds().size();
+            } else {
+                returned += result.droneIds().size();
+            }
+        }
+
+        long elapsed = System.nanoTime() - started;
+        metrics.recordTransitionBatch(elapsed);
+        log.debug("Transition batch: {} drones DELIVERING->DELIVERED, {} drones RETURNING->IDLE in {} ms",
+                delivered, returned, elapsed / 1_000_000);
+    }
+}
@@ -0,0 +1,206 @@
+package com.hitachi.assessment.scheduler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Hashed timing wheel with at most one timeout per key; scheduling and cancelling are O(1)
+// Buckets belong to the thread that advances the wheel, which hands each tick's expired timeouts over as one batch
+@Slf4j
+public class HashedTimingWheel<K, V> {
+
+    public record Expired<K, V>(K key, V value) {
+    }
+
+    private static final class Timeout<K, V> {
+
+        private final K key;
+        private final V value;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(K key, V value, long deadlineTick) {
+            this.key = key;
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<List<Timeout<K, V>>> buckets;
+    private final Map<K, Timeout<K, V>> scheduled = new ConcurrentHashMap<>();
+    private final Queue<Timeout<K, V>> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<Expired<K, V>>> onExpired;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+
+    private long currentTick;
+    private volatile Thread worker;
+
+    public HashedTimingWheel(long tickMs, int wheelSize, Consumer<List<Expired<K, V>>> onExpired) {
+        this(tickMs, wheelSize, onExpired, System::nanoTime);
+    }
+
+    HashedTimingWheel(long tickMs, int wheelSize, Consumer<List<Expired<K, V>>> onExpired, LongSupplier nanoClock) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMs);
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.onExpired = onExpired;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Schedules the key to expire after the delay unless it is already waiting with the same value.
+     * A waiting timeout with a different value is replaced. Returns whether a new timeout was scheduled.
+     */
+    public boolean scheduleIfAbsent(K key, V value, long delayMs) {
+        return schedule(key, value, delayMs, false);
+    }
+
+    /**
+     * Puts an expired key back on the wheel after the delay, unless a newer timeout is already waiting for it.
+     * Returns whether a new timeout was scheduled.
+     */
+    public boolean reschedule(K key, V value, long delayMs) {
+        return schedule(key, value, delayMs, true);
+    }
+
+    private boolean schedule(K key, V value, long delayMs, boolean keepAnyExisting) {
+        long deadlineTick = tickAt(nanoClock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs)));
+        Timeout<K, V> timeout = new Timeout<>(key, value, deadlineTick);
+        boolean[] added = {false};
+        scheduled.compute(key, (k, existing) -> {
+            if (existing != null && (keepAnyExisting || existing.value.equals(value))) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.cancelled = true;
+            }
+            added[0] = true;
+            return timeout;
+        });
+        if (added[0]) {
+            pending.add(timeout);
+        }
+        return added[0];
+    }
+
+    public void cancel(K key) {
+        Timeout<K, V> timeout = scheduled.remove(key);
+        if (timeout != null) {
+            timeout.cancelled = true;
+        }
+    }
+
+    public boolean isScheduled(K key) {
+        return scheduled.containsKey(key);
+    }
+
+    public int size() {
+        return scheduled.size();
+    }
+
+    public synchronized void start(String threadName) {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::run, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void stop() {
+        Thread running = worker;
+        worker = null;
+        if (running != null) {
+            running.interrupt();
+        }
+    }
+
+    // Expires everything due up to the current time and hands it to the callback as one batch
+    synchronized void advance() {
+        advanceTo(tickAt(nanoClock.getAsLong()));
+    }
+
+    private void advanceTo(long targetTick) {
+        if (targetTick <= currentTick) {
+            return;
+        }
+        transferPending();
+
+        // After a long stall every bucket is visited once at most; the deadline check below stays correct
+        List<Expired<K, V>> due = new ArrayList<>();
+        long from = Math.max(currentTick + 1, targetTick - mask);
+        for (long tick = from; tick <= targetTick; tick++) {
+            expireBucket(buckets.get((int) (tick & mask)), targetTick, due);
+        }
+        currentTick = targetTick;
+
+        if (!due.isEmpty()) {
+            onExpired.accept(due);
+        }
+    }
+
+    private void transferPending() {
+        Timeout<K, V> timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (!timeout.cancelled) {
+                long tick = Math.max(timeout.deadlineTick, currentTick + 1);
+                buckets.get((int) (tick & mask)).add(timeout);
+            }
+        }
+    }
+
+    private void expireBucket(List<Timeout<K, V>> bucket, long targetTick, List<Expired<K, V>> due) {
+        Iterator<Timeout<K, V>> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout<K, V> timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.deadlineTick <= targetTick) {
+                it.remove();
+                if (scheduled.remove(timeout.key, timeout)) {
+                    due.add(new Expired<>(timeout.key, timeout.value));
+                }
+            }
+        }
+    }
+
+    private void run() {
+        while (worker == Thread.currentThread()) {
+            long sleepNanos = startNanos + (currentTick + 1) * tickNanos - nanoClock.getAsLong();
+            try {
+                if (sleepNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }
+                advance();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Timing wheel callback failed", e);
+            }
+        }
+    }
+
+    private long tickAt(long nanos) {
+        // Round up so a timeout never fires before its delay has fully elapsed
+        return (nanos - startNanos + tickNanos - 1) / tickNanos;
+    }
+}
@@ -0,0 +1,179 @@
+package com.hitachi.assessment.service;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.model.DroneModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Predicts per drone how much battery a delivery trip with a given load drains, fitted over its completed trips
+// In memory only; the model starts from the per-model priors again after a restart
+@Component
+@Slf4j
+public class BatteryDrainModel {
+
+    private final Map<Long, Fit> fits = new ConcurrentHashMap<>();
+    private final Map<Long, Trip> openTrips = new ConcurrentHashMap<>();
+
+    @Value("${drone.battery.drain.prior-base:5}")
+    private double priorBase;
+
+    @Value("${drone.battery.drain.prior-full-load:10}")
+    private double priorFullLoad;
+
+    @Value("${drone.battery.drain.prior-weight:1}")
+    private double priorWeight;
+
+    @Value("${drone.battery.drain.forgetting:0.9}")
+    private double forgetting;
+
+    @Value("${drone.battery.reserve-level:15}")
+    private int reserveLevel;
+
+    // Battery percentage points the drone is expected to use for a trip carrying the load
+    public double predictedDrain(Long droneId, DroneModel model, int load) {
+        Fit fit = fits.get(droneId);
+        Coefficients coefficients = fit != null ? fit.coefficients : prior(model);
+        return Math.max(0.0, coefficients.intercept() + coefficients.slope() * load);
+    }
+
+    // Whether the drone can fly the load and still land with at least the reserve level
+    public boolean canComplete(Long droneId, DroneModel model, int battery, int load) {
+        return battery - predictedDrain(droneId, model, load) >= reserveLevel;
+    }
+
+    // Heaviest total load up to the weight limit that the drone can still complete; currentLoad when nothing more fits
+    public int maxCompletableLoad(Long droneId, DroneModel model, int battery, int currentLoad, int weightLimit) {
+        int lightest = currentLoad + 1;
+        if (lightest > weightLimit) {
+            return currentLoad;
+        }
+        // The drain is linear in the load, so whichever end costs more decides; falling drain is worst when lightest
+        if (predictedDrain(droneId, model, weightLimit) < predictedDrain(droneId, model, lightest)) {
+            return canComplete(droneId, model, battery, lightest) ? weightLimit : currentLoad;
+        }
+        int low = currentLoad;
+        int high = weightLimit;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (canComplete(droneId, model, battery, mid)) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    public boolean canComplete(DroneDTO drone, int load) {
+        return drone.getBatteryCapacity() != null
+                && canComplete(drone.getId(), drone.getModel(), drone.getBatteryCapacity(), load);
+    }
+
+    // Completed trips the drone's model has learned from
+    public int trips(Long droneId) {
+        Fit fit = fits.get(droneId);
+        return fit != null ? fit.coefficients.trips() : 0;
+    }
+
+    public int getReserveLevel() {
+        return reserveLevel;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDroneChanged(DroneChangedEvent event) {
+        event.getDrones().forEach(this::observe);
+    }
+
+    void observe(DroneDTO drone) {
+        if (drone.getState() == null || drone.getBatteryCapacity() == null) {
+            return;
+        }
+        switch (drone.getState()) {
+            // Later snapshots in the same trip, e.g. from telemetry, keep the starting point
+            case DELIVERING -> openTrips.putIfAbsent(drone.getId(),
+                    new Trip(drone.getBatteryCapacity(), drone.getCurrentLoad() != null ? drone.getCurrentLoad() : 0));
+            case DELIVERED, RETURNING -> {
+            }
+            case IDLE -> {
+                Trip trip = openTrips.remove(drone.getId());
+                if (trip != null) {
+                    completeTrip(drone, trip);
+                }
+            }
+            default -> openTrips.remove(drone.getId());
+        }
+    }
+
+    private void completeTrip(DroneDTO drone, Trip trip) {
+        int drain = trip.battery() - drone.getBatteryCapacity();
+        // A battery that ends higher than it started was charged on the way; that trip says nothing about drain
+        if (drain < 0 || drone.getModel() == null) {
+            return;
+        }
+        fits.computeIfAbsent(drone.getId(), id -> new Fit(drone.getModel())).add(trip.load(), drain);
+        log.debug("Drone {} used {}% carrying {}g, now predicts {}% for that load",
+                drone.getId(), drain, trip.load(), predictedDrain(drone.getId(), drone.getModel(), trip.load()));
+    }
+
+    private Coefficients prior(DroneModel model) {
+        return new Coefficients(priorBase, priorFullLoad / model.getWeightLimit(), 0);
+    }
+
+    private record Trip(int battery, int load) {
+    }
+
+    private record Coefficients(double intercept, double slope, int trips) {
+    }
+
+    // Decayed least-squares sums of one drone's trips; the prior is added when solving, so it never decays
+    private final class Fit {
+
+        private final DroneModel model;
+        private double n;
+        private double sumX;
+        private double sumY;
+        private double sumXX;
+        private double sumXY;
+        private int trips;
+        private volatile Coefficients coefficients;
+
+        private Fit(DroneModel model) {
+            this.model = model;
+            this.coefficients = prior(model);
+        }
+
+        synchronized void add(double load, double drain) {
+            n = n * forgetting + 1;
+            sumX = sumX * forgetting + load;
+            sumY = sumY * forgetting + drain;
+            sumXX = sumXX * forgetting + load * load;
+            sumXY = sumXY * forgetting + load * drain;
+            trips++;
+            coefficients = solve();
+        }
+
+        // The prior is half its weight at an empty trip and half at a full load
+        private Coefficients solve() {
+            double half = priorWeight / 2;
+            double limit = model.getWeightLimit();
+            double full = priorBase + priorFullLoad;
+            double w = n + priorWeight;
+            double x = sumX + half * limit;
+            double y = sumY + half * priorBase + half * full;
+            double xx = sumXX + half * limit * limit;
+            double xy = sumXY + half * limit * full;
+
+            double det = w * xx - x * x;
+            if (det <= 0) {
+                return prior(model);
+            }
+            double slope = (w * xy - x * y) / det;
+            return new Coefficients((y - slope * x) / w, slope, trips);
+        }
+    }
+}
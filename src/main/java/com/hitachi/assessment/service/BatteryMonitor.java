@@ -0,0 +1,121 @@
+package com.hitachi.assessment.service;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.BatteryAlertEvent;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.repository.DroneRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Live set of drones whose battery is below drone.battery.min-level, driven by drone change events.
+// A drone raises an alert once when it drops below the threshold and clears only after recovering to
+// min-level + hysteresis, so a battery hovering around the threshold does not flap.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BatteryMonitor {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final DroneRepository droneRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, DroneDTO> lowBattery = new ConcurrentHashMap<>();
+
+    @Value("${drone.battery.min-level:25}")
+    private int minBatteryLevel;
+
+    @Value("${drone.battery.alert-hysteresis:5}")
+    private int hysteresis;
+
+    // Lowest battery first
+    public List<DroneDTO> lowBatteryDrones() {
+        return lowBattery.values().stream()
+                .sorted(Comparator.comparing(DroneDTO::getBatteryCapacity).thenComparing(DroneDTO::getId))
+                .toList();
+    }
+
+    public boolean isLow(Long droneId) {
+        return lowBattery.containsKey(droneId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDroneChanged(DroneChangedEvent event) {
+        event.getDrones().forEach(drone -> update(drone, true));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lowBattery.clear();
+        scan(false);
+        log.info("Battery monitor tracking {} drones below {}%", lowBattery.size(), minBatteryLevel);
+    }
+
+    // Full pass over the fleet to catch battery changes that bypassed the change events; alerts only on crossings
+    public int reconcile() {
+        return scan(true);
+    }
+
+    private int scan(boolean alert) {
+        int crossings = 0;
+        long afterId = 0L;
+        List<DroneDTO> page;
+        do {
+            page = droneRepository.findPageAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+            for (DroneDTO drone : page) {
+                if (update(drone, alert)) {
+                    crossings++;
+                }
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        return crossings;
+    }
+
+    // Returns whether the drone crossed the threshold in either direction
+    synchronized boolean update(DroneDTO drone, boolean alert) {
+        Integer battery = drone.getBatteryCapacity();
+        if (battery == null) {
+            return false;
+        }
+        boolean wasLow = lowBattery.containsKey(drone.getId());
+        if (battery < minBatteryLevel) {
+            lowBattery.put(drone.getId(), drone);
+            if (!wasLow && alert) {
+                log.warn("Drone {} (Serial: {}) battery dropped to {}%, below {}%",
+                        drone.getId(), drone.getSerialNumber(), battery, minBatteryLevel);
+                eventPublisher.publishEvent(new BatteryAlertEvent(
+                        BatteryAlertEvent.Kind.LOW, drone.getId(), drone.getSerialNumber(), battery));
+            }
+            return !wasLow;
+        }
+        if (!wasLow) {
+            return false;
+        }
+        if (battery < minBatteryLevel + hysteresis) {
+            // Inside the hysteresis band: still low, keep the latest snapshot
+            lowBattery.put(drone.getId(), drone);
+            return false;
+        }
+        lowBattery.remove(drone.getId());
+        if (alert) {
+            log.info("Drone {} (Serial: {}) battery recovered to {}%", drone.getId(), drone.getSerialNumber(), battery);
+            eventPublisher.publishEvent(new BatteryAlertEvent(
+                    BatteryAlertEvent.Kind.RECOVERED, drone.getId(), drone.getSerialNumber(), battery));
+        }
+        return true;
+    }
+}
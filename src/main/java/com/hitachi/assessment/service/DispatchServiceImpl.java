@@ -0,0 +1,159 @@
+package com.hitachi.assessment.service;
+import com.hitachi.assessment.dispatch.BinPackingPlanner;
+import com.hitachi.assessment.dispatch.PackBin;
+import com.hitachi.assessment.dispatch.PackedBin;
+import com.hitachi.assessment.dispatch.PackingPlan;
+import com.hitachi.assessment.dto.DispatchPlanDTO;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.LoadDroneRequestDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.MedicationChangedEvent;
+import com.hitachi.assessment.exception.ConcurrentUpdateException;
+import com.hitachi.assessment.repository.DroneRepository;
+import com.hitachi.assessment.repository.MedicationRepository;
+import com.hitachi.assessment.service.interfaces.IDispatchService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class DispatchServiceImpl implements IDispatchService {
+
+    private static final int STATEMENT_CHUNK_SIZE = 1000;
+
+    private final DroneRepository droneRepository;
+    private final MedicationRepository medicationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BatteryDrainModel drainModel;
+    private final ForkJoinPool plannerPool;
+    private final BinPackingPlanner planner;
+
+    @Value("${drone.battery.min-level:25}")
+    private int minBatteryLevel;
+
+    public DispatchServiceImpl(DroneRepository droneRepository,
+                               MedicationRepository medicationRepository,
+                               JdbcTemplate jdbcTemplate,
+                               ApplicationEventPublisher eventPublisher,
+                               BatteryDrainModel drainModel,
+                               @Value("${drone.dispatch.parallelism:0}") int parallelism) {
+        this.droneRepository = droneRepository;
+        this.medicationRepository = medicationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.drainModel = drainModel;
+        this.plannerPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.planner = new BinPackingPlanner(plannerPool);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        plannerPool.shutdown();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DispatchPlanDTO plan() {
+        long start = System.nanoTime();
+        PackingPlan plan = computePlan();
+        return toDTO(plan, start, false);
+    }
+
+    @Override
+    @Transactional
+    public DispatchPlanDTO apply() {
+        long start = System.nanoTime();
+        PackingPlan plan = computePlan();
+        if (plan.bins().isEmpty()) {
+            return toDTO(plan, start, false);
+        }
+
+        // Every write is guarded, so anything that changed since the plan was read aborts the whole batch
+        List<Object[]> assignments = new ArrayList<>(plan.plannedItems());
+        List<Object[]> loads = new ArrayList<>(plan.bins().size());
+        for (PackedBin bin : plan.bins()) {
+            bin.itemIds().forEach(itemId -> assignments.add(new Object[]{bin.binId(), itemId}));
+            loads.add(new Object[]{bin.load(), bin.binId(), bin.load()});
+        }
+
+        requireAllApplied(jdbcTemplate.batchUpdate(
+                "UPDATE medications SET drone_id = ?, version = version + 1 WHERE id = ? AND drone_id IS NULL",
+                assignments), "medication");
+        requireAllApplied(jdbcTemplate.batchUpdate(
+                "UPDATE drones SET current_load = current_load + ? " +
+                        "WHERE id = ? AND state = 'IDLE' AND current_load + ? <= weight_limit",
+                loads), "drone");
+
+        List<Long> droneIds = plan.bins().stream().map(PackedBin::binId).collect(Collectors.toList());
+        List<DroneDTO> snapshots = new ArrayList<>(droneIds.size());
+        for (int from = 0; from < droneIds.size(); from += STATEMENT_CHUNK_SIZE) {
+            List<Long> chunk = droneIds.subList(from, Math.min(from + STATEMENT_CHUNK_SIZE, droneIds.size()));
+            jdbcTemplate.update("UPDATE drones SET state = 'LOADED', version = version + 1 WHERE id IN ("
+                    + chunk.stream().map(id -> "?").collect(Collectors.joining(",")) + ")", chunk.toArray());
+            snapshots.addAll(droneRepository.findSnapshotsByIdIn(chunk));
+        }
+        eventPublisher.publishEvent(new DroneChangedEvent(snapshots));
+        eventPublisher.publishEvent(MedicationChangedEvent.assigned(plan.bins().stream()
+                .flatMap(bin -> bin.itemIds().stream()).collect(Collectors.toList())));
+
+        log.info("Applied dispatch plan: {} medications on {} drones, {}g",
+                plan.plannedItems(), plan.bins().size(), plan.plannedWeight());
+        return toDTO(plan, start, true);
+    }
+
+    private PackingPlan computePlan() {
+        return planner.plan(medicationRepository.findUnassignedItems(), dispatchableBins());
+    }
+
+    // Each drone's room is capped at the load the drain model says it can still fly, like every other load path
+    private List<PackBin> dispatchableBins() {
+        List<PackBin> bins = new ArrayList<>();
+        for (DroneDTO drone : droneRepository.findDispatchableDrones(minBatteryLevel)) {
+            int capacity = drainModel.maxCompletableLoad(drone.getId(), drone.getModel(), drone.getBatteryCapacity(),
+                    drone.getCurrentLoad(), drone.getWeightLimit()) - drone.getCurrentLoad();
+            if (capacity > 0) {
+                bins.add(new PackBin(drone.getId(), capacity));
+            }
+        }
+        return bins;
+    }
+
+    private static void requireAllApplied(int[] batchCounts, String target) {
+        boolean allApplied = Arrays.stream(batchCounts).allMatch(count -> count == 1);
+        if (!allApplied) {
+            throw new ConcurrentUpdateException(
+                    "A " + target + " in the dispatch plan changed while it was being applied, please plan again");
+        }
+    }
+
+    private static DispatchPlanDTO toDTO(PackingPlan plan, long startNanos, boolean applied) {
+        List<LoadDroneRequestDTO> loads = plan.bins().stream()
+                .map(bin -> new LoadDroneRequestDTO(bin.binId(), bin.itemIds()))
+                .collect(Collectors.toList());
+        long usedCapacity = plan.usedCapacity();
+
+        return DispatchPlanDTO.builder()
+                .loads(loads)
+                .dronesUsed(loads.size())
+                .medicationsPlanned(plan.plannedItems())
+                .medicationsUnplanned(plan.unplannedItems())
+                .plannedWeight(plan.plannedWeight())
+                .unplannedWeight(plan.unplannedWeight())
+                .utilization(usedCapacity == 0 ? 0.0 : (double) plan.plannedWeight() / usedCapacity)
+                .planningTimeMs((System.nanoTime() - startNanos) / 1_000_000)
+                .applied(applied)
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.hitachi.assessment.service;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+// In-memory index of dispatchable drones (IDLE, battery at or above the minimum level), ordered by
+// remaining capacity and then by battery so the tightest fit for a load is a single ceiling lookup.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DroneAvailabilityIndex {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt(Entry::remainingCapacity)
+            .thenComparing(Comparator.comparingInt(Entry::batteryCapacity).reversed())
+            .thenComparingLong(Entry::id);
+
+    private final DroneRepository droneRepository;
+
+    private final NavigableSet<Entry> byCapacity = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+
+    @Value("${drone.battery.min-level:25}")
+    private int minBatteryLevel;
+
+    @Value("${drone.availability.max-probes:64}")
+    private int maxProbes;
+
+    // Smallest remaining capacity that still fits the weight and passes the check (e.g. enough battery for this
+    // load); ties go to the fullest battery. At most max-probes of the tightest fits are checked, so a crowd of
+    // drones the check rejects costs O(log n + max-probes) instead of a walk over the whole fleet.
+    public Optional<DroneDTO> bestFit(int weight, Predicate<DroneDTO> eligible) {
+        Entry probe = new Entry(Long.MIN_VALUE, weight, Integer.MAX_VALUE, null);
+        int probes = 0;
+        for (Entry entry : byCapacity.tailSet(probe, true)) {
+            if (probes++ == maxProbes) {
+                break;
+            }
+            if (eligible.test(entry.drone())) {
+                return Optional.of(entry.drone());
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Collection<DroneDTO> dispatchableDrones() {
+        return byId.values().stream().map(Entry::drone).toList();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDroneChanged(DroneChangedEvent event) {
+        event.getDrones().forEach(this::update);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        byCapacity.clear();
+        byId.clear();
+
+        long afterId = 0L;
+        List<DroneDTO> page;
+        do {
+            page = droneRepository.findPageAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+            page.forEach(this::update);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+
+        log.info("Drone availability index rebuilt with {} dispatchable drones", byId.size());
+    }
+
+    // Updates for the same drone are serialized so the set and the id map never disagree
+    synchronized void update(DroneDTO drone) {
+        Entry previous = byId.remove(drone.getId());
+        if (previous != null) {
+            byCapacity.remove(previous);
+        }
+
+        if (isDispatchable(drone)) {
+            Entry entry = new Entry(drone.getId(),
+                    drone.getWeightLimit() - drone.getCurrentLoad(),
+                    drone.getBatteryCapacity(),
+                    drone);
+            byId.put(entry.id(), entry);
+            byCapacity.add(entry);
+        }
+    }
+
+    private boolean isDispatchable(DroneDTO drone) {
+        return drone.getState() == DroneState.IDLE
+                && drone.getBatteryCapacity() != null
+                && drone.getBatteryCapacity() >= minBatteryLevel;
+    }
+
+    private record Entry(long id, int remainingCapacity, int batteryCapacity, DroneDTO drone) {
+    }
+}
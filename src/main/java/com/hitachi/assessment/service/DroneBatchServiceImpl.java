@@ -0,0 +1,316 @@
+package com.hitachi.assessment.service;
+import com.hitachi.assessment.dto.DroneBatchResultDTO;
+import com.hitachi.assessment.dto.DroneCommandDTO;
+import com.hitachi.assessment.dto.DroneCommandResultDTO;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.MedicationChangedEvent;
+import com.hitachi.assessment.exception.*;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
+import com.hitachi.assessment.model.DroneCommandType;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import com.hitachi.assessment.service.interfaces.IDroneBatchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Applies a wave of load and state-transition commands, in order and with the rules of the single-drone endpoints,
+// in one transaction with one batched UPDATE per table. Every write is guarded by the values read up front, so a
+// concurrent change to any drone or medication aborts the whole wave with a conflict.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DroneBatchServiceImpl implements IDroneBatchService {
+
+    private static final int STATEMENT_CHUNK_SIZE = 1000;
+
+    private static final String SELECT_MEDICATIONS = "SELECT id, weight, drone_id FROM medications WHERE id IN (%s)";
+
+    private static final String ASSIGN_MEDICATION =
+            "UPDATE medications SET drone_id = ?, version = version + 1 WHERE id = ? AND drone_id IS NULL";
+
+    // Load and drain are relative, so a battery reading written by telemetry meanwhile is kept
+    private static final String UPDATE_DRONE = "UPDATE drones SET state = ?, current_load = current_load + ?, "
+            + "battery_capacity = CASE WHEN battery_capacity > ? THEN battery_capacity - ? ELSE 0 END, "
+            + "version = version + 1 "
+            + "WHERE id = ? AND state = ? AND current_load + ? <= weight_limit";
+
+    private final DroneRepository droneRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final BatteryDrainModel drainModel;
+    private final DeliveryMetrics metrics;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${drone.battery.min-level:25}")
+    private int minBatteryLevel;
+
+    @Value("${drone.battery.reduction-per-delivery:10}")
+    private int batteryReductionPerDelivery;
+
+    @Value("${drone.batch.max-commands:1000}")
+    private int maxCommands;
+
+    @Override
+    @Transactional
+    public DroneBatchResultDTO execute(List<DroneCommandDTO> commands) {
+        long start = System.nanoTime();
+        validate(commands);
+        return metrics.recordDroneOperation("batch", () -> apply(commands, start));
+    }
+
+    private void validate(List<DroneCommandDTO> commands) {
+        if (commands.size() > maxCommands) {
+            throw new InvalidBatchException("A batch holds at most " + maxCommands + " commands, got " + commands.size());
+        }
+        for (int i = 0; i < commands.size(); i++) {
+            DroneCommandDTO command = commands.get(i);
+            if (command == null) {
+                throw new InvalidBatchException("Command " + i + " is missing");
+            }
+            if (command.getType() == DroneCommandType.LOAD
+                    && (command.getMedicationIds() == null || command.getMedicationIds().isEmpty())) {
+                throw new InvalidBatchException("Command " + i + ": a LOAD needs at least one medication");
+            }
+            if (command.getType() == DroneCommandType.TRANSITION && command.getState() == null) {
+                throw new InvalidBatchException("Command " + i + ": a TRANSITION needs a state");
+            }
+        }
+    }
+
+    private DroneBatchResultDTO apply(List<DroneCommandDTO> commands, long startNanos) {
+        Map<Long, WorkingDrone> drones = readDrones(commands.stream()
+                .map(DroneCommandDTO::getDroneId)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        Map<Long, MedicationRow> medications = readMedications(commands.stream()
+                .filter(command -> command.getType() == DroneCommandType.LOAD)
+                .flatMap(command -> command.getMedicationIds().stream())
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+
+        // Medication id to the drone it goes on, in command order
+        Map<Long, Long> assignments = new LinkedHashMap<>();
+        List<DroneCommandResultDTO> results = new ArrayList<>(commands.size());
+        int applied = 0;
+        for (int i = 0; i < commands.size(); i++) {
+            DroneCommandDTO command = commands.get(i);
+            DroneCommandResultDTO.DroneCommandResultDTOBuilder result = DroneCommandResultDTO.builder()
+                    .index(i)
+                    .type(command.getType())
+                    .droneId(command.getDroneId());
+            try {
+                WorkingDrone drone = drones.get(command.getDroneId());
+                if (drone == null) {
+                    throw new DroneNotFoundException("Drone not found with id: " + command.getDroneId());
+                }
+                if (command.getType() == DroneCommandType.LOAD) {
+                    load(drone, command.getMedicationIds(), medications, assignments);
+                } else {
+                    transition(drone, command.getState());
+                }
+                results.add(result.applied(true).drone(drone.step()).build());
+                applied++;
+            } catch (DroneNotFoundException | DroneStateException | DroneLowBatteryException
+                     | MedicationNotFoundException | MedicationAlreadyAssignedException
+                     | DroneOverloadedException e) {
+                results.add(result.applied(false)
+                        .error(e.getMessage())
+                        .reason(DeliveryMetrics.rejectionReason(e))
+                        .build());
+            }
+        }
+
+        // Rows are written in id order, so two waves over the same rows take their locks in the same order
+        List<WorkingDrone> changed = drones.values().stream()
+                .filter(WorkingDrone::changed)
+                .sorted(Comparator.comparing(drone -> drone.read.getId()))
+                .toList();
+        if (!changed.isEmpty()) {
+            write(changed, assignments);
+        }
+
+        log.info("Applied drone batch: {} of {} commands on {} drones, {} medications assigned",
+                applied, commands.size(), changed.size(), assignments.size());
+        return DroneBatchResultDTO.builder()
+                .received(commands.size())
+                .applied(applied)
+                .rejected(commands.size() - applied)
+                .results(results)
+                .elapsedMs((System.nanoTime() - startNanos) / 1_000_000)
+                .build();
+    }
+
+    // Same checks, in the same order, as a single load
+    private void load(WorkingDrone drone, List<Long> medicationIds, Map<Long, MedicationRow> medications,
+                      Map<Long, Long> assignments) {
+        if (drone.state != DroneState.IDLE && drone.state != DroneState.LOADING) {
+            throw new DroneStateException("Drone is not in a state that allows loading (should be IDLE or LOADING)");
+        }
+        if (drone.battery < minBatteryLevel) {
+            throw new DroneLowBatteryException("Drone battery too low for loading: " + drone.battery + "%");
+        }
+        Set<Long> distinct = new HashSet<>(medicationIds);
+        if (distinct.size() != medicationIds.size() || !medications.keySet().containsAll(distinct)) {
+            throw new MedicationNotFoundException("One or more medications not found");
+        }
+        List<Long> alreadyAssigned = medicationIds.stream()
+                .filter(id -> medications.get(id).droneId() != null || assignments.containsKey(id))
+                .collect(Collectors.toList());
+        if (!alreadyAssigned.isEmpty()) {
+            throw new MedicationAlreadyAssignedException("Medications already assigned to a drone: " + alreadyAssigned);
+        }
+
+        int totalWeight = medicationIds.stream().mapToInt(id -> medications.get(id).weight()).sum();
+        int newTotalWeight = drone.load + totalWeight;
+        if (newTotalWeight > drone.read.getWeightLimit()) {
+            throw new DroneOverloadedException(
+                    "Loading these medications would exceed the drone's weight limit. " +
+                            "Current load: " + drone.load + "g, " +
+                            "New medications: " + totalWeight + "g, " +
+                            "Maximum capacity: " + drone.read.getWeightLimit() + "g");
+        }
+        if (!drainModel.canComplete(drone.read.getId(), drone.read.getModel(), drone.battery, newTotalWeight)) {
+            throw new DroneLowBatteryException(String.format(
+                    "Drone battery %d%% cannot cover the predicted %.1f%% drain of a %dg load and keep the %d%% reserve",
+                    drone.battery,
+                    drainModel.predictedDrain(drone.read.getId(), drone.read.getModel(), newTotalWeight),
+                    newTotalWeight, drainModel.getReserveLevel()));
+        }
+
+        medicationIds.forEach(id -> assignments.put(id, drone.read.getId()));
+        drone.load = newTotalWeight;
+        drone.state = DroneState.LOADED;
+    }
+
+    private void transition(WorkingDrone drone, String newStateStr) {
+        DroneState newState;
+        try {
+            newState = DroneState.valueOf(newStateStr.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new DroneStateException("Invalid drone state: " + newStateStr);
+        }
+        if (!drone.state.canTransitionTo(newState)) {
+            throw new DroneStateException("Invalid state transition from " + drone.state + " to " + newState);
+        }
+        // Battery drains when a delivery completes
+        if (newState == DroneState.DELIVERED) {
+            drone.drain += batteryReductionPerDelivery;
+            drone.battery = Math.max(0, drone.battery - batteryReductionPerDelivery);
+        }
+        drone.state = newState;
+    }
+
+    private void write(List<WorkingDrone> changed, Map<Long, Long> assignments) {
+        if (!assignments.isEmpty()) {
+            requireAllApplied(jdbcTemplate.batchUpdate(ASSIGN_MEDICATION, assignments.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .map(assignment -> new Object[]{assignment.getValue(), assignment.getKey()})
+                    .toList()), "medication");
+        }
+        requireAllApplied(jdbcTemplate.batchUpdate(UPDATE_DRONE, changed.stream()
+                .map(drone -> new Object[]{drone.state.name(), drone.load - drone.read.getCurrentLoad(),
+                        drone.drain, drone.drain, drone.read.getId(), drone.read.getState().name(),
+                        drone.load - drone.read.getCurrentLoad()})
+                .toList()), "drone");
+
+        // Listeners see every step of a drone that went through several, ending with what was written
+        List<DroneDTO> snapshots = new ArrayList<>();
+        changed.forEach(drone -> snapshots.addAll(drone.steps.subList(0, drone.steps.size() - 1)));
+        snapshots.addAll(inChunks(changed.stream().map(drone -> drone.read.getId()).toList(),
+                droneRepository::findSnapshotsByIdIn));
+        eventPublisher.publishEvent(new DroneChangedEvent(snapshots));
+        if (!assignments.isEmpty()) {
+            eventPublisher.publishEvent(MedicationChangedEvent.assigned(assignments.keySet()));
+        }
+    }
+
+    private Map<Long, WorkingDrone> readDrones(Collection<Long> ids) {
+        Map<Long, WorkingDrone> drones = new HashMap<>();
+        inChunks(List.copyOf(ids), droneRepository::findSnapshotsByIdIn)
+                .forEach(drone -> drones.put(drone.getId(), new WorkingDrone(drone)));
+        return drones;
+    }
+
+    private Map<Long, MedicationRow> readMedications(Collection<Long> ids) {
+        Map<Long, MedicationRow> medications = new HashMap<>();
+        inChunks(List.copyOf(ids), chunk -> jdbcTemplate.query(
+                SELECT_MEDICATIONS.formatted(chunk.stream().map(id -> "?").collect(Collectors.joining(","))),
+                (rs, row) -> new MedicationRow(rs.getLong(1), rs.getInt(2), rs.getObject(3, Long.class)),
+                chunk.toArray()))
+                .forEach(medication -> medications.put(medication.id(), medication));
+        return medications;
+    }
+
+    private static <T> List<T> inChunks(List<Long> ids, Function<List<Long>, List<T>> query) {
+        List<T> rows = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += STATEMENT_CHUNK_SIZE) {
+            rows.addAll(query.apply(ids.subList(from, Math.min(from + STATEMENT_CHUNK_SIZE, ids.size()))));
+        }
+        return rows;
+    }
+
+    private static void requireAllApplied(int[] batchCounts, String target) {
+        boolean allApplied = Arrays.stream(batchCounts).allMatch(count -> count == 1);
+        if (!allApplied) {
+            throw new ConcurrentUpdateException(
+                    "A " + target + " in the batch changed while it was being applied, please retry the batch");
+        }
+    }
+
+    private record MedicationRow(Long id, int weight, Long droneId) {
+    }
+
+    // A drone as read, and where the commands applied so far have taken it
+    private static final class WorkingDrone {
+
+        private final DroneDTO read;
+        private final List<DroneDTO> steps = new ArrayList<>();
+        private DroneState state;
+        private int load;
+        private int battery;
+        private int drain;
+
+        private WorkingDrone(DroneDTO read) {
+            this.read = read;
+            this.state = read.getState();
+            this.load = read.getCurrentLoad();
+            this.battery = read.getBatteryCapacity();
+        }
+
+        private boolean changed() {
+            return !steps.isEmpty();
+        }
+
+        // Records the drone after an applied command
+        private DroneDTO step() {
+            DroneDTO snapshot = DroneDTO.builder()
+                    .id(read.getId())
+                    .serialNumber(read.getSerialNumber())
+                    .model(read.getModel())
+                    .weightLimit(read.getWeightLimit())
+                    .batteryCapacity(battery)
+                    .state(state)
+                    .currentLoad(load)
+                    .build();
+            steps.add(snapshot);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.hitachi.assessment.service;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.hitachi.assessment.service.interfaces.IExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Streams whole tables as NDJSON or CSV from a forward-only cursor, fetch-size rows at a time and never collected
+// Output is flushed after the first row and then every flush-rows rows; H2 needs lazy query execution for this
+@Service
+@Slf4j
+public class ExportServiceImpl implements IExportService {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final List<String> DRONE_FIELDS = List.of(
+            "id", "serialNumber", "model", "weightLimit", "batteryCapacity", "state", "currentLoad");
+
+    private static final String SELECT_DRONES = "SELECT id, serial_number, model, weight_limit, battery_capacity, "
+            + "state, current_load FROM drones ORDER BY id";
+
+    private static final List<String> MEDICATION_FIELDS = List.of("id", "name", "weight", "code", "droneId");
+
+    private static final List<String> IMAGE_FIELDS = List.of("imageUrl", "imageSize");
+
+    private static final String SELECT_MEDICATIONS = "SELECT id, name, weight, code, drone_id%s "
+            + "FROM medications ORDER BY id";
+
+    // Same link as the medication API returns
+    private static final String IMAGE_COLUMNS = ", CASE WHEN image_hash IS NULL THEN NULL "
+            + "ELSE CONCAT('/api/medications/', id, '/image') END, image_size";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final int flushRows;
+
+    public ExportServiceImpl(JdbcTemplate jdbcTemplate,
+                             @Value("${drone.export.fetch-size:1000}") int fetchSize,
+                             @Value("${drone.export.flush-rows:1000}") int flushRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+        this.flushRows = flushRows;
+    }
+
+    @Override
+    public long exportDrones(Format format, OutputStream out) throws IOException {
+        return export("drones", SELECT_DRONES, DRONE_FIELDS, format, out);
+    }
+
+    @Override
+    public long exportMedications(Format format, boolean includeImages, OutputStream out) throws IOException {
+        if (!includeImages) {
+            return export("medications", SELECT_MEDICATIONS.formatted(""), MEDICATION_FIELDS, format, out);
+        }
+        List<String> fields = new ArrayList<>(MEDICATION_FIELDS);
+        fields.addAll(IMAGE_FIELDS);
+        return export("medications", SELECT_MEDICATIONS.formatted(IMAGE_COLUMNS), fields, format, out);
+    }
+
+    private long export(String table, String sql, List<String> fields, Format format, OutputStream out)
+            throws IOException {
+        long start = System.nanoTime();
+        RowWriter writer = format == Format.CSV ? new CsvRowWriter(out, fields) : new JsonRowWriter(out, fields);
+        long rows;
+        try {
+            rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                boolean lazy = setLazy(connection, true);
+                try (PreparedStatement statement = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(fetchSize);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        return copy(rs, writer);
+                    }
+                } finally {
+                    if (lazy) {
+                        setLazy(connection, false);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // The client went away or the stream failed; the cursor is already closed
+            throw e.getCause();
+        }
+        log.info("Exported {} {} as {} in {} ms", rows, table, format,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return rows;
+    }
+
+    private long copy(ResultSet rs, RowWriter writer) throws SQLException {
+        try {
+            writer.start();
+            long rows = 0;
+            while (rs.next()) {
+                writer.row(rs);
+                if (++rows == 1 || rows % flushRows == 0) {
+                    writer.flush();
+                }
+            }
+            writer.finish();
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Returns whether the setting was changed, so it can be put back before the connection returns to the pool
+    private static boolean setLazy(Connection connection, boolean lazy) throws SQLException {
+        if (!"H2".equals(connection.getMetaData().getDatabaseProductName())) {
+            return false;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        }
+        return true;
+    }
+
+    private interface RowWriter {
+
+        void start() throws IOException;
+
+        void row(ResultSet rs) throws SQLException, IOException;
+
+        void flush() throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    // One object per line, fields named as in the API's DTOs
+    private static final class JsonRowWriter implements RowWriter {
+
+        private final JsonGenerator json;
+        private final List<String> fields;
+
+        private JsonRowWriter(OutputStream out, List<String> fields) throws IOException {
+            this.json = JSON.createGenerator(out);
+            this.json.setRootValueSeparator(null);
+            this.fields = fields;
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            for (int i = 0; i < fields.size(); i++) {
+                json.writeFieldName(fields.get(i));
+                Object value = rs.getObject(i + 1);
+                if (value == null) {
+                    json.writeNull();
+                } else if (value instanceof Number number) {
+                    json.writeNumber(number.longValue());
+                } else {
+                    json.writeString(value.toString());
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            json.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            json.flush();
+        }
+    }
+
+    // RFC 4180 with a header row; nulls are empty fields
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer out;
+        private final List<String> fields;
+
+        private CsvRowWriter(OutputStream out, List<String> fields) {
+            this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            this.fields = fields;
+        }
+
+        @Override
+        public void start() throws IOException {
+            out.write(String.join(",", fields));
+            out.write("\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                Object value = rs.getObject(i + 1);
+                if (value != null) {
+                    write(value.toString());
+                }
+            }
+            out.write("\r\n");
+        }
+
+        private void write(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+}
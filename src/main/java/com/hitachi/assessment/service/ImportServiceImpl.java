@@ -0,0 +1,659 @@
+package com.hitachi.assessment.service;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.ImportErrorDTO;
+import com.hitachi.assessment.dto.ImportResultDTO;
+import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.MedicationChangedEvent;
+import com.hitachi.assessment.exception.InvalidImportException;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
+import com.hitachi.assessment.model.Drone;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import com.hitachi.assessment.service.interfaces.IImportService;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+// Bulk registration of drones and upsert of the medication catalog from JSON array, NDJSON or CSV bodies. Rows
+// are parsed and validated one at a time and written in JDBC batches, one short transaction per batch, so memory
+// does not grow with the body and a bad row only costs itself. Drone ids come from the same pooled sequence
+// generator as entity saves.
+@Service
+@Slf4j
+public class ImportServiceImpl implements IImportService {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final String INSERT_DRONE = "INSERT INTO drones "
+            + "(id, serial_number, model, weight_limit, battery_capacity, state, current_load, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0, 0)";
+
+    private static final String INSERT_MEDICATION = "INSERT INTO medications (name, weight, code, version) "
+            + "VALUES (?, ?, ?, 0)";
+
+    private static final String UPDATE_MEDICATION = "UPDATE medications SET name = ?, weight = ?, "
+            + "version = version + 1 WHERE id = ?";
+
+    private static final String ADJUST_DRONE_LOAD = "UPDATE drones SET current_load = current_load + ? WHERE id = ?";
+
+    private static final List<String> MEDICATION_COLUMNS = List.of("name", "weight", "code");
+
+    // A serial number registered concurrently between the check and the insert fails the batch; it is retried
+    // with that row rejected
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DroneRepository droneRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeliveryMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxErrors;
+    private final long progressIntervalNanos;
+
+    public ImportServiceImpl(JdbcTemplate jdbcTemplate,
+                             DroneRepository droneRepository,
+                             EntityManager entityManager,
+                             Validator validator,
+                             ApplicationEventPublisher eventPublisher,
+                             DeliveryMetrics metrics,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${drone.import.batch-size:1000}") int batchSize,
+                             @Value("${drone.import.max-errors:1000}") int maxErrors,
+                             @Value("${drone.import.progress-interval-ms:5000}") long progressIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.droneRepository = droneRepository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+        this.progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(progressIntervalMs);
+    }
+
+    @Override
+    public ImportResultDTO importDrones(InputStream body) throws IOException {
+        Report report = new Report("drones");
+        Batch<DroneDTO> batch = new Batch<>("Serial number", report, this::insertDrones);
+        readJson(body, report, (parser, row) -> {
+            DroneDTO drone = readDrone(parser, row, report);
+            if (drone != null) {
+                batch.add(row, drone.getSerialNumber(), drone);
+            }
+        });
+        batch.flush();
+        return report.finish();
+    }
+
+    @Override
+    public ImportResultDTO importMedications(InputStream body) throws IOException {
+        Report report = new Report("medications");
+        Batch<MedicationDTO> batch = new Batch<>("Code", report, this::upsertMedications);
+        readJson(body, report, (parser, row) -> {
+            MedicationDTO medication = readMedication(parser, row, report);
+            if (medication != null) {
+                batch.add(row, medication.getCode(), medication);
+            }
+        });
+        batch.flush();
+        return report.finish();
+    }
+
+    @Override
+    public ImportResultDTO importMedicationsCsv(InputStream body) throws IOException {
+        Report report = new Report("medications");
+        Batch<MedicationDTO> batch = new Batch<>("Code", report, this::upsertMedications);
+        CsvReader csv = new CsvReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        try {
+            List<String> header = csv.next();
+            if (header == null) {
+                return report.finish();
+            }
+            int[] columns = medicationColumns(header);
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                // Blank lines are not rows
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                long row = ++report.received;
+                MedicationDTO medication = readMedication(record, columns, row, report);
+                if (medication != null) {
+                    batch.add(row, medication.getCode(), medication);
+                }
+            }
+        } catch (CsvReader.MalformedCsvException e) {
+            report.reject(++report.received, null, "Malformed CSV, the rest of the body was not read: " + e.getMessage());
+        }
+        batch.flush();
+        return report.finish();
+    }
+
+    @FunctionalInterface
+    private interface JsonRowReader {
+
+        // Called with the parser on the START_OBJECT of the row; must consume the object
+        void read(JsonParser parser, long row) throws IOException;
+    }
+
+    // A root array and a stream of root objects (NDJSON) read the same way
+    private void readJson(InputStream body, Report report, JsonRowReader reader) throws IOException {
+        // Rows read to the end; a body cut off inside a row blames that row
+        long complete = 0;
+        try (JsonParser parser = JSON.createParser(body)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_ARRAY || token == JsonToken.END_ARRAY) {
+                    continue;
+                }
+                long row = ++report.received;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    report.reject(row, null, "Expected a JSON object");
+                } else {
+                    reader.read(parser, row);
+                }
+                complete = row;
+            }
+        } catch (JsonProcessingException e) {
+            report.received = complete + 1;
+            report.reject(report.received, null,
+                    "Malformed JSON, the rest of the body was not read: " + e.getOriginalMessage());
+        }
+    }
+
+    // Rows already taken and the drones inserted, once the batch has committed
+    private record DroneOutcome(List<Row<DroneDTO>> taken, List<DroneDTO> created) {
+    }
+
+    private void insertDrones(List<Row<DroneDTO>> rows, Report report) {
+        for (int attempt = 1; attempt <= MAX_BATCH_ATTEMPTS; attempt++) {
+            try {
+                DroneOutcome outcome = transactionTemplate.execute(status -> insertNewDrones(rows));
+                outcome.taken().forEach(row -> report.reject(row.row(), row.key(),
+                        "Drone with serial number " + row.key() + " already exists"));
+                report.created += outcome.created().size();
+                return;
+            } catch (DuplicateKeyException e) {
+                log.debug("Drone import batch lost a serial number race, attempt {}", attempt);
+            }
+        }
+        rows.forEach(row -> report.reject(row.row(), row.key(),
+                "Serial number conflicted with concurrent registrations"));
+    }
+
+    private DroneOutcome insertNewDrones(List<Row<DroneDTO>> rows) {
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT serial_number FROM drones WHERE serial_number IN (" + placeholders(rows) + ")",
+                String.class, keys(rows)));
+        List<Row<DroneDTO>> taken = new ArrayList<>();
+        List<DroneDTO> created = new ArrayList<>(rows.size());
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator ids = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Drone.class).getGenerator();
+        for (Row<DroneDTO> row : rows) {
+            if (existing.contains(row.key())) {
+                taken.add(row);
+                continue;
+            }
+            DroneDTO drone = row.value();
+            drone.setId((Long) ids.generate(session, null, null, EventType.INSERT));
+            created.add(drone);
+        }
+
+        if (created.isEmpty()) {
+            return new DroneOutcome(taken, created);
+        }
+        jdbcTemplate.batchUpdate(INSERT_DRONE, created, created.size(), (statement, drone) -> {
+            statement.setLong(1, drone.getId());
+            statement.setString(2, drone.getSerialNumber());
+            statement.setString(3, drone.getModel().name());
+            statement.setInt(4, drone.getWeightLimit());
+            statement.setInt(5, drone.getBatteryCapacity());
+            statement.setString(6, drone.getState().name());
+        });
+        eventPublisher.publishEvent(new DroneChangedEvent(created));
+        return new DroneOutcome(taken, created);
+    }
+
+    private record StoredMedication(long id, String name, int weight, Long droneId) {
+    }
+
+    private record MedicationUpdate(long id, MedicationDTO medication) {
+    }
+
+    // A row left out because it would push a drone carrying the medication past its weight limit
+    private record Overload(Row<MedicationDTO> row, long droneId) {
+    }
+
+    private record MedicationOutcome(int created, int updated, int unchanged, List<Overload> overloaded) {
+    }
+
+    private void upsertMedications(List<Row<MedicationDTO>> rows, Report report) {
+        MedicationOutcome outcome = transactionTemplate.execute(status -> upsert(rows));
+        outcome.overloaded().forEach(overload -> report.reject(overload.row().row(), overload.row().key(),
+                "Medication is loaded on drone " + overload.droneId() + " and a weight of "
+                        + overload.row().value().getWeight() + "g would exceed its weight limit"));
+        report.created += outcome.created();
+        report.updated += outcome.updated();
+        report.unchanged += outcome.unchanged();
+    }
+
+    // Codes are not unique in the table, so a code already stored more than once updates every row holding it.
+    // The rows and the drones carrying them are locked until commit, so the load adjustment stays exact and a
+    // heavier medication is only taken while every drone carrying it stays within its weight limit.
+    private MedicationOutcome upsert(List<Row<MedicationDTO>> rows) {
+        Map<String, List<StoredMedication>> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT id, code, name, weight, drone_id FROM medications WHERE code IN ("
+                + placeholders(rows) + ") FOR UPDATE", rs -> {
+            long droneId = rs.getLong("drone_id");
+            stored.computeIfAbsent(rs.getString("code"), code -> new ArrayList<>(1)).add(new StoredMedication(
+                    rs.getLong("id"), rs.getString("name"), rs.getInt("weight"), rs.wasNull() ? null : droneId));
+        }, keys(rows));
+        Map<Long, int[]> carriers = lockCarriers(stored);
+
+        List<MedicationDTO> inserts = new ArrayList<>();
+        List<MedicationUpdate> updates = new ArrayList<>();
+        List<Overload> overloaded = new ArrayList<>();
+        Map<Long, Integer> loadChanges = new HashMap<>();
+        int updated = 0;
+        for (Row<MedicationDTO> row : rows) {
+            MedicationDTO medication = row.value();
+            List<StoredMedication> matches = stored.get(row.key());
+            if (matches == null) {
+                inserts.add(medication);
+                continue;
+            }
+            List<StoredMedication> changed = matches.stream()
+                    .filter(match -> !match.name().equals(medication.getName())
+                            || match.weight() != medication.getWeight())
+                    .toList();
+            if (changed.isEmpty()) {
+                continue;
+            }
+            Map<Long, Integer> rowLoad = new HashMap<>();
+            changed.stream()
+                    .filter(match -> match.droneId() != null && match.weight() != medication.getWeight())
+                    .forEach(match -> rowLoad.merge(match.droneId(), medication.getWeight() - match.weight(),
+                            Integer::sum));
+            Long overloadedDrone = rowLoad.entrySet().stream()
+                    .filter(change -> change.getValue() > 0)
+                    .filter(change -> carriers.get(change.getKey())[0] + change.getValue()
+                            > carriers.get(change.getKey())[1])
+                    .map(Map.Entry::getKey)
+                    .findFirst()
+                    .orElse(null);
+            if (overloadedDrone != null) {
+                overloaded.add(new Overload(row, overloadedDrone));
+                continue;
+            }
+            changed.forEach(match -> updates.add(new MedicationUpdate(match.id(), medication)));
+            rowLoad.forEach((droneId, delta) -> {
+                carriers.get(droneId)[0] += delta;
+                loadChanges.merge(droneId, delta, Integer::sum);
+            });
+            updated++;
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MEDICATION, inserts, inserts.size(), (statement, medication) -> {
+                statement.setString(1, medication.getName());
+                statement.setInt(2, medication.getWeight());
+                statement.setString(3, medication.getCode());
+            });
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_MEDICATION, updates, updates.size(), (statement, update) -> {
+                statement.setString(1, update.medication().getName());
+                statement.setInt(2, update.medication().getWeight());
+                statement.setLong(3, update.id());
+            });
+            loadChanges.values().removeIf(delta -> delta == 0);
+            if (!loadChanges.isEmpty()) {
+                List<Map.Entry<Long, Integer>> adjustments = new ArrayList<>(loadChanges.entrySet());
+                jdbcTemplate.batchUpdate(ADJUST_DRONE_LOAD, adjustments, adjustments.size(), (statement, change) -> {
+                    statement.setInt(1, change.getValue());
+                    statement.setLong(2, change.getKey());
+                });
+            }
+            // New rows were never cached; updated ones and the drones carrying them are dropped from the caches
+            eventPublisher.publishEvent(new MedicationChangedEvent(
+                    updates.stream().map(MedicationUpdate::id).distinct().toList(),
+                    List.copyOf(loadChanges.keySet())));
+            if (!loadChanges.isEmpty()) {
+                eventPublisher.publishEvent(new DroneChangedEvent(
+                        droneRepository.findSnapshotsByIdIn(loadChanges.keySet())));
+            }
+        }
+        return new MedicationOutcome(inserts.size(), updated,
+                rows.size() - inserts.size() - updated - overloaded.size(), overloaded);
+    }
+
+    // Current load and weight limit of every drone carrying one of the stored rows, locked until commit
+    private Map<Long, int[]> lockCarriers(Map<String, List<StoredMedication>> stored) {
+        List<Long> droneIds = stored.values().stream()
+                .flatMap(List::stream)
+                .map(StoredMedication::droneId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+        Map<Long, int[]> carriers = new HashMap<>();
+        if (droneIds.isEmpty()) {
+            return carriers;
+        }
+        jdbcTemplate.query("SELECT id, current_load, weight_limit FROM drones WHERE id IN ("
+                + droneIds.stream().map(id -> "?").collect(Collectors.joining(",")) + ") FOR UPDATE", rs -> {
+            carriers.put(rs.getLong("id"), new int[]{rs.getInt("current_load"), rs.getInt("weight_limit")});
+        }, droneIds.toArray());
+        return carriers;
+    }
+
+    private static String placeholders(List<? extends Row<?>> rows) {
+        return rows.stream().map(row -> "?").collect(Collectors.joining(","));
+    }
+
+    private static Object[] keys(List<? extends Row<?>> rows) {
+        return rows.stream().map(Row::key).toArray();
+    }
+
+    // Reads one object; returns null and reports the row when it is not a valid registration
+    private DroneDTO readDrone(JsonParser parser, long row, Report report) throws IOException {
+        DroneDTO drone = new DroneDTO();
+        String problem = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            try {
+                switch (field) {
+                    case "serialNumber" -> drone.setSerialNumber(text(parser, value));
+                    case "model" -> drone.setModel(constant(DroneModel.class, text(parser, value)));
+                    case "weightLimit" -> drone.setWeightLimit(integer(parser, value));
+                    case "batteryCapacity" -> drone.setBatteryCapacity(integer(parser, value));
+                    case "state" -> drone.setState(constant(DroneState.class, text(parser, value)));
+                    default -> parser.skipChildren();
+                }
+            } catch (IllegalArgumentException e) {
+                parser.skipChildren();
+                if (problem == null) {
+                    problem = field + " " + e.getMessage();
+                }
+            }
+        }
+        if (problem != null) {
+            report.reject(row, drone.getSerialNumber(), problem);
+            return null;
+        }
+
+        // Same defaults as a single registration
+        if (drone.getState() == null) {
+            drone.setState(DroneState.IDLE);
+        }
+        if (drone.getWeightLimit() == null && drone.getModel() != null) {
+            drone.setWeightLimit(drone.getModel().getWeightLimit());
+        }
+        drone.setCurrentLoad(0);
+        List<String> problems = violations(drone);
+        // Optional on the DTO, but the column is not nullable
+        if (drone.getBatteryCapacity() == null) {
+            problems.add("Battery capacity is required");
+        }
+        return accept(drone, drone.getSerialNumber(), problems, row, report);
+    }
+
+    private MedicationDTO readMedication(JsonParser parser, long row, Report report) throws IOException {
+        MedicationDTO medication = new MedicationDTO();
+        String problem = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            try {
+                switch (field) {
+                    case "name" -> medication.setName(text(parser, value));
+                    case "weight" -> medication.setWeight(integer(parser, value));
+                    case "code" -> medication.setCode(text(parser, value));
+                    default -> parser.skipChildren();
+                }
+            } catch (IllegalArgumentException e) {
+                parser.skipChildren();
+                if (problem == null) {
+                    problem = field + " " + e.getMessage();
+                }
+            }
+        }
+        if (problem != null) {
+            report.reject(row, medication.getCode(), problem);
+            return null;
+        }
+        return accept(medication, medication.getCode(), violations(medication), row, report);
+    }
+
+    private MedicationDTO readMedication(List<String> record, int[] columns, long row, Report report) {
+        MedicationDTO medication = new MedicationDTO();
+        medication.setName(field(record, columns[0]));
+        medication.setCode(field(record, columns[2]));
+        String weight = field(record, columns[1]);
+        if (weight != null) {
+            try {
+                medication.setWeight(Integer.parseInt(weight));
+            } catch (NumberFormatException e) {
+                report.reject(row, medication.getCode(), "weight must be a whole number");
+                return null;
+            }
+        }
+        return accept(medication, medication.getCode(), violations(medication), row, report);
+    }
+
+    // Index of the name, weight and code columns; the header may order them freely and hold other columns
+    private static int[] medicationColumns(List<String> header) {
+        List<String> names = header.stream()
+                .map(name -> name.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int[] columns = new int[MEDICATION_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(MEDICATION_COLUMNS.get(i));
+            if (columns[i] < 0) {
+                throw new InvalidImportException("CSV header must name the columns " + MEDICATION_COLUMNS
+                        + ", got " + header);
+            }
+        }
+        return columns;
+    }
+
+    private static String field(List<String> record, int column) {
+        if (column >= record.size()) {
+            return null;
+        }
+        String value = record.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private List<String> violations(Object row) {
+        List<String> problems = new ArrayList<>();
+        validator.validate(row).forEach(violation -> problems.add(violation.getMessage()));
+        return problems;
+    }
+
+    private static <T> T accept(T value, String key, List<String> problems, long row, Report report) {
+        if (problems.isEmpty()) {
+            return value;
+        }
+        problems.sort(null);
+        report.reject(row, key, String.join("; ", problems));
+        return null;
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value != JsonToken.VALUE_STRING) {
+            throw new IllegalArgumentException("must be a string");
+        }
+        return parser.getText();
+    }
+
+    private static Integer integer(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value != JsonToken.VALUE_NUMBER_INT) {
+            throw new IllegalArgumentException("must be a whole number");
+        }
+        if (parser.getNumberType() != JsonParser.NumberType.INT) {
+            throw new IllegalArgumentException("is out of range");
+        }
+        return parser.getIntValue();
+    }
+
+    private static <E extends Enum<E>> E constant(Class<E> type, String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("must be one of " + Arrays.toString(type.getEnumConstants()));
+        }
+    }
+
+    private record Row<T>(long row, String key, T value) {
+    }
+
+    // Valid rows waiting to be written, keyed by serial number or code; a key repeated within one batch keeps
+    // the first row and rejects the others
+    private final class Batch<T> {
+
+        private final String keyName;
+        private final Report report;
+        private final BiConsumer<List<Row<T>>, Report> writer;
+        private final Map<String, Row<T>> rows = new LinkedHashMap<>();
+
+        private Batch(String keyName, Report report, BiConsumer<List<Row<T>>, Report> writer) {
+            this.keyName = keyName;
+            this.report = report;
+            this.writer = writer;
+        }
+
+        void add(long row, String key, T value) {
+            Row<T> earlier = rows.putIfAbsent(key, new Row<>(row, key, value));
+            if (earlier != null) {
+                report.reject(row, key, keyName + " already used by row " + earlier.row());
+            } else if (rows.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            writer.accept(new ArrayList<>(rows.values()), report);
+            rows.clear();
+            report.progress();
+        }
+    }
+
+    private final class Report {
+
+        private final String entity;
+        private final long start = System.nanoTime();
+        private long lastProgress = start;
+        private long received;
+        private long created;
+        private long updated;
+        private long unchanged;
+        private long rejected;
+        // Counts already sent to the import.rows counters
+        private final long[] recorded = new long[4];
+        private final List<ImportErrorDTO> errors = new ArrayList<>();
+
+        private Report(String entity) {
+            this.entity = entity;
+        }
+
+        void reject(long row, String key, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportErrorDTO(row, key, message));
+            }
+        }
+
+        // After every batch: counters move with each commit, and a long import logs where it is now and then
+        void progress() {
+            record();
+            long now = System.nanoTime();
+            if (now - lastProgress >= progressIntervalNanos) {
+                lastProgress = now;
+                log.info("Importing {}: {} rows read, {} created, {} updated, {} unchanged, {} rejected so far",
+                        entity, received, created, updated, unchanged, rejected);
+            }
+        }
+
+        ImportResultDTO finish() {
+            record();
+            // Parse errors are reported as rows are read, duplicates only when their batch is written
+            errors.sort((a, b) -> Long.compare(a.getRow(), b.getRow()));
+            ImportResultDTO result = ImportResultDTO.builder()
+                    .received(received)
+                    .created(created)
+                    .updated(updated)
+                    .unchanged(unchanged)
+                    .rejected(rejected)
+                    .errors(errors)
+                    .errorsTruncated(rejected > errors.size())
+                    .elapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                    .build();
+            log.info("Imported {}: {} rows read, {} created, {} updated, {} rejected in {} ms",
+                    entity, received, created, updated, rejected, result.getElapsedMs());
+            return result;
+        }
+
+        private void record() {
+            long[] totals = {created, updated, unchanged, rejected};
+            String[] outcomes = {"created", "updated", "unchanged", "rejected"};
+            for (int i = 0; i < totals.length; i++) {
+                metrics.recordImportedRows(entity, outcomes[i], totals[i] - recorded[i]);
+                recorded[i] = totals[i];
+            }
+        }
+    }
+}
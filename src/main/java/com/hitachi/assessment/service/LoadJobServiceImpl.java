@@ -0,0 +1,324 @@
+package com.hitachi.assessment.service;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.LoadDroneRequestDTO;
+import com.hitachi.assessment.dto.LoadJobDTO;
+import com.hitachi.assessment.dto.LoadJobStatsDTO;
+import com.hitachi.assessment.event.LoadJobCompletedEvent;
+import com.hitachi.assessment.exception.LoadJobNotFoundException;
+import com.hitachi.assessment.exception.LoadQueueFullException;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
+import com.hitachi.assessment.model.LoadJobStatus;
+import com.hitachi.assessment.service.interfaces.IDroneService;
+import com.hitachi.assessment.service.interfaces.IDroneService.LoadOutcome;
+import com.hitachi.assessment.service.interfaces.ILoadJobService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Applies loads submitted through the asynchronous endpoint. A drone's jobs always go to the same worker queue, so
+// they run in arrival order; a worker applies each drone's jobs from a batch in one transaction, and one at a time
+// through the retrying synchronous path when that transaction rolls back.
+@Service
+@Slf4j
+public class LoadJobServiceImpl implements ILoadJobService {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final IDroneService droneService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<BlockingQueue<LoadJob>> queues;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final int historySize;
+
+    private final Map<String, LoadJob> jobs = new ConcurrentHashMap<>();
+    // Finished job ids, oldest first; the count is kept apart because the queue's size() walks it
+    private final Queue<String> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger finishedCount = new AtomicInteger();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+    // Set by stop(); a job queued after the workers' last drain would never run
+    private volatile boolean stopped;
+
+    public LoadJobServiceImpl(IDroneService droneService,
+                              ApplicationEventPublisher eventPublisher,
+                              MeterRegistry registry,
+                              @Value("${drone.load.jobs.workers:2}") int workers,
+                              @Value("${drone.load.jobs.queue-capacity:10000}") int queueCapacity,
+                              @Value("${drone.load.jobs.batch-size:50}") int batchSize,
+                              @Value("${drone.load.jobs.history-size:10000}") int historySize) {
+        this.droneService = droneService;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.historySize = historySize;
+        int perWorker = Math.max(1, queueCapacity / workers);
+        this.queues = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            queues.add(new ArrayBlockingQueue<>(perWorker));
+        }
+        this.queueCapacity = perWorker * workers;
+        Gauge.builder("drone.load.jobs.queued", this, LoadJobServiceImpl::queued)
+                .description("Asynchronous load jobs waiting for a worker")
+                .register(registry);
+        FunctionCounter.builder("drone.load.jobs.rejected", rejected, LongAdder::sum)
+                .description("Asynchronous load submissions refused because the queue was full or shutting down")
+                .register(registry);
+    }
+
+    @Override
+    public LoadJobDTO submit(LoadDroneRequestDTO loadRequest) {
+        if (stopped) {
+            throw refuse("Load jobs are not accepted while the service shuts down");
+        }
+        LoadJob job = new LoadJob(UUID.randomUUID().toString(), loadRequest, Instant.now());
+        jobs.put(job.id, job);
+        BlockingQueue<LoadJob> queue = queueFor(loadRequest.getDroneId());
+        if (!queue.offer(job)) {
+            jobs.remove(job.id);
+            throw refuse("Too many load jobs are waiting, please retry later");
+        }
+        // Stopped while offering: take the job back unless a worker's last drain already has it
+        if (stopped && queue.remove(job)) {
+            jobs.remove(job.id);
+            throw refuse("Load jobs are not accepted while the service shuts down");
+        }
+        submitted.increment();
+        return job.toDTO();
+    }
+
+    private LoadQueueFullException refuse(String message) {
+        rejected.increment();
+        return new LoadQueueFullException(message);
+    }
+
+    @Override
+    public LoadJobDTO getJob(String id) {
+        LoadJob job = jobs.get(id);
+        if (job == null) {
+            throw new LoadJobNotFoundException("Load job not found with id: " + id);
+        }
+        return job.toDTO();
+    }
+
+    @Override
+    public LoadJobStatsDTO getStats() {
+        return LoadJobStatsDTO.builder()
+                .submitted(submitted.sum())
+                .rejected(rejected.sum())
+                .succeeded(succeeded.sum())
+                .failed(failed.sum())
+                .batches(batches.sum())
+                .fallbacks(fallbacks.sum())
+                .queued(queued())
+                .queueCapacity(queueCapacity)
+                .build();
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < queues.size(); i++) {
+            BlockingQueue<LoadJob> queue = queues.get(i);
+            Thread worker = new Thread(() -> run(queue), "load-job-worker-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        List<Thread> stopping;
+        synchronized (this) {
+            stopped = true;
+            running = false;
+            stopping = new ArrayList<>(workers);
+            workers.clear();
+        }
+        for (Thread worker : stopping) {
+            worker.join(POLL_MILLIS * 50);
+        }
+    }
+
+    private void run(BlockingQueue<LoadJob> queue) {
+        while (running) {
+            try {
+                LoadJob first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    List<LoadJob> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    process(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Load job worker failed", e);
+            }
+        }
+        // Apply whatever was accepted before shutdown; the client was promised a result
+        int remaining;
+        while ((remaining = drain(queue)) > 0) {
+            log.info("Applied {} load jobs queued before shutdown", remaining);
+        }
+    }
+
+    // Applies everything waiting in one queue without blocking; returns the number of jobs taken
+    int drain(int worker) {
+        return drain(queues.get(worker));
+    }
+
+    private int drain(BlockingQueue<LoadJob> queue) {
+        int taken = 0;
+        List<LoadJob> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            taken += batch.size();
+            process(batch);
+            batch.clear();
+        }
+        return taken;
+    }
+
+    // One transaction per drone, so a conflict on one drone does not send the other drones' jobs to the fallback
+    private void process(List<LoadJob> batch) {
+        Map<Long, List<LoadJob>> byDrone = new LinkedHashMap<>();
+        for (LoadJob job : batch) {
+            byDrone.computeIfAbsent(job.request.getDroneId(), id -> new ArrayList<>()).add(job);
+        }
+        byDrone.values().forEach(this::apply);
+    }
+
+    private void apply(List<LoadJob> group) {
+        group.forEach(LoadJob::start);
+        List<LoadOutcome> outcomes;
+        try {
+            outcomes = droneService.loadDrones(group.stream().map(job -> job.request).toList());
+        } catch (RuntimeException e) {
+            // Nothing of the group was kept, so each job gets its own transaction and the usual retries
+            log.warn("Load batch of {} jobs for drone {} rolled back, applying them one at a time: {}",
+                    group.size(), group.get(0).request.getDroneId(), e.getMessage());
+            fallbacks.increment();
+            outcomes = group.stream().map(job -> loadOne(job.request)).toList();
+        }
+        batches.increment();
+        for (int i = 0; i < group.size(); i++) {
+            finish(group.get(i), outcomes.get(i));
+        }
+    }
+
+    private LoadOutcome loadOne(LoadDroneRequestDTO loadRequest) {
+        try {
+            return new LoadOutcome(droneService.loadDrone(loadRequest), null);
+        } catch (RuntimeException e) {
+            return new LoadOutcome(null, e);
+        }
+    }
+
+    private void finish(LoadJob job, LoadOutcome outcome) {
+        job.complete(outcome);
+        (outcome.error() == null ? succeeded : failed).increment();
+        finished.add(job.id);
+        if (finishedCount.incrementAndGet() > historySize) {
+            String oldest = finished.poll();
+            if (oldest != null) {
+                finishedCount.decrementAndGet();
+                jobs.remove(oldest);
+            }
+        }
+        eventPublisher.publishEvent(new LoadJobCompletedEvent(job.toDTO()));
+    }
+
+    private BlockingQueue<LoadJob> queueFor(Long droneId) {
+        return queues.get(Math.floorMod(Long.hashCode(droneId), queues.size()));
+    }
+
+    private long queued() {
+        long queued = 0;
+        for (BlockingQueue<LoadJob> queue : queues) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    // Written by one worker, read by pollers
+    private static final class LoadJob {
+
+        private final String id;
+        private final LoadDroneRequestDTO request;
+        private final Instant submittedAt;
+        private LoadJobStatus status = LoadJobStatus.QUEUED;
+        private DroneDTO drone;
+        private String error;
+        private String reason;
+        private Instant completedAt;
+
+        private LoadJob(String id, LoadDroneRequestDTO request, Instant submittedAt) {
+            this.id = id;
+            this.request = request;
+            this.submittedAt = submittedAt;
+        }
+
+        synchronized void start() {
+            status = LoadJobStatus.RUNNING;
+        }
+
+        synchronized void complete(LoadOutcome outcome) {
+            if (outcome.error() == null) {
+                status = LoadJobStatus.SUCCEEDED;
+                drone = outcome.drone();
+            } else {
+                status = LoadJobStatus.FAILED;
+                error = outcome.error().getMessage();
+                reason = DeliveryMetrics.rejectionReason(outcome.error());
+            }
+            completedAt = Instant.now();
+        }
+
+        synchronized LoadJobDTO toDTO() {
+            return LoadJobDTO.builder()
+                    .id(id)
+                    .status(status)
+                    .droneId(request.getDroneId())
+                    .medicationIds(request.getMedicationIds())
+                    .drone(drone)
+                    .error(error)
+                    .reason(reason)
+                    .submittedAt(submittedAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
@@ -1,20 +1,40 @@
 package com.hitachi.assessment.service;
+import com.hitachi.assessment.cache.LookupCache;
+import com.hitachi.assessment.dto.CacheStatsDTO;
 import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.MedicationChangedEvent;
+import com.hitachi.assessment.exception.DroneOverloadedException;
+import com.hitachi.assessment.exception.ImageTooLargeException;
 import com.hitachi.assessment.exception.MedicationNotFoundException;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
 import com.hitachi.assessment.model.Drone;
 import com.hitachi.assessment.model.Medication;
 import com.hitachi.assessment.repository.DroneRepository;
 import com.hitachi.assessment.repository.MedicationRepository;
 import com.hitachi.assessment.service.interfaces.IMedicationService;
+import com.hitachi.assessment.storage.ImageSizeExceededException;
+import com.hitachi.assessment.storage.ImageStore;
+import com.hitachi.assessment.storage.StoredImage;
+import com.hitachi.assessment.storage.UploadLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,22 +44,23 @@ public class MedicationServiceImpl implements IMedicationService {
 
     private final MedicationRepository medicationRepository;
     private final DroneRepository droneRepository;
+    private final ImageStore imageStore;
+    private final UploadLimiter uploadLimiter;
+    private final DeliveryMetrics metrics;
+    private final LookupCache lookupCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
     public MedicationDTO createMedication(MedicationDTO medicationDTO) {
+        return metrics.recordMedicationOperation("create", () -> create(medicationDTO));
+    }
+
+    private MedicationDTO create(MedicationDTO medicationDTO) {
         Medication medication = convertToEntity(medicationDTO);
 
         // Process image if available
-        try {
-            if (medicationDTO.getImageFile() != null && !medicationDTO.getImageFile().isEmpty()) {
-                medication.setImage(medicationDTO.getImageFile().getBytes());
-            } else if (StringUtils.hasText(medicationDTO.getImageBase64())) {
-                medication.setImage(Base64.getDecoder().decode(medicationDTO.getImageBase64()));
-            }
-        } catch (IOException e) {
-            log.error("Error processing medication image", e);
-        }
+        storeImage(medication, medicationDTO);
 
         // Set drone if droneId is provided
         if (medicationDTO.getDroneId() != null) {
@@ -49,6 +70,12 @@ public class MedicationServiceImpl implements IMedicationService {
         }
 
         Medication savedMedication = medicationRepository.save(medication);
+        Long droneId = medication.getDrone() != null ? medication.getDrone().getId() : null;
+        if (droneId != null) {
+            addLoad(droneId, medication.getWeight());
+        }
+        eventPublisher.publishEvent(MedicationChangedEvent.of(savedMedication.getId(), droneId));
+        publishDroneLoads(droneId);
         log.info("Created new medication with code: {}", savedMedication.getCode());
 
         return convertToDTO(savedMedication);
@@ -62,27 +89,35 @@ public class MedicationServiceImpl implements IMedicationService {
                 .collect(Collectors.toList());
     }
 
+    // Served from the lookup cache; the repository call opens its own transaction on a miss
     @Override
-    @Transactional(readOnly = true)
     public MedicationDTO getMedicationById(Long id) {
-        Medication medication = medicationRepository.findById(id)
-                .orElseThrow(() -> new MedicationNotFoundException("Medication not found with id: " + id));
-        return convertToDTO(medication);
+        return lookupCache.medication(id, () -> convertToDTO(medicationRepository.findById(id)
+                .orElseThrow(() -> new MedicationNotFoundException("Medication not found with id: " + id))));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public MedicationDTO getMedicationByCode(String code) {
-        Medication medication = medicationRepository.findByCode(code)
-                .orElseThrow(() -> new MedicationNotFoundException("Medication not found with code: " + code));
-        return convertToDTO(medication);
+        return lookupCache.medicationByCode(code, () -> convertToDTO(medicationRepository.findByCode(code)
+                .orElseThrow(() -> new MedicationNotFoundException("Medication not found with code: " + code))));
+    }
+
+    @Override
+    public CacheStatsDTO getCacheStats() {
+        return lookupCache.getMedicationStats();
     }
 
     @Override
     @Transactional
     public MedicationDTO updateMedication(Long id, MedicationDTO medicationDTO) {
+        return metrics.recordMedicationOperation("update", () -> update(id, medicationDTO));
+    }
+
+    private MedicationDTO update(Long id, MedicationDTO medicationDTO) {
         Medication existingMedication = medicationRepository.findById(id)
                 .orElseThrow(() -> new MedicationNotFoundException("Medication not found with id: " + id));
+        Drone previousDrone = existingMedication.getDrone();
+        int previousWeight = existingMedication.getWeight();
 
         // Update fields
         existingMedication.setName(medicationDTO.getName());
@@ -90,15 +125,7 @@ public class MedicationServiceImpl implements IMedicationService {
         existingMedication.setCode(medicationDTO.getCode());
 
         // Process image if available
-        try {
-            if (medicationDTO.getImageFile() != null && !medicationDTO.getImageFile().isEmpty()) {
-                existingMedication.setImage(medicationDTO.getImageFile().getBytes());
-            } else if (StringUtils.hasText(medicationDTO.getImageBase64())) {
-                existingMedication.setImage(Base64.getDecoder().decode(medicationDTO.getImageBase64()));
-            }
-        } catch (IOException e) {
-            log.error("Error processing medication image", e);
-        }
+        storeImage(existingMedication, medicationDTO);
 
         // Update drone association if provided
         if (medicationDTO.getDroneId() != null) {
@@ -108,6 +135,10 @@ public class MedicationServiceImpl implements IMedicationService {
         }
 
         Medication updatedMedication = medicationRepository.save(existingMedication);
+        adjustDroneLoads(previousDrone, previousWeight, existingMedication.getDrone(), existingMedication.getWeight());
+        eventPublisher.publishEvent(MedicationChangedEvent.of(id,
+                previousDrone != null ? previousDrone.getId() : null,
+                existingMedication.getDrone() != null ? existingMedication.getDrone().getId() : null));
         log.info("Updated medication with id: {}", updatedMedication.getId());
 
         return convertToDTO(updatedMedication);
@@ -116,12 +147,118 @@ public class MedicationServiceImpl implements IMedicationService {
     @Override
     @Transactional
     public void deleteMedication(Long id) {
-        if (!medicationRepository.existsById(id)) {
-            throw new MedicationNotFoundException("Medication not found with id: " + id);
+        metrics.recordMedicationOperation("delete", () -> {
+            Medication medication = medicationRepository.findById(id)
+                    .orElseThrow(() -> new MedicationNotFoundException("Medication not found with id: " + id));
+
+            Long droneId = medication.getDrone() != null ? medication.getDrone().getId() : null;
+            droneRepository.releaseMedicationLoad(id);
+            medicationRepository.delete(medication);
+            eventPublisher.publishEvent(MedicationChangedEvent.of(id, droneId));
+            publishDroneLoads(droneId);
+            log.info("Deleted medication with id: {}", id);
+            return null;
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StoredImage getMedicationImage(Long id) {
+        Medication medication = medicationRepository.findById(id)
+                .orElseThrow(() -> new MedicationNotFoundException("Medication not found with id: " + id));
+        if (medication.getImageHash() == null || !imageStore.exists(medication.getImageHash())) {
+            throw new MedicationNotFoundException("Medication " + id + " has no image");
+        }
+        return new StoredImage(medication.getImageHash(), medication.getImageSize());
+    }
+
+    @Override
+    public String getImageContentType(StoredImage image) throws IOException {
+        return imageStore.contentType(image.hash());
+    }
+
+    @Override
+    public void writeImage(StoredImage image, long position, long count, WritableByteChannel target) throws IOException {
+        imageStore.transferTo(image.hash(), position, count, target);
+    }
+
+    // Stream the uploaded or Base64 image into the content-addressed store and keep only its hash and size.
+    // Room for the image is reserved up front so concurrent uploads wait for capacity rather than pile up.
+    private void storeImage(Medication medication, MedicationDTO dto) {
+        try {
+            StoredImage stored = null;
+            MultipartFile file = dto.getImageFile();
+            if (file != null && !file.isEmpty()) {
+                stored = storeLimited(file.getSize(), file::getInputStream);
+            } else if (StringUtils.hasText(dto.getImageBase64())) {
+                String base64 = dto.getImageBase64();
+                stored = storeLimited(base64.length() / 4L * 3, () -> Base64.getDecoder().wrap(
+                        new ByteArrayInputStream(base64.getBytes(StandardCharsets.ISO_8859_1))));
+            }
+            if (stored != null) {
+                medication.setImageHash(stored.hash());
+                medication.setImageSize(stored.size());
+            }
+        } catch (IOException e) {
+            log.error("Error processing medication image", e);
+        }
+    }
+
+    private StoredImage storeLimited(long expectedSize, InputStreamSource source) throws IOException {
+        if (expectedSize > imageStore.getMaxUploadBytes()) {
+            throw new ImageTooLargeException("Image exceeds the maximum size of " + imageStore.getMaxUploadBytes() + " bytes");
+        }
+        try (UploadLimiter.Reservation ignored = uploadLimiter.reserve(expectedSize);
+             InputStream in = source.getInputStream()) {
+            StoredImage stored = imageStore.store(in);
+            metrics.recordImageSize(stored.size());
+            return stored;
+        } catch (ImageSizeExceededException e) {
+            // The declared size can understate the stream, e.g. for Base64 or chunked uploads
+            throw new ImageTooLargeException(e.getMessage());
         }
+    }
+
+    // Keep the carrying drones' current load in step with a medication's weight or drone change
+    private void adjustDroneLoads(Drone previousDrone, int previousWeight, Drone newDrone, int newWeight) {
+        Long previousDroneId = previousDrone != null ? previousDrone.getId() : null;
+        Long newDroneId = newDrone != null ? newDrone.getId() : null;
 
-        medicationRepository.deleteById(id);
-        log.info("Deleted medication with id: {}", id);
+        if (previousDroneId != null && previousDroneId.equals(newDroneId)) {
+            if (newWeight == previousWeight) {
+                return;
+            }
+            if (newWeight > previousWeight) {
+                addLoad(newDroneId, newWeight - previousWeight);
+            } else {
+                droneRepository.adjustCurrentLoad(newDroneId, newWeight - previousWeight);
+            }
+            publishDroneLoads(newDroneId);
+            return;
+        }
+        if (previousDroneId != null) {
+            droneRepository.adjustCurrentLoad(previousDroneId, -previousWeight);
+        }
+        if (newDroneId != null) {
+            addLoad(newDroneId, newWeight);
+        }
+        publishDroneLoads(previousDroneId, newDroneId);
+    }
+
+    // Adds weight to a drone only if it still fits, in the same guarded UPDATE as loading
+    private void addLoad(Long droneId, int weight) {
+        if (droneRepository.addLoadIfCapacity(droneId, weight) == 0) {
+            throw new DroneOverloadedException(
+                    "Adding " + weight + "g would exceed the weight limit of drone " + droneId);
+        }
+    }
+
+    // The availability index, gauges and event stream only follow drone events, so a load change needs one too
+    private void publishDroneLoads(Long... droneIds) {
+        List<Long> ids = Arrays.stream(droneIds).filter(Objects::nonNull).distinct().toList();
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(new DroneChangedEvent(droneRepository.findSnapshotsByIdIn(ids)));
+        }
     }
 
     // Helper methods for conversion
@@ -141,9 +278,10 @@ public class MedicationServiceImpl implements IMedicationService {
         dto.setWeight(entity.getWeight());
         dto.setCode(entity.getCode());
 
-        // Convert image to Base64 if present
-        if (entity.getImage() != null) {
-            dto.setImageBase64(Base64.getEncoder().encodeToString(entity.getImage()));
+        // Link to the stored image if present
+        if (entity.getImageHash() != null) {
+            dto.setImageUrl("/api/medications/" + entity.getId() + "/image");
+            dto.setImageSize(entity.getImageSize());
         }
 
         if (entity.getDrone() != null) {
@@ -0,0 +1,85 @@
+package com.hitachi.assessment.service;
+import com.hitachi.assessment.dto.RetryStatsDTO;
+import com.hitachi.assessment.exception.ConcurrentUpdateException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Runs an action in its own transaction and retries it when another writer wins the version check.
+// Back-off is exponential with full jitter so contending requests spread out instead of colliding again.
+@Component
+@Slf4j
+public class OptimisticLockRetryTemplate {
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${drone.load.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${drone.load.retry.initial-backoff-ms:5}")
+    private long initialBackoffMs;
+
+    @Value("${drone.load.retry.max-backoff-ms:100}")
+    private long maxBackoffMs;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public OptimisticLockRetryTemplate(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A caller's transaction is already rollback-only after a conflict, so each attempt needs a fresh one
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        executions.increment();
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("Giving up after {} conflicting attempts: {}", attempt, e.getMessage());
+                    throw new ConcurrentUpdateException(
+                            "The drone was modified concurrently, please retry the request");
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    public RetryStatsDTO getStats() {
+        long attemptCount = attempts.sum();
+        long conflictCount = conflicts.sum();
+        return RetryStatsDTO.builder()
+                .executions(executions.sum())
+                .attempts(attemptCount)
+                .conflicts(conflictCount)
+                .exhausted(exhausted.sum())
+                .conflictRate(attemptCount == 0 ? 0.0 : (double) conflictCount / attemptCount)
+                .build();
+    }
+
+    private void backOff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        long sleepMs = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Interrupted while waiting to retry a conflicting update");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.hitachi.assessment.service;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.hitachi.assessment.dto.TelemetryIngestResultDTO;
+import com.hitachi.assessment.dto.TelemetryStatsDTO;
+import com.hitachi.assessment.service.interfaces.ITelemetryService;
+import com.hitachi.assessment.telemetry.TelemetryWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Parses telemetry bodies as a stream, reading by reading, and hands each valid reading to the write-behind
+// buffer. Nothing is collected per request, so body size does not change memory use.
+@Service
+@RequiredArgsConstructor
+public class TelemetryServiceImpl implements ITelemetryService {
+
+    // Binary record: drone id (int64), timestamp in epoch millis (int64), battery level (uint8), big-endian
+    public static final int BINARY_RECORD_SIZE = 17;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final TelemetryWriter telemetryWriter;
+
+    // Readings before a malformed part of the body are already queued, so the result reports them with the error
+    @Override
+    public TelemetryIngestResultDTO ingestJson(InputStream body) throws IOException {
+        Counts counts = new Counts();
+        long receivedAt = System.currentTimeMillis();
+        try (JsonParser parser = JSON.createParser(body)) {
+            JsonToken token;
+            // A root array and a stream of root objects (NDJSON) read the same way
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_ARRAY || token == JsonToken.END_ARRAY) {
+                    continue;
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    counts.error = "Expected a telemetry object at line " + parser.currentLocation().getLineNr()
+                            + ", column " + parser.currentLocation().getColumnNr()
+                            + "; the rest of the body was not read";
+                    break;
+                }
+                readObject(parser, counts, receivedAt);
+            }
+        } catch (JsonProcessingException e) {
+            counts.error = "Malformed telemetry JSON, the rest of the body was not read: " + e.getOriginalMessage();
+        }
+        return counts.toResult();
+    }
+
+    @Override
+    public TelemetryIngestResultDTO ingestBinary(InputStream body) throws IOException {
+        Counts counts = new Counts();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(body, 64 * 1024));
+        while (true) {
+            long droneId;
+            try {
+                droneId = in.readLong();
+            } catch (EOFException e) {
+                break;
+            }
+            try {
+                long timestamp = in.readLong();
+                int level = in.readUnsignedByte();
+                counts.add(droneId, level, timestamp, telemetryWriter);
+            } catch (EOFException e) {
+                counts.error = "Binary telemetry must be a sequence of " + BINARY_RECORD_SIZE
+                        + "-byte records; the last record was cut off";
+                break;
+            }
+        }
+        return counts.toResult();
+    }
+
+    @Override
+    public TelemetryStatsDTO getStats() {
+        return telemetryWriter.getStats();
+    }
+
+    private void readObject(JsonParser parser, Counts counts, long receivedAt) throws IOException {
+        long droneId = 0;
+        int level = -1;
+        long timestamp = receivedAt;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "droneId" -> droneId = value.isNumeric() ? parser.getLongValue() : 0;
+                case "batteryLevel" -> level = value.isNumeric() ? parser.getIntValue() : -1;
+                case "timestamp" -> timestamp = value.isNumeric() ? parser.getLongValue() : receivedAt;
+                default -> parser.skipChildren();
+            }
+        }
+        counts.add(droneId, level, timestamp, telemetryWriter);
+    }
+
+    private static final class Counts {
+
+        private long accepted;
+        private long invalid;
+        private long dropped;
+        private String error;
+
+        void add(long droneId, int level, long timestamp, TelemetryWriter writer) {
+            if (droneId <= 0 || level < 0 || level > 100) {
+                invalid++;
+            } else if (writer.offer(droneId, level, timestamp)) {
+                accepted++;
+            } else {
+                dropped++;
+            }
+        }
+
+        TelemetryIngestResultDTO toResult() {
+            return new TelemetryIngestResultDTO(accepted, invalid, dropped, error);
+        }
+    }
+}
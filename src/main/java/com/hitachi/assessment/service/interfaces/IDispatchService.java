@@ -0,0 +1,12 @@
+package com.hitachi.assessment.service.interfaces;
+
+import com.hitachi.assessment.dto.DispatchPlanDTO;
+
+public interface IDispatchService {
+
+    // Plan loads for all unassigned medications without changing anything
+    DispatchPlanDTO plan();
+
+    // Plan loads and apply them in a single transaction
+    DispatchPlanDTO apply();
+}
@@ -0,0 +1,12 @@
+package com.hitachi.assessment.service.interfaces;
+
+import com.hitachi.assessment.dto.DroneBatchResultDTO;
+import com.hitachi.assessment.dto.DroneCommandDTO;
+
+import java.util.List;
+
+public interface IDroneBatchService {
+
+    // Apply load and state-transition commands in order in one transaction; a rejected command does not stop the others
+    DroneBatchResultDTO execute(List<DroneCommandDTO> commands);
+}
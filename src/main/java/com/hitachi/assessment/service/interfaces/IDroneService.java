@@ -1,18 +1,29 @@
 package com.hitachi.assessment.service.interfaces;
 
+import com.hitachi.assessment.dto.BatteryHistoryDTO;
+import com.hitachi.assessment.dto.CacheStatsDTO;
+import com.hitachi.assessment.dto.DrainPredictionDTO;
 import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.DronePageDTO;
 import com.hitachi.assessment.dto.LoadDroneRequestDTO;
 import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.dto.RetryStatsDTO;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 public interface IDroneService {
 
+    // One request of loadDrones: the loaded drone, or the exception that refused the request
+    record LoadOutcome(DroneDTO drone, RuntimeException error) {
+    }
+
     // Register a new drone
     DroneDTO registerDrone(DroneDTO droneDTO);
 
-    // Get all drones
-    List<DroneDTO> getAllDrones();
+    // Get a keyset-paginated page of drones
+    DronePageDTO getDrones(String cursor, Integer size);
 
     // Get drone by ID
     DroneDTO getDroneById(Long id);
@@ -20,18 +31,39 @@ public interface IDroneService {
     // Get drone by serial number
     DroneDTO getDroneBySerialNumber(String serialNumber);
 
-    // Get available drones for loading
-    List<DroneDTO> getAvailableDrones();
+    // Get available drones for loading, optionally only those with room and battery for an extra weight
+    List<DroneDTO> getAvailableDrones(Integer weight);
+
+    // Find the available drone whose remaining capacity fits the weight most tightly
+    DroneDTO findBestFitDrone(int weight);
 
     // Load medications onto a drone
     DroneDTO loadDrone(LoadDroneRequestDTO loadRequest);
 
+    // Apply loads in order in one transaction; a request refused by its checks does not stop the others
+    List<LoadOutcome> loadDrones(List<LoadDroneRequestDTO> loadRequests);
+
+    // Retry and conflict counters for loadDrone
+    RetryStatsDTO getLoadRetryStats();
+
     // Get medications loaded on a drone
     List<MedicationDTO> getDroneMedications(Long droneId);
 
     // Check drone battery level
     int checkDroneBattery(Long droneId);
 
+    // Hit, miss and eviction counters of the drone lookup cache
+    CacheStatsDTO getCacheStats();
+
+    // Battery a trip with the given load is expected to use, from the drone's delivery history
+    DrainPredictionDTO predictDrain(Long droneId, int load);
+
+    // Drones currently below the low-battery threshold, lowest first
+    List<DroneDTO> getLowBatteryDrones();
+
+    // Battery levels between from and to, downsampled to min/max/avg per step
+    BatteryHistoryDTO getBatteryHistory(Long droneId, Instant from, Instant to, Duration step);
+
     // Update drone state
     DroneDTO updateDroneState(Long droneId, String newState);
 }
\ No newline at end of file
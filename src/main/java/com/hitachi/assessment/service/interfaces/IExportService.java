@@ -0,0 +1,47 @@
+package com.hitachi.assessment.service.interfaces;
+
+import com.hitachi.assessment.exception.InvalidExportException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+
+public interface IExportService {
+
+    enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidExportException("Unknown export format '" + name + "', expected one of "
+                        + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    // Write every drone to the stream as it is read; returns the number of rows
+    long exportDrones(Format format, OutputStream out) throws IOException;
+
+    // Same for medications; without images the image link and size columns are left out
+    long exportMedications(Format format, boolean includeImages, OutputStream out) throws IOException;
+}
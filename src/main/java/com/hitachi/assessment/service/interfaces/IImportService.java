@@ -0,0 +1,18 @@
+package com.hitachi.assessment.service.interfaces;
+
+import com.hitachi.assessment.dto.ImportResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface IImportService {
+
+    // Register drones from a JSON array or NDJSON body; invalid and duplicate rows are reported, not fatal
+    ImportResultDTO importDrones(InputStream body) throws IOException;
+
+    // Upsert medications by code from a JSON array or NDJSON body
+    ImportResultDTO importMedications(InputStream body) throws IOException;
+
+    // Upsert medications by code from CSV with a header row naming the name, weight and code columns
+    ImportResultDTO importMedicationsCsv(InputStream body) throws IOException;
+}
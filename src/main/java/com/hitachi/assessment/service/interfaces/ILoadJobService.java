@@ -0,0 +1,17 @@
+package com.hitachi.assessment.service.interfaces;
+
+import com.hitachi.assessment.dto.LoadDroneRequestDTO;
+import com.hitachi.assessment.dto.LoadJobDTO;
+import com.hitachi.assessment.dto.LoadJobStatsDTO;
+
+public interface ILoadJobService {
+
+    // Queue a load for the workers; throws LoadQueueFullException when there is no room
+    LoadJobDTO submit(LoadDroneRequestDTO loadRequest);
+
+    // Current status of a job, until it is dropped from the finished-job history
+    LoadJobDTO getJob(String id);
+
+    // Queue depth and job counters
+    LoadJobStatsDTO getStats();
+}
@@ -1,7 +1,11 @@
 package com.hitachi.assessment.service.interfaces;
 
+import com.hitachi.assessment.dto.CacheStatsDTO;
 import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.storage.StoredImage;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
 public interface IMedicationService {
@@ -18,9 +22,21 @@ public interface IMedicationService {
     // Get medication by code
     MedicationDTO getMedicationByCode(String code);
 
+    // Hit, miss and eviction counters of the medication lookup cache
+    CacheStatsDTO getCacheStats();
+
     // Update a medication
     MedicationDTO updateMedication(Long id, MedicationDTO medicationDTO);
 
     // Delete a medication
     void deleteMedication(Long id);
+
+    // Get the stored image of a medication
+    StoredImage getMedicationImage(Long id);
+
+    // Get the media type of a stored image
+    String getImageContentType(StoredImage image) throws IOException;
+
+    // Copy a byte range of a stored image to the target channel
+    void writeImage(StoredImage image, long position, long count, WritableByteChannel target) throws IOException;
 }
\ No newline at end of file
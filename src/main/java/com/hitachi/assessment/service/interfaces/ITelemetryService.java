@@ -0,0 +1,19 @@
+package com.hitachi.assessment.service.interfaces;
+
+import com.hitachi.assessment.dto.TelemetryIngestResultDTO;
+import com.hitachi.assessment.dto.TelemetryStatsDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ITelemetryService {
+
+    // Queue battery readings from a JSON array or NDJSON body
+    TelemetryIngestResultDTO ingestJson(InputStream body) throws IOException;
+
+    // Queue battery readings from fixed-size binary records
+    TelemetryIngestResultDTO ingestBinary(InputStream body) throws IOException;
+
+    // Ingest and write-behind counters
+    TelemetryStatsDTO getStats();
+}
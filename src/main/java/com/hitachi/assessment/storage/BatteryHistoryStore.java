@@ -0,0 +1,405 @@
+package com.hitachi.assessment.storage;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Append-only battery history per drone, as <root>/<segmentStart>/<droneId>.ts (varint timestamp deltas) and .lv (level bytes)
+// Only level changes are stored; queries memory-map the overlapping segments and retention deletes whole segments
+@Component
+@Slf4j
+public class BatteryHistoryStore {
+
+    public record Bucket(long start, int min, int max, double avg, int count) {
+    }
+
+    private static final String TIMESTAMPS = ".ts";
+    private static final String LEVELS = ".lv";
+
+    private final Path root;
+    private final long segmentMillis;
+    private final long retentionMillis;
+    private final Map<Long, Series> series = new ConcurrentHashMap<>();
+    // Drones with files in each segment written to since startup, listed once per segment instead of probing
+    // the file system for every drone seen for the first time
+    private final Map<Long, Set<Long>> segmentDrones = new ConcurrentHashMap<>();
+
+    public BatteryHistoryStore(@Value("${drone.battery.history.dir:${java.io.tmpdir}/drone-battery-history}") String directory,
+                               @Value("${drone.battery.history.segment-hours:24}") long segmentHours,
+                               @Value("${drone.battery.history.retention-days:31}") long retentionDays) throws IOException {
+        this.root = Path.of(directory).toAbsolutePath();
+        this.segmentMillis = TimeUnit.HOURS.toMillis(segmentHours);
+        this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+        Files.createDirectories(root);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDroneChanged(DroneChangedEvent event) {
+        long now = System.currentTimeMillis();
+        for (DroneDTO drone : event.getDrones()) {
+            if (drone.getId() != null && drone.getBatteryCapacity() != null) {
+                record(drone.getId(), drone.getBatteryCapacity(), now);
+            }
+        }
+    }
+
+    public void record(long droneId, int level, long timestamp) {
+        series.computeIfAbsent(droneId, Series::new).append(level, timestamp);
+    }
+
+    // Appends every buffered sample to its column files
+    @PreDestroy
+    public void flush() {
+        for (Series s : series.values()) {
+            s.flush();
+        }
+    }
+
+    // Deletes segments that ended before the retention window; returns how many were removed
+    public int applyRetention() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        int removed = 0;
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(root)) {
+            for (Path segment : segments) {
+                Long start = parseSegment(segment);
+                if (start != null && start + segmentMillis <= cutoff) {
+                    segmentDrones.remove(start);
+                    deleteRecursively(segment);
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Battery history retention failed", e);
+        }
+        return removed;
+    }
+
+    /**
+     * Folds the drone's samples with {@code from <= timestamp < to} into buckets of {@code stepMillis}, starting
+     * at {@code from}. Buckets without samples are left out.
+     */
+    public List<Bucket> query(long droneId, long from, long to, long stepMillis) {
+        int bucketCount = (int) ((to - from + stepMillis - 1) / stepMillis);
+        Aggregator aggregator = new Aggregator(from, to, stepMillis, bucketCount);
+        Series s = series.get(droneId);
+        if (s != null) {
+            s.scan(aggregator);
+        } else {
+            scanFiles(droneId, from, to, aggregator);
+        }
+        return aggregator.buckets();
+    }
+
+    private void scanFiles(long droneId, long from, long to, Aggregator aggregator) {
+        for (long start = segmentStart(from); start < to; start += segmentMillis) {
+            scanSegment(droneId, start, aggregator);
+        }
+    }
+
+    // Returns the last timestamp in the segment file, or the segment start when it holds nothing
+    private long scanSegment(long droneId, long segmentStart, Aggregator aggregator) {
+        Path levelsFile = segmentDir(segmentStart).resolve(droneId + LEVELS);
+        Path timestampsFile = segmentDir(segmentStart).resolve(droneId + TIMESTAMPS);
+        if (!Files.exists(levelsFile) || !Files.exists(timestampsFile)) {
+            return segmentStart;
+        }
+        try (FileChannel levelsChannel = FileChannel.open(levelsFile, StandardOpenOption.READ);
+             FileChannel timestampsChannel = FileChannel.open(timestampsFile, StandardOpenOption.READ)) {
+            // Timestamps are appended before levels, so the level count never runs ahead of the timestamps
+            int count = (int) levelsChannel.size();
+            ByteBuffer levels = levelsChannel.map(FileChannel.MapMode.READ_ONLY, 0, count);
+            ByteBuffer timestamps = timestampsChannel.map(FileChannel.MapMode.READ_ONLY, 0, timestampsChannel.size());
+            return decode(timestamps, levels, count, segmentStart, aggregator);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read battery history of drone " + droneId, e);
+        }
+    }
+
+    // Hot loop of every query: varint timestamps are decoded in place and samples are folded into the current
+    // bucket held in locals, touching the bucket arrays only when the bucket changes
+    private static long decode(ByteBuffer timestamps, ByteBuffer levels, int count, long base, Aggregator aggregator) {
+        long timestamp = base;
+        if (aggregator == null) {
+            for (int i = 0; i < count; i++) {
+                timestamp += readVarint(timestamps);
+            }
+            return timestamp;
+        }
+        long from = aggregator.from;
+        long to = aggregator.to;
+        long step = aggregator.step;
+        int bucket = -1;
+        long bucketEnd = Long.MIN_VALUE;
+        int min = 0;
+        int max = 0;
+        long sum = 0;
+        int samples = 0;
+        for (int i = 0; i < count; i++) {
+            byte first = timestamps.get();
+            timestamp += first >= 0 ? first : readVarint(first, timestamps);
+            if (timestamp < from) {
+                continue;
+            }
+            if (timestamp >= to) {
+                break;
+            }
+            if (timestamp >= bucketEnd) {
+                aggregator.merge(bucket, min, max, sum, samples);
+                bucket = (int) ((timestamp - from) / step);
+                bucketEnd = from + (bucket + 1) * step;
+                min = Integer.MAX_VALUE;
+                max = Integer.MIN_VALUE;
+                sum = 0;
+                samples = 0;
+            }
+            int level = levels.get(i) & 0xFF;
+            min = Math.min(min, level);
+            max = Math.max(max, level);
+            sum += level;
+            samples++;
+        }
+        aggregator.merge(bucket, min, max, sum, samples);
+        return timestamp;
+    }
+
+    private long segmentStart(long timestamp) {
+        return Math.floorDiv(timestamp, segmentMillis) * segmentMillis;
+    }
+
+    private Path segmentDir(long segmentStart) {
+        return root.resolve(Long.toString(segmentStart));
+    }
+
+    private Set<Long> dronesIn(long segmentStart) {
+        return segmentDrones.computeIfAbsent(segmentStart, start -> {
+            Set<Long> drones = ConcurrentHashMap.newKeySet();
+            Path dir = segmentDir(start);
+            if (!Files.isDirectory(dir)) {
+                return drones;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + LEVELS)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    try {
+                        drones.add(Long.parseLong(name.substring(0, name.length() - LEVELS.length())));
+                    } catch (NumberFormatException e) {
+                        // Not one of ours
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot list battery history segment " + dir, e);
+            }
+            return drones;
+        });
+    }
+
+    private static Long parseSegment(Path segment) {
+        try {
+            return Long.parseLong(segment.getFileName().toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static void writeVarint(ByteSink sink, long value) {
+        while ((value & ~0x7FL) != 0) {
+            sink.add((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        sink.add((byte) value);
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        return readVarint(buffer.get(), buffer);
+    }
+
+    private static long readVarint(byte first, ByteBuffer buffer) {
+        long value = first & 0x7F;
+        int shift = 7;
+        byte b = first;
+        while (b < 0) {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    // Samples of one drone: what is on disk plus an in-memory tail that flush() appends
+    private final class Series {
+
+        private final long droneId;
+        private final ByteSink pendingTimestamps = new ByteSink();
+        private final ByteSink pendingLevels = new ByteSink();
+        private long segment = Long.MIN_VALUE;
+        // Timestamp the first pending delta is relative to
+        private long pendingBase;
+        private long lastTimestamp;
+        private int lastLevel = -1;
+
+        private Series(long droneId) {
+            this.droneId = droneId;
+        }
+
+        synchronized void append(int level, long timestamp) {
+            if (level == lastLevel) {
+                return;
+            }
+            long start = segmentStart(timestamp);
+            if (start != segment) {
+                if (start < segment) {
+                    // Late sample from an earlier segment; keep the series in order
+                    timestamp = lastTimestamp;
+                    start = segment;
+                } else {
+                    flush();
+                    segment = start;
+                    lastTimestamp = dronesIn(start).contains(droneId) ? scanSegment(droneId, start, null) : start;
+                    pendingBase = lastTimestamp;
+                }
+            }
+            timestamp = Math.max(timestamp, lastTimestamp);
+            writeVarint(pendingTimestamps, timestamp - lastTimestamp);
+            pendingLevels.add((byte) level);
+            lastTimestamp = timestamp;
+            lastLevel = level;
+        }
+
+        synchronized void flush() {
+            if (pendingLevels.size() == 0) {
+                return;
+            }
+            try {
+                Path dir = segmentDir(segment);
+                Files.createDirectories(dir);
+                appendTo(dir.resolve(droneId + TIMESTAMPS), pendingTimestamps);
+                appendTo(dir.resolve(droneId + LEVELS), pendingLevels);
+                dronesIn(segment).add(droneId);
+                pendingTimestamps.clear();
+                pendingLevels.clear();
+                pendingBase = lastTimestamp;
+            } catch (IOException e) {
+                log.error("Cannot append battery history of drone {}", droneId, e);
+            }
+        }
+
+        synchronized void scan(Aggregator aggregator) {
+            for (long start = segmentStart(aggregator.from); start < aggregator.to; start += segmentMillis) {
+                scanSegment(droneId, start, aggregator);
+                if (start == segment && pendingLevels.size() > 0) {
+                    decode(pendingTimestamps.view(), pendingLevels.view(), pendingLevels.size(), pendingBase, aggregator);
+                }
+            }
+        }
+
+        private void appendTo(Path file, ByteSink bytes) throws IOException {
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = bytes.view();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    private static final class ByteSink {
+
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        void add(byte b) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = b;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        ByteBuffer view() {
+            return ByteBuffer.wrap(bytes, 0, size).slice();
+        }
+    }
+
+    private static final class Aggregator {
+
+        private final long from;
+        private final long to;
+        private final long step;
+        private final int[] min;
+        private final int[] max;
+        private final long[] sum;
+        private final int[] count;
+
+        private Aggregator(long from, long to, long step, int buckets) {
+            this.from = from;
+            this.to = to;
+            this.step = step;
+            this.min = new int[buckets];
+            this.max = new int[buckets];
+            this.sum = new long[buckets];
+            this.count = new int[buckets];
+        }
+
+        void merge(int bucket, int bucketMin, int bucketMax, long bucketSum, int samples) {
+            if (samples == 0) {
+                return;
+            }
+            if (count[bucket] == 0) {
+                min[bucket] = bucketMin;
+                max[bucket] = bucketMax;
+            } else {
+                min[bucket] = Math.min(min[bucket], bucketMin);
+                max[bucket] = Math.max(max[bucket], bucketMax);
+            }
+            sum[bucket] += bucketSum;
+            count[bucket] += samples;
+        }
+
+        List<Bucket> buckets() {
+            List<Bucket> result = new ArrayList<>();
+            for (int i = 0; i < count.length; i++) {
+                if (count[i] > 0) {
+                    result.add(new Bucket(from + i * step, min[i], max[i], (double) sum[i] / count[i], count[i]));
+                }
+            }
+            return result;
+        }
+    }
+}
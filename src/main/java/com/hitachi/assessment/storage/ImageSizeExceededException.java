@@ -0,0 +1,10 @@
+package com.hitachi.assessment.storage;
+
+import java.io.IOException;
+
+// Thrown by ImageStore when an upload streams past the size limit; the partial file is already gone
+public class ImageSizeExceededException extends IOException {
+    public ImageSizeExceededException(String message) {
+        super(message);
+    }
+}
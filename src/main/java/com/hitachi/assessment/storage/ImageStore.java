@@ -0,0 +1,157 @@
+package com.hitachi.assessment.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed image storage on the local file system.
+ * <p>
+ * Each image is written once under its SHA-256 hash ({@code <root>/ab/cd/<hash>}), so identical uploads
+ * share a single file. Bytes are streamed to a temporary file while the hash is computed and then moved
+ * into place atomically; readers never see a partially written image. Uploads larger than
+ * {@code drone.images.max-upload-bytes} are aborted as soon as the limit is crossed.
+ */
+@Component
+@Slf4j
+public class ImageStore {
+
+    private static final Pattern HASH = Pattern.compile("^[0-9a-f]{64}$");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Path incoming;
+    private final long maxUploadBytes;
+
+    public ImageStore(@Value("${drone.images.dir:${java.io.tmpdir}/drone-images}") String directory,
+                      @Value("${drone.images.max-upload-bytes:5242880}") long maxUploadBytes) throws IOException {
+        this.root = Path.of(directory).toAbsolutePath();
+        this.incoming = root.resolve("incoming");
+        this.maxUploadBytes = maxUploadBytes;
+        Files.createDirectories(incoming);
+    }
+
+    public long getMaxUploadBytes() {
+        return maxUploadBytes;
+    }
+
+    public StoredImage store(byte[] data) throws IOException {
+        try (InputStream in = new ByteArrayInputStream(data)) {
+            return store(in);
+        }
+    }
+
+    public StoredImage store(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(incoming, "upload-", ".tmp");
+        long size = 0;
+        try {
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxUploadBytes) {
+                        throw new ImageSizeExceededException("Image exceeds the maximum size of " + maxUploadBytes + " bytes");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            commit(temp, pathFor(hash));
+            return new StoredImage(hash, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean exists(String hash) {
+        return Files.isRegularFile(pathFor(hash));
+    }
+
+    // Copies a byte range of the image to the target; FileChannel hands the copy to the OS where it can
+    public void transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(pathFor(hash), StandardOpenOption.READ)) {
+            long end = position + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    public InputStream open(String hash) throws IOException {
+        return Files.newInputStream(pathFor(hash));
+    }
+
+    // Best-effort media type from the image's magic bytes
+    public String contentType(String hash) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        try (FileChannel channel = FileChannel.open(pathFor(hash), StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        byte[] b = header.array();
+        if (b[0] == (byte) 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G') {
+            return "image/png";
+        }
+        if (b[0] == (byte) 0xFF && b[1] == (byte) 0xD8) {
+            return "image/jpeg";
+        }
+        if (b[0] == 'G' && b[1] == 'I' && b[2] == 'F') {
+            return "image/gif";
+        }
+        if (b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F' && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return "image/webp";
+        }
+        return "application/octet-stream";
+    }
+
+    private void commit(Path temp, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Same content stored concurrently; the existing file is identical
+            log.debug("Image {} already stored", target.getFileName());
+        }
+    }
+
+    private Path pathFor(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid image hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.hitachi.assessment.storage;
+
+// Content address (hex SHA-256) and length in bytes of an image in the ImageStore
+public record StoredImage(String hash, long size) {
+}
@@ -0,0 +1,77 @@
+package com.hitachi.assessment.storage;
+
+import com.hitachi.assessment.exception.UploadCapacityExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of image bytes being written to the store at the same time.
+ * <p>
+ * Each upload reserves its size (rounded up to whole KiB) before streaming and gives it back afterwards.
+ * When the budget is exhausted new uploads wait up to the configured timeout for capacity to free up and are
+ * then rejected, so a burst of uploads slows down instead of piling up buffers.
+ */
+@Component
+public class UploadLimiter {
+
+    private static final long KIB = 1024;
+
+    private final Semaphore permits;
+    private final int totalPermits;
+    private final long acquireTimeoutMs;
+
+    public UploadLimiter(@Value("${drone.images.max-in-flight-bytes:67108864}") long maxInFlightBytes,
+                         @Value("${drone.images.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        this.totalPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxInFlightBytes / KIB));
+        this.permits = new Semaphore(totalPermits, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    /**
+     * Reserves room for an upload of the given size; the returned reservation must be closed once the upload
+     * has been written.
+     */
+    public Reservation reserve(long bytes) {
+        int needed = permitsFor(bytes);
+        try {
+            if (!permits.tryAcquire(needed, acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new UploadCapacityExceededException("Too many image uploads in progress, retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UploadCapacityExceededException("Interrupted while waiting for upload capacity");
+        }
+        return new Reservation(needed);
+    }
+
+    public long availableBytes() {
+        return permits.availablePermits() * KIB;
+    }
+
+    // A single upload larger than the whole budget still gets through on its own
+    private int permitsFor(long bytes) {
+        long kib = (Math.max(0, bytes) + KIB - 1) / KIB;
+        return (int) Math.max(1, Math.min(totalPermits, kib));
+    }
+
+    public final class Reservation implements AutoCloseable {
+
+        private final int held;
+        private boolean released;
+
+        private Reservation(int held) {
+            this.held = held;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                permits.release(held);
+            }
+        }
+    }
+}
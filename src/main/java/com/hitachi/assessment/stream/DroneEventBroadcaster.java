@@ -0,0 +1,333 @@
+package com.hitachi.assessment.stream;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.DroneUpdateDTO;
+import com.hitachi.assessment.dto.LoadJobDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.LoadJobCompletedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Streams drone state, load and battery changes, plus finished load jobs, to SSE subscribers. Slow subscribers
+// are dropped rather than waited for; a reconnect resumes from a bounded replay buffer or is told to resync.
+@Component
+@Slf4j
+public class DroneEventBroadcaster {
+
+    static final String UPDATE = "drone";
+    static final String RESYNC = "resync";
+    static final String JOB = "job";
+
+    private record Frame(Long id, String name, Object data) {
+    }
+
+    // Comment line only, to find dead connections and keep idle proxies from closing the stream
+    private static final Frame HEARTBEAT = new Frame(null, null, "heartbeat");
+
+    private final int replaySize;
+    private final int subscriberBuffer;
+    private final long timeoutMs;
+    private final Executor sender;
+
+    // Guarded by this
+    private final Deque<Frame> replay = new ArrayDeque<>();
+    private final Map<Long, DroneDTO> lastSeen = new HashMap<>();
+    private long lastEventId = System.currentTimeMillis() * 1000;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @Autowired
+    public DroneEventBroadcaster(MeterRegistry registry,
+                                 @Value("${drone.events.replay-size:1024}") int replaySize,
+                                 @Value("${drone.events.subscriber-buffer:256}") int subscriberBuffer,
+                                 @Value("${drone.events.timeout-ms:1800000}") long timeoutMs,
+                                 @Value("${drone.events.sender-threads:4}") int senderThreads) {
+        this(registry, replaySize, subscriberBuffer, timeoutMs, senderPool(senderThreads));
+    }
+
+    DroneEventBroadcaster(MeterRegistry registry, int replaySize, int subscriberBuffer, long timeoutMs,
+                          Executor sender) {
+        this.replaySize = replaySize;
+        this.subscriberBuffer = subscriberBuffer;
+        this.timeoutMs = timeoutMs;
+        this.sender = sender;
+        Gauge.builder("drone.events.subscribers", subscribers, Set::size)
+                .description("Open drone event streams")
+                .register(registry);
+        FunctionCounter.builder("drone.events.published", published, LongAdder::sum)
+                .description("Drone updates published to the event stream")
+                .register(registry);
+        FunctionCounter.builder("drone.events.dropped", dropped, LongAdder::sum)
+                .description("Event streams closed because the client fell behind")
+                .register(registry);
+    }
+
+    public SseEmitter subscribe(DroneEventFilter filter, Long lastEventId) {
+        return subscribe(new SseEmitter(timeoutMs), filter, lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, DroneEventFilter filter, Long resumeAfter) {
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        synchronized (this) {
+            if (resumeAfter != null) {
+                subscriber.backlog.addAll(replayAfter(resumeAfter, filter));
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.schedule();
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDroneChanged(DroneChangedEvent event) {
+        Instant now = Instant.now();
+        synchronized (this) {
+            for (DroneDTO drone : event.getDrones()) {
+                DroneDTO previous = lastSeen.put(drone.getId(), drone);
+                List<String> changes = changes(previous, drone);
+                if (changes.isEmpty()) {
+                    continue;
+                }
+                Frame frame = new Frame(++lastEventId, UPDATE, toUpdate(drone, previous, changes, now));
+                replay.addLast(frame);
+                if (replay.size() > replaySize) {
+                    replay.removeFirst();
+                }
+                published.increment();
+                subscribers.forEach(subscriber -> subscriber.offer(frame));
+            }
+        }
+    }
+
+    // Completed asynchronous loads go through the same numbered buffer, so a reconnecting client gets them too
+    @EventListener
+    public void onLoadJobCompleted(LoadJobCompletedEvent event) {
+        synchronized (this) {
+            Frame frame = new Frame(++lastEventId, JOB, event.getJob());
+            replay.addLast(frame);
+            if (replay.size() > replaySize) {
+                replay.removeFirst();
+            }
+            subscribers.forEach(subscriber -> subscriber.offer(frame));
+        }
+    }
+
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT));
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    // Before the web server stops, so a graceful shutdown does not wait for streams that never end
+    @EventListener(ContextClosedEvent.class)
+    public void closeStreams() {
+        subscribers.forEach(subscriber -> {
+            subscriber.close();
+            subscriber.emitter.complete();
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sender instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    // Caller holds the lock. Ids are consecutive, so the buffer can resume exactly when it still holds the
+    // update after the client's last one.
+    private List<Frame> replayAfter(long resumeAfter, DroneEventFilter filter) {
+        long oldest = replay.isEmpty() ? lastEventId + 1 : replay.peekFirst().id();
+        if (resumeAfter < oldest - 1 || resumeAfter > lastEventId) {
+            return List.of(new Frame(lastEventId, RESYNC, Map.of("lastEventId", resumeAfter)));
+        }
+        List<Frame> missed = new ArrayList<>();
+        for (Frame frame : replay) {
+            if (frame.id() > resumeAfter && matches(frame, filter)) {
+                missed.add(frame);
+            }
+        }
+        return missed;
+    }
+
+    // Drone updates match the whole filter, job results only its drone ids; other frames go to everyone
+    private static boolean matches(Frame frame, DroneEventFilter filter) {
+        if (UPDATE.equals(frame.name())) {
+            return filter.matches((DroneUpdateDTO) frame.data());
+        }
+        if (JOB.equals(frame.name())) {
+            return filter.matchesDrone(((LoadJobDTO) frame.data()).getDroneId());
+        }
+        return true;
+    }
+
+    private static List<String> changes(DroneDTO previous, DroneDTO current) {
+        if (previous == null) {
+            return List.of("STATE", "LOAD", "BATTERY");
+        }
+        List<String> changes = new ArrayList<>(3);
+        if (previous.getState() != current.getState()) {
+            changes.add("STATE");
+        }
+        if (!Objects.equals(previous.getCurrentLoad(), current.getCurrentLoad())) {
+            changes.add("LOAD");
+        }
+        if (!Objects.equals(previous.getBatteryCapacity(), current.getBatteryCapacity())) {
+            changes.add("BATTERY");
+        }
+        return changes;
+    }
+
+    private static DroneUpdateDTO toUpdate(DroneDTO drone, DroneDTO previous, List<String> changes, Instant now) {
+        return DroneUpdateDTO.builder()
+                .droneId(drone.getId())
+                .serialNumber(drone.getSerialNumber())
+                .model(drone.getModel())
+                .state(drone.getState())
+                .previousState(previous != null ? previous.getState() : null)
+                .currentLoad(drone.getCurrentLoad())
+                .weightLimit(drone.getWeightLimit())
+                .batteryCapacity(drone.getBatteryCapacity())
+                .changes(changes)
+                .timestamp(now)
+                .build();
+    }
+
+    private static ExecutorService senderPool(int threads) {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "drone-events-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // One stream. Frames are queued by publishers and sent by at most one sender task at a time.
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final DroneEventFilter filter;
+        private final BlockingQueue<Frame> queue;
+        // Replayed frames, sent before the queue; only touched by the sender task after subscribe
+        private final Deque<Frame> backlog = new ArrayDeque<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, DroneEventFilter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        }
+
+        void offer(Frame frame) {
+            if (closed || overflowed) {
+                return;
+            }
+            if (!matches(frame, filter)) {
+                return;
+            }
+            if (!queue.offer(frame)) {
+                overflowed = true;
+                subscribers.remove(this);
+                queue.clear();
+                dropped.increment();
+            }
+            schedule();
+        }
+
+        void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                close();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+
+        private void drain() {
+            try {
+                Frame frame;
+                while (!closed && !overflowed && (frame = next()) != null) {
+                    send(frame);
+                }
+                if (overflowed && !closed) {
+                    log.warn("Closing drone event stream that fell {} events behind", subscriberBuffer);
+                    close();
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the emitter reports the failure to the container itself
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            if (!closed && (overflowed || !queue.isEmpty())) {
+                schedule();
+            }
+        }
+
+        private Frame next() {
+            Frame frame = backlog.pollFirst();
+            return frame != null ? frame : queue.poll();
+        }
+
+        private void send(Frame frame) throws IOException {
+            if (frame.name() == null) {
+                emitter.send(SseEmitter.event().comment((String) frame.data()));
+                return;
+            }
+            emitter.send(SseEmitter.event().id(Long.toString(frame.id())).name(frame.name()).data(frame.data()));
+        }
+    }
+}
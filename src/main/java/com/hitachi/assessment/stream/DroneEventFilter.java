@@ -0,0 +1,31 @@
+package com.hitachi.assessment.stream;
+import com.hitachi.assessment.dto.DroneUpdateDTO;
+import com.hitachi.assessment.model.DroneState;
+
+import java.util.Set;
+
+// What one subscriber asked for; an empty set matches everything. A state filter matches a drone entering or
+// leaving one of the states, so a client watching DELIVERING also sees the drone move on.
+public record DroneEventFilter(Set<Long> droneIds, Set<DroneState> states) {
+
+    public DroneEventFilter {
+        droneIds = droneIds == null ? Set.of() : Set.copyOf(droneIds);
+        states = states == null ? Set.of() : Set.copyOf(states);
+    }
+
+    public static DroneEventFilter all() {
+        return new DroneEventFilter(null, null);
+    }
+
+    public boolean matches(DroneUpdateDTO update) {
+        if (!matchesDrone(update.getDroneId())) {
+            return false;
+        }
+        return states.isEmpty() || states.contains(update.getState())
+                || (update.getPreviousState() != null && states.contains(update.getPreviousState()));
+    }
+
+    public boolean matchesDrone(Long droneId) {
+        return droneIds.isEmpty() || droneIds.contains(droneId);
+    }
+}
@@ -0,0 +1,89 @@
+package com.hitachi.assessment.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring of battery readings with many producers and a single consumer.
+ * <p>
+ * Producers claim a slot by CAS on the tail and publish it by writing the slot's sequence; the consumer reads
+ * slots in order and hands them back by advancing their sequence one lap. Readings are kept in parallel
+ * primitive arrays so the buffer allocates nothing per reading.
+ */
+public class TelemetryRingBuffer {
+
+    @FunctionalInterface
+    public interface ReadingConsumer {
+        void accept(long droneId, int batteryLevel, long timestamp);
+    }
+
+    private final int mask;
+    private final long[] droneIds;
+    private final long[] timestamps;
+    private final byte[] levels;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Only touched by the consumer thread
+    private long head;
+
+    public TelemetryRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.droneIds = new long[size];
+        this.timestamps = new long[size];
+        this.levels = new byte[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // Returns false when the ring is full
+    public boolean offer(long droneId, int batteryLevel, long timestamp) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+        droneIds[index] = droneId;
+        timestamps[index] = timestamp;
+        levels[index] = (byte) batteryLevel;
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    // Consumer side: hands every published reading to the consumer and returns how many there were
+    public int drain(ReadingConsumer consumer) {
+        int drained = 0;
+        while (true) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                return drained;
+            }
+            consumer.accept(droneIds[index], levels[index], timestamps[index]);
+            sequences.set(index, head + mask + 1);
+            head++;
+            drained++;
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long size() {
+        return Math.max(0, tail.get() - head);
+    }
+}
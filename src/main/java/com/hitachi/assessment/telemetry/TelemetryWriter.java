@@ -0,0 +1,199 @@
+package com.hitachi.assessment.telemetry;
+import com.hitachi.assessment.dto.TelemetryStatsDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.repository.DroneRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Single writer between the telemetry ring buffer and the drones table. It drains readings every
+// drone.telemetry.flush-interval-ms (sooner once the buffer is half full), keeps only the newest reading per
+// drone, and writes the survivors to drones.battery_capacity in JDBC batches. The database sees at most one update per drone per interval.
+@Component
+@Slf4j
+public class TelemetryWriter {
+
+    private static final String UPDATE_BATTERY = "UPDATE drones SET battery_capacity = ? WHERE id = ?";
+    private final TelemetryRingBuffer ringBuffer;
+    // An idle writer sleeps until the next flush unless the buffer fills past this point first
+    private final long wakeThreshold;
+    private final JdbcTemplate jdbcTemplate;
+    private final DroneRepository droneRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long flushIntervalNanos;
+    private final int batchSize;
+
+    // Owned by the writer thread
+    private final Map<Long, long[]> latest = new HashMap<>();
+    // Timestamp of the reading last written per drone, so a late older reading cannot overwrite it after a flush
+    private final Map<Long, Long> flushedAt = new HashMap<>();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    private volatile Thread writer;
+    private volatile boolean parked;
+
+    public TelemetryWriter(JdbcTemplate jdbcTemplate,
+                           DroneRepository droneRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${drone.telemetry.buffer-size:262144}") int bufferSize,
+                           @Value("${drone.telemetry.flush-interval-ms:1000}") long flushIntervalMs,
+                           @Value("${drone.telemetry.batch-size:500}") int batchSize) {
+        this.ringBuffer = new TelemetryRingBuffer(bufferSize);
+        this.wakeThreshold = ringBuffer.capacity() / 2;
+        this.jdbcTemplate = jdbcTemplate;
+        this.droneRepository = droneRepository;
+        this.eventPublisher = eventPublisher;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.batchSize = batchSize;
+    }
+
+    // Called by request threads; returns false when the buffer is full and the reading was dropped
+    public boolean offer(long droneId, int batteryLevel, long timestamp) {
+        if (ringBuffer.offer(droneId, batteryLevel, timestamp)) {
+            received.increment();
+            if (parked && ringBuffer.size() >= wakeThreshold) {
+                LockSupport.unpark(writer);
+            }
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    public TelemetryStatsDTO getStats() {
+        return TelemetryStatsDTO.builder()
+                .received(received.sum())
+                .dropped(dropped.sum())
+                .coalesced(coalesced.sum())
+                .written(written.sum())
+                .flushes(flushes.sum())
+                .buffered(ringBuffer.size())
+                .bufferCapacity(ringBuffer.capacity())
+                .build();
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (writer == null) {
+            writer = new Thread(this::run, "telemetry-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread running;
+        synchronized (this) {
+            running = writer;
+            writer = null;
+        }
+        if (running != null) {
+            running.interrupt();
+            running.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1000);
+        }
+    }
+
+    private void run() {
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        while (writer == Thread.currentThread()) {
+            try {
+                if (drain() == 0) {
+                    park(nextFlush - System.nanoTime());
+                }
+                if (System.nanoTime() - nextFlush >= 0) {
+                    flush();
+                    nextFlush = System.nanoTime() + flushIntervalNanos;
+                }
+            } catch (RuntimeException e) {
+                log.error("Telemetry flush failed, {} drones' readings discarded", latest.size(), e);
+                latest.clear();
+            }
+        }
+        // Write out whatever arrived before shutdown
+        drain();
+        flush();
+    }
+
+    private void park(long nanos) {
+        parked = true;
+        // Checked after raising the flag so a buffer that filled up meanwhile is not left waiting
+        if (nanos > 0 && ringBuffer.size() < wakeThreshold) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        parked = false;
+    }
+
+    int drain() {
+        return ringBuffer.drain(this::coalesce);
+    }
+
+    // Last write wins by reading timestamp; an older reading arriving late never overwrites a newer one, whether
+    // that one is still buffered or already written
+    private void coalesce(long droneId, int batteryLevel, long timestamp) {
+        Long written = flushedAt.get(droneId);
+        if (written != null && timestamp < written) {
+            coalesced.increment();
+            return;
+        }
+        long[] current = latest.get(droneId);
+        if (current == null) {
+            latest.put(droneId, new long[]{batteryLevel, timestamp});
+            return;
+        }
+        coalesced.increment();
+        if (timestamp >= current[1]) {
+            current[0] = batteryLevel;
+            current[1] = timestamp;
+        }
+    }
+
+    void flush() {
+        if (latest.isEmpty()) {
+            return;
+        }
+        // Drone id, battery level and timestamp of each reading to write
+        List<long[]> readings = new ArrayList<>(latest.size());
+        latest.forEach((droneId, reading) -> readings.add(new long[]{droneId, reading[0], reading[1]}));
+        latest.clear();
+        // Ordered by id so concurrent writers always lock rows in the same order
+        readings.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        for (int start = 0; start < readings.size(); start += batchSize) {
+            List<long[]> batch = readings.subList(start, Math.min(readings.size(), start + batchSize));
+            List<Object[]> updates = new ArrayList<>(batch.size());
+            batch.forEach(reading -> updates.add(new Object[]{(int) reading[1], reading[0]}));
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_BATTERY, updates);
+            List<Long> updatedIds = new ArrayList<>(batch.size());
+            for (int i = 0; i < counts.length; i++) {
+                // Unknown drone ids update nothing and are skipped
+                if (counts[i] != 0) {
+                    updatedIds.add(batch.get(i)[0]);
+                    flushedAt.put(batch.get(i)[0], batch.get(i)[2]);
+                }
+            }
+            written.add(updatedIds.size());
+            if (!updatedIds.isEmpty()) {
+                eventPublisher.publishEvent(new DroneChangedEvent(droneRepository.findSnapshotsByIdIn(updatedIds)));
+            }
+        }
+        flushes.increment();
+    }
+}
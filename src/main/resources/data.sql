@@ -1,17 +1,20 @@
 -- Insert test drones
-INSERT INTO drones (serial_number, model, weight_limit, battery_capacity, state)
+INSERT INTO drones (id, serial_number, model, weight_limit, battery_capacity, state)
 VALUES
-    ('DRN-001-2023', 'LIGHTWEIGHT', 100, 100, 'IDLE'),
-    ('DRN-002-2023', 'MIDDLEWEIGHT', 250, 90, 'IDLE'),
-    ('DRN-003-2023', 'CRUISERWEIGHT', 500, 80, 'IDLE'),
-    ('DRN-004-2023', 'HEAVYWEIGHT', 1000, 70, 'IDLE'),
+    (1, 'DRN-001-2023', 'LIGHTWEIGHT', 100, 100, 'IDLE'),
+    (2, 'DRN-002-2023', 'MIDDLEWEIGHT', 250, 90, 'IDLE'),
+    (3, 'DRN-003-2023', 'CRUISERWEIGHT', 500, 80, 'IDLE'),
+    (4, 'DRN-004-2023', 'HEAVYWEIGHT', 1000, 70, 'IDLE');
+
+-- Drone ids come from drone_seq in blocks of 50 starting at each sequence value; continue after the rows above
+ALTER SEQUENCE drone_seq RESTART WITH 5;
 
 
 -- Insert test medications
-INSERT INTO medications (name, weight, code, image_data, drone_id)
+INSERT INTO medications (name, weight, code, image_hash, image_size, drone_id)
 VALUES
-    ('Paracetamol', 50, 'MED_001', NULL, NULL),
-    ('Antibiotics', 80, 'MED_002', NULL, NULL),
-    ('Insulin', 30, 'MED_003', NULL, NULL),
-    ('Ventolin', 20, 'MED_004', NULL, NULL),
-    ('Amoxicillin', 60, 'MED_005', NULL, NULL),
\ No newline at end of file
+    ('Paracetamol', 50, 'MED_001', NULL, NULL, NULL),
+    ('Antibiotics', 80, 'MED_002', NULL, NULL, NULL),
+    ('Insulin', 30, 'MED_003', NULL, NULL, NULL),
+    ('Ventolin', 20, 'MED_004', NULL, NULL, NULL),
+    ('Amoxicillin', 60, 'MED_005', NULL, NULL, NULL);
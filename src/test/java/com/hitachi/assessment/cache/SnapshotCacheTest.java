@@ -0,0 +1,148 @@
+package com.hitachi.assessment.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotCacheTest {
+
+    private record Item(Long id, String code, int version) {
+    }
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SnapshotCache<Item> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SnapshotCache<>("items", 64, 1000, Item::id, Item::code, now::get);
+    }
+
+    @Test
+    void servesRepeatedLookupsWithoutLoading() {
+        Item first = cache.get(1L, () -> load(1L, "A", 1));
+        Item second = cache.get(1L, () -> load(1L, "A", 2));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0.5, cache.getStats().getHitRatio());
+    }
+
+    @Test
+    void findsEntriesLoadedByIdThroughTheirKey() {
+        cache.get(1L, () -> load(1L, "A", 1));
+
+        assertEquals(1, cache.getByKey("A", () -> load(1L, "A", 2)).version());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void reloadsAfterTheTtl() {
+        cache.get(1L, () -> load(1L, "A", 1));
+
+        advanceMs(999);
+        assertEquals(1, cache.get(1L, () -> load(1L, "A", 2)).version());
+
+        advanceMs(1);
+        assertEquals(2, cache.get(1L, () -> load(1L, "A", 2)).version());
+        assertEquals(1, cache.expirations());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesWhenFull() {
+        // One entry per segment, so every segment holds exactly what was touched last
+        SnapshotCache<Item> small = new SnapshotCache<>("small", 16, 1000, Item::id, Item::code, now::get);
+        for (long id = 1; id <= 200; id++) {
+            long itemId = id;
+            small.get(itemId, () -> load(itemId, "C" + itemId, 1));
+        }
+
+        assertEquals(16, small.size());
+        assertEquals(184, small.evictions());
+        assertEquals(200, small.misses());
+
+        // The last id read is always still cached
+        assertEquals(1, small.get(200L, () -> load(200L, "C200", 2)).version());
+        // An evicted entry also drops its key
+        assertEquals(2, small.getByKey("C1", () -> load(1L, "C1", 2)).version());
+    }
+
+    @Test
+    void reloadsAfterInvalidation() {
+        cache.get(1L, () -> load(1L, "A", 1));
+        cache.invalidateAll(List.of(1L, 2L));
+
+        assertEquals(2, cache.get(1L, () -> load(1L, "A", 2)).version());
+        assertEquals(2, cache.invalidations());
+    }
+
+    @Test
+    void doesNotCacheLoadsThatRacedWithAnInvalidation() {
+        Item stale = cache.get(1L, () -> {
+            Item item = load(1L, "A", 1);
+            // The write commits and invalidates while the old row is in flight
+            cache.invalidate(1L);
+            return item;
+        });
+
+        assertEquals(1, stale.version());
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.get(1L, () -> load(1L, "A", 2)).version());
+    }
+
+    @Test
+    void doesNotCacheKeyLoadsThatRacedWithAnInvalidation() {
+        cache.getByKey("A", () -> {
+            Item item = load(1L, "A", 1);
+            cache.invalidate(1L);
+            return item;
+        });
+
+        assertEquals(2, cache.getByKey("A", () -> load(1L, "A", 2)).version());
+    }
+
+    @Test
+    void dropsTheOldKeyWhenAnEntryIsReloadedUnderANewOne() {
+        cache.get(1L, () -> load(1L, "OLD", 1));
+        cache.invalidate(1L);
+        cache.get(1L, () -> load(1L, "NEW", 2));
+
+        assertEquals(2, cache.getByKey("NEW", () -> load(1L, "NEW", 3)).version());
+        assertEquals(3, cache.getByKey("OLD", () -> load(1L, "NEW", 3)).version());
+    }
+
+    @Test
+    void cachesNothingWhenTheLoaderThrows() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, () -> {
+            throw new IllegalStateException("not found");
+        }));
+
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void rejectsNonPositiveBounds() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnapshotCache<>("bad", 0, 1000, Item::id, Item::code));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnapshotCache<>("bad", 10, 0, Item::id, Item::code));
+    }
+
+    private Item load(Long id, String code, int version) {
+        loads.incrementAndGet();
+        return new Item(id, code, version);
+    }
+
+    private void advanceMs(long ms) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+}
@@ -0,0 +1,80 @@
+package com.hitachi.assessment.controller;
+
+import com.hitachi.assessment.dto.DispatchPlanDTO;
+import com.hitachi.assessment.dto.LoadDroneRequestDTO;
+import com.hitachi.assessment.exception.ConcurrentUpdateException;
+import com.hitachi.assessment.service.interfaces.IDispatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(DispatchController.class)
+public class DispatchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private IDispatchService dispatchService;
+
+    private DispatchPlanDTO plan;
+
+    @BeforeEach
+    void setUp() {
+        plan = DispatchPlanDTO.builder()
+                .loads(List.of(new LoadDroneRequestDTO(1L, List.of(1L, 2L))))
+                .dronesUsed(1)
+                .medicationsPlanned(2)
+                .plannedWeight(130)
+                .utilization(0.52)
+                .build();
+    }
+
+    @Test
+    void shouldPlanDispatch() throws Exception {
+        // Arrange
+        when(dispatchService.plan()).thenReturn(plan);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/dispatch/plan"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.loads", hasSize(1)))
+                .andExpect(jsonPath("$.loads[0].droneId", is(1)))
+                .andExpect(jsonPath("$.applied", is(false)));
+
+        verify(dispatchService, times(1)).plan();
+        verify(dispatchService, never()).apply();
+    }
+
+    @Test
+    void shouldApplyDispatch() throws Exception {
+        // Arrange
+        plan.setApplied(true);
+        when(dispatchService.apply()).thenReturn(plan);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/dispatch/apply"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(true)));
+    }
+
+    @Test
+    void conflictWhenPlanIsStale() throws Exception {
+        // Arrange
+        when(dispatchService.apply()).thenThrow(new ConcurrentUpdateException("stale plan"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/dispatch/apply"))
+                .andExpect(status().isConflict());
+    }
+}
@@ -1,13 +1,33 @@
 package com.hitachi.assessment.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hitachi.assessment.dto.BatteryHistoryDTO;
+import com.hitachi.assessment.dto.BatteryHistoryPointDTO;
+import com.hitachi.assessment.dto.CacheStatsDTO;
+import com.hitachi.assessment.dto.DrainPredictionDTO;
+import com.hitachi.assessment.dto.DroneBatchResultDTO;
+import com.hitachi.assessment.dto.DroneCommandResultDTO;
 import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.DronePageDTO;
+import com.hitachi.assessment.dto.ImportErrorDTO;
+import com.hitachi.assessment.dto.ImportResultDTO;
 import com.hitachi.assessment.dto.LoadDroneRequestDTO;
+import com.hitachi.assessment.dto.LoadJobDTO;
 import com.hitachi.assessment.dto.MedicationDTO;
 import com.hitachi.assessment.exception.DroneNotFoundException;
+import com.hitachi.assessment.exception.InvalidBatchException;
+import com.hitachi.assessment.exception.InvalidCursorException;
+import com.hitachi.assessment.exception.InvalidHistoryQueryException;
+import com.hitachi.assessment.exception.LoadQueueFullException;
+import com.hitachi.assessment.model.DroneCommandType;
 import com.hitachi.assessment.model.DroneModel;
 import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.model.LoadJobStatus;
+import com.hitachi.assessment.service.interfaces.IDroneBatchService;
 import com.hitachi.assessment.service.interfaces.IDroneService;
+import com.hitachi.assessment.service.interfaces.IExportService;
+import com.hitachi.assessment.service.interfaces.IImportService;
+import com.hitachi.assessment.service.interfaces.ILoadJobService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,12 +36,19 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -36,6 +63,18 @@ public class DroneControllerTest {
     @MockitoBean
     private IDroneService droneService;
 
+    @MockitoBean
+    private IImportService importService;
+
+    @MockitoBean
+    private IExportService exportService;
+
+    @MockitoBean
+    private ILoadJobService loadJobService;
+
+    @MockitoBean
+    private IDroneBatchService droneBatchService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -92,18 +131,30 @@ public class DroneControllerTest {
     }
 
     @Test
-    void shouldGetAllDrones() throws Exception {
+    void shouldGetDronesPage() throws Exception {
         // Arrange
-        when(droneService.getAllDrones()).thenReturn(droneDTOList);
+        DronePageDTO page = new DronePageDTO(droneDTOList, 1, "MQ");
+        when(droneService.getDrones(null, 1)).thenReturn(page);
 
         // Act & Assert
-        mockMvc.perform(get("/api/drones"))
+        mockMvc.perform(get("/api/drones").param("size", "1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].serialNumber", is("TEST-DRONE-001")));
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(1)))
+                .andExpect(jsonPath("$.content[0].serialNumber", is("TEST-DRONE-001")))
+                .andExpect(jsonPath("$.nextCursor", is("MQ")));
 
-        verify(droneService, times(1)).getAllDrones();
+        verify(droneService, times(1)).getDrones(null, 1);
+    }
+
+    @Test
+    void badRequestWhenCursorIsInvalid() throws Exception {
+        // Arrange
+        when(droneService.getDrones(eq("bogus"), any())).thenThrow(new InvalidCursorException("Invalid page cursor: bogus"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -149,7 +200,7 @@ public class DroneControllerTest {
     @Test
     void shouldGetAvailableDrones() throws Exception {
         // Arrange
-        when(droneService.getAvailableDrones()).thenReturn(droneDTOList);
+        when(droneService.getAvailableDrones(null)).thenReturn(droneDTOList);
 
         // Act & Assert
         mockMvc.perform(get("/api/drones/available"))
@@ -157,7 +208,97 @@ public class DroneControllerTest {
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(1)));
 
-        verify(droneService, times(1)).getAvailableDrones();
+        verify(droneService, times(1)).getAvailableDrones(null);
+    }
+
+    @Test
+    void shouldGetAvailableDronesForWeight() throws Exception {
+        when(droneService.getAvailableDrones(300)).thenReturn(droneDTOList);
+
+        mockMvc.perform(get("/api/drones/available").param("weight", "300"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(droneService, times(1)).getAvailableDrones(300);
+    }
+
+    @Test
+    void shouldPredictDrain() throws Exception {
+        when(droneService.predictDrain(1L, 500)).thenReturn(DrainPredictionDTO.builder()
+                .droneId(1L).load(500).predictedDrain(10.0).batteryAfter(30.0).feasible(true).trips(0).build());
+
+        mockMvc.perform(get("/api/drones/1/battery/drain").param("load", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.predictedDrain", is(10.0)))
+                .andExpect(jsonPath("$.feasible", is(true)));
+    }
+
+    @Test
+    void shouldGetLowBatteryDrones() throws Exception {
+        // Arrange
+        when(droneService.getLowBatteryDrones()).thenReturn(droneDTOList);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/battery/low"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1)));
+    }
+
+    @Test
+    void shouldGetBatteryHistory() throws Exception {
+        // Arrange
+        Instant from = Instant.parse("2026-10-01T00:00:00Z");
+        Instant to = Instant.parse("2026-10-02T00:00:00Z");
+        BatteryHistoryDTO history = BatteryHistoryDTO.builder()
+                .droneId(1L).from(from).to(to).stepMs(3_600_000L)
+                .points(List.of(new BatteryHistoryPointDTO(from, 70, 90, 80.0, 4)))
+                .build();
+        when(droneService.getBatteryHistory(1L, from, to, Duration.ofHours(1))).thenReturn(history);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/1/battery/history")
+                        .param("from", "2026-10-01T00:00:00Z")
+                        .param("to", "2026-10-02T00:00:00Z")
+                        .param("step", "PT1H"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stepMs", is(3600000)))
+                .andExpect(jsonPath("$.points[0].min", is(70)))
+                .andExpect(jsonPath("$.points[0].avg", is(80.0)));
+    }
+
+    @Test
+    void badRequestForInvalidHistoryRange() throws Exception {
+        // Arrange
+        when(droneService.getBatteryHistory(eq(1L), any(), any(), any()))
+                .thenThrow(new InvalidHistoryQueryException("'from' must be before 'to'"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/1/battery/history"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldFindBestFitDrone() throws Exception {
+        // Arrange
+        when(droneService.findBestFitDrone(120)).thenReturn(testDroneDTO);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/best-fit").param("weight", "120"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)));
+
+        verify(droneService, times(1)).findBestFitDrone(120);
+    }
+
+    @Test
+    void notFoundWhenNoDroneFitsBestFit() throws Exception {
+        // Arrange
+        when(droneService.findBestFitDrone(2000)).thenThrow(new DroneNotFoundException("No available drone can carry 2000g"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/best-fit").param("weight", "2000"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -176,6 +317,152 @@ public class DroneControllerTest {
         verify(droneService, times(1)).loadDrone(any());
     }
 
+    @Test
+    void shouldQueueLoadAsync() throws Exception {
+        // Arrange
+        when(loadJobService.submit(any())).thenReturn(LoadJobDTO.builder()
+                .id("job-1").status(LoadJobStatus.QUEUED).droneId(1L).medicationIds(List.of(1L, 2L)).build());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/drones/load/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loadRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/jobs/job-1"))
+                .andExpect(jsonPath("$.id", is("job-1")))
+                .andExpect(jsonPath("$.status", is("QUEUED")));
+
+        verify(droneService, never()).loadDrone(any());
+    }
+
+    @Test
+    void shouldAskClientToRetryWhenLoadQueueIsFull() throws Exception {
+        // Arrange
+        when(loadJobService.submit(any())).thenThrow(new LoadQueueFullException("Too many load jobs are waiting"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/drones/load/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loadRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void shouldValidateAsyncLoadBeforeQueueing() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/drones/load/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"droneId\":1,\"medicationIds\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(loadJobService);
+    }
+
+    @Test
+    void shouldExecuteBatchWithResultPerCommand() throws Exception {
+        // Arrange
+        DroneDTO loaded = DroneDTO.builder().id(1L).state(DroneState.LOADED).currentLoad(300).build();
+        when(droneBatchService.execute(anyList())).thenReturn(DroneBatchResultDTO.builder()
+                .received(2).applied(1).rejected(1)
+                .results(List.of(
+                        DroneCommandResultDTO.builder().index(0).type(DroneCommandType.LOAD).droneId(1L)
+                                .applied(true).drone(loaded).build(),
+                        DroneCommandResultDTO.builder().index(1).type(DroneCommandType.TRANSITION).droneId(2L)
+                                .applied(false).error("Invalid state transition from IDLE to DELIVERED")
+                                .reason("invalid_state").build()))
+                .build());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/drones/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"commands\":["
+                                + "{\"type\":\"LOAD\",\"droneId\":1,\"medicationIds\":[1,2]},"
+                                + "{\"type\":\"TRANSITION\",\"droneId\":2,\"state\":\"DELIVERED\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(1)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.results[0].drone.state", is("LOADED")))
+                .andExpect(jsonPath("$.results[1].reason", is("invalid_state")));
+
+        verify(droneBatchService).execute(argThat(commands -> commands.size() == 2
+                && commands.get(0).getType() == DroneCommandType.LOAD
+                && commands.get(0).getMedicationIds().equals(List.of(1L, 2L))
+                && "DELIVERED".equals(commands.get(1).getState())));
+    }
+
+    @Test
+    void shouldRejectBatchWithoutCommandsOrWithIncompleteCommands() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/drones/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"commands\":[]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/drones/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"commands\":[{\"droneId\":1,\"state\":\"LOADING\"}]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/drones/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"commands\":[null]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(droneBatchService);
+    }
+
+    @Test
+    void shouldReturnBadRequestForMalformedBatch() throws Exception {
+        // Arrange
+        when(droneBatchService.execute(anyList()))
+                .thenThrow(new InvalidBatchException("Command 0: a LOAD needs at least one medication"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/drones/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"commands\":[{\"type\":\"LOAD\",\"droneId\":1}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Command 0: a LOAD needs at least one medication")));
+    }
+
+    @Test
+    void shouldGetCacheStats() throws Exception {
+        // Arrange
+        when(droneService.getCacheStats()).thenReturn(CacheStatsDTO.builder()
+                .name("drones").size(1).maxSize(10000).ttlMs(30000).hits(9).misses(1).hitRatio(0.9).evictions(0).build());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("drones")))
+                .andExpect(jsonPath("$.hits", is(9)))
+                .andExpect(jsonPath("$.hitRatio", is(0.9)));
+
+        verify(droneService, never()).getDroneById(anyLong());
+    }
+
+    @Test
+    void shouldRegisterDronesInBulk() throws Exception {
+        // Arrange
+        when(importService.importDrones(any())).thenReturn(ImportResultDTO.builder()
+                .received(2).created(1).rejected(1)
+                .errors(List.of(new ImportErrorDTO(2, "DR-1", "Serial number already used by row 1")))
+                .build());
+        String body = "{\"serialNumber\":\"DR-1\",\"model\":\"LIGHTWEIGHT\",\"batteryCapacity\":90}\n"
+                + "{\"serialNumber\":\"DR-1\",\"model\":\"LIGHTWEIGHT\",\"batteryCapacity\":80}\n";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/drones/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.errors[0].row", is(2)))
+                .andExpect(jsonPath("$.errors[0].key", is("DR-1")));
+
+        verify(droneService, never()).registerDrone(any());
+    }
+
     @Test
     void shouldGetDroneMedications() throws Exception {
         // Arrange
@@ -220,4 +507,72 @@ public class DroneControllerTest {
 
         verify(droneService, times(1)).updateDroneState(eq(1L), eq("LOADING"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldExportDronesAsNdjson() throws Exception {
+        // Arrange
+        String line = "{\"id\":1,\"serialNumber\":\"DRN-001\",\"state\":\"IDLE\"}\n";
+        when(exportService.exportDrones(eq(IExportService.Format.NDJSON), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"drones.ndjson\""))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string(line));
+    }
+
+    @Test
+    void shouldGzipDroneExportWhenAccepted() throws Exception {
+        // Arrange
+        String line = "{\"id\":1,\"serialNumber\":\"DRN-001\",\"state\":\"IDLE\"}\n";
+        when(exportService.exportDrones(eq(IExportService.Format.NDJSON), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // Act
+        byte[] body = mockMvc.perform(get("/api/drones/export").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals(line, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void shouldNotGzipDroneExportWhenGzipHasZeroQuality() throws Exception {
+        // Arrange
+        String line = "{\"id\":1,\"serialNumber\":\"DRN-001\",\"state\":\"IDLE\"}\n";
+        when(exportService.exportDrones(eq(IExportService.Format.NDJSON), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/export").header("Accept-Encoding", "deflate, GZIP;q=0, *;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string(line));
+    }
+
+    @Test
+    void shouldRejectUnknownExportFormat() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exportService);
+    }
+}
@@ -0,0 +1,60 @@
+package com.hitachi.assessment.controller;
+
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.stream.DroneEventBroadcaster;
+import com.hitachi.assessment.stream.DroneEventFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(DroneEventController.class)
+public class DroneEventControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private DroneEventBroadcaster broadcaster;
+
+    @Test
+    void shouldOpenEventStreamWithFilters() throws Exception {
+        // Arrange
+        when(broadcaster.subscribe(any(), any())).thenReturn(new SseEmitter());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/events")
+                        .param("droneIds", "1", "2")
+                        .param("states", "DELIVERING")
+                        .header("Last-Event-ID", "42")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        verify(broadcaster, times(1)).subscribe(
+                new DroneEventFilter(Set.of(1L, 2L), Set.of(DroneState.DELIVERING)), 42L);
+    }
+
+    @Test
+    void shouldOpenUnfilteredEventStream() throws Exception {
+        // Arrange
+        when(broadcaster.subscribe(any(), any())).thenReturn(new SseEmitter());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/drones/events"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        verify(broadcaster, times(1)).subscribe(DroneEventFilter.all(), null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.hitachi.assessment.controller;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.LoadJobDTO;
+import com.hitachi.assessment.dto.LoadJobStatsDTO;
+import com.hitachi.assessment.exception.LoadJobNotFoundException;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.model.LoadJobStatus;
+import com.hitachi.assessment.service.interfaces.ILoadJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(LoadJobController.class)
+public class LoadJobControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ILoadJobService loadJobService;
+
+    @Test
+    void shouldGetFinishedJob() throws Exception {
+        // Arrange
+        when(loadJobService.getJob("job-1")).thenReturn(LoadJobDTO.builder()
+                .id("job-1")
+                .status(LoadJobStatus.SUCCEEDED)
+                .droneId(1L)
+                .medicationIds(List.of(1L))
+                .drone(DroneDTO.builder().id(1L).state(DroneState.LOADED).currentLoad(100).build())
+                .build());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/jobs/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("SUCCEEDED")))
+                .andExpect(jsonPath("$.drone.state", is("LOADED")));
+    }
+
+    @Test
+    void shouldGetFailedJobWithReason() throws Exception {
+        // Arrange
+        when(loadJobService.getJob("job-2")).thenReturn(LoadJobDTO.builder()
+                .id("job-2")
+                .status(LoadJobStatus.FAILED)
+                .droneId(1L)
+                .error("Drone battery too low for loading: 10%")
+                .reason("low_battery")
+                .build());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/jobs/job-2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("FAILED")))
+                .andExpect(jsonPath("$.reason", is("low_battery")))
+                .andExpect(jsonPath("$.drone").value(nullValue()));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownJob() throws Exception {
+        // Arrange
+        when(loadJobService.getJob("missing")).thenThrow(new LoadJobNotFoundException("Load job not found with id: missing"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/jobs/missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", containsString("missing")));
+    }
+
+    @Test
+    void shouldGetStats() throws Exception {
+        // Arrange
+        when(loadJobService.getStats()).thenReturn(LoadJobStatsDTO.builder()
+                .submitted(5).succeeded(3).failed(1).queued(1).queueCapacity(10000).build());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/jobs/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.submitted", is(5)))
+                .andExpect(jsonPath("$.queueCapacity", is(10000)));
+
+        verify(loadJobService, never()).getJob(any());
+    }
+}
@@ -1,9 +1,16 @@
 package com.hitachi.assessment.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hitachi.assessment.dto.CacheStatsDTO;
+import com.hitachi.assessment.dto.ImportErrorDTO;
+import com.hitachi.assessment.dto.ImportResultDTO;
 import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.exception.InvalidImportException;
 import com.hitachi.assessment.exception.MedicationNotFoundException;
+import com.hitachi.assessment.service.interfaces.IExportService;
+import com.hitachi.assessment.service.interfaces.IImportService;
 import com.hitachi.assessment.service.interfaces.IMedicationService;
+import com.hitachi.assessment.storage.StoredImage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +20,11 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -31,9 +43,18 @@ public class MedicationControllerTest {
     @MockitoBean
     private IMedicationService medicationService;
 
+    @MockitoBean
+    private IImportService importService;
+
+    @MockitoBean
+    private IExportService exportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    private static final String IMAGE_HASH = "8e5a1a8b0e7c2d4f6a9b1c3d5e7f90a2b4c6d8e0f1a3b5c7d9e1f2a4b6c8d0e2";
+    private static final byte[] IMAGE_BYTES = "0123456789".getBytes();
+
     private MedicationDTO testMedicationDTO;
     private List<MedicationDTO> medicationDTOList;
 
@@ -88,6 +109,70 @@ public class MedicationControllerTest {
         verify(medicationService, times(1)).createMedication(any());
     }
 
+    @Test
+    void shouldStreamMedicationImage() throws Exception {
+        stubImage();
+
+        mockMvc.perform(get("/api/medications/1/image"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + IMAGE_HASH + "\""))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(IMAGE_BYTES));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenEtagMatches() throws Exception {
+        stubImage();
+
+        mockMvc.perform(get("/api/medications/1/image")
+                        .header("If-None-Match", "\"" + IMAGE_HASH + "\""))
+                .andExpect(status().isNotModified());
+
+        verify(medicationService, never()).writeImage(any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void shouldServeRequestedByteRange() throws Exception {
+        stubImage();
+
+        mockMvc.perform(get("/api/medications/1/image").header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/" + IMAGE_BYTES.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(IMAGE_BYTES, 2, 6)));
+    }
+
+    @Test
+    void shouldRejectUnsatisfiableRange() throws Exception {
+        stubImage();
+
+        mockMvc.perform(get("/api/medications/1/image").header("Range", "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */" + IMAGE_BYTES.length));
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenMedicationHasNoImage() throws Exception {
+        when(medicationService.getMedicationImage(1L))
+                .thenThrow(new MedicationNotFoundException("Medication 1 has no image"));
+
+        mockMvc.perform(get("/api/medications/1/image"))
+                .andExpect(status().isNotFound());
+    }
+
+    private void stubImage() throws Exception {
+        StoredImage image = new StoredImage(IMAGE_HASH, IMAGE_BYTES.length);
+        when(medicationService.getMedicationImage(1L)).thenReturn(image);
+        when(medicationService.getImageContentType(image)).thenReturn("image/png");
+        doAnswer(invocation -> {
+            long position = invocation.getArgument(1);
+            long count = invocation.getArgument(2);
+            WritableByteChannel target = invocation.getArgument(3);
+            target.write(ByteBuffer.wrap(IMAGE_BYTES, (int) position, (int) count));
+            return null;
+        }).when(medicationService).writeImage(eq(image), anyLong(), anyLong(), any());
+    }
+
     @Test
     void shouldGetAllMedications() throws Exception {
         // Arrange
@@ -144,6 +229,72 @@ public class MedicationControllerTest {
         verify(medicationService, times(1)).getMedicationByCode("MED_TEST");
     }
 
+    @Test
+    void shouldGetCacheStats() throws Exception {
+        // Arrange
+        when(medicationService.getCacheStats()).thenReturn(CacheStatsDTO.builder()
+                .name("medications").size(2).maxSize(10000).ttlMs(30000).hits(3).misses(1).hitRatio(0.75).build());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/medications/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("medications")))
+                .andExpect(jsonPath("$.hits", is(3)))
+                .andExpect(jsonPath("$.hitRatio", is(0.75)));
+
+        verify(medicationService, never()).getMedicationById(anyLong());
+    }
+
+    @Test
+    void shouldImportMedicationsFromCsv() throws Exception {
+        // Arrange
+        when(importService.importMedicationsCsv(any())).thenReturn(ImportResultDTO.builder()
+                .received(3).created(1).updated(1).rejected(1)
+                .errors(List.of(new ImportErrorDTO(3, "bad code", "Code can only contain uppercase letters, underscore and numbers")))
+                .build());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/medications/import")
+                        .contentType("text/csv")
+                        .content("name,weight,code\nAspirin,10,ASP_01\nIbuprofen,20,IBU_01\nBad,5,bad code\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.updated", is(1)))
+                .andExpect(jsonPath("$.errors[0].row", is(3)));
+
+        verify(importService, never()).importMedications(any());
+    }
+
+    @Test
+    void shouldImportMedicationsFromNdjson() throws Exception {
+        // Arrange
+        when(importService.importMedications(any())).thenReturn(ImportResultDTO.builder()
+                .received(1).unchanged(1).errors(List.of()).build());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/medications/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"name\":\"Aspirin\",\"weight\":10,\"code\":\"ASP_01\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unchanged", is(1)));
+
+        verify(importService, never()).importMedicationsCsv(any());
+    }
+
+    @Test
+    void shouldRejectCsvImportWithoutRequiredColumns() throws Exception {
+        // Arrange
+        when(importService.importMedicationsCsv(any()))
+                .thenThrow(new InvalidImportException("CSV header must name the columns [name, weight, code]"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/medications/import")
+                        .contentType("text/csv")
+                        .content("name,code\nAspirin,ASP_01\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("name, weight, code")));
+    }
+
     @Test
     void shouldUpdateMedication() throws Exception {
         // Arrange
@@ -178,4 +329,33 @@ public class MedicationControllerTest {
 
         verify(medicationService, times(1)).deleteMedication(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldExportMedicationsWithoutImages() throws Exception {
+        // Arrange
+        when(exportService.exportMedications(eq(IExportService.Format.CSV), eq(false), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(2);
+            out.write("id,name,weight,code,droneId\r\n1,Aspirin,10,ASP_01,\r\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // Act & Assert
+        mockMvc.perform(get("/api/medications/export").param("format", "csv").param("images", "false"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"medications.csv\""))
+                .andExpect(content().string(containsString("id,name,weight,code,droneId\r\n")));
+
+        verify(exportService).exportMedications(eq(IExportService.Format.CSV), eq(false), any());
+    }
+
+    @Test
+    void shouldExportMedicationsWithImagesByDefault() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/medications/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"));
+
+        verify(exportService).exportMedications(eq(IExportService.Format.NDJSON), eq(true), any());
+    }
+}
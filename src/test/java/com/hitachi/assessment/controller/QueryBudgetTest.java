@@ -0,0 +1,353 @@
+package com.hitachi.assessment.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hitachi.assessment.support.QueryCounter;
+import com.hitachi.assessment.support.QueryCounterConfiguration;
+import com.hitachi.assessment.support.QueryStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Query budgets of the drone and medication endpoints, so a change that adds statements to a hot path fails
+ * the build.
+ * <p>
+ * Each test runs one request against the real JPA stack and asserts the statements executed, the entities
+ * loaded and the bytes fetched. Statement and entity budgets are the current figures. Byte budgets have a
+ * little headroom because they follow the fixture values. Endpoints that return or take a list are also run
+ * at two sizes and must execute the same number of statements, which catches a query per row. Fixtures use
+ * unique serial numbers and codes, so the tests do not depend on each other or on their order.
+ * <p>
+ * When a change lowers a figure, lower the budget with it.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "drone.battery.history.dir=${java.io.tmpdir}/query-budget-test-history",
+        "drone.images.dir=${java.io.tmpdir}/query-budget-test-images"
+})
+@AutoConfigureMockMvc
+@Import(QueryCounterConfiguration.class)
+class QueryBudgetTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    // Drone endpoints
+
+    @Test
+    void registerDrone() throws Exception {
+        measure(post("/api/drones").contentType(MediaType.APPLICATION_JSON)
+                .content(json(droneBody(unique("QB-REG"), 80))), 201)
+                .assertWithin("POST /api/drones", 1, 0, 16);
+    }
+
+    @Test
+    void getDronesPage() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            createDrone(80);
+        }
+        QueryStats small = measure(get("/api/drones").param("size", "2"), 200);
+        measure(get("/api/drones").param("size", "10"), 200)
+                .assertWithin("GET /api/drones", 1, 0, 560)
+                .assertSameStatementsAs("GET /api/drones", small);
+    }
+
+    @Test
+    void getDroneById() throws Exception {
+        long id = createDrone(80);
+        measure(get("/api/drones/{id}", id), 200).assertWithin("GET /api/drones/{id}", 1, 1, 48);
+    }
+
+    @Test
+    void repeatedDroneLookupsAreCached() throws Exception {
+        String serial = unique("QB-HOT");
+        long id = createDrone(serial, 80);
+        mockMvc.perform(get("/api/drones/{id}", id)).andExpect(status().isOk());
+
+        measure(get("/api/drones/{id}", id), 200).assertWithin("cached GET /api/drones/{id}", 0, 0, 0);
+        measure(get("/api/drones/serial/{serial}", serial), 200)
+                .assertWithin("cached GET /api/drones/serial/{serialNumber}", 0, 0, 0);
+        measure(get("/api/drones/{id}/battery", id), 200)
+                .assertWithin("cached GET /api/drones/{id}/battery", 0, 0, 0);
+
+        // A write drops the entry, so the next read goes back to the database
+        mockMvc.perform(put("/api/drones/{id}/state", id).param("state", "LOADING")).andExpect(status().isOk());
+        measure(get("/api/drones/{id}", id), 200).assertWithin("GET /api/drones/{id} after a write", 1, 1, 56);
+    }
+
+    @Test
+    void getDroneBySerialNumber() throws Exception {
+        String serial = unique("QB-SER");
+        createDrone(serial, 80);
+        measure(get("/api/drones/serial/{serial}", serial), 200)
+                .assertWithin("GET /api/drones/serial/{serialNumber}", 1, 1, 60);
+    }
+
+    @Test
+    void getAvailableDrones() throws Exception {
+        createDrone(80);
+        measure(get("/api/drones/available").param("weight", "50"), 200)
+                .assertWithin("GET /api/drones/available", 0, 0, 0);
+    }
+
+    @Test
+    void findBestFitDrone() throws Exception {
+        createDrone(90);
+        measure(get("/api/drones/best-fit").param("weight", "10"), 200)
+                .assertWithin("GET /api/drones/best-fit", 0, 0, 0);
+    }
+
+    @Test
+    void getLowBatteryDrones() throws Exception {
+        createDrone(10);
+        measure(get("/api/drones/battery/low"), 200).assertWithin("GET /api/drones/battery/low", 0, 0, 0);
+    }
+
+    @Test
+    void loadDrone() throws Exception {
+        QueryStats one = load(createDrone(100), createMedications(1, 10));
+        load(createDrone(100), createMedications(4, 10))
+                .assertWithin("POST /api/drones/load", 5, 5, 350)
+                .assertSameStatementsAs("POST /api/drones/load", one);
+    }
+
+    @Test
+    void executeBatch() throws Exception {
+        QueryStats small = batch(wave(1));
+        batch(wave(4))
+                .assertWithin("POST /api/drones/batch", 5, 0, 420)
+                .assertSameStatementsAs("POST /api/drones/batch", small);
+    }
+
+    @Test
+    void getLoadRetryStats() throws Exception {
+        measure(get("/api/drones/load/stats"), 200).assertWithin("GET /api/drones/load/stats", 0, 0, 0);
+    }
+
+    @Test
+    void getDroneMedications() throws Exception {
+        long one = createDrone(100);
+        load(one, createMedications(1, 10));
+        long four = createDrone(100);
+        load(four, createMedications(4, 10));
+
+        QueryStats small = measure(get("/api/drones/{id}/medications", one), 200);
+        measure(get("/api/drones/{id}/medications", four), 200)
+                .assertWithin("GET /api/drones/{id}/medications", 2, 4, 320)
+                .assertSameStatementsAs("GET /api/drones/{id}/medications", small);
+    }
+
+    @Test
+    void checkDroneBattery() throws Exception {
+        long id = createDrone(80);
+        measure(get("/api/drones/{id}/battery", id), 200).assertWithin("GET /api/drones/{id}/battery", 1, 1, 48);
+    }
+
+    @Test
+    void predictDrain() throws Exception {
+        long id = createDrone(80);
+        measure(get("/api/drones/{id}/battery/drain", id).param("load", "50"), 200)
+                .assertWithin("GET /api/drones/{id}/battery/drain", 1, 1, 48);
+    }
+
+    @Test
+    void getBatteryHistory() throws Exception {
+        long id = createDrone(80);
+        measure(get("/api/drones/{id}/battery/history", id), 200)
+                .assertWithin("GET /api/drones/{id}/battery/history", 1, 0, 16);
+    }
+
+    @Test
+    void updateDroneState() throws Exception {
+        long id = createDrone(100);
+        load(id, createMedications(1, 10));
+        measure(put("/api/drones/{id}/state", id).param("state", "DELIVERING"), 200)
+                .assertWithin("PUT /api/drones/{id}/state", 2, 1, 56);
+    }
+
+    // Medication endpoints
+
+    @Test
+    void createMedication() throws Exception {
+        measure(post("/api/medications").contentType(MediaType.APPLICATION_JSON)
+                .content(json(medicationBody(unique("QB_NEW"), 10))), 201)
+                .assertWithin("POST /api/medications", 1, 0, 16);
+    }
+
+    @Test
+    void createMedicationWithImage() throws Exception {
+        measure(withImage(unique("QB_IMG")), 201).assertWithin("POST /api/medications/with-image", 1, 0, 16);
+    }
+
+    @Test
+    void getAllMedications() throws Exception {
+        long droneId = createDrone(100);
+        load(droneId, createMedications(2, 10));
+        QueryStats before = measure(get("/api/medications"), 200);
+        load(createDrone(100), createMedications(4, 10));
+        createMedications(4, 10);
+        QueryStats after = measure(get("/api/medications"), 200);
+        // One entity per medication and nothing else, however many there are
+        after.assertWithin("GET /api/medications", 1, (int) after.rows(), after.rows() * 80)
+                .assertSameStatementsAs("GET /api/medications", before);
+    }
+
+    @Test
+    void getMedicationById() throws Exception {
+        long id = createMedications(1, 10).get(0);
+        measure(get("/api/medications/{id}", id), 200).assertWithin("GET /api/medications/{id}", 1, 1, 68);
+    }
+
+    @Test
+    void repeatedMedicationLookupsAreCached() throws Exception {
+        String code = unique("QB_HOT");
+        long id = id(mockMvc.perform(post("/api/medications").contentType(MediaType.APPLICATION_JSON)
+                .content(json(medicationBody(code, 10)))).andReturn());
+        mockMvc.perform(get("/api/medications/{id}", id)).andExpect(status().isOk());
+
+        measure(get("/api/medications/{id}", id), 200)
+                .assertWithin("cached GET /api/medications/{id}", 0, 0, 0);
+        measure(get("/api/medications/code/{code}", code), 200)
+                .assertWithin("cached GET /api/medications/code/{code}", 0, 0, 0);
+
+        load(createDrone(100), List.of(id));
+        measure(get("/api/medications/{id}", id), 200)
+                .assertWithin("GET /api/medications/{id} after a load", 1, 1, 68);
+    }
+
+    @Test
+    void getMedicationImage() throws Exception {
+        long id = id(mockMvc.perform(withImage(unique("QB_GIMG"))).andReturn());
+        measure(get("/api/medications/{id}/image", id), 200)
+                .assertWithin("GET /api/medications/{id}/image", 1, 1, 120);
+    }
+
+    @Test
+    void getMedicationByCode() throws Exception {
+        String code = unique("QB_CODE");
+        id(mockMvc.perform(post("/api/medications").contentType(MediaType.APPLICATION_JSON)
+                .content(json(medicationBody(code, 10)))).andReturn());
+        measure(get("/api/medications/code/{code}", code), 200)
+                .assertWithin("GET /api/medications/code/{code}", 1, 1, 80);
+    }
+
+    @Test
+    void updateMedication() throws Exception {
+        String code = unique("QB_UPD");
+        long id = id(mockMvc.perform(post("/api/medications").contentType(MediaType.APPLICATION_JSON)
+                .content(json(medicationBody(code, 10)))).andReturn());
+        measure(put("/api/medications/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                .content(json(medicationBody(code, 20))), 200)
+                .assertWithin("PUT /api/medications/{id}", 2, 1, 68);
+    }
+
+    @Test
+    void deleteLoadedMedication() throws Exception {
+        List<Long> ids = createMedications(1, 10);
+        load(createDrone(100), ids);
+        measure(delete("/api/medications/{id}", ids.get(0)), 204)
+                .assertWithin("DELETE /api/medications/{id}", 4, 1, 108);
+    }
+
+    private QueryStats measure(RequestBuilder request, int expectedStatus) throws Exception {
+        return queryCounter.count(() -> mockMvc.perform(request).andExpect(status().is(expectedStatus)));
+    }
+
+    private QueryStats load(long droneId, List<Long> medicationIds) throws Exception {
+        return measure(post("/api/drones/load").contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("droneId", droneId, "medicationIds", medicationIds))), 200);
+    }
+
+    private QueryStats batch(List<Map<String, Object>> commands) throws Exception {
+        return measure(post("/api/drones/batch").contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("commands", commands))), 200);
+    }
+
+    // Loads each drone with one medication and sends it off
+    private List<Map<String, Object>> wave(int drones) throws Exception {
+        List<Map<String, Object>> loads = new ArrayList<>();
+        List<Map<String, Object>> transitions = new ArrayList<>();
+        for (int i = 0; i < drones; i++) {
+            long droneId = createDrone(100);
+            loads.add(Map.of("type", "LOAD", "droneId", droneId, "medicationIds", createMedications(1, 10)));
+            transitions.add(Map.of("type", "TRANSITION", "droneId", droneId, "state", "DELIVERING"));
+        }
+        loads.addAll(transitions);
+        return loads;
+    }
+
+    private long createDrone(int battery) throws Exception {
+        return createDrone(unique("QB"), battery);
+    }
+
+    private long createDrone(String serial, int battery) throws Exception {
+        return id(mockMvc.perform(post("/api/drones").contentType(MediaType.APPLICATION_JSON)
+                .content(json(droneBody(serial, battery)))).andExpect(status().isCreated()).andReturn());
+    }
+
+    private List<Long> createMedications(int count, int weight) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(id(mockMvc.perform(post("/api/medications").contentType(MediaType.APPLICATION_JSON)
+                    .content(json(medicationBody(unique("QB_MED"), weight)))).andExpect(status().isCreated()).andReturn()));
+        }
+        return ids;
+    }
+
+    private RequestBuilder withImage(String code) {
+        // PNG signature, so the stored image is served as image/png
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0, 0, 0};
+        return multipart("/api/medications/with-image")
+                .file(new MockMultipartFile("image", "pill.png", "image/png", png))
+                .param("name", "Pill")
+                .param("weight", "10")
+                .param("code", code);
+    }
+
+    private static Map<String, Object> droneBody(String serial, int battery) {
+        return Map.of("serialNumber", serial, "model", "HEAVYWEIGHT", "weightLimit", 1000,
+                "batteryCapacity", battery, "state", "IDLE");
+    }
+
+    private static Map<String, Object> medicationBody(String code, int weight) {
+        return Map.of("name", "Medication-" + code.toLowerCase(), "code", code, "weight", weight);
+    }
+
+    // Fixed-width suffix, so byte counts do not drift with the sequence
+    private static String unique(String prefix) {
+        return prefix + String.format("%05d", SEQUENCE.incrementAndGet());
+    }
+
+    private long id(MvcResult result) throws Exception {
+        JsonNode body = objectMapper.readTree(result.getResponse().getContentAsString());
+        return body.get("id").asLong();
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+}
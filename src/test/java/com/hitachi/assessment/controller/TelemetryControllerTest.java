@@ -0,0 +1,84 @@
+package com.hitachi.assessment.controller;
+
+import com.hitachi.assessment.dto.TelemetryIngestResultDTO;
+import com.hitachi.assessment.service.interfaces.ITelemetryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TelemetryController.class)
+public class TelemetryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ITelemetryService telemetryService;
+
+    @Test
+    void shouldAcceptJsonTelemetry() throws Exception {
+        when(telemetryService.ingestJson(any())).thenReturn(new TelemetryIngestResultDTO(2, 0, 0, null));
+
+        mockMvc.perform(post("/api/telemetry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"droneId\":1,\"batteryLevel\":80},{\"droneId\":2,\"batteryLevel\":70}]"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted", is(2)));
+    }
+
+    @Test
+    void shouldAcceptNdjsonTelemetry() throws Exception {
+        when(telemetryService.ingestJson(any())).thenReturn(new TelemetryIngestResultDTO(1, 0, 0, null));
+
+        mockMvc.perform(post("/api/telemetry")
+                        .contentType("application/x-ndjson")
+                        .content("{\"droneId\":1,\"batteryLevel\":80}\n"))
+                .andExpect(status().isAccepted());
+    }
+
+    @Test
+    void shouldRouteBinaryTelemetry() throws Exception {
+        when(telemetryService.ingestBinary(any())).thenReturn(new TelemetryIngestResultDTO(1, 0, 0, null));
+
+        mockMvc.perform(post("/api/telemetry")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[17]))
+                .andExpect(status().isAccepted());
+
+        verify(telemetryService).ingestBinary(any());
+    }
+
+    @Test
+    void shouldAskClientToBackOffWhenReadingsWereDropped() throws Exception {
+        when(telemetryService.ingestJson(any())).thenReturn(new TelemetryIngestResultDTO(1, 0, 3, null));
+
+        mockMvc.perform(post("/api/telemetry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.dropped", is(3)));
+    }
+
+    @Test
+    void shouldRejectMalformedTelemetry() throws Exception {
+        when(telemetryService.ingestJson(any()))
+                .thenReturn(new TelemetryIngestResultDTO(2, 0, 0, "Malformed telemetry JSON"));
+
+        mockMvc.perform(post("/api/telemetry")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.error", is("Malformed telemetry JSON")));
+    }
+}
@@ -0,0 +1,102 @@
+package com.hitachi.assessment.dispatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinPackingPlannerTest {
+
+    private ForkJoinPool pool;
+    private BinPackingPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(2);
+        planner = new BinPackingPlanner(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void shouldPackHeaviestItemsFirstIntoLargestDrone() {
+        List<PackItem> items = List.of(new PackItem(1L, 30), new PackItem(2L, 70), new PackItem(3L, 50));
+        List<PackBin> bins = List.of(new PackBin(10L, 100), new PackBin(20L, 60));
+
+        PackingPlan plan = planner.plan(items, bins);
+
+        assertEquals(2, plan.bins().size());
+        assertEquals(10L, plan.bins().get(0).binId());
+        assertEquals(List.of(2L, 1L), plan.bins().get(0).itemIds());
+        assertEquals(100, plan.bins().get(0).load());
+        assertEquals(List.of(3L), plan.bins().get(1).itemIds());
+        assertEquals(0, plan.unplannedItems());
+    }
+
+    @Test
+    void shouldReportItemsThatFitNowhere() {
+        List<PackItem> items = List.of(new PackItem(1L, 500), new PackItem(2L, 40));
+        List<PackBin> bins = List.of(new PackBin(10L, 100));
+
+        PackingPlan plan = planner.plan(items, bins);
+
+        assertEquals(1, plan.plannedItems());
+        assertEquals(1, plan.unplannedItems());
+        assertEquals(500, plan.unplannedWeight());
+    }
+
+    @Test
+    void shouldImproveUtilizationBySwappingInHeavierItems() {
+        // First-fit-decreasing puts 60 and 30 on the 100g drone and strands 35 and 35;
+        // swapping 30 out for a 35 gains 5g without overloading anything
+        List<PackItem> items = List.of(new PackItem(1L, 60), new PackItem(2L, 35),
+                new PackItem(3L, 35), new PackItem(4L, 4));
+        List<PackBin> bins = List.of(new PackBin(10L, 100));
+
+        PackingPlan plan = planner.plan(items, bins);
+
+        assertEquals(99, plan.plannedWeight());
+        assertTrue(plan.bins().get(0).load() <= 100);
+    }
+
+    @Test
+    void shouldHandleEmptyInput() {
+        assertTrue(planner.plan(List.of(), List.of(new PackBin(1L, 100))).bins().isEmpty());
+        assertEquals(1, planner.plan(List.of(new PackItem(1L, 10)), List.of()).unplannedItems());
+    }
+
+    @Test
+    void shouldNeverOverloadOrDuplicateAtFleetScale() {
+        Random random = new Random(42);
+        List<PackItem> items = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            items.add(new PackItem(id, 1 + random.nextInt(300)));
+        }
+        int[] limits = {100, 250, 500, 1000};
+        List<PackBin> bins = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            bins.add(new PackBin(id, limits[random.nextInt(limits.length)]));
+        }
+
+        PackingPlan plan = planner.plan(items, bins);
+
+        Set<Long> seen = new HashSet<>();
+        for (PackedBin bin : plan.bins()) {
+            assertTrue(bin.load() <= bin.capacity());
+            bin.itemIds().forEach(id -> assertTrue(seen.add(id)));
+        }
+        assertEquals(100_000, seen.size() + plan.unplannedItems());
+        assertTrue((double) plan.plannedWeight() / plan.usedCapacity() > 0.95);
+    }
+}
@@ -0,0 +1,116 @@
+package com.hitachi.assessment.metrics;
+
+import com.hitachi.assessment.exception.DroneOverloadedException;
+import com.hitachi.assessment.exception.DroneStateException;
+import com.hitachi.assessment.model.DroneState;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeliveryMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private DeliveryMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new DeliveryMetrics(registry);
+    }
+
+    @Test
+    void shouldTimeSuccessfulOperations() {
+        assertEquals("ok", metrics.recordDroneOperation("load", () -> "ok"));
+        assertEquals("ok", metrics.recordDroneOperation("load", () -> "ok"));
+
+        Timer timer = registry.get("drone.operations").tags("operation", "load", "outcome", "success").timer();
+        assertEquals(2, timer.count());
+        assertTrue(registry.find("drone.rejections").counters().isEmpty());
+    }
+
+    @Test
+    void shouldCountRejectionsByReason() {
+        assertThrows(DroneOverloadedException.class, () -> metrics.recordDroneOperation("load", () -> {
+            throw new DroneOverloadedException("too heavy");
+        }));
+        assertThrows(DroneStateException.class, () -> metrics.recordDroneOperation("load", () -> {
+            throw new DroneStateException("busy");
+        }));
+        assertThrows(IllegalStateException.class, () -> metrics.recordMedicationOperation("create", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1.0, registry.get("drone.rejections")
+                .tags("operation", "load", "reason", "overloaded").counter().count());
+        assertEquals(1.0, registry.get("drone.rejections")
+                .tags("operation", "load", "reason", "invalid_state").counter().count());
+        assertEquals(1, registry.get("drone.operations")
+                .tags("operation", "load", "outcome", "overloaded").timer().count());
+        assertEquals(1.0, registry.get("medication.rejections")
+                .tags("operation", "create", "reason", "error").counter().count());
+    }
+
+    @Test
+    void shouldRecordTransactionalOperationsOnlyOnceCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            metrics.recordDroneOperationOnCommit("load", () -> "ok");
+            assertThrows(DroneStateException.class, () -> metrics.recordDroneOperationOnCommit("load", () -> {
+                throw new DroneStateException("busy");
+            }));
+            assertNull(registry.find("drone.operations").timer());
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, registry.get("drone.operations").tags("operation", "load", "outcome", "success").timer().count());
+        assertEquals(1.0, registry.get("drone.rejections")
+                .tags("operation", "load", "reason", "invalid_state").counter().count());
+    }
+
+    @Test
+    void shouldRecordNothingForARolledBackTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            metrics.recordDroneOperationOnCommit("load", () -> "ok");
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(registry.find("drone.operations").timer());
+    }
+
+    @Test
+    void shouldTimeSchedulerTasksEvenWhenTheyFail() {
+        metrics.recordSchedulerTask("flush", () -> {
+        });
+        assertThrows(IllegalStateException.class, () -> metrics.recordSchedulerTask("flush", () -> {
+            throw new IllegalStateException("disk full");
+        }));
+
+        assertEquals(1, registry.get("drone.scheduler.task").tags("task", "flush", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("drone.scheduler.task").tags("task", "flush", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void shouldCountTransitions() {
+        metrics.recordTransitions(DroneState.DELIVERING, DroneState.DELIVERED, 3);
+        metrics.recordTransitions(DroneState.DELIVERING, DroneState.DELIVERED, 0);
+        metrics.recordTransitionBatch(1_000_000);
+
+        assertEquals(3.0, registry.get("drone.transitions")
+                .tags("from", "DELIVERING", "to", "DELIVERED").counter().count());
+        assertEquals(1, registry.get("drone.transition.batch").timer().count());
+    }
+}
@@ -0,0 +1,91 @@
+package com.hitachi.assessment.metrics;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FleetGaugesTest {
+
+    @Mock
+    private DroneRepository droneRepository;
+
+    private SimpleMeterRegistry registry;
+    private FleetGauges gauges;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        gauges = new FleetGauges(droneRepository, registry);
+    }
+
+    private DroneDTO drone(long id, DroneState state, DroneModel model, int battery) {
+        return DroneDTO.builder()
+                .id(id)
+                .serialNumber("DRN-" + id)
+                .model(model)
+                .weightLimit(model.getWeightLimit())
+                .currentLoad(0)
+                .batteryCapacity(battery)
+                .state(state)
+                .build();
+    }
+
+    private double gauge(DroneState state, DroneModel model, String band) {
+        return registry.get("drone.fleet.drones")
+                .tags("state", state.name(), "model", model.name(), "battery", band)
+                .gauge().value();
+    }
+
+    @Test
+    void shouldRegisterEveryCombination() {
+        assertEquals(DroneState.values().length * DroneModel.values().length * 4,
+                registry.find("drone.fleet.drones").gauges().size());
+        assertEquals(0.0, gauge(DroneState.IDLE, DroneModel.LIGHTWEIGHT, "75-100"));
+    }
+
+    @Test
+    void shouldMoveDronesBetweenCells() {
+        gauges.onDroneChanged(new DroneChangedEvent(List.of(
+                drone(1L, DroneState.IDLE, DroneModel.HEAVYWEIGHT, 100),
+                drone(2L, DroneState.IDLE, DroneModel.HEAVYWEIGHT, 80))));
+        assertEquals(2.0, gauge(DroneState.IDLE, DroneModel.HEAVYWEIGHT, "75-100"));
+
+        gauges.onDroneChanged(new DroneChangedEvent(List.of(drone(1L, DroneState.DELIVERING, DroneModel.HEAVYWEIGHT, 100))));
+        gauges.onDroneChanged(new DroneChangedEvent(List.of(drone(2L, DroneState.IDLE, DroneModel.HEAVYWEIGHT, 24))));
+        // Repeated snapshots in the same cell change nothing
+        gauges.onDroneChanged(new DroneChangedEvent(List.of(drone(2L, DroneState.IDLE, DroneModel.HEAVYWEIGHT, 20))));
+
+        assertEquals(0.0, gauge(DroneState.IDLE, DroneModel.HEAVYWEIGHT, "75-100"));
+        assertEquals(1.0, gauge(DroneState.DELIVERING, DroneModel.HEAVYWEIGHT, "75-100"));
+        assertEquals(1.0, gauge(DroneState.IDLE, DroneModel.HEAVYWEIGHT, "0-24"));
+    }
+
+    @Test
+    void shouldRebuildFromRepository() {
+        gauges.onDroneChanged(new DroneChangedEvent(List.of(drone(9L, DroneState.LOADED, DroneModel.LIGHTWEIGHT, 50))));
+        when(droneRepository.findPageAfter(0L, Limit.of(1000))).thenReturn(List.of(
+                drone(1L, DroneState.IDLE, DroneModel.LIGHTWEIGHT, 50),
+                drone(2L, DroneState.IDLE, DroneModel.LIGHTWEIGHT, 74)));
+
+        gauges.rebuild();
+
+        assertEquals(0.0, gauge(DroneState.LOADED, DroneModel.LIGHTWEIGHT, "50-74"));
+        assertEquals(2.0, gauge(DroneState.IDLE, DroneModel.LIGHTWEIGHT, "50-74"));
+        assertEquals(2, gauges.count(DroneState.IDLE, DroneModel.LIGHTWEIGHT, 60));
+    }
+}
@@ -0,0 +1,68 @@
+package com.hitachi.assessment.scheduler;
+
+import com.hitachi.assessment.model.Drone;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+// Not transactional, so each chunk's own transaction really commits and a later failure cannot undo it
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "drone.scheduler.chunk-size=2",
+        "drone.battery.history.dir=${java.io.tmpdir}/bulk-transition-test-history",
+        "drone.images.dir=${java.io.tmpdir}/bulk-transition-test-images"
+})
+class BulkStateTransitionerCommitTest {
+
+    @Autowired
+    private BulkStateTransitioner transitioner;
+
+    @MockitoSpyBean
+    private DroneRepository droneRepository;
+
+    private final List<Long> created = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        droneRepository.deleteAllById(created);
+    }
+
+    @Test
+    void keepsEarlierChunksWhenALaterChunkFails() {
+        for (int i = 0; i < 5; i++) {
+            created.add(droneRepository.save(Drone.builder()
+                    .serialNumber("CHUNK-COMMIT-" + i)
+                    .model(DroneModel.LIGHTWEIGHT)
+                    .weightLimit(200)
+                    .batteryCapacity(60)
+                    .state(DroneState.RETURNING)
+                    .build()).getId());
+        }
+        Long last = created.get(4);
+        doThrow(new QueryTimeoutException("Simulated failure of the third chunk"))
+                .when(droneRepository).transitionAll(argThat(ids -> ids.contains(last)), any(), any());
+
+        assertThrows(QueryTimeoutException.class,
+                () -> transitioner.transition(created, DroneState.RETURNING, DroneState.IDLE));
+
+        List<DroneState> states = created.stream()
+                .map(id -> droneRepository.findById(id).orElseThrow().getState())
+                .toList();
+        assertEquals(List.of(DroneState.IDLE, DroneState.IDLE, DroneState.IDLE, DroneState.IDLE,
+                DroneState.RETURNING), states);
+    }
+}
@@ -0,0 +1,81 @@
+package com.hitachi.assessment.scheduler;
+
+import com.hitachi.assessment.model.Drone;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(BulkStateTransitioner.class)
+@TestPropertySource(properties = {
+        "spring.sql.init.mode=never",
+        "drone.scheduler.chunk-size=2",
+        "drone.battery.reduction-per-delivery=10"
+})
+class BulkStateTransitionerTest {
+
+    @Autowired
+    private DroneRepository droneRepository;
+
+    @Autowired
+    private BulkStateTransitioner transitioner;
+
+    @Test
+    void deliversRequestedDronesInChunksAndSkipsOthers() {
+        List<Long> delivering = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            delivering.add(save("DLV-" + i, DroneState.DELIVERING, 5 + i * 20).getId());
+        }
+        Drone idle = save("IDLE-1", DroneState.IDLE, 80);
+        List<Long> requested = new ArrayList<>(delivering);
+        requested.add(idle.getId());
+
+        BulkStateTransitioner.Result result = transitioner.transition(requested, DroneState.DELIVERING, DroneState.DELIVERED);
+
+        assertEquals(delivering, result.droneIds());
+        assertEquals(3, result.chunks());
+        Drone first = droneRepository.findById(delivering.get(0)).orElseThrow();
+        assertEquals(DroneState.DELIVERED, first.getState());
+        assertEquals(0, first.getBatteryCapacity());
+        assertEquals(15, droneRepository.findById(delivering.get(1)).orElseThrow().getBatteryCapacity());
+        assertEquals(DroneState.IDLE, droneRepository.findById(idle.getId()).orElseThrow().getState());
+    }
+
+    @Test
+    void returnsDronesToIdleWithoutTouchingBattery() {
+        Drone returning = save("RET-1", DroneState.RETURNING, 40);
+
+        BulkStateTransitioner.Result result = transitioner.transition(List.of(returning.getId()), DroneState.RETURNING, DroneState.IDLE);
+
+        assertEquals(List.of(returning.getId()), result.droneIds());
+        Drone reloaded = droneRepository.findById(returning.getId()).orElseThrow();
+        assertEquals(DroneState.IDLE, reloaded.getState());
+        assertEquals(40, reloaded.getBatteryCapacity());
+    }
+
+    @Test
+    void rejectsTransitionOutsideTheStateMachine() {
+        assertThrows(IllegalArgumentException.class,
+                () -> transitioner.transition(List.of(1L), DroneState.IDLE, DroneState.DELIVERED));
+    }
+
+    private Drone save(String serial, DroneState state, int battery) {
+        return droneRepository.save(Drone.builder()
+                .serialNumber(serial)
+                .model(DroneModel.LIGHTWEIGHT)
+                .weightLimit(200)
+                .batteryCapacity(battery)
+                .state(state)
+                .build());
+    }
+}
@@ -0,0 +1,123 @@
+package com.hitachi.assessment.scheduler;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import org.junit.jupiter.api.AfterEach;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DroneTransitionTimerTest {
+
+    @Mock
+    private DroneRepository droneRepository;
+
+    @Mock
+    private BulkStateTransitioner transitioner;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private DroneTransitionTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("drone.transition.delivering-ms", "60000")
+                .withProperty("drone.transition.delivering-ms.HEAVYWEIGHT", "90000")
+                .withProperty("drone.transition.returning-ms", "30000");
+        timer = new DroneTransitionTimer(droneRepository, transitioner,
+                new DeliveryMetrics(registry), environment, 100, 64, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void resolvesPerModelDurationsWithFallback() {
+        assertEquals(90000, timer.durationMs(DroneState.DELIVERING, DroneModel.HEAVYWEIGHT));
+        assertEquals(60000, timer.durationMs(DroneState.DELIVERING, DroneModel.LIGHTWEIGHT));
+        assertEquals(30000, timer.durationMs(DroneState.RETURNING, DroneModel.HEAVYWEIGHT));
+    }
+
+    @Test
+    void schedulesDronesEnteringTimedStatesAndForgetsOthers() {
+        timer.onDroneChanged(new DroneChangedEvent(List.of(drone(1L, DroneState.DELIVERING), drone(2L, DroneState.LOADED))));
+        assertEquals(1, timer.pending());
+
+        timer.onDroneChanged(new DroneChangedEvent(List.of(drone(1L, DroneState.DELIVERED))));
+        assertEquals(0, timer.pending());
+    }
+
+    @Test
+    void resyncOnlyAddsDronesNotAlreadyWaiting() {
+        timer.onDroneChanged(new DroneChangedEvent(List.of(drone(1L, DroneState.DELIVERING))));
+        when(droneRepository.findPageAfter(eq(0L), any(Limit.class)))
+                .thenReturn(List.of(drone(1L, DroneState.DELIVERING), drone(2L, DroneState.RETURNING), drone(3L, DroneState.IDLE)));
+
+        assertEquals(1, timer.resync());
+        assertEquals(2, timer.pending());
+    }
+
+    @Test
+    void firesDueDronesAsOneBulkTransitionPerSourceState() {
+        when(transitioner.transition(List.of(1L, 2L), DroneState.DELIVERING, DroneState.DELIVERED))
+                .thenReturn(new BulkStateTransitioner.Result(List.of(1L, 2L), 1));
+        when(transitioner.transition(List.of(3L), DroneState.RETURNING, DroneState.IDLE))
+                .thenReturn(new BulkStateTransitioner.Result(List.of(), 1));
+
+        timer.fire(List.of(
+                new HashedTimingWheel.Expired<>(1L, DroneState.DELIVERING),
+                new HashedTimingWheel.Expired<>(3L, DroneState.RETURNING),
+                new HashedTimingWheel.Expired<>(2L, DroneState.DELIVERING)));
+
+        assertEquals(2, registry.counter("drone.transitions", "from", "DELIVERING", "to", "DELIVERED").count());
+        assertNull(registry.find("drone.transitions").tag("from", "RETURNING").counter());
+        assertEquals(1, registry.timer("drone.transition.batch").count());
+    }
+
+    @Test
+    void putsDronesBackOnTheWheelWhenTheirTransitionFails() {
+        when(transitioner.transition(List.of(1L, 2L), DroneState.DELIVERING, DroneState.DELIVERED))
+                .thenThrow(new QueryTimeoutException("database unavailable"));
+        when(transitioner.transition(List.of(3L), DroneState.RETURNING, DroneState.IDLE))
+                .thenReturn(new BulkStateTransitioner.Result(List.of(3L), 1));
+
+        timer.fire(List.of(
+                new HashedTimingWheel.Expired<>(1L, DroneState.DELIVERING),
+                new HashedTimingWheel.Expired<>(2L, DroneState.DELIVERING),
+                new HashedTimingWheel.Expired<>(3L, DroneState.RETURNING)));
+
+        assertEquals(2, timer.pending());
+        assertEquals(1, registry.counter("drone.transitions", "from", "RETURNING", "to", "IDLE").count());
+    }
+
+    private DroneDTO drone(Long id, DroneState state) {
+        return DroneDTO.builder()
+                .id(id)
+                .serialNumber("DRN-" + id)
+                .model(DroneModel.HEAVYWEIGHT)
+                .weightLimit(500)
+                .batteryCapacity(80)
+                .state(state)
+                .currentLoad(0)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.hitachi.assessment.scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<List<HashedTimingWheel.Expired<Long, String>>> batches = new ArrayList<>();
+    private HashedTimingWheel<Long, String> wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedTimingWheel<>(10, 8, batches::add, now::get);
+    }
+
+    @Test
+    void firesOnlyOnceDelayHasElapsed() {
+        wheel.scheduleIfAbsent(1L, "DELIVERING", 25);
+
+        advanceMs(20);
+        assertTrue(batches.isEmpty());
+
+        advanceMs(10);
+        assertEquals(List.of(new HashedTimingWheel.Expired<>(1L, "DELIVERING")), batches.get(0));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void firesEverythingDueInOneTickAsOneBatch() {
+        wheel.scheduleIfAbsent(1L, "A", 10);
+        wheel.scheduleIfAbsent(2L, "A", 10);
+        wheel.scheduleIfAbsent(3L, "B", 10);
+
+        advanceMs(10);
+
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+    }
+
+    @Test
+    void handlesDelaysLongerThanOneRevolution() {
+        wheel.scheduleIfAbsent(1L, "A", 200);
+
+        for (int i = 0; i < 19; i++) {
+            advanceMs(10);
+        }
+        assertTrue(batches.isEmpty());
+
+        advanceMs(10);
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void catchesUpAfterAStall() {
+        wheel.scheduleIfAbsent(1L, "A", 30);
+        wheel.scheduleIfAbsent(2L, "A", 500);
+
+        advanceMs(1000);
+
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    void keepsExistingTimeoutForSameValue() {
+        assertTrue(wheel.scheduleIfAbsent(1L, "A", 20));
+        advanceMs(10);
+        assertFalse(wheel.scheduleIfAbsent(1L, "A", 100));
+
+        advanceMs(10);
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void replacesTimeoutWhenValueChanges() {
+        wheel.scheduleIfAbsent(1L, "A", 20);
+        assertTrue(wheel.scheduleIfAbsent(1L, "B", 50));
+
+        advanceMs(30);
+        assertTrue(batches.isEmpty());
+
+        advanceMs(20);
+        assertEquals(List.of(new HashedTimingWheel.Expired<>(1L, "B")), batches.get(0));
+    }
+
+    @Test
+    void rescheduleNeverReplacesAWaitingTimeout() {
+        wheel.scheduleIfAbsent(1L, "B", 50);
+
+        assertFalse(wheel.reschedule(1L, "A", 10));
+        assertTrue(wheel.reschedule(2L, "A", 10));
+
+        advanceMs(10);
+        assertEquals(List.of(new HashedTimingWheel.Expired<>(2L, "A")), batches.get(0));
+        advanceMs(40);
+        assertEquals(List.of(new HashedTimingWheel.Expired<>(1L, "B")), batches.get(1));
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() {
+        wheel.scheduleIfAbsent(1L, "A", 10);
+        wheel.cancel(1L);
+
+        advanceMs(100);
+
+        assertTrue(batches.isEmpty());
+        assertFalse(wheel.isScheduled(1L));
+    }
+
+    @Test
+    void workerThreadFiresInRealTime() throws Exception {
+        List<Long> fired = new ArrayList<>();
+        HashedTimingWheel<Long, String> realTime = new HashedTimingWheel<>(5, 16,
+                due -> due.forEach(expired -> {
+                    synchronized (fired) {
+                        fired.add(expired.key());
+                        fired.notifyAll();
+                    }
+                }));
+        realTime.start("test-wheel");
+        try {
+            realTime.scheduleIfAbsent(7L, "A", 20);
+            synchronized (fired) {
+                long deadline = System.currentTimeMillis() + 2000;
+                while (fired.isEmpty() && System.currentTimeMillis() < deadline) {
+                    fired.wait(100);
+                }
+            }
+            assertEquals(List.of(7L), fired);
+        } finally {
+            realTime.stop();
+        }
+    }
+
+    private void advanceMs(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        wheel.advance();
+    }
+}
@@ -0,0 +1,130 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatteryDrainModelTest {
+
+    private BatteryDrainModel model;
+
+    @BeforeEach
+    void setUp() {
+        model = new BatteryDrainModel();
+        ReflectionTestUtils.setField(model, "priorBase", 5.0);
+        ReflectionTestUtils.setField(model, "priorFullLoad", 10.0);
+        ReflectionTestUtils.setField(model, "priorWeight", 1.0);
+        ReflectionTestUtils.setField(model, "forgetting", 0.9);
+        ReflectionTestUtils.setField(model, "reserveLevel", 15);
+    }
+
+    private DroneDTO drone(long id, DroneState state, int battery, int load) {
+        return DroneDTO.builder()
+                .id(id)
+                .serialNumber("DRN-" + id)
+                .model(DroneModel.HEAVYWEIGHT)
+                .weightLimit(1000)
+                .currentLoad(load)
+                .batteryCapacity(battery)
+                .state(state)
+                .build();
+    }
+
+    private void change(DroneDTO... drones) {
+        model.onDroneChanged(new DroneChangedEvent(List.of(drones)));
+    }
+
+    private void trip(long id, int startBattery, int endBattery, int load) {
+        change(drone(id, DroneState.DELIVERING, startBattery, load));
+        change(drone(id, DroneState.DELIVERED, startBattery - 1, load));
+        change(drone(id, DroneState.RETURNING, startBattery - 1, load));
+        change(drone(id, DroneState.IDLE, endBattery, load));
+    }
+
+    @Test
+    void shouldFindTheHeaviestLoadADroneCanStillComplete() {
+        // Prior drain for a HEAVYWEIGHT is 5 + 0.01 * load, and 15% must be left
+        assertEquals(600, model.maxCompletableLoad(1L, DroneModel.HEAVYWEIGHT, 26, 0, 1000));
+        assertEquals(1000, model.maxCompletableLoad(1L, DroneModel.HEAVYWEIGHT, 100, 0, 1000));
+        assertEquals(300, model.maxCompletableLoad(1L, DroneModel.HEAVYWEIGHT, 20, 300, 1000));
+        assertEquals(1000, model.maxCompletableLoad(1L, DroneModel.HEAVYWEIGHT, 100, 1000, 1000));
+    }
+
+    @Test
+    void shouldUseModelPriorWithoutHistory() {
+        assertEquals(5.0, model.predictedDrain(1L, DroneModel.HEAVYWEIGHT, 0), 1e-9);
+        assertEquals(14.0, model.predictedDrain(1L, DroneModel.HEAVYWEIGHT, 900), 1e-9);
+        assertEquals(14.0, model.predictedDrain(1L, DroneModel.LIGHTWEIGHT, 90), 1e-9);
+        assertEquals(0, model.trips(1L));
+
+        assertFalse(model.canComplete(1L, DroneModel.HEAVYWEIGHT, 26, 900));
+        assertTrue(model.canComplete(1L, DroneModel.HEAVYWEIGHT, 29, 900));
+    }
+
+    @Test
+    void shouldLearnDrainFromCompletedTrips() {
+        // This drone uses twice what the prior expects: 10% empty, 40% with a full load
+        for (int i = 0; i < 20; i++) {
+            trip(1L, 90, 80, 0);
+            trip(1L, 90, 50, 1000);
+        }
+
+        // The prior still counts as one trip, so predictions sit slightly below the observed drain
+        assertEquals(40, model.trips(1L));
+        assertEquals(10.0, model.predictedDrain(1L, DroneModel.HEAVYWEIGHT, 0), 2.0);
+        assertEquals(25.0, model.predictedDrain(1L, DroneModel.HEAVYWEIGHT, 500), 2.0);
+        assertEquals(40.0, model.predictedDrain(1L, DroneModel.HEAVYWEIGHT, 1000), 3.0);
+        // Other drones keep the prior
+        assertEquals(10.0, model.predictedDrain(2L, DroneModel.HEAVYWEIGHT, 500), 1e-9);
+    }
+
+    @Test
+    void shouldFollowChangesInDrain() {
+        for (int i = 0; i < 20; i++) {
+            trip(1L, 90, 80, 500);
+        }
+        double before = model.predictedDrain(1L, DroneModel.HEAVYWEIGHT, 500);
+        for (int i = 0; i < 20; i++) {
+            trip(1L, 90, 70, 500);
+        }
+
+        // Old trips fade out; the prediction ends close to the new drain
+        assertEquals(10.0, before, 0.5);
+        assertEquals(20.0, model.predictedDrain(1L, DroneModel.HEAVYWEIGHT, 500), 2.5);
+    }
+
+    @Test
+    void shouldMeasureTripFromFirstDeliveringSnapshot() {
+        change(drone(1L, DroneState.DELIVERING, 90, 500));
+        // Telemetry during the flight must not move the starting point
+        change(drone(1L, DroneState.DELIVERING, 85, 500));
+        change(drone(1L, DroneState.RETURNING, 78, 500));
+        change(drone(1L, DroneState.IDLE, 70, 500));
+
+        assertEquals(1, model.trips(1L));
+        assertTrue(model.predictedDrain(1L, DroneModel.HEAVYWEIGHT, 500) > 10.0);
+    }
+
+    @Test
+    void shouldIgnoreTripsThatGainedBatteryOrWereAbandoned() {
+        trip(1L, 50, 60, 500);
+        assertEquals(0, model.trips(1L));
+
+        change(drone(1L, DroneState.DELIVERING, 90, 500));
+        change(drone(1L, DroneState.LOADING, 90, 0));
+        change(drone(1L, DroneState.IDLE, 40, 0));
+        assertEquals(0, model.trips(1L));
+
+        // An IDLE snapshot with no trip open is not a trip either
+        change(drone(1L, DroneState.IDLE, 30, 0));
+        assertEquals(0, model.trips(1L));
+    }
+}
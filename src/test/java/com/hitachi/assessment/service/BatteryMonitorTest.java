@@ -0,0 +1,117 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.BatteryAlertEvent;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BatteryMonitorTest {
+
+    @Mock
+    private DroneRepository droneRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private BatteryMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(monitor, "minBatteryLevel", 25);
+        ReflectionTestUtils.setField(monitor, "hysteresis", 5);
+    }
+
+    private DroneDTO drone(long id, int battery) {
+        return DroneDTO.builder()
+                .id(id)
+                .serialNumber("DRN-" + id)
+                .model(DroneModel.LIGHTWEIGHT)
+                .weightLimit(100)
+                .currentLoad(0)
+                .batteryCapacity(battery)
+                .state(DroneState.DELIVERED)
+                .build();
+    }
+
+    private void change(DroneDTO... drones) {
+        monitor.onDroneChanged(new DroneChangedEvent(List.of(drones)));
+    }
+
+    @Test
+    void alertsOnceWhenBatteryCrossesBelowThreshold() {
+        change(drone(1L, 30));
+        change(drone(1L, 20));
+        change(drone(1L, 10));
+
+        ArgumentCaptor<BatteryAlertEvent> alert = ArgumentCaptor.forClass(BatteryAlertEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(alert.capture());
+        assertEquals(BatteryAlertEvent.Kind.LOW, alert.getValue().getKind());
+        assertEquals(20, alert.getValue().getBatteryCapacity());
+        assertEquals(10, monitor.lowBatteryDrones().get(0).getBatteryCapacity());
+    }
+
+    @Test
+    void staysLowInsideHysteresisBand() {
+        change(drone(1L, 20));
+        change(drone(1L, 27));
+
+        assertTrue(monitor.isLow(1L));
+        verify(eventPublisher, times(1)).publishEvent(any(BatteryAlertEvent.class));
+
+        change(drone(1L, 30));
+
+        assertFalse(monitor.isLow(1L));
+        ArgumentCaptor<BatteryAlertEvent> alert = ArgumentCaptor.forClass(BatteryAlertEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(alert.capture());
+        assertEquals(BatteryAlertEvent.Kind.RECOVERED, alert.getValue().getKind());
+    }
+
+    @Test
+    void listsLowestBatteryFirst() {
+        change(drone(1L, 20), drone(2L, 5), drone(3L, 80));
+
+        assertEquals(List.of(2L, 1L), monitor.lowBatteryDrones().stream().map(DroneDTO::getId).toList());
+    }
+
+    @Test
+    void rebuildPopulatesSetWithoutAlerting() {
+        when(droneRepository.findPageAfter(eq(0L), any(Limit.class))).thenReturn(List.of(drone(1L, 10), drone(2L, 90)));
+
+        monitor.rebuild();
+
+        assertTrue(monitor.isLow(1L));
+        assertFalse(monitor.isLow(2L));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void reconcileAlertsOnlyOnMissedCrossings() {
+        change(drone(1L, 10));
+        clearInvocations(eventPublisher);
+        when(droneRepository.findPageAfter(eq(0L), any(Limit.class))).thenReturn(List.of(drone(1L, 12), drone(2L, 15)));
+
+        assertEquals(1, monitor.reconcile());
+        verify(eventPublisher, times(1)).publishEvent(any(BatteryAlertEvent.class));
+    }
+}
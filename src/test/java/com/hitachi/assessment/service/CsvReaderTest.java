@@ -0,0 +1,39 @@
+package com.hitachi.assessment.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsAndBothLineEndings() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,\"b,c\",\"say \"\"hi\"\"\"\r\n\"multi\nline\",,x\nlast"));
+
+        assertEquals(List.of("a", "b,c", "say \"hi\""), csv.next());
+        assertEquals(List.of("multi\nline", "", "x"), csv.next());
+        assertEquals(List.of("last"), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void keepsEmptyTrailingFields() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,,\n\n"));
+
+        assertEquals(List.of("a", "", ""), csv.next());
+        assertEquals(List.of(""), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void rejectsUnterminatedQuote() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("ok\n\"never closed,1\n"));
+
+        assertEquals(List.of("ok"), csv.next());
+        assertThrows(CsvReader.MalformedCsvException.class, csv::next);
+    }
+}
@@ -0,0 +1,95 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.dispatch.PackItem;
+import com.hitachi.assessment.dto.DispatchPlanDTO;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.LoadDroneRequestDTO;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import com.hitachi.assessment.repository.MedicationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DispatchServiceImplTest {
+
+    @Mock
+    private DroneRepository droneRepository;
+
+    @Mock
+    private MedicationRepository medicationRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DispatchServiceImpl dispatchService;
+
+    @BeforeEach
+    void setUp() {
+        BatteryDrainModel drainModel = new BatteryDrainModel();
+        ReflectionTestUtils.setField(drainModel, "priorBase", 5.0);
+        ReflectionTestUtils.setField(drainModel, "priorFullLoad", 10.0);
+        ReflectionTestUtils.setField(drainModel, "priorWeight", 1.0);
+        ReflectionTestUtils.setField(drainModel, "forgetting", 0.9);
+        ReflectionTestUtils.setField(drainModel, "reserveLevel", 15);
+        dispatchService = new DispatchServiceImpl(droneRepository, medicationRepository, jdbcTemplate,
+                eventPublisher, drainModel, 1);
+        ReflectionTestUtils.setField(dispatchService, "minBatteryLevel", 25);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatchService.shutdown();
+    }
+
+    @Test
+    void shouldSkipDroneTooLowOnBatteryForAFullLoad() {
+        // At 26% a HEAVYWEIGHT carrying 900g would land below the 15% reserve
+        when(medicationRepository.findUnassignedItems()).thenReturn(List.of(new PackItem(1L, 900)));
+        when(droneRepository.findDispatchableDrones(25)).thenReturn(List.of(drone(10L, 26), drone(20L, 100)));
+
+        DispatchPlanDTO plan = dispatchService.plan();
+
+        assertEquals(List.of(new LoadDroneRequestDTO(20L, List.of(1L))), plan.getLoads());
+    }
+
+    @Test
+    void shouldLeaveFullLoadUnplannedWhenOnlyLowBatteryDronesAreLeft() {
+        when(medicationRepository.findUnassignedItems()).thenReturn(List.of(new PackItem(1L, 900)));
+        when(droneRepository.findDispatchableDrones(25)).thenReturn(List.of(drone(10L, 26)));
+
+        DispatchPlanDTO plan = dispatchService.apply();
+
+        assertTrue(plan.getLoads().isEmpty());
+        assertEquals(1, plan.getMedicationsUnplanned());
+        verifyNoInteractions(jdbcTemplate, eventPublisher);
+    }
+
+    private static DroneDTO drone(Long id, int battery) {
+        return DroneDTO.builder()
+                .id(id)
+                .serialNumber("DSP-" + id)
+                .model(DroneModel.HEAVYWEIGHT)
+                .weightLimit(1000)
+                .batteryCapacity(battery)
+                .state(DroneState.IDLE)
+                .currentLoad(0)
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DroneAvailabilityIndexTest {
+
+    @Mock
+    private DroneRepository droneRepository;
+
+    @InjectMocks
+    private DroneAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "minBatteryLevel", 25);
+        ReflectionTestUtils.setField(index, "maxProbes", 2);
+    }
+
+    private DroneDTO drone(long id, int weightLimit, int currentLoad, int battery, DroneState state) {
+        return DroneDTO.builder()
+                .id(id)
+                .serialNumber("DRN-" + id)
+                .model(DroneModel.HEAVYWEIGHT)
+                .weightLimit(weightLimit)
+                .currentLoad(currentLoad)
+                .batteryCapacity(battery)
+                .state(state)
+                .build();
+    }
+
+    @Test
+    void shouldReturnTightestFit() {
+        index.onDroneChanged(new DroneChangedEvent(Arrays.asList(
+                drone(1L, 1000, 0, 90, DroneState.IDLE),
+                drone(2L, 250, 0, 90, DroneState.IDLE),
+                drone(3L, 500, 0, 90, DroneState.IDLE))));
+
+        assertEquals(2L, index.bestFit(200, drone -> true).orElseThrow().getId());
+        assertEquals(3L, index.bestFit(300, drone -> true).orElseThrow().getId());
+        assertEquals(1L, index.bestFit(800, drone -> true).orElseThrow().getId());
+        assertTrue(index.bestFit(1001, drone -> true).isEmpty());
+    }
+
+    @Test
+    void shouldPreferHigherBatteryOnEqualCapacity() {
+        index.onDroneChanged(new DroneChangedEvent(Arrays.asList(
+                drone(1L, 500, 0, 40, DroneState.IDLE),
+                drone(2L, 500, 0, 95, DroneState.IDLE))));
+
+        assertEquals(2L, index.bestFit(100, drone -> true).orElseThrow().getId());
+    }
+
+    @Test
+    void shouldSkipIneligibleDronesInBestFit() {
+        index.onDroneChanged(new DroneChangedEvent(Arrays.asList(
+                drone(1L, 300, 0, 30, DroneState.IDLE),
+                drone(2L, 400, 0, 90, DroneState.IDLE))));
+
+        assertEquals(1L, index.bestFit(250, drone -> true).orElseThrow().getId());
+        assertEquals(2L, index.bestFit(250, drone -> drone.getBatteryCapacity() > 50).orElseThrow().getId());
+        assertTrue(index.bestFit(250, drone -> false).isEmpty());
+    }
+
+    @Test
+    void shouldStopLookingAfterMaxProbesIneligibleDrones() {
+        index.onDroneChanged(new DroneChangedEvent(Arrays.asList(
+                drone(1L, 300, 0, 30, DroneState.IDLE),
+                drone(2L, 400, 0, 30, DroneState.IDLE),
+                drone(3L, 500, 0, 90, DroneState.IDLE))));
+
+        assertTrue(index.bestFit(250, drone -> drone.getBatteryCapacity() > 50).isEmpty());
+        assertEquals(3L, index.bestFit(450, drone -> drone.getBatteryCapacity() > 50).orElseThrow().getId());
+    }
+
+    @Test
+    void shouldDropDronesThatAreNoLongerDispatchable() {
+        index.onDroneChanged(new DroneChangedEvent(List.of(drone(1L, 500, 0, 90, DroneState.IDLE))));
+        assertEquals(1, index.size());
+
+        index.onDroneChanged(new DroneChangedEvent(List.of(drone(1L, 500, 100, 90, DroneState.LOADED))));
+        assertEquals(0, index.size());
+        assertTrue(index.bestFit(1, drone -> true).isEmpty());
+
+        index.onDroneChanged(new DroneChangedEvent(List.of(drone(1L, 500, 100, 20, DroneState.IDLE))));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void shouldTrackRemainingCapacityChanges() {
+        index.onDroneChanged(new DroneChangedEvent(List.of(drone(1L, 500, 0, 90, DroneState.IDLE))));
+        index.onDroneChanged(new DroneChangedEvent(List.of(drone(1L, 500, 450, 90, DroneState.IDLE))));
+
+        assertTrue(index.bestFit(100, drone -> true).isEmpty());
+        assertEquals(1L, index.bestFit(50, drone -> true).orElseThrow().getId());
+    }
+
+    @Test
+    void shouldRebuildFromRepository() {
+        when(droneRepository.findPageAfter(0L, Limit.of(1000))).thenReturn(Arrays.asList(
+                drone(1L, 500, 0, 90, DroneState.IDLE),
+                drone(2L, 500, 0, 90, DroneState.DELIVERING)));
+
+        index.rebuild();
+        assertEquals(1, index.size());
+        assertEquals(1L, index.bestFit(10, drone -> true).orElseThrow().getId());
+    }
+}
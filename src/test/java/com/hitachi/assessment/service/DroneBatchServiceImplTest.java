@@ -0,0 +1,226 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.dto.DroneBatchResultDTO;
+import com.hitachi.assessment.dto.DroneCommandDTO;
+import com.hitachi.assessment.dto.DroneCommandResultDTO;
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.MedicationChangedEvent;
+import com.hitachi.assessment.exception.InvalidBatchException;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
+import com.hitachi.assessment.model.Drone;
+import com.hitachi.assessment.model.DroneCommandType;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.model.Medication;
+import com.hitachi.assessment.repository.DroneRepository;
+import com.hitachi.assessment.repository.MedicationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+// The batch commits on its own, so the test runs outside a transaction and cleans up after itself
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({DroneBatchServiceImpl.class, BatteryDrainModel.class})
+@RecordApplicationEvents
+@TestPropertySource(properties = {
+        "spring.sql.init.mode=never",
+        "drone.batch.max-commands=8"
+})
+class DroneBatchServiceImplTest {
+
+    @Autowired
+    private DroneBatchServiceImpl batchService;
+
+    @Autowired
+    private DroneRepository droneRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @MockitoBean
+    private DeliveryMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        when(metrics.recordDroneOperation(eq("batch"), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+    }
+
+    @AfterEach
+    void tearDown() {
+        medicationRepository.deleteAll();
+        droneRepository.deleteAll();
+    }
+
+    @Test
+    void loadsAndSendsOffAWaveOfDrones() {
+        Drone first = drone("WAVE-1", DroneState.IDLE, 100);
+        Drone second = drone("WAVE-2", DroneState.IDLE, 100);
+        Medication aspirin = medication("ASP", 100);
+        Medication ibuprofen = medication("IBU", 50);
+        Medication insulin = medication("INS", 200);
+
+        DroneBatchResultDTO result = batchService.execute(List.of(
+                load(first, aspirin, ibuprofen),
+                load(second, insulin),
+                transition(first, "DELIVERING"),
+                transition(second, "delivering")));
+
+        assertEquals(4, result.getReceived());
+        assertEquals(4, result.getApplied());
+        assertEquals(0, result.getRejected());
+        assertEquals(List.of(DroneState.LOADED, DroneState.LOADED, DroneState.DELIVERING, DroneState.DELIVERING),
+                result.getResults().stream().map(r -> r.getDrone().getState()).toList());
+        assertEquals(150, result.getResults().get(2).getDrone().getCurrentLoad());
+
+        Drone stored = droneRepository.findById(first.getId()).orElseThrow();
+        assertEquals(DroneState.DELIVERING, stored.getState());
+        assertEquals(150, stored.getCurrentLoad());
+        assertEquals(first.getVersion() + 1, stored.getVersion());
+        assertEquals(200, droneRepository.findById(second.getId()).orElseThrow().getCurrentLoad());
+        assertEquals(List.of(aspirin.getId(), ibuprofen.getId()),
+                medicationRepository.findByDroneId(first.getId()).stream().map(Medication::getId).sorted().toList());
+
+        // The LOADED steps come before the drones' final state, so listeners see the whole way
+        List<DroneDTO> published = events.stream(DroneChangedEvent.class).findFirst().orElseThrow().getDrones();
+        assertEquals(List.of(DroneState.LOADED, DroneState.LOADED, DroneState.DELIVERING, DroneState.DELIVERING),
+                published.stream().map(DroneDTO::getState).toList());
+        assertEquals(List.of(aspirin.getId(), ibuprofen.getId(), insulin.getId()),
+                events.stream(MedicationChangedEvent.class).findFirst().orElseThrow().getMedicationIds());
+    }
+
+    @Test
+    void rejectsCommandsThatBreakTheRulesWithoutStoppingTheOthers() {
+        Drone idle = drone("RULES-1", DroneState.IDLE, 100);
+        Drone weak = drone("RULES-2", DroneState.IDLE, 20);
+        Drone other = drone("RULES-3", DroneState.IDLE, 100);
+        Medication light = medication("LIGHT", 100);
+        Medication heavy = medication("HEAVY", 950);
+
+        DroneBatchResultDTO result = batchService.execute(List.of(
+                transition(idle, "DELIVERED"),
+                transition(idle, "FLYING"),
+                load(weak, light),
+                load(idle, light, heavy),
+                load(idle, light),
+                load(other, light),
+                new DroneCommandDTO(DroneCommandType.LOAD, -1L, List.of(heavy.getId()), null)));
+
+        assertEquals(1, result.getApplied());
+        assertEquals(6, result.getRejected());
+        List<DroneCommandResultDTO> results = result.getResults();
+        assertEquals("Invalid state transition from IDLE to DELIVERED", results.get(0).getError());
+        assertEquals("Invalid drone state: FLYING", results.get(1).getError());
+        assertEquals(List.of("invalid_state", "invalid_state", "low_battery", "overloaded", "already_assigned",
+                "drone_not_found"), results.stream()
+                .filter(r -> !r.isApplied())
+                .map(DroneCommandResultDTO::getReason)
+                .toList());
+        assertTrue(results.get(4).isApplied());
+        assertNull(results.get(0).getDrone());
+
+        assertEquals(DroneState.LOADED, droneRepository.findById(idle.getId()).orElseThrow().getState());
+        assertEquals(DroneState.IDLE, droneRepository.findById(weak.getId()).orElseThrow().getState());
+        assertEquals(DroneState.IDLE, droneRepository.findById(other.getId()).orElseThrow().getState());
+        assertNull(medicationRepository.findById(heavy.getId()).orElseThrow().getDrone());
+    }
+
+    @Test
+    void drainsTheBatteryOnceForEachCompletedDelivery() {
+        Drone drone = drone("TRIP-1", DroneState.DELIVERING, 50);
+
+        DroneBatchResultDTO result = batchService.execute(List.of(
+                transition(drone, "DELIVERED"),
+                transition(drone, "RETURNING"),
+                transition(drone, "IDLE")));
+
+        assertEquals(3, result.getApplied());
+        assertEquals(40, result.getResults().get(0).getDrone().getBatteryCapacity());
+        Drone stored = droneRepository.findById(drone.getId()).orElseThrow();
+        assertEquals(DroneState.IDLE, stored.getState());
+        assertEquals(40, stored.getBatteryCapacity());
+        assertEquals(List.of(DroneState.DELIVERED, DroneState.RETURNING, DroneState.IDLE),
+                events.stream(DroneChangedEvent.class).findFirst().orElseThrow().getDrones().stream()
+                        .map(DroneDTO::getState).toList());
+    }
+
+    @Test
+    void writesNothingWhenEveryCommandIsRejected() {
+        Drone drone = drone("NONE-1", DroneState.IDLE, 100);
+
+        DroneBatchResultDTO result = batchService.execute(List.of(transition(drone, "RETURNING")));
+
+        assertEquals(1, result.getRejected());
+        assertEquals(drone.getVersion(), droneRepository.findById(drone.getId()).orElseThrow().getVersion());
+        assertEquals(0, events.stream(DroneChangedEvent.class).count());
+    }
+
+    @Test
+    void refusesMalformedOrOversizedBatches() {
+        Drone drone = drone("BAD-1", DroneState.IDLE, 100);
+
+        InvalidBatchException missingMedications = assertThrows(InvalidBatchException.class, () -> batchService
+                .execute(List.of(transition(drone, "LOADING"),
+                        new DroneCommandDTO(DroneCommandType.LOAD, drone.getId(), null, null))));
+        assertEquals("Command 1: a LOAD needs at least one medication", missingMedications.getMessage());
+        assertThrows(InvalidBatchException.class, () -> batchService.execute(
+                List.of(new DroneCommandDTO(DroneCommandType.TRANSITION, drone.getId(), null, null))));
+        assertThrows(InvalidBatchException.class, () -> batchService.execute(
+                Collections.nCopies(9, transition(drone, "LOADING"))));
+        InvalidBatchException missingCommand = assertThrows(InvalidBatchException.class,
+                () -> batchService.execute(Arrays.asList(transition(drone, "LOADING"), null)));
+        assertEquals("Command 1 is missing", missingCommand.getMessage());
+        assertEquals(DroneState.IDLE, droneRepository.findById(drone.getId()).orElseThrow().getState());
+    }
+
+    private Drone drone(String serialNumber, DroneState state, int battery) {
+        return droneRepository.save(Drone.builder()
+                .serialNumber(serialNumber)
+                .model(DroneModel.HEAVYWEIGHT)
+                .weightLimit(DroneModel.HEAVYWEIGHT.getWeightLimit())
+                .batteryCapacity(battery)
+                .state(state)
+                .build());
+    }
+
+    private Medication medication(String code, int weight) {
+        Medication medication = new Medication();
+        medication.setName("Medication-" + code.toLowerCase());
+        medication.setWeight(weight);
+        medication.setCode(code);
+        return medicationRepository.save(medication);
+    }
+
+    private static DroneCommandDTO load(Drone drone, Medication... medications) {
+        return new DroneCommandDTO(DroneCommandType.LOAD, drone.getId(),
+                List.of(medications).stream().map(Medication::getId).toList(), null);
+    }
+
+    private static DroneCommandDTO transition(Drone drone, String state) {
+        return new DroneCommandDTO(DroneCommandType.TRANSITION, drone.getId(), null, state);
+    }
+}
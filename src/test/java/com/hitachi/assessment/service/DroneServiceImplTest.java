@@ -1,24 +1,41 @@
 package com.hitachi.assessment.service;
 
+import com.hitachi.assessment.cache.LookupCache;
+import com.hitachi.assessment.dto.BatteryHistoryDTO;
+import com.hitachi.assessment.dto.DrainPredictionDTO;
 import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.DronePageDTO;
 import com.hitachi.assessment.dto.LoadDroneRequestDTO;
 import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.MedicationChangedEvent;
 import com.hitachi.assessment.exception.*;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
 import com.hitachi.assessment.model.Drone;
 import com.hitachi.assessment.model.DroneModel;
 import com.hitachi.assessment.model.DroneState;
 import com.hitachi.assessment.model.Medication;
 import com.hitachi.assessment.repository.DroneRepository;
 import com.hitachi.assessment.repository.MedicationRepository;
+import com.hitachi.assessment.service.interfaces.IDroneService.LoadOutcome;
+import com.hitachi.assessment.storage.BatteryHistoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -33,6 +50,32 @@ public class DroneServiceImplTest {
     @Mock
     private MedicationRepository medicationRepository;
 
+    @Mock
+    private DroneAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private BatteryMonitor batteryMonitor;
+
+    @Mock
+    private BatteryHistoryStore batteryHistoryStore;
+
+    @Spy
+    private BatteryDrainModel drainModel = new BatteryDrainModel();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private DeliveryMetrics metrics = new DeliveryMetrics(meterRegistry);
+
+    @Spy
+    private LookupCache lookupCache = new LookupCache(meterRegistry, 1000, 1000, 30000);
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OptimisticLockRetryTemplate retryTemplate;
+
     @InjectMocks
     private DroneServiceImpl droneService;
 
@@ -45,6 +88,19 @@ public class DroneServiceImplTest {
     void setUp() {
         // Set minBatteryLevel field via reflection
         ReflectionTestUtils.setField(droneService, "minBatteryLevel", 25);
+        ReflectionTestUtils.setField(droneService, "batteryReductionPerDelivery", 10);
+        ReflectionTestUtils.setField(droneService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(droneService, "maxPageSize", 500);
+        ReflectionTestUtils.setField(droneService, "maxHistoryPoints", 2000);
+        ReflectionTestUtils.setField(drainModel, "priorBase", 5.0);
+        ReflectionTestUtils.setField(drainModel, "priorFullLoad", 10.0);
+        ReflectionTestUtils.setField(drainModel, "priorWeight", 1.0);
+        ReflectionTestUtils.setField(drainModel, "forgetting", 0.9);
+        ReflectionTestUtils.setField(drainModel, "reserveLevel", 15);
+
+        // Run retried actions inline, as a single attempt
+        lenient().when(retryTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
 
         // Initialize test drone
         testDrone = Drone.builder()
@@ -103,14 +159,43 @@ public class DroneServiceImplTest {
     }
 
     @Test
-    void shouldGetAllDrones() {
-        List<Drone> drones = Collections.singletonList(testDrone);
-        when(droneRepository.findAll()).thenReturn(drones);
+    void shouldGetDronesPage() {
+        when(droneRepository.findPageAfter(0L, Limit.of(51))).thenReturn(Collections.singletonList(testDroneDTO));
 
-        List<DroneDTO> result = droneService.getAllDrones();
+        DronePageDTO result = droneService.getDrones(null, null);
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(testDroneDTO.getSerialNumber(), result.get(0).getSerialNumber());
+        assertEquals(1, result.getSize());
+        assertEquals(testDroneDTO.getSerialNumber(), result.getContent().get(0).getSerialNumber());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void shouldReturnCursorWhenMoreDronesExist() {
+        DroneDTO secondDrone = DroneDTO.builder().id(2L).serialNumber("TEST-DRONE-002").build();
+        when(droneRepository.findPageAfter(0L, Limit.of(2))).thenReturn(Arrays.asList(testDroneDTO, secondDrone));
+
+        DronePageDTO firstPage = droneService.getDrones(null, 1);
+        assertEquals(1, firstPage.getSize());
+        assertNotNull(firstPage.getNextCursor());
+
+        when(droneRepository.findPageAfter(1L, Limit.of(2))).thenReturn(Collections.singletonList(secondDrone));
+        DronePageDTO secondPage = droneService.getDrones(firstPage.getNextCursor(), 1);
+        assertEquals(2L, secondPage.getContent().get(0).getId());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void shouldCapPageSize() {
+        when(droneRepository.findPageAfter(0L, Limit.of(501))).thenReturn(Collections.emptyList());
+
+        DronePageDTO result = droneService.getDrones(null, 100000);
+        assertEquals(0, result.getSize());
+        verify(droneRepository, times(1)).findPageAfter(0L, Limit.of(501));
+    }
+
+    @Test
+    void invalidCursorWhenGetDrones() {
+        assertThrows(InvalidCursorException.class, () -> droneService.getDrones("not-a-cursor!", null));
     }
 
     @Test
@@ -122,6 +207,23 @@ public class DroneServiceImplTest {
         assertEquals(testDroneDTO.getId(), result.getId());
     }
 
+    @Test
+    void shouldServeRepeatedLookupsFromCacheUntilTheDroneChanges() {
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+
+        droneService.getDroneById(1L);
+        droneService.getDroneById(1L);
+        droneService.getDroneBySerialNumber(testDrone.getSerialNumber());
+        verify(droneRepository, times(1)).findById(1L);
+        verify(droneRepository, never()).findBySerialNumber(anyString());
+
+        lookupCache.onMedicationChanged(MedicationChangedEvent.of(5L, 1L));
+        droneService.getDroneById(1L);
+        verify(droneRepository, times(2)).findById(1L);
+        assertEquals(2, droneService.getCacheStats().getHits());
+        assertEquals(2, droneService.getCacheStats().getMisses());
+    }
+
     @Test
     void notFoundWhenGetDroneById() {
         when(droneRepository.findById(99L)).thenReturn(Optional.empty());
@@ -145,14 +247,95 @@ public class DroneServiceImplTest {
 
     @Test
     void shouldGetAvailableDrones() {
-        List<Drone> availableDrones = Collections.singletonList(testDrone);
-        when(droneRepository.findByStateAndBatteryCapacityGreaterThanEqual(DroneState.IDLE, 25))
-                .thenReturn(availableDrones);
+        when(availabilityIndex.dispatchableDrones()).thenReturn(List.of(testDroneDTO));
 
-        List<DroneDTO> result = droneService.getAvailableDrones();
+        List<DroneDTO> result = droneService.getAvailableDrones(null);
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(testDroneDTO.getSerialNumber(), result.get(0).getSerialNumber());
+        verifyNoInteractions(droneRepository);
+    }
+
+    @Test
+    void shouldLeaveOutDronesWithoutRoomOrBatteryForTheWeight() {
+        DroneDTO lowBattery = DroneDTO.builder().id(2L).model(DroneModel.HEAVYWEIGHT)
+                .weightLimit(1000).currentLoad(500).batteryCapacity(26).state(DroneState.IDLE).build();
+        DroneDTO small = DroneDTO.builder().id(3L).model(DroneModel.LIGHTWEIGHT)
+                .weightLimit(100).currentLoad(0).batteryCapacity(100).state(DroneState.IDLE).build();
+        when(availabilityIndex.dispatchableDrones()).thenReturn(List.of(small, lowBattery, testDroneDTO));
+
+        // 26% covers the 500g already on board (10%) but not 900g on a HEAVYWEIGHT (14%) with the 15% reserve
+        assertEquals(List.of(1L, 2L, 3L), droneService.getAvailableDrones(null).stream().map(DroneDTO::getId).toList());
+        assertEquals(List.of(1L), droneService.getAvailableDrones(400).stream().map(DroneDTO::getId).toList());
+    }
+
+    @Test
+    void shouldFindBestFitDrone() {
+        when(availabilityIndex.bestFit(eq(120), any())).thenReturn(Optional.of(testDroneDTO));
+
+        DroneDTO result = droneService.findBestFitDrone(120);
+        assertEquals(testDroneDTO.getId(), result.getId());
+        verifyNoInteractions(droneRepository);
+    }
+
+    @Test
+    void notFoundWhenNoDroneFitsBestFit() {
+        when(availabilityIndex.bestFit(eq(2000), any())).thenReturn(Optional.empty());
+        assertThrows(DroneNotFoundException.class, () -> droneService.findBestFitDrone(2000));
+    }
+
+    @Test
+    void shouldGetLowBatteryDronesFromMonitor() {
+        when(batteryMonitor.lowBatteryDrones()).thenReturn(List.of(testDroneDTO));
+
+        assertEquals(List.of(testDroneDTO), droneService.getLowBatteryDrones());
+        verifyNoInteractions(droneRepository);
+    }
+
+    @Test
+    void shouldDownsampleBatteryHistory() {
+        Instant from = Instant.parse("2026-10-01T00:00:00Z");
+        Instant to = from.plus(Duration.ofHours(2));
+        when(droneRepository.existsById(1L)).thenReturn(true);
+        when(batteryHistoryStore.query(1L, from.toEpochMilli(), to.toEpochMilli(), 3_600_000L))
+                .thenReturn(List.of(new BatteryHistoryStore.Bucket(from.toEpochMilli(), 70, 90, 80.0, 4)));
+
+        BatteryHistoryDTO history = droneService.getBatteryHistory(1L, from, to, Duration.ofHours(1));
+
+        assertEquals(3_600_000L, history.getStepMs());
+        assertEquals(1, history.getPoints().size());
+        assertEquals(from, history.getPoints().get(0).getTimestamp());
+        assertEquals(80.0, history.getPoints().get(0).getAvg());
+    }
+
+    @Test
+    void shouldPickStepWhenNoneGiven() {
+        ReflectionTestUtils.setField(droneService, "maxHistoryPoints", 100);
+        Instant to = Instant.parse("2026-10-02T00:00:00Z");
+        when(droneRepository.existsById(1L)).thenReturn(true);
+
+        BatteryHistoryDTO history = droneService.getBatteryHistory(1L, null, to, null);
+
+        assertEquals(to.minus(Duration.ofDays(1)), history.getFrom());
+        assertEquals(864_000L, history.getStepMs());
+    }
+
+    @Test
+    void shouldRejectInvalidHistoryRange() {
+        ReflectionTestUtils.setField(droneService, "maxHistoryPoints", 100);
+        Instant from = Instant.parse("2026-10-01T00:00:00Z");
+        when(droneRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(InvalidHistoryQueryException.class,
+                () -> droneService.getBatteryHistory(1L, from, from.minusSeconds(1), null));
+        assertThrows(InvalidHistoryQueryException.class,
+                () -> droneService.getBatteryHistory(1L, from, from.plus(Duration.ofDays(1)), Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void shouldFailHistoryForUnknownDrone() {
+        when(droneRepository.existsById(99L)).thenReturn(false);
+        assertThrows(DroneNotFoundException.class, () -> droneService.getBatteryHistory(99L, null, null, null));
     }
 
     @Test
@@ -160,12 +343,102 @@ public class DroneServiceImplTest {
         LoadDroneRequestDTO loadRequest = new LoadDroneRequestDTO(1L, medicationIds);
         when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
         when(medicationRepository.findAllById(medicationIds)).thenReturn(Collections.singletonList(testMedication));
+        when(droneRepository.addLoadIfCapacity(1L, 100)).thenReturn(1);
+        when(medicationRepository.assignToDrone(testDrone, medicationIds)).thenReturn(1);
         when(droneRepository.save(any(Drone.class))).thenReturn(testDrone);
 
         DroneDTO result = droneService.loadDrone(loadRequest);
         assertNotNull(result);
         assertEquals(DroneState.LOADED, result.getState());
-        verify(medicationRepository, times(1)).save(any(Medication.class));
+        assertEquals(100, result.getCurrentLoad());
+        assertEquals(1, meterRegistry.get("drone.operations")
+                .tags("operation", "load", "outcome", "success").timer().count());
+        verify(medicationRepository, times(1)).assignToDrone(testDrone, medicationIds);
+        verify(medicationRepository, never()).save(any(Medication.class));
+        verify(eventPublisher, times(1)).publishEvent(any(DroneChangedEvent.class));
+    }
+
+    @Test
+    void overloadedWhenCapacityReservationFailsOnLoadDrone() {
+        // Another request filled the drone after it was read
+        LoadDroneRequestDTO loadRequest = new LoadDroneRequestDTO(1L, medicationIds);
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+        when(medicationRepository.findAllById(medicationIds)).thenReturn(Collections.singletonList(testMedication));
+        when(droneRepository.addLoadIfCapacity(1L, 100)).thenReturn(0);
+
+        assertThrows(DroneOverloadedException.class, () -> droneService.loadDrone(loadRequest));
+        verify(medicationRepository, never()).assignToDrone(any(), anyCollection());
+    }
+
+    @Test
+    void alreadyAssignedWhenLoadDrone() {
+        Drone otherDrone = Drone.builder().id(2L).serialNumber("TEST-DRONE-002").build();
+        testMedication.setDrone(otherDrone);
+        LoadDroneRequestDTO loadRequest = new LoadDroneRequestDTO(1L, medicationIds);
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+        when(medicationRepository.findAllById(medicationIds)).thenReturn(Collections.singletonList(testMedication));
+
+        assertThrows(MedicationAlreadyAssignedException.class, () -> droneService.loadDrone(loadRequest));
+        verify(droneRepository, never()).addLoadIfCapacity(anyLong(), anyInt());
+    }
+
+    @Test
+    void conflictWhenMedicationTakenConcurrentlyOnLoadDrone() {
+        LoadDroneRequestDTO loadRequest = new LoadDroneRequestDTO(1L, medicationIds);
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+        when(medicationRepository.findAllById(medicationIds)).thenReturn(Collections.singletonList(testMedication));
+        when(droneRepository.addLoadIfCapacity(1L, 100)).thenReturn(1);
+        when(medicationRepository.assignToDrone(testDrone, medicationIds)).thenReturn(0);
+
+        // Surfaced to the retry template, which rolls back and tries again
+        assertThrows(OptimisticLockingFailureException.class, () -> droneService.loadDrone(loadRequest));
+        verify(droneRepository, never()).save(any(Drone.class));
+    }
+
+    @Test
+    void shouldLoadDroneThroughRetryTemplate() {
+        LoadDroneRequestDTO loadRequest = new LoadDroneRequestDTO(1L, medicationIds);
+        doReturn(testDroneDTO).when(retryTemplate).execute(any());
+
+        assertEquals(testDroneDTO, droneService.loadDrone(loadRequest));
+        verify(retryTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void loadDronesReportsRefusedRequestsAndAppliesTheRest() {
+        LoadDroneRequestDTO missing = new LoadDroneRequestDTO(99L, medicationIds);
+        LoadDroneRequestDTO loadRequest = new LoadDroneRequestDTO(1L, medicationIds);
+        LoadDroneRequestDTO again = new LoadDroneRequestDTO(1L, List.of(2L));
+        when(droneRepository.findById(99L)).thenReturn(Optional.empty());
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+        when(medicationRepository.findAllById(medicationIds)).thenReturn(Collections.singletonList(testMedication));
+        when(droneRepository.addLoadIfCapacity(1L, 100)).thenReturn(1);
+        when(medicationRepository.assignToDrone(testDrone, medicationIds)).thenReturn(1);
+        when(droneRepository.save(any(Drone.class))).thenReturn(testDrone);
+
+        List<LoadOutcome> outcomes = droneService.loadDrones(List.of(missing, loadRequest, again));
+
+        assertEquals(3, outcomes.size());
+        assertInstanceOf(DroneNotFoundException.class, outcomes.get(0).error());
+        assertEquals(DroneState.LOADED, outcomes.get(1).drone().getState());
+        assertNull(outcomes.get(1).error());
+        // The first load left the drone LOADED, so the next one for it is refused like a second request would be
+        assertInstanceOf(DroneStateException.class, outcomes.get(2).error());
+        verify(retryTemplate, never()).execute(any());
+        assertEquals(1, meterRegistry.get("drone.rejections")
+                .tags("operation", "load", "reason", "invalid_state").counter().count());
+    }
+
+    @Test
+    void loadDronesLeavesConcurrentUpdatesToTheCaller() {
+        LoadDroneRequestDTO loadRequest = new LoadDroneRequestDTO(1L, medicationIds);
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+        when(medicationRepository.findAllById(medicationIds)).thenReturn(Collections.singletonList(testMedication));
+        when(droneRepository.addLoadIfCapacity(1L, 100)).thenReturn(1);
+        when(medicationRepository.assignToDrone(testDrone, medicationIds)).thenReturn(0);
+
+        // Something was written before the conflict, so the whole group has to roll back
+        assertThrows(OptimisticLockingFailureException.class, () -> droneService.loadDrones(List.of(loadRequest)));
     }
 
     @Test
@@ -198,6 +471,35 @@ public class DroneServiceImplTest {
         assertThrows(DroneLowBatteryException.class, () -> droneService.loadDrone(loadRequest));
     }
 
+    @Test
+    void batteryTooLowForPredictedDrainWhenLoadDrone() {
+        // Above the minimum level, but a 900g trip is predicted to take 14% and leave less than the reserve
+        testDrone.setWeightLimit(1000);
+        testDrone.setBatteryCapacity(26);
+        testMedication.setWeight(900);
+        LoadDroneRequestDTO loadRequest = new LoadDroneRequestDTO(1L, medicationIds);
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+        when(medicationRepository.findAllById(medicationIds)).thenReturn(Collections.singletonList(testMedication));
+
+        DroneLowBatteryException e = assertThrows(DroneLowBatteryException.class, () -> droneService.loadDrone(loadRequest));
+        assertTrue(e.getMessage().contains("900g"));
+        verify(droneRepository, never()).addLoadIfCapacity(anyLong(), anyInt());
+        assertEquals(1.0, meterRegistry.get("drone.rejections")
+                .tags("operation", "load", "reason", "low_battery").counter().count());
+    }
+
+    @Test
+    void shouldPredictDrainFromModel() {
+        testDrone.setBatteryCapacity(40);
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+
+        DrainPredictionDTO result = droneService.predictDrain(1L, 500);
+        assertEquals(10.0, result.getPredictedDrain(), 1e-9);
+        assertEquals(30.0, result.getBatteryAfter(), 1e-9);
+        assertTrue(result.isFeasible());
+        assertEquals(0, result.getTrips());
+    }
+
     @Test
     void medicationNotFoundWhenLoadDrone() {
         LoadDroneRequestDTO loadRequest = new LoadDroneRequestDTO(1L, Arrays.asList(1L, 2L));
@@ -224,11 +526,13 @@ public class DroneServiceImplTest {
         LoadDroneRequestDTO loadRequest = new LoadDroneRequestDTO(1L, medicationIds);
         when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
         when(medicationRepository.findAllById(medicationIds)).thenReturn(Collections.singletonList(testMedication));
+        when(droneRepository.addLoadIfCapacity(1L, 100)).thenReturn(1);
+        when(medicationRepository.assignToDrone(testDrone, medicationIds)).thenReturn(1);
         when(droneRepository.save(any(Drone.class))).thenReturn(testDrone);
         droneService.loadDrone(loadRequest);
 
         assertEquals(DroneState.LOADED, testDrone.getState());
-        verify(droneRepository, times(2)).save(any(Drone.class)); // Once for state change to LOADING, once for LOADED
+        verify(droneRepository, times(1)).save(any(Drone.class)); // Straight to LOADED within the one transaction
     }
 
     @Test
@@ -266,88 +570,77 @@ public class DroneServiceImplTest {
 
     @Test
     void shouldUpdateDroneState() {
-        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
-        when(droneRepository.save(any(Drone.class))).thenReturn(testDrone);
+        Drone loadingDrone = Drone.builder().id(1L).serialNumber("TEST-DRONE-001").model(DroneModel.HEAVYWEIGHT)
+                .weightLimit(500).batteryCapacity(100).state(DroneState.LOADING).build();
+        when(droneRepository.compareAndSetState(1L, EnumSet.of(DroneState.IDLE), DroneState.LOADING)).thenReturn(1);
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(loadingDrone));
 
         DroneDTO result = droneService.updateDroneState(1L, "LOADING");
         assertNotNull(result);
         assertEquals(DroneState.LOADING, result.getState());
+        verify(droneRepository, never()).save(any(Drone.class));
+        verify(eventPublisher, times(1)).publishEvent(any(DroneChangedEvent.class));
     }
 
     @Test
     void droneNotFoundWhenUpdateDroneState() {
+        when(droneRepository.compareAndSetState(eq(99L), anyCollection(), eq(DroneState.LOADING))).thenReturn(0);
         when(droneRepository.findById(99L)).thenReturn(Optional.empty());
         assertThrows(DroneNotFoundException.class, () -> droneService.updateDroneState(99L, "LOADING"));
     }
 
     @Test
     void invalidStateWhenUpdateDroneState() {
-        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
         assertThrows(DroneStateException.class, () -> droneService.updateDroneState(1L, "INVALID_STATE"));
+        verifyNoInteractions(droneRepository);
     }
 
     @Test
     void invalidTransitionWhenUpdateDroneState() {
+        when(droneRepository.compareAndSetStateAndDrainBattery(1L, EnumSet.of(DroneState.DELIVERING), DroneState.DELIVERED, 10))
+                .thenReturn(0);
         when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
         assertThrows(DroneStateException.class, () -> droneService.updateDroneState(1L, "DELIVERED"));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     void reducesBatteryWhenUpdateDroneStateToDelivering() {
-        testDrone.setState(DroneState.DELIVERING);
+        testDrone.setState(DroneState.DELIVERED);
+        testDrone.setBatteryCapacity(90);
+        when(droneRepository.compareAndSetStateAndDrainBattery(1L, EnumSet.of(DroneState.DELIVERING), DroneState.DELIVERED, 10))
+                .thenReturn(1);
         when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
-        when(droneRepository.save(any(Drone.class))).thenReturn(testDrone);
 
         DroneDTO result = droneService.updateDroneState(1L, "DELIVERED");
         assertNotNull(result);
         assertEquals(DroneState.DELIVERED, result.getState());
-        assertEquals(90, testDrone.getBatteryCapacity()); // 100 - 10 (default reduction)
+        assertEquals(90, result.getBatteryCapacity()); // 100 - 10 (default reduction)
+        verify(droneRepository, never()).compareAndSetState(any(), anyCollection(), any());
     }
 
     @Test
     void shouldValidateAllTransitions() {
-        // Set up the mock for the first assertion
-        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
-        when(droneRepository.save(any(Drone.class))).thenReturn(testDrone);
-        
         // Testing all valid transitions
-        // IDLE -> LOADING
-        testDrone.setState(DroneState.IDLE);
-        assertDoesNotThrow(() -> droneService.updateDroneState(1L, "LOADING"));
-
-        // LOADING -> LOADED
-        testDrone.setState(DroneState.LOADING);
-        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
-        assertDoesNotThrow(() -> droneService.updateDroneState(1L, "LOADED"));
-
-        // LOADING -> IDLE
-        testDrone.setState(DroneState.LOADING);
-        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
-        assertDoesNotThrow(() -> droneService.updateDroneState(1L, "IDLE"));
-
-        // LOADED -> DELIVERING
-        testDrone.setState(DroneState.LOADED);
-        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
-        assertDoesNotThrow(() -> droneService.updateDroneState(1L, "DELIVERING"));
-
-        // LOADED -> IDLE
-        testDrone.setState(DroneState.LOADED);
-        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
-        assertDoesNotThrow(() -> droneService.updateDroneState(1L, "IDLE"));
-
-        // DELIVERING -> DELIVERED
-        testDrone.setState(DroneState.DELIVERING);
-        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
-        assertDoesNotThrow(() -> droneService.updateDroneState(1L, "DELIVERED"));
-
-        // DELIVERED -> RETURNING
-        testDrone.setState(DroneState.DELIVERED);
-        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
-        assertDoesNotThrow(() -> droneService.updateDroneState(1L, "RETURNING"));
+        assertTrue(DroneState.IDLE.canTransitionTo(DroneState.LOADING));
+        assertTrue(DroneState.LOADING.canTransitionTo(DroneState.LOADED));
+        assertTrue(DroneState.LOADING.canTransitionTo(DroneState.IDLE));
+        assertTrue(DroneState.LOADED.canTransitionTo(DroneState.DELIVERING));
+        assertTrue(DroneState.LOADED.canTransitionTo(DroneState.IDLE));
+        assertTrue(DroneState.DELIVERING.canTransitionTo(DroneState.DELIVERED));
+        assertTrue(DroneState.DELIVERED.canTransitionTo(DroneState.RETURNING));
+        assertTrue(DroneState.RETURNING.canTransitionTo(DroneState.IDLE));
+
+        // A few invalid ones
+        assertFalse(DroneState.IDLE.canTransitionTo(DroneState.DELIVERED));
+        assertFalse(DroneState.DELIVERING.canTransitionTo(DroneState.IDLE));
+        assertFalse(DroneState.RETURNING.canTransitionTo(DroneState.RETURNING));
+    }
 
-        // RETURNING -> IDLE
-        testDrone.setState(DroneState.RETURNING);
-        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
-        assertDoesNotThrow(() -> droneService.updateDroneState(1L, "IDLE"));
+    @Test
+    void shouldDerivePredecessorsFromTransitions() {
+        assertEquals(EnumSet.of(DroneState.LOADING, DroneState.LOADED, DroneState.RETURNING),
+                DroneState.IDLE.predecessors());
+        assertEquals(EnumSet.of(DroneState.LOADED), DroneState.DELIVERING.predecessors());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,167 @@
+package com.hitachi.assessment.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hitachi.assessment.model.Drone;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.model.Medication;
+import com.hitachi.assessment.repository.DroneRepository;
+import com.hitachi.assessment.repository.MedicationRepository;
+import com.hitachi.assessment.service.interfaces.IExportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The export reads through its own connection, so the rows are committed before it runs
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ExportServiceImpl.class)
+@TestPropertySource(properties = {
+        "spring.sql.init.mode=never",
+        "drone.export.fetch-size=2",
+        "drone.export.flush-rows=2"
+})
+class ExportServiceImplTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private ExportServiceImpl exportService;
+
+    @Autowired
+    private DroneRepository droneRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Drone drone;
+
+    @BeforeEach
+    void setUp() {
+        drone = droneRepository.save(Drone.builder()
+                .serialNumber("EXP-001")
+                .model(DroneModel.MIDDLEWEIGHT)
+                .weightLimit(DroneModel.MIDDLEWEIGHT.getWeightLimit())
+                .batteryCapacity(80)
+                .state(DroneState.LOADED)
+                .currentLoad(30)
+                .build());
+        droneRepository.save(Drone.builder()
+                .serialNumber("EXP-002")
+                .model(DroneModel.LIGHTWEIGHT)
+                .weightLimit(DroneModel.LIGHTWEIGHT.getWeightLimit())
+                .batteryCapacity(100)
+                .state(DroneState.IDLE)
+                .currentLoad(0)
+                .build());
+        Medication loaded = new Medication();
+        loaded.setName("Aspirin");
+        loaded.setWeight(30);
+        loaded.setCode("EXP_ASP");
+        loaded.setImageHash("8e5a1a8b0e7c2d4f6a9b1c3d5e7f90a2b4c6d8e0f1a3b5c7d9e1f2a4b6c8d0e2");
+        loaded.setImageSize(10L);
+        loaded.setDrone(drone);
+        medicationRepository.save(loaded);
+        Medication plain = new Medication();
+        plain.setName("Ibuprofen");
+        plain.setWeight(20);
+        plain.setCode("EXP_IBU");
+        medicationRepository.save(plain);
+    }
+
+    @AfterEach
+    void tearDown() {
+        medicationRepository.deleteAll();
+        droneRepository.deleteAll();
+    }
+
+    @Test
+    void exportsDronesAsOneJsonObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportDrones(IExportService.Format.NDJSON, out);
+
+        assertEquals(2, rows);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        JsonNode first = MAPPER.readTree(lines.get(0));
+        assertEquals(drone.getId(), first.get("id").asLong());
+        assertEquals("EXP-001", first.get("serialNumber").asText());
+        assertEquals("MIDDLEWEIGHT", first.get("model").asText());
+        assertEquals(80, first.get("batteryCapacity").asInt());
+        assertEquals("LOADED", first.get("state").asText());
+        assertEquals(30, first.get("currentLoad").asInt());
+        assertEquals("EXP-002", MAPPER.readTree(lines.get(1)).get("serialNumber").asText());
+    }
+
+    @Test
+    void exportsMedicationsAsCsvWithImageLinks() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportMedications(IExportService.Format.CSV, true, out);
+
+        assertEquals(2, rows);
+        Medication loaded = medicationRepository.findByCode("EXP_ASP").orElseThrow();
+        Medication plain = medicationRepository.findByCode("EXP_IBU").orElseThrow();
+        assertEquals("id,name,weight,code,droneId,imageUrl,imageSize\r\n"
+                + loaded.getId() + ",Aspirin,30,EXP_ASP," + drone.getId()
+                + ",/api/medications/" + loaded.getId() + "/image,10\r\n"
+                + plain.getId() + ",Ibuprofen,20,EXP_IBU,,,\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void quotesCsvFieldsThatNeedIt() throws IOException {
+        // Entity validation keeps such names out, but rows written by plain SQL can hold any text
+        jdbcTemplate.update("UPDATE medications SET name = ? WHERE code = 'EXP_IBU'", "Ibuprofen, \"forte\"");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportMedications(IExportService.Format.CSV, false, out);
+
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains(",\"Ibuprofen, \"\"forte\"\"\",20,EXP_IBU,\r\n"));
+    }
+
+    @Test
+    void leavesOutImageFieldsWhenAsked() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportMedications(IExportService.Format.NDJSON, false, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        JsonNode first = MAPPER.readTree(lines.get(0));
+        assertEquals("Aspirin", first.get("name").asText());
+        assertEquals(drone.getId(), first.get("droneId").asLong());
+        assertFalse(first.has("imageUrl"));
+        assertFalse(first.has("imageSize"));
+        assertTrue(MAPPER.readTree(lines.get(1)).get("droneId").isNull());
+    }
+
+    @Test
+    void writesOnlyTheHeaderForAnEmptyTable() throws IOException {
+        medicationRepository.deleteAll();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportMedications(IExportService.Format.CSV, false, out);
+
+        assertEquals(0, rows);
+        assertEquals("id,name,weight,code,droneId\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
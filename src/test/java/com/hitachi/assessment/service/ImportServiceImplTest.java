@@ -0,0 +1,322 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.ImportErrorDTO;
+import com.hitachi.assessment.dto.ImportResultDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.MedicationChangedEvent;
+import com.hitachi.assessment.exception.InvalidImportException;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
+import com.hitachi.assessment.model.Drone;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.model.Medication;
+import com.hitachi.assessment.repository.DroneRepository;
+import com.hitachi.assessment.repository.MedicationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Batches commit on their own, so the test runs outside a transaction and uses unique serial numbers
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ImportServiceImpl.class)
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+@RecordApplicationEvents
+@TestPropertySource(properties = {
+        "spring.sql.init.mode=never",
+        "drone.import.batch-size=2",
+        "drone.import.max-errors=3"
+})
+class ImportServiceImplTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private ImportServiceImpl importService;
+
+    @Autowired
+    private DroneRepository droneRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @MockitoBean
+    private DeliveryMetrics metrics;
+
+    @Test
+    void importsJsonArrayWithRegistrationDefaults() throws IOException {
+        String light = unique("BLK");
+        String heavy = unique("BLK");
+        String body = "[" + row(light, "LIGHTWEIGHT", null, 90, null) + ","
+                + row(heavy, "HEAVYWEIGHT", 800, 40, "LOADING") + "]";
+
+        ImportResultDTO result = importDrones(body);
+
+        assertEquals(2, result.getReceived());
+        assertEquals(2, result.getCreated());
+        assertEquals(0, result.getRejected());
+        Drone lightDrone = droneRepository.findBySerialNumber(light).orElseThrow();
+        assertEquals(DroneState.IDLE, lightDrone.getState());
+        assertEquals(DroneModel.LIGHTWEIGHT.getWeightLimit(), lightDrone.getWeightLimit());
+        assertEquals(0, lightDrone.getCurrentLoad());
+        assertEquals(0L, lightDrone.getVersion());
+        Drone heavyDrone = droneRepository.findBySerialNumber(heavy).orElseThrow();
+        assertEquals(DroneState.LOADING, heavyDrone.getState());
+        assertEquals(800, heavyDrone.getWeightLimit());
+        assertEquals(1, events.stream(DroneChangedEvent.class).count());
+    }
+
+    @Test
+    void reportsInvalidRowsWithoutStoppingTheRest() throws IOException {
+        String valid = unique("BLK");
+        String body = String.join("\n",
+                row(unique("BLK"), null, null, 50, null),
+                row(unique("BLK"), "JUMBO", null, 50, null),
+                row(valid, "MIDDLEWEIGHT", null, 50, null),
+                "{\"serialNumber\":\"" + unique("BLK") + "\",\"model\":\"LIGHTWEIGHT\",\"batteryCapacity\":\"full\"}",
+                row(unique("BLK"), "LIGHTWEIGHT", 100, 150, null),
+                "42");
+
+        ImportResultDTO result = importDrones(body);
+
+        assertEquals(6, result.getReceived());
+        assertEquals(1, result.getCreated());
+        assertEquals(5, result.getRejected());
+        assertTrue(result.isErrorsTruncated());
+        List<ImportErrorDTO> errors = result.getErrors();
+        assertEquals(List.of(1L, 2L, 4L), errors.stream().map(ImportErrorDTO::getRow).toList());
+        assertEquals("Model is required", errors.get(0).getMessage());
+        assertTrue(errors.get(1).getMessage().startsWith("model must be one of"));
+        assertEquals("batteryCapacity must be a whole number", errors.get(2).getMessage());
+        assertTrue(droneRepository.findBySerialNumber(valid).isPresent());
+    }
+
+    @Test
+    void rejectsDuplicateSerialNumbersPerRow() throws IOException {
+        String existing = unique("BLK");
+        droneRepository.save(drone(existing));
+        String repeated = unique("BLK");
+        String laterBatch = unique("BLK");
+        String body = String.join("\n",
+                row(repeated, "LIGHTWEIGHT", null, 80, null),
+                row(repeated, "LIGHTWEIGHT", null, 70, null),
+                row(existing, "LIGHTWEIGHT", null, 80, null),
+                row(laterBatch, "LIGHTWEIGHT", null, 80, null),
+                row(laterBatch, "LIGHTWEIGHT", null, 80, null),
+                row(unique("BLK"), "LIGHTWEIGHT", null, 80, null),
+                row(laterBatch, "LIGHTWEIGHT", null, 80, null));
+
+        ImportResultDTO result = importDrones(body);
+
+        assertEquals(7, result.getReceived());
+        assertEquals(3, result.getCreated());
+        assertEquals(4, result.getRejected());
+        assertEquals(80, droneRepository.findBySerialNumber(repeated).orElseThrow().getBatteryCapacity());
+        assertEquals(List.of(2L, 3L, 5L), result.getErrors().stream().map(ImportErrorDTO::getRow).toList());
+        assertEquals("Serial number already used by row 1", result.getErrors().get(0).getMessage());
+        assertEquals("Drone with serial number " + existing + " already exists", result.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    void drawsIdsFromTheSameGeneratorAsEntitySaves() throws IOException {
+        Long before = droneRepository.save(drone(unique("BLK"))).getId();
+        String first = unique("BLK");
+        String second = unique("BLK");
+        importDrones(row(first, "LIGHTWEIGHT", null, 80, null) + row(second, "LIGHTWEIGHT", null, 80, null));
+        Long after = droneRepository.save(drone(unique("BLK"))).getId();
+
+        Long firstId = droneRepository.findBySerialNumber(first).orElseThrow().getId();
+        Long secondId = droneRepository.findBySerialNumber(second).orElseThrow().getId();
+        assertEquals(before + 1, firstId);
+        assertEquals(firstId + 1, secondId);
+        assertEquals(secondId + 1, after);
+    }
+
+    @Test
+    void keepsRowsBeforeMalformedJson() throws IOException {
+        String valid = unique("BLK");
+        String body = row(valid, "LIGHTWEIGHT", null, 80, null) + "\n{\"serialNumber\": \"BROKEN";
+
+        ImportResultDTO result = importDrones(body);
+
+        assertEquals(2, result.getReceived());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertEquals(2L, result.getErrors().get(0).getRow());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Malformed JSON"));
+        assertTrue(droneRepository.findBySerialNumber(valid).isPresent());
+    }
+
+    @Test
+    void upsertsMedicationsFromCsvByCode() throws IOException {
+        Drone carrier = drone(unique("BLK"));
+        carrier.setCurrentLoad(10);
+        carrier = droneRepository.save(carrier);
+        String loaded = code();
+        String same = code();
+        String fresh = code();
+        medicationRepository.save(Medication.builder().name("Aspirin").weight(10).code(loaded).drone(carrier).build());
+        medicationRepository.save(Medication.builder().name("Ibuprofen").weight(20).code(same).build());
+        String body = "code,supplier,weight,name\r\n"
+                + loaded + ",\"Acme, Inc.\",30,Aspirin_Forte\r\n"
+                + same + ",Acme,20,Ibuprofen\r\n"
+                + "\r\n"
+                + fresh + ",Acme,5,\"Paracetamol\"\r\n"
+                + "bad code,Acme,5,Bad\r\n"
+                + code() + ",Acme,ten,Bad";
+
+        ImportResultDTO result = importMedicationsCsv(body);
+
+        assertEquals(5, result.getReceived());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of(4L, 5L), result.getErrors().stream().map(ImportErrorDTO::getRow).toList());
+        assertEquals("Code can only contain uppercase letters, underscore and numbers", result.getErrors().get(0).getMessage());
+        assertEquals("weight must be a whole number", result.getErrors().get(1).getMessage());
+        Medication updated = medicationRepository.findByCode(loaded).orElseThrow();
+        assertEquals("Aspirin_Forte", updated.getName());
+        assertEquals(30, updated.getWeight());
+        assertEquals(1L, updated.getVersion());
+        assertEquals(30, droneRepository.findById(carrier.getId()).orElseThrow().getCurrentLoad());
+        assertEquals(0L, medicationRepository.findByCode(same).orElseThrow().getVersion());
+        assertEquals("Paracetamol", medicationRepository.findByCode(fresh).orElseThrow().getName());
+        MedicationChangedEvent event = events.stream(MedicationChangedEvent.class).reduce((a, b) -> b).orElseThrow();
+        assertEquals(List.of(updated.getId()), event.getMedicationIds());
+        assertEquals(List.of(carrier.getId()), event.getDroneIds());
+        DroneChangedEvent droneEvent = events.stream(DroneChangedEvent.class).reduce((a, b) -> b).orElseThrow();
+        assertEquals(30, droneEvent.getDrones().get(0).getCurrentLoad());
+    }
+
+    @Test
+    void refusesWeightThatWouldOverloadTheCarryingDrone() throws IOException {
+        Drone carrier = drone(unique("BLK"));
+        carrier.setCurrentLoad(90);
+        carrier = droneRepository.save(carrier);
+        String heavier = code();
+        String lighter = code();
+        medicationRepository.save(Medication.builder().name("Aspirin").weight(10).code(heavier).drone(carrier).build());
+        medicationRepository.save(Medication.builder().name("Ibuprofen").weight(80).code(lighter).drone(carrier).build());
+        String body = "name,weight,code\n"
+                + "Aspirin,25," + heavier + "\n"
+                + "Ibuprofen,70," + lighter + "\n";
+
+        ImportResultDTO result = importMedicationsCsv(body);
+
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getRejected());
+        assertEquals(0, result.getUnchanged());
+        assertEquals("Medication is loaded on drone " + carrier.getId()
+                + " and a weight of 25g would exceed its weight limit", result.getErrors().get(0).getMessage());
+        assertEquals(10, medicationRepository.findByCode(heavier).orElseThrow().getWeight());
+        assertEquals(80, droneRepository.findById(carrier.getId()).orElseThrow().getCurrentLoad());
+        DroneChangedEvent event = events.stream(DroneChangedEvent.class).reduce((a, b) -> b).orElseThrow();
+        assertEquals(List.of(carrier.getId()), event.getDrones().stream().map(DroneDTO::getId).toList());
+        assertEquals(80, event.getDrones().get(0).getCurrentLoad());
+    }
+
+    @Test
+    void upsertsMedicationsFromNdjsonAndRejectsRepeatedCodesInABatch() throws IOException {
+        String repeated = code();
+        String body = String.join("\n",
+                "{\"name\":\"Aspirin\",\"weight\":10,\"code\":\"" + repeated + "\"}",
+                "{\"name\":\"Aspirin\",\"weight\":12,\"code\":\"" + repeated + "\"}",
+                "{\"name\":\"Ibuprofen\",\"weight\":0,\"code\":\"" + code() + "\"}");
+
+        ImportResultDTO result = importMedications(body);
+
+        assertEquals(3, result.getReceived());
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getRejected());
+        assertEquals("Code already used by row 1", result.getErrors().get(0).getMessage());
+        assertEquals("Weight must be at least 1g", result.getErrors().get(1).getMessage());
+        assertEquals(10, medicationRepository.findByCode(repeated).orElseThrow().getWeight());
+    }
+
+    @Test
+    void rejectsCsvWithoutRequiredColumns() {
+        assertThrows(InvalidImportException.class, () -> importMedicationsCsv("name,code\nAspirin,ASP\n"));
+    }
+
+    @Test
+    void keepsCsvRowsBeforeUnterminatedQuote() throws IOException {
+        String valid = code();
+        String body = "name,weight,code\nAspirin,10," + valid + "\n\"Broken,10,ASP\n";
+
+        ImportResultDTO result = importMedicationsCsv(body);
+
+        assertEquals(2, result.getReceived());
+        assertEquals(1, result.getCreated());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Malformed CSV"));
+        assertTrue(medicationRepository.findByCode(valid).isPresent());
+    }
+
+    private ImportResultDTO importMedicationsCsv(String body) throws IOException {
+        return importService.importMedicationsCsv(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private ImportResultDTO importMedications(String body) throws IOException {
+        return importService.importMedications(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private ImportResultDTO importDrones(String body) throws IOException {
+        return importService.importDrones(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String row(String serial, String model, Integer weightLimit, Integer battery, String state) {
+        StringBuilder json = new StringBuilder("{\"serialNumber\":\"").append(serial).append('"');
+        if (model != null) {
+            json.append(",\"model\":\"").append(model).append('"');
+        }
+        if (weightLimit != null) {
+            json.append(",\"weightLimit\":").append(weightLimit);
+        }
+        if (battery != null) {
+            json.append(",\"batteryCapacity\":").append(battery);
+        }
+        if (state != null) {
+            json.append(",\"state\":\"").append(state).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    private static Drone drone(String serial) {
+        return Drone.builder()
+                .serialNumber(serial)
+                .model(DroneModel.LIGHTWEIGHT)
+                .weightLimit(100)
+                .batteryCapacity(80)
+                .state(DroneState.IDLE)
+                .build();
+    }
+
+    private static String code() {
+        return "MED_" + SEQUENCE.incrementAndGet() + "_" + System.nanoTime();
+    }
+
+    private static String unique(String prefix) {
+        return prefix + "-" + SEQUENCE.incrementAndGet() + "-" + System.nanoTime();
+    }
+}
@@ -0,0 +1,164 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.LoadDroneRequestDTO;
+import com.hitachi.assessment.dto.LoadJobDTO;
+import com.hitachi.assessment.event.LoadJobCompletedEvent;
+import com.hitachi.assessment.exception.DroneStateException;
+import com.hitachi.assessment.exception.LoadJobNotFoundException;
+import com.hitachi.assessment.exception.LoadQueueFullException;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.model.LoadJobStatus;
+import com.hitachi.assessment.service.interfaces.IDroneService;
+import com.hitachi.assessment.service.interfaces.IDroneService.LoadOutcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoadJobServiceImplTest {
+
+    @Mock
+    private IDroneService droneService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Workers are not started; tests apply the queue with drain()
+    private LoadJobServiceImpl service(int workers, int queueCapacity, int historySize) {
+        return new LoadJobServiceImpl(droneService, eventPublisher, meterRegistry, workers, queueCapacity, 10,
+                historySize);
+    }
+
+    @Test
+    void appliesQueuedJobsGroupedByDroneInSubmissionOrder() {
+        LoadJobServiceImpl jobs = service(1, 10, 100);
+        LoadDroneRequestDTO first = new LoadDroneRequestDTO(1L, List.of(10L));
+        LoadDroneRequestDTO other = new LoadDroneRequestDTO(2L, List.of(20L));
+        LoadDroneRequestDTO second = new LoadDroneRequestDTO(1L, List.of(11L));
+        DroneDTO loaded = DroneDTO.builder().id(1L).state(DroneState.LOADED).build();
+        when(droneService.loadDrones(List.of(first, second))).thenReturn(List.of(
+                new LoadOutcome(loaded, null),
+                new LoadOutcome(null, new DroneStateException("Drone is not in a state that allows loading"))));
+        when(droneService.loadDrones(List.of(other))).thenReturn(List.of(
+                new LoadOutcome(DroneDTO.builder().id(2L).build(), null)));
+
+        String firstId = jobs.submit(first).getId();
+        LoadJobDTO queued = jobs.submit(other);
+        String secondId = jobs.submit(second).getId();
+        assertEquals(LoadJobStatus.QUEUED, queued.getStatus());
+        assertEquals(3, jobs.getStats().getQueued());
+
+        assertEquals(3, jobs.drain(0));
+
+        LoadJobDTO succeeded = jobs.getJob(firstId);
+        assertEquals(LoadJobStatus.SUCCEEDED, succeeded.getStatus());
+        assertEquals(loaded, succeeded.getDrone());
+        assertNotNull(succeeded.getCompletedAt());
+        LoadJobDTO failed = jobs.getJob(secondId);
+        assertEquals(LoadJobStatus.FAILED, failed.getStatus());
+        assertEquals("invalid_state", failed.getReason());
+        assertEquals(2, jobs.getStats().getBatches());
+        assertEquals(2, jobs.getStats().getSucceeded());
+        assertEquals(1, jobs.getStats().getFailed());
+        assertEquals(0, jobs.getStats().getQueued());
+        ArgumentCaptor<LoadJobCompletedEvent> events = ArgumentCaptor.forClass(LoadJobCompletedEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        assertEquals(List.of(firstId, secondId, queued.getId()),
+                events.getAllValues().stream().map(event -> event.getJob().getId()).toList());
+    }
+
+    @Test
+    void appliesJobsOneAtATimeWhenTheirGroupRollsBack() {
+        LoadJobServiceImpl jobs = service(1, 10, 100);
+        LoadDroneRequestDTO first = new LoadDroneRequestDTO(1L, List.of(10L));
+        LoadDroneRequestDTO second = new LoadDroneRequestDTO(1L, List.of(11L));
+        when(droneService.loadDrones(anyList()))
+                .thenThrow(new OptimisticLockingFailureException("Medications were assigned concurrently"));
+        when(droneService.loadDrone(first)).thenReturn(DroneDTO.builder().id(1L).build());
+        when(droneService.loadDrone(second)).thenThrow(new DroneStateException("Drone is not in a state that allows loading"));
+
+        String firstId = jobs.submit(first).getId();
+        String secondId = jobs.submit(second).getId();
+        jobs.drain(0);
+
+        assertEquals(LoadJobStatus.SUCCEEDED, jobs.getJob(firstId).getStatus());
+        assertEquals(LoadJobStatus.FAILED, jobs.getJob(secondId).getStatus());
+        assertEquals(1, jobs.getStats().getFallbacks());
+        verify(droneService, times(1)).loadDrones(anyList());
+    }
+
+    @Test
+    void refusesJobsWhenTheDronesQueueIsFull() {
+        LoadJobServiceImpl jobs = service(2, 2, 100);
+
+        // Drones 1 and 3 share a queue of one
+        jobs.submit(new LoadDroneRequestDTO(1L, List.of(10L)));
+        jobs.submit(new LoadDroneRequestDTO(2L, List.of(20L)));
+        assertThrows(LoadQueueFullException.class, () -> jobs.submit(new LoadDroneRequestDTO(3L, List.of(30L))));
+
+        assertEquals(2, jobs.getStats().getSubmitted());
+        assertEquals(1, jobs.getStats().getRejected());
+        assertEquals(2, jobs.getStats().getQueueCapacity());
+        assertEquals(1.0, meterRegistry.get("drone.load.jobs.rejected").functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("drone.load.jobs.queued").gauge().value());
+    }
+
+    @Test
+    void refusesJobsOnceStopped() throws InterruptedException {
+        LoadJobServiceImpl jobs = service(1, 10, 100);
+        jobs.stop();
+
+        assertThrows(LoadQueueFullException.class, () -> jobs.submit(new LoadDroneRequestDTO(1L, List.of(10L))));
+        assertEquals(0, jobs.getStats().getSubmitted());
+        assertEquals(1, jobs.getStats().getRejected());
+        assertEquals(0, jobs.getStats().getQueued());
+    }
+
+    @Test
+    void forgetsTheOldestFinishedJobsBeyondTheHistorySize() {
+        LoadJobServiceImpl jobs = service(1, 10, 1);
+        when(droneService.loadDrones(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).stream()
+                .map(request -> new LoadOutcome(DroneDTO.builder().build(), null)).toList());
+
+        String older = jobs.submit(new LoadDroneRequestDTO(1L, List.of(10L))).getId();
+        jobs.drain(0);
+        String newer = jobs.submit(new LoadDroneRequestDTO(2L, List.of(20L))).getId();
+        jobs.drain(0);
+
+        assertThrows(LoadJobNotFoundException.class, () -> jobs.getJob(older));
+        assertEquals(LoadJobStatus.SUCCEEDED, jobs.getJob(newer).getStatus());
+    }
+
+    @Test
+    void workersApplyJobsInTheBackground() throws InterruptedException {
+        LoadJobServiceImpl jobs = service(2, 10, 100);
+        when(droneService.loadDrones(anyList()))
+                .thenReturn(List.of(new LoadOutcome(DroneDTO.builder().id(1L).build(), null)));
+        jobs.start();
+        try {
+            String id = jobs.submit(new LoadDroneRequestDTO(1L, List.of(10L))).getId();
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!jobs.getJob(id).getStatus().isFinished() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(LoadJobStatus.SUCCEEDED, jobs.getJob(id).getStatus());
+        } finally {
+            jobs.stop();
+        }
+    }
+}
@@ -1,22 +1,37 @@
 package com.hitachi.assessment.service;
 
+import com.hitachi.assessment.cache.LookupCache;
+import com.hitachi.assessment.dto.DroneDTO;
 import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.MedicationChangedEvent;
+import com.hitachi.assessment.exception.DroneOverloadedException;
+import com.hitachi.assessment.exception.ImageTooLargeException;
 import com.hitachi.assessment.exception.MedicationNotFoundException;
+import com.hitachi.assessment.metrics.DeliveryMetrics;
 import com.hitachi.assessment.model.Drone;
 import com.hitachi.assessment.model.DroneModel;
 import com.hitachi.assessment.model.DroneState;
 import com.hitachi.assessment.model.Medication;
 import com.hitachi.assessment.repository.DroneRepository;
 import com.hitachi.assessment.repository.MedicationRepository;
+import com.hitachi.assessment.storage.ImageSizeExceededException;
+import com.hitachi.assessment.storage.ImageStore;
+import com.hitachi.assessment.storage.StoredImage;
+import com.hitachi.assessment.storage.UploadLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -24,6 +39,10 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +54,21 @@ public class MedicationServiceImplTest {
     @Mock
     private DroneRepository droneRepository;
 
+    @Mock
+    private ImageStore imageStore;
+
+    @Spy
+    private UploadLimiter uploadLimiter = new UploadLimiter(1024 * 1024, 100);
+
+    @Spy
+    private DeliveryMetrics metrics = new DeliveryMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private LookupCache lookupCache = new LookupCache(new SimpleMeterRegistry(), 1000, 1000, 30000);
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private MedicationServiceImpl medicationService;
 
@@ -42,6 +76,9 @@ public class MedicationServiceImplTest {
     private MedicationDTO testMedicationDTO;
     private Drone testDrone;
 
+    private static final String IMAGE_HASH = "8e5a1a8b0e7c2d4f6a9b1c3d5e7f90a2b4c6d8e0f1a3b5c7d9e1f2a4b6c8d0e2";
+    private final StoredImage storedImage = new StoredImage(IMAGE_HASH, 15);
+
     @BeforeEach
     void setUp() {
         // Initialize test medication
@@ -86,6 +123,7 @@ public class MedicationServiceImplTest {
         testMedicationDTO.setDroneId(1L);
         testMedication.setDrone(testDrone);
         when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+        when(droneRepository.addLoadIfCapacity(1L, 100)).thenReturn(1);
         when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
 
         MedicationDTO result = medicationService.createMedication(testMedicationDTO);
@@ -93,6 +131,29 @@ public class MedicationServiceImplTest {
         assertEquals(testDrone.getId(), result.getDroneId());
     }
 
+    @Test
+    void shouldAddWeightToDroneLoadWhenCreateMedicationWithDrone() {
+        testMedicationDTO.setDroneId(1L);
+        testMedication.setDrone(testDrone);
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+        when(droneRepository.addLoadIfCapacity(1L, 100)).thenReturn(1);
+        when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
+
+        medicationService.createMedication(testMedicationDTO);
+        verify(droneRepository, times(1)).addLoadIfCapacity(1L, 100);
+    }
+
+    @Test
+    void shouldRefuseMedicationThatOverloadsItsDrone() {
+        testMedicationDTO.setDroneId(1L);
+        testMedication.setDrone(testDrone);
+        when(droneRepository.findById(1L)).thenReturn(Optional.of(testDrone));
+        when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
+
+        assertThrows(DroneOverloadedException.class, () -> medicationService.createMedication(testMedicationDTO));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     @Test
     void shouldCreateMedicationWithImage() throws IOException {
         byte[] imageData = "test image data".getBytes();
@@ -100,24 +161,27 @@ public class MedicationServiceImplTest {
                 "image", "test.jpg", "image/jpeg", imageData);
 
         testMedicationDTO.setImageFile(mockFile);
-        testMedication.setImage(imageData);
+        stubImageStore(imageData);
+        testMedication.setImageHash(IMAGE_HASH);
         when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
 
         MedicationDTO result = medicationService.createMedication(testMedicationDTO);
         assertNotNull(result);
-        assertNotNull(result.getImageBase64());
+        assertEquals("/api/medications/1/image", result.getImageUrl());
+        verify(medicationRepository).save(argThat(medication -> IMAGE_HASH.equals(medication.getImageHash())));
     }
 
     @Test
-    void shouldCreateMedicationWithBase64Image() {
+    void shouldCreateMedicationWithBase64Image() throws IOException {
         String base64Image = "dGVzdCBpbWFnZSBkYXRh"; // "test image data" in Base64
         testMedicationDTO.setImageBase64(base64Image);
-        testMedication.setImage("test image data".getBytes());
+        stubImageStore("test image data".getBytes());
+        testMedication.setImageHash(IMAGE_HASH);
         when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
 
         MedicationDTO result = medicationService.createMedication(testMedicationDTO);
         assertNotNull(result);
-        assertNotNull(result.getImageBase64());
+        assertEquals("/api/medications/1/image", result.getImageUrl());
     }
 
     @Test
@@ -206,6 +270,61 @@ public class MedicationServiceImplTest {
         assertEquals(testDrone.getId(), result.getDroneId());
     }
 
+    @Test
+    void shouldAdjustDroneLoadWhenUpdateMedicationWeight() {
+        testMedication.setDrone(testDrone);
+        testMedicationDTO.setWeight(130);
+        DroneDTO snapshot = DroneDTO.builder().id(1L).currentLoad(130).build();
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(testMedication));
+        when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
+        when(droneRepository.addLoadIfCapacity(1L, 30)).thenReturn(1);
+        when(droneRepository.findSnapshotsByIdIn(List.of(1L))).thenReturn(List.of(snapshot));
+
+        medicationService.updateMedication(1L, testMedicationDTO);
+        verify(droneRepository, times(1)).addLoadIfCapacity(1L, 30);
+        verify(eventPublisher).publishEvent(new DroneChangedEvent(List.of(snapshot)));
+    }
+
+    @Test
+    void shouldRefuseWeightIncreaseBeyondDroneLimit() {
+        testMedication.setDrone(testDrone);
+        testMedicationDTO.setWeight(600);
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(testMedication));
+        when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
+
+        assertThrows(DroneOverloadedException.class, () -> medicationService.updateMedication(1L, testMedicationDTO));
+        verify(droneRepository, never()).adjustCurrentLoad(anyLong(), anyInt());
+    }
+
+    @Test
+    void shouldReleaseLoadWhenUpdateMedicationWeightDown() {
+        testMedication.setDrone(testDrone);
+        testMedicationDTO.setWeight(60);
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(testMedication));
+        when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
+
+        medicationService.updateMedication(1L, testMedicationDTO);
+        verify(droneRepository, times(1)).adjustCurrentLoad(1L, -40);
+        verify(droneRepository, never()).addLoadIfCapacity(anyLong(), anyInt());
+        verify(droneRepository).findSnapshotsByIdIn(List.of(1L));
+    }
+
+    @Test
+    void shouldMoveLoadWhenUpdateMedicationDrone() {
+        Drone otherDrone = Drone.builder().id(2L).serialNumber("TEST-DRONE-002").build();
+        testMedication.setDrone(testDrone);
+        testMedicationDTO.setDroneId(2L);
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(testMedication));
+        when(droneRepository.findById(2L)).thenReturn(Optional.of(otherDrone));
+        when(droneRepository.addLoadIfCapacity(2L, 100)).thenReturn(1);
+        when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
+
+        medicationService.updateMedication(1L, testMedicationDTO);
+        verify(droneRepository, times(1)).adjustCurrentLoad(1L, -100);
+        verify(droneRepository, times(1)).addLoadIfCapacity(2L, 100);
+        verify(droneRepository).findSnapshotsByIdIn(List.of(1L, 2L));
+    }
+
     @Test
     void shouldUpdateMedicationWithImage() throws IOException {
         byte[] imageData = "updated image data".getBytes();
@@ -215,42 +334,130 @@ public class MedicationServiceImplTest {
         testMedicationDTO.setImageFile(mockFile);
         when(medicationRepository.findById(1L)).thenReturn(Optional.of(testMedication));
 
-        testMedication.setImage(imageData);
+        stubImageStore(imageData);
         when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
 
         MedicationDTO result = medicationService.updateMedication(1L, testMedicationDTO);
         assertNotNull(result);
-        assertNotNull(result.getImageBase64());
+        assertEquals(IMAGE_HASH, testMedication.getImageHash());
+        assertEquals("/api/medications/1/image", result.getImageUrl());
     }
 
     @Test
-    void shouldUpdateMedicationWithBase64Image() {
+    void shouldUpdateMedicationWithBase64Image() throws IOException {
         String base64Image = "dXBkYXRlZCBpbWFnZSBkYXRh"; // "updated image data" in Base64
         testMedicationDTO.setImageBase64(base64Image);
         when(medicationRepository.findById(1L)).thenReturn(Optional.of(testMedication));
 
-        testMedication.setImage("updated image data".getBytes());
+        stubImageStore("updated image data".getBytes());
         when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
 
         MedicationDTO result = medicationService.updateMedication(1L, testMedicationDTO);
         assertNotNull(result);
-        assertNotNull(result.getImageBase64());
+        assertEquals("/api/medications/1/image", result.getImageUrl());
+        assertEquals(storedImage.size(), result.getImageSize());
+    }
+
+    @Test
+    void shouldGetMedicationImage() {
+        testMedication.setImageHash(IMAGE_HASH);
+        testMedication.setImageSize(15L);
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(testMedication));
+        when(imageStore.exists(IMAGE_HASH)).thenReturn(true);
+
+        assertEquals(storedImage, medicationService.getMedicationImage(1L));
+    }
+
+    @Test
+    void notFoundWhenMedicationHasNoImage() {
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(testMedication));
+        assertThrows(MedicationNotFoundException.class, () -> medicationService.getMedicationImage(1L));
+    }
+
+    @Test
+    void shouldRejectImageLargerThanLimitBeforeStreaming() throws IOException {
+        testMedicationDTO.setImageFile(new MockMultipartFile("image", "big.jpg", "image/jpeg", new byte[2048]));
+        when(imageStore.getMaxUploadBytes()).thenReturn(1024L);
+
+        assertThrows(ImageTooLargeException.class, () -> medicationService.createMedication(testMedicationDTO));
+        verify(imageStore, never()).store(any(InputStream.class));
+        verify(medicationRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldRejectImageThatStreamsPastTheLimit() throws IOException {
+        testMedicationDTO.setImageBase64("dGVzdCBpbWFnZSBkYXRh");
+        when(imageStore.getMaxUploadBytes()).thenReturn(1024L);
+        when(imageStore.store(any(InputStream.class)))
+                .thenThrow(new ImageSizeExceededException("Image exceeds the maximum size of 1024 bytes"));
+
+        ImageTooLargeException e = assertThrows(ImageTooLargeException.class,
+                () -> medicationService.createMedication(testMedicationDTO));
+        assertEquals("Image exceeds the maximum size of 1024 bytes", e.getMessage());
+        verify(medicationRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldReleaseUploadCapacityAfterStoring() throws IOException {
+        testMedicationDTO.setImageBase64("dGVzdCBpbWFnZSBkYXRh");
+        stubImageStore("test image data".getBytes());
+        when(medicationRepository.save(any(Medication.class))).thenReturn(testMedication);
+        long available = uploadLimiter.availableBytes();
+
+        medicationService.createMedication(testMedicationDTO);
+
+        verify(uploadLimiter).reserve(anyLong());
+        assertEquals(available, uploadLimiter.availableBytes());
+    }
+
+    // The store must receive the image as a stream carrying exactly the uploaded bytes
+    private void stubImageStore(byte[] expected) throws IOException {
+        when(imageStore.getMaxUploadBytes()).thenReturn(1024L * 1024);
+        when(imageStore.store(any(InputStream.class))).thenAnswer(invocation -> {
+            assertArrayEquals(expected, invocation.<InputStream>getArgument(0).readAllBytes());
+            return storedImage;
+        });
     }
 
     @Test
     void shouldDeleteMedication() {
-        when(medicationRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(medicationRepository).deleteById(1L);
+        testMedication.setDrone(Drone.builder().id(7L).build());
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(testMedication));
 
         assertDoesNotThrow(() -> medicationService.deleteMedication(1L));
-        verify(medicationRepository, times(1)).deleteById(1L);
+        verify(droneRepository, times(1)).releaseMedicationLoad(1L);
+        verify(medicationRepository, times(1)).delete(testMedication);
+        verify(eventPublisher).publishEvent(MedicationChangedEvent.of(1L, 7L));
+        verify(droneRepository).findSnapshotsByIdIn(List.of(7L));
+        verify(eventPublisher).publishEvent(any(DroneChangedEvent.class));
     }
 
     @Test
     void notFoundWhenDeleteMedication() {
-        when(medicationRepository.existsById(99L)).thenReturn(false);
+        when(medicationRepository.findById(99L)).thenReturn(Optional.empty());
 
         assertThrows(MedicationNotFoundException.class, () -> medicationService.deleteMedication(99L));
-        verify(medicationRepository, never()).deleteById(anyLong());
+        verify(medicationRepository, never()).delete(any(Medication.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        testMedication.setDrone(testDrone);
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(testMedication));
+
+        MedicationDTO first = medicationService.getMedicationById(1L);
+        MedicationDTO second = medicationService.getMedicationById(1L);
+        MedicationDTO byCode = medicationService.getMedicationByCode("MED_TEST");
+
+        assertEquals(first, second);
+        assertEquals(first, byCode);
+        verify(medicationRepository, times(1)).findById(1L);
+        verify(medicationRepository, never()).findByCode(anyString());
+
+        lookupCache.onMedicationChanged(MedicationChangedEvent.of(1L));
+        medicationService.getMedicationById(1L);
+        verify(medicationRepository, times(2)).findById(1L);
+        assertEquals(2, medicationService.getCacheStats().getHits());
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.dto.RetryStatsDTO;
+import com.hitachi.assessment.exception.ConcurrentUpdateException;
+import com.hitachi.assessment.exception.DroneStateException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OptimisticLockRetryTemplateTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OptimisticLockRetryTemplate retryTemplate;
+
+    @BeforeEach
+    void setUp() {
+        retryTemplate = new OptimisticLockRetryTemplate(transactionManager);
+        ReflectionTestUtils.setField(retryTemplate, "maxAttempts", 3);
+        ReflectionTestUtils.setField(retryTemplate, "initialBackoffMs", 1L);
+        ReflectionTestUtils.setField(retryTemplate, "maxBackoffMs", 2L);
+    }
+
+    @Test
+    void shouldRetryUntilActionSucceeds() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = retryTemplate.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("conflict");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+
+        RetryStatsDTO stats = retryTemplate.getStats();
+        assertEquals(1, stats.getExecutions());
+        assertEquals(3, stats.getAttempts());
+        assertEquals(2, stats.getConflicts());
+        assertEquals(0, stats.getExhausted());
+    }
+
+    @Test
+    void shouldRunEachAttemptInItsOwnTransaction() {
+        retryTemplate.execute(() -> "done");
+
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ConcurrentUpdateException.class, () -> retryTemplate.execute(() -> {
+            calls.incrementAndGet();
+            throw new OptimisticLockingFailureException("conflict");
+        }));
+
+        assertEquals(3, calls.get());
+        assertEquals(1, retryTemplate.getStats().getExhausted());
+        assertEquals(1.0, retryTemplate.getStats().getConflictRate());
+    }
+
+    @Test
+    void shouldNotRetryBusinessErrors() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(DroneStateException.class, () -> retryTemplate.execute(() -> {
+            calls.incrementAndGet();
+            throw new DroneStateException("not loadable");
+        }));
+
+        assertEquals(1, calls.get());
+        assertEquals(0, retryTemplate.getStats().getConflicts());
+    }
+}
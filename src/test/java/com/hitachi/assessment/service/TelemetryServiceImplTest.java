@@ -0,0 +1,120 @@
+package com.hitachi.assessment.service;
+
+import com.hitachi.assessment.dto.TelemetryIngestResultDTO;
+import com.hitachi.assessment.telemetry.TelemetryWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TelemetryServiceImplTest {
+
+    @Mock
+    private TelemetryWriter telemetryWriter;
+
+    @InjectMocks
+    private TelemetryServiceImpl telemetryService;
+
+    private InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldIngestJsonArray() throws Exception {
+        when(telemetryWriter.offer(anyLong(), anyInt(), anyLong())).thenReturn(true);
+
+        TelemetryIngestResultDTO result = telemetryService.ingestJson(body(
+                "[{\"droneId\":1,\"batteryLevel\":80,\"timestamp\":1000},{\"droneId\":2,\"batteryLevel\":55,\"timestamp\":1001}]"));
+
+        assertEquals(2, result.getAccepted());
+        verify(telemetryWriter).offer(1L, 80, 1000L);
+        verify(telemetryWriter).offer(2L, 55, 1001L);
+    }
+
+    @Test
+    void shouldIngestNdjsonAndCountInvalidReadings() throws Exception {
+        when(telemetryWriter.offer(anyLong(), anyInt(), anyLong())).thenReturn(true);
+
+        TelemetryIngestResultDTO result = telemetryService.ingestJson(body(
+                "{\"droneId\":1,\"batteryLevel\":80,\"extra\":{\"a\":1}}\n"
+                        + "{\"droneId\":2,\"batteryLevel\":150}\n"
+                        + "{\"batteryLevel\":10}\n"));
+
+        assertEquals(1, result.getAccepted());
+        assertEquals(2, result.getInvalid());
+        verify(telemetryWriter).offer(eq(1L), eq(80), anyLong());
+    }
+
+    @Test
+    void shouldReportDroppedReadingsWhenBufferIsFull() throws Exception {
+        when(telemetryWriter.offer(anyLong(), anyInt(), anyLong())).thenReturn(true, false);
+
+        TelemetryIngestResultDTO result = telemetryService.ingestJson(body(
+                "{\"droneId\":1,\"batteryLevel\":80}{\"droneId\":1,\"batteryLevel\":79}"));
+
+        assertEquals(1, result.getAccepted());
+        assertEquals(1, result.getDropped());
+    }
+
+    @Test
+    void shouldReportReadingsQueuedBeforeMalformedJson() throws Exception {
+        when(telemetryWriter.offer(anyLong(), anyInt(), anyLong())).thenReturn(true);
+
+        TelemetryIngestResultDTO result = telemetryService.ingestJson(body(
+                "[{\"droneId\":1,\"batteryLevel\":80},{\"droneId\":2,\"batteryLevel\":70},{\"droneId\":3,"));
+
+        assertEquals(2, result.getAccepted());
+        assertTrue(result.getError().startsWith("Malformed telemetry JSON"));
+        verify(telemetryWriter, never()).offer(eq(3L), anyInt(), anyLong());
+    }
+
+    @Test
+    void shouldStopAtValueThatIsNotAnObject() throws Exception {
+        TelemetryIngestResultDTO result = telemetryService.ingestJson(body("[1, 2]"));
+
+        assertEquals(0, result.getAccepted());
+        assertEquals("Expected a telemetry object at line 1, column 3; the rest of the body was not read",
+                result.getError());
+        verifyNoInteractions(telemetryWriter);
+    }
+
+    @Test
+    void shouldIngestBinaryRecords() throws Exception {
+        when(telemetryWriter.offer(anyLong(), anyInt(), anyLong())).thenReturn(true);
+        ByteBuffer records = ByteBuffer.allocate(2 * TelemetryServiceImpl.BINARY_RECORD_SIZE);
+        records.putLong(7L).putLong(5000L).put((byte) 42);
+        records.putLong(8L).putLong(5001L).put((byte) 100);
+
+        TelemetryIngestResultDTO result = telemetryService.ingestBinary(new ByteArrayInputStream(records.array()));
+
+        assertEquals(2, result.getAccepted());
+        verify(telemetryWriter).offer(7L, 42, 5000L);
+        verify(telemetryWriter).offer(8L, 100, 5001L);
+    }
+
+    @Test
+    void shouldReportRecordsQueuedBeforeTruncatedBinaryRecord() throws Exception {
+        when(telemetryWriter.offer(anyLong(), anyInt(), anyLong())).thenReturn(true);
+        byte[] truncated = ByteBuffer.allocate(TelemetryServiceImpl.BINARY_RECORD_SIZE + 12)
+                .putLong(7L).putLong(5000L).put((byte) 42)
+                .putLong(8L).putInt(1)
+                .array();
+
+        TelemetryIngestResultDTO result = telemetryService.ingestBinary(new ByteArrayInputStream(truncated));
+
+        assertEquals(1, result.getAccepted());
+        assertNotNull(result.getError());
+        verify(telemetryWriter).offer(7L, 42, 5000L);
+    }
+}
@@ -0,0 +1,110 @@
+package com.hitachi.assessment.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatteryHistoryStoreTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long T0 = 1_700_000_000_000L / HOUR * HOUR;
+
+    @TempDir
+    Path directory;
+
+    private BatteryHistoryStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new BatteryHistoryStore(directory.toString(), 1, 31);
+    }
+
+    @Test
+    void downsamplesIntoMinMaxAvgBuckets() {
+        store.record(1L, 100, T0);
+        store.record(1L, 90, T0 + 10_000);
+        store.record(1L, 80, T0 + 20_000);
+        store.record(1L, 70, T0 + 70_000);
+
+        List<BatteryHistoryStore.Bucket> buckets = store.query(1L, T0, T0 + 120_000, 60_000);
+
+        assertEquals(2, buckets.size());
+        assertEquals(new BatteryHistoryStore.Bucket(T0, 80, 100, 90.0, 3), buckets.get(0));
+        assertEquals(new BatteryHistoryStore.Bucket(T0 + 60_000, 70, 70, 70.0, 1), buckets.get(1));
+    }
+
+    @Test
+    void servesTheSameDataBeforeAndAfterFlush() {
+        store.record(1L, 50, T0 + 1);
+        store.record(1L, 40, T0 + 2);
+        List<BatteryHistoryStore.Bucket> buffered = store.query(1L, T0, T0 + HOUR, HOUR);
+
+        store.flush();
+        store.record(1L, 30, T0 + 3);
+
+        assertEquals(buffered.get(0).count(), 2);
+        assertEquals(new BatteryHistoryStore.Bucket(T0, 30, 50, 40.0, 3), store.query(1L, T0, T0 + HOUR, HOUR).get(0));
+    }
+
+    @Test
+    void skipsReadingsThatDoNotChangeTheLevel() {
+        store.record(1L, 50, T0);
+        store.record(1L, 50, T0 + 1000);
+        store.record(1L, 49, T0 + 2000);
+
+        assertEquals(2, store.query(1L, T0, T0 + HOUR, HOUR).get(0).count());
+    }
+
+    @Test
+    void spansSegmentsAndHonoursRangeBounds() {
+        store.record(1L, 90, T0 + HOUR - 1);
+        store.record(1L, 80, T0 + HOUR);
+        store.record(1L, 70, T0 + 2 * HOUR + 5);
+        store.flush();
+
+        assertEquals(3, store.query(1L, T0, T0 + 3 * HOUR, 3 * HOUR).get(0).count());
+        List<BatteryHistoryStore.Bucket> middle = store.query(1L, T0 + HOUR, T0 + 2 * HOUR, HOUR);
+        assertEquals(List.of(new BatteryHistoryStore.Bucket(T0 + HOUR, 80, 80, 80.0, 1)), middle);
+    }
+
+    @Test
+    void reopensPersistedHistoryAndKeepsAppending() throws Exception {
+        store.record(7L, 60, T0 + 100);
+        store.record(7L, 55, T0 + 200);
+        store.flush();
+
+        BatteryHistoryStore reopened = new BatteryHistoryStore(directory.toString(), 1, 31);
+        assertEquals(2, reopened.query(7L, T0, T0 + HOUR, HOUR).get(0).count());
+
+        reopened.record(7L, 50, T0 + 300);
+        reopened.flush();
+        List<BatteryHistoryStore.Bucket> buckets = reopened.query(7L, T0, T0 + HOUR, 100);
+        assertEquals(List.of(T0 + 100, T0 + 200, T0 + 300), buckets.stream().map(BatteryHistoryStore.Bucket::start).toList());
+    }
+
+    @Test
+    void retentionDropsWholeExpiredSegments() throws Exception {
+        BatteryHistoryStore shortLived = new BatteryHistoryStore(directory.toString(), 1, 1);
+        long now = System.currentTimeMillis();
+        shortLived.record(1L, 90, now - TimeUnit.DAYS.toMillis(3));
+        shortLived.record(1L, 80, now);
+        shortLived.flush();
+
+        assertEquals(1, shortLived.applyRetention());
+        try (var segments = Files.list(directory)) {
+            assertEquals(1, segments.count());
+        }
+    }
+
+    @Test
+    void returnsNothingForUnknownDrone() {
+        assertTrue(store.query(404L, T0, T0 + HOUR, 1000).isEmpty());
+    }
+}
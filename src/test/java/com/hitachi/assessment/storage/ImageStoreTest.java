@@ -0,0 +1,80 @@
+package com.hitachi.assessment.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private ImageStore imageStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        imageStore = new ImageStore(directory.toString(), 1024);
+    }
+
+    @Test
+    void storesImageUnderItsSha256() throws Exception {
+        StoredImage stored = imageStore.store("abc".getBytes());
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", stored.hash());
+        assertEquals(3, stored.size());
+        assertTrue(imageStore.exists(stored.hash()));
+    }
+
+    @Test
+    void deduplicatesIdenticalContent() throws Exception {
+        StoredImage first = imageStore.store("same image".getBytes());
+        StoredImage second = imageStore.store("same image".getBytes());
+
+        assertEquals(first, second);
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void transfersRequestedRange() throws Exception {
+        StoredImage stored = imageStore.store("0123456789".getBytes());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        imageStore.transferTo(stored.hash(), 3, 4, Channels.newChannel(out));
+
+        assertEquals("3456", out.toString());
+    }
+
+    @Test
+    void detectsContentTypeFromMagicBytes() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0};
+        StoredImage stored = imageStore.store(png);
+
+        assertEquals("image/png", imageStore.contentType(stored.hash()));
+        assertEquals("application/octet-stream", imageStore.contentType(imageStore.store("plain".getBytes()).hash()));
+    }
+
+    @Test
+    void abortsUploadOverTheSizeLimitAndLeavesNothingBehind() throws Exception {
+        assertThrows(ImageSizeExceededException.class, () -> imageStore.store(new ByteArrayInputStream(new byte[1025])));
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void rejectsMalformedHash() {
+        assertThrows(IllegalArgumentException.class, () -> imageStore.exists("../../etc/passwd"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.hitachi.assessment.storage;
+
+import com.hitachi.assessment.exception.UploadCapacityExceededException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadLimiterTest {
+
+    private final UploadLimiter limiter = new UploadLimiter(4096, 50);
+
+    @Test
+    void rejectsUploadWhenBudgetIsExhausted() {
+        try (UploadLimiter.Reservation ignored = limiter.reserve(3000)) {
+            assertThrows(UploadCapacityExceededException.class, () -> limiter.reserve(2000));
+        }
+    }
+
+    @Test
+    void releasesCapacityOnClose() {
+        UploadLimiter.Reservation reservation = limiter.reserve(4096);
+        assertEquals(0, limiter.availableBytes());
+
+        reservation.close();
+        reservation.close();
+
+        assertEquals(4096, limiter.availableBytes());
+    }
+
+    @Test
+    void waitingUploadProceedsOnceCapacityIsReleased() throws Exception {
+        UploadLimiter patient = new UploadLimiter(4096, 5000);
+        UploadLimiter.Reservation first = patient.reserve(4096);
+        Thread releaser = new Thread(() -> {
+            sleep(50);
+            first.close();
+        });
+        releaser.start();
+
+        try (UploadLimiter.Reservation second = patient.reserve(4096)) {
+            assertNotNull(second);
+        }
+        releaser.join();
+    }
+
+    @Test
+    void uploadLargerThanBudgetIsAdmittedAlone() {
+        try (UploadLimiter.Reservation ignored = limiter.reserve(1_000_000)) {
+            assertEquals(0, limiter.availableBytes());
+        }
+        assertEquals(4096, limiter.availableBytes());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.hitachi.assessment.stream;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.dto.LoadJobDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.event.LoadJobCompletedEvent;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.model.LoadJobStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DroneEventBroadcasterTest {
+
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\d+)");
+
+    private final List<Runnable> pendingSends = new ArrayList<>();
+
+    @Test
+    void publishesOnlyWhatChanged() {
+        DroneEventBroadcaster broadcaster = broadcaster(16, 16, Runnable::run);
+        RecordingEmitter emitter = subscribe(broadcaster, DroneEventFilter.all(), null);
+
+        publish(broadcaster, drone(1L, DroneState.IDLE, 0, 100));
+        publish(broadcaster, drone(1L, DroneState.IDLE, 0, 90));
+        publish(broadcaster, drone(1L, DroneState.IDLE, 0, 90));
+        publish(broadcaster, drone(1L, DroneState.LOADED, 200, 90));
+
+        assertEquals(3, emitter.frames.size());
+        assertTrue(emitter.frames.get(0).contains("event:drone"));
+        assertTrue(emitter.frames.get(0).contains("changes=[STATE, LOAD, BATTERY]"));
+        assertTrue(emitter.frames.get(1).contains("changes=[BATTERY]"));
+        assertTrue(emitter.frames.get(2).contains("previousState=IDLE"));
+        assertTrue(emitter.frames.get(2).contains("changes=[STATE, LOAD]"));
+        assertEquals(id(emitter.frames.get(0)) + 2, id(emitter.frames.get(2)));
+    }
+
+    @Test
+    void filtersByDroneAndByStatesEnteredOrLeft() {
+        DroneEventBroadcaster broadcaster = broadcaster(16, 16, Runnable::run);
+        RecordingEmitter droneTwo = subscribe(broadcaster, new DroneEventFilter(Set.of(2L), null), null);
+        RecordingEmitter delivering = subscribe(broadcaster,
+                new DroneEventFilter(null, Set.of(DroneState.DELIVERING)), null);
+
+        publish(broadcaster, drone(1L, DroneState.LOADED, 100, 80), drone(2L, DroneState.LOADED, 100, 80));
+        publish(broadcaster, drone(1L, DroneState.DELIVERING, 100, 80));
+        publish(broadcaster, drone(1L, DroneState.DELIVERED, 100, 70));
+
+        assertEquals(1, droneTwo.frames.size());
+        assertTrue(droneTwo.frames.get(0).contains("droneId=2"));
+        assertEquals(2, delivering.frames.size());
+        assertTrue(delivering.frames.get(0).contains("state=DELIVERING"));
+        assertTrue(delivering.frames.get(1).contains("state=DELIVERED"));
+    }
+
+    @Test
+    void resumesAfterLastEventIdFromReplayBuffer() {
+        DroneEventBroadcaster broadcaster = broadcaster(16, 16, Runnable::run);
+        RecordingEmitter first = subscribe(broadcaster, DroneEventFilter.all(), null);
+        publish(broadcaster, drone(1L, DroneState.IDLE, 0, 100));
+        publish(broadcaster, drone(2L, DroneState.IDLE, 0, 100));
+        publish(broadcaster, drone(1L, DroneState.LOADING, 0, 100));
+
+        RecordingEmitter resumed = subscribe(broadcaster, new DroneEventFilter(Set.of(1L), null),
+                id(first.frames.get(0)));
+        publish(broadcaster, drone(1L, DroneState.LOADED, 50, 100));
+
+        assertEquals(2, resumed.frames.size());
+        assertEquals(id(first.frames.get(2)), id(resumed.frames.get(0)));
+        assertTrue(resumed.frames.get(1).contains("state=LOADED"));
+    }
+
+    @Test
+    void sendsFinishedLoadJobsToSubscribersOfTheirDrone() {
+        DroneEventBroadcaster broadcaster = broadcaster(16, 16, Runnable::run);
+        RecordingEmitter droneOne = subscribe(broadcaster, new DroneEventFilter(Set.of(1L), null), null);
+        RecordingEmitter droneTwo = subscribe(broadcaster, new DroneEventFilter(Set.of(2L), null), null);
+
+        broadcaster.onLoadJobCompleted(new LoadJobCompletedEvent(LoadJobDTO.builder()
+                .id("job-1").status(LoadJobStatus.SUCCEEDED).droneId(1L).build()));
+        RecordingEmitter resumed = subscribe(broadcaster, new DroneEventFilter(Set.of(1L), null),
+                id(droneOne.frames.get(0)) - 1);
+
+        assertEquals(1, droneOne.frames.size());
+        assertTrue(droneOne.frames.get(0).contains("event:job"));
+        assertTrue(droneOne.frames.get(0).contains("id=job-1"));
+        assertTrue(droneTwo.frames.isEmpty());
+        assertEquals(droneOne.frames, resumed.frames);
+    }
+
+    @Test
+    void asksForResyncWhenMissedUpdatesAreGone() {
+        DroneEventBroadcaster broadcaster = broadcaster(2, 16, Runnable::run);
+        RecordingEmitter first = subscribe(broadcaster, DroneEventFilter.all(), null);
+        for (int battery = 100; battery > 60; battery -= 10) {
+            publish(broadcaster, drone(1L, DroneState.IDLE, 0, battery));
+        }
+
+        RecordingEmitter tooOld = subscribe(broadcaster, DroneEventFilter.all(), id(first.frames.get(0)));
+        RecordingEmitter fromAnotherRun = subscribe(broadcaster, DroneEventFilter.all(), 42L);
+        RecordingEmitter inBuffer = subscribe(broadcaster, DroneEventFilter.all(), id(first.frames.get(1)));
+
+        assertEquals(1, tooOld.frames.size());
+        assertTrue(tooOld.frames.get(0).contains("event:resync"));
+        assertEquals(id(first.frames.get(3)), id(tooOld.frames.get(0)));
+        assertTrue(fromAnotherRun.frames.get(0).contains("event:resync"));
+        assertEquals(2, inBuffer.frames.size());
+    }
+
+    @Test
+    void dropsSubscribersThatFallBehindWithoutBlockingPublishers() {
+        DroneEventBroadcaster broadcaster = broadcaster(16, 2, pendingSends::add);
+        RecordingEmitter slow = subscribe(broadcaster, DroneEventFilter.all(), null);
+
+        for (long id = 1; id <= 3; id++) {
+            publish(broadcaster, drone(id, DroneState.IDLE, 0, 100));
+        }
+
+        assertEquals(0, broadcaster.subscriberCount());
+        assertEquals(1, broadcaster.droppedCount());
+
+        runPendingSends();
+        assertTrue(slow.completed);
+        assertTrue(slow.frames.isEmpty());
+    }
+
+    @Test
+    void sendsHeartbeatsAsComments() {
+        DroneEventBroadcaster broadcaster = broadcaster(16, 16, Runnable::run);
+        RecordingEmitter emitter = subscribe(broadcaster, new DroneEventFilter(Set.of(9L), null), null);
+
+        broadcaster.heartbeat();
+
+        assertEquals(List.of(":heartbeat\n\n"), emitter.frames);
+    }
+
+    @Test
+    void stopsSendingToClosedStreams() {
+        DroneEventBroadcaster broadcaster = broadcaster(16, 16, Runnable::run);
+        RecordingEmitter emitter = subscribe(broadcaster, DroneEventFilter.all(), null);
+        emitter.failing = true;
+
+        publish(broadcaster, drone(1L, DroneState.IDLE, 0, 100));
+        publish(broadcaster, drone(1L, DroneState.IDLE, 0, 90));
+
+        assertEquals(1, emitter.attempts);
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    private DroneEventBroadcaster broadcaster(int replaySize, int subscriberBuffer, Executor sender) {
+        return new DroneEventBroadcaster(new SimpleMeterRegistry(), replaySize, subscriberBuffer, 60000, sender);
+    }
+
+    private static RecordingEmitter subscribe(DroneEventBroadcaster broadcaster, DroneEventFilter filter,
+                                              Long lastEventId) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter, filter, lastEventId);
+        return emitter;
+    }
+
+    private static void publish(DroneEventBroadcaster broadcaster, DroneDTO... drones) {
+        broadcaster.onDroneChanged(new DroneChangedEvent(List.of(drones)));
+    }
+
+    private static DroneDTO drone(Long id, DroneState state, int load, int battery) {
+        return DroneDTO.builder()
+                .id(id)
+                .serialNumber("SSE-" + id)
+                .model(DroneModel.MIDDLEWEIGHT)
+                .weightLimit(300)
+                .state(state)
+                .currentLoad(load)
+                .batteryCapacity(battery)
+                .build();
+    }
+
+    private static long id(String frame) {
+        Matcher matcher = EVENT_ID.matcher(frame);
+        assertTrue(matcher.find(), frame);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private void runPendingSends() {
+        while (!pendingSends.isEmpty()) {
+            pendingSends.remove(0).run();
+        }
+    }
+
+    // Keeps each frame as text, with the payload rendered by toString
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> frames = new ArrayList<>();
+        private boolean completed;
+        private boolean failing;
+        private int attempts;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            attempts++;
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            frames.add(text.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.hitachi.assessment.stream;
+
+import com.hitachi.assessment.dto.MedicationDTO;
+import com.hitachi.assessment.model.Drone;
+import com.hitachi.assessment.model.DroneModel;
+import com.hitachi.assessment.model.DroneState;
+import com.hitachi.assessment.repository.DroneRepository;
+import com.hitachi.assessment.service.interfaces.IMedicationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Medication writes change a drone's load without touching the drone itself, so they go through the real services
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "drone.battery.history.dir=${java.io.tmpdir}/drone-event-stream-test-history",
+        "drone.images.dir=${java.io.tmpdir}/drone-event-stream-test-images"
+})
+class DroneEventStreamTest {
+
+    @Autowired
+    private DroneEventBroadcaster broadcaster;
+
+    @Autowired
+    private IMedicationService medicationService;
+
+    @Autowired
+    private DroneRepository droneRepository;
+
+    private Drone drone;
+
+    @AfterEach
+    void tearDown() {
+        if (drone != null) {
+            droneRepository.deleteById(drone.getId());
+        }
+    }
+
+    @Test
+    void deletingALoadedMedicationStreamsTheLighterDrone() throws Exception {
+        drone = droneRepository.save(Drone.builder()
+                .serialNumber("SSE-DELETE-1")
+                .model(DroneModel.MIDDLEWEIGHT)
+                .weightLimit(DroneModel.MIDDLEWEIGHT.getWeightLimit())
+                .batteryCapacity(90)
+                .state(DroneState.LOADING)
+                .build());
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter, new DroneEventFilter(Set.of(drone.getId()), null), null);
+
+        MedicationDTO medication = medicationService.createMedication(MedicationDTO.builder()
+                .name("Stream-delete")
+                .weight(120)
+                .code("SSE_DELETE")
+                .droneId(drone.getId())
+                .build());
+        awaitFrames(emitter, 1);
+        medicationService.deleteMedication(medication.getId());
+        awaitFrames(emitter, 2);
+
+        assertTrue(emitter.frames.get(0).contains("currentLoad=120"), emitter.frames.get(0));
+        String deleted = emitter.frames.get(1);
+        assertTrue(deleted.contains("currentLoad=0"), deleted);
+        assertTrue(deleted.contains("changes=[LOAD]"), deleted);
+    }
+
+    private static void awaitFrames(RecordingEmitter emitter, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (emitter.frames.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, emitter.frames.size(), emitter.frames.toString());
+    }
+
+    // Keeps drone updates only, so a heartbeat cannot shift the count; frames arrive on the sender pool
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            if (text.toString().contains("event:" + DroneEventBroadcaster.UPDATE)) {
+                frames.add(text.toString());
+            }
+        }
+    }
+}
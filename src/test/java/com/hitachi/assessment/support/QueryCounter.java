@@ -0,0 +1,155 @@
+package com.hitachi.assessment.support;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * Counts the database work done by one request or service call.
+ * <p>
+ * The data source is wrapped so every statement executed, row read and column value fetched is counted, and
+ * a Hibernate interceptor counts the entities loaded. Only work on the thread calling {@link #measure} is
+ * counted, so scheduler and telemetry threads running in the same context never leak into a measurement.
+ * MockMvc requests run on the calling thread, so a whole request can be measured. Bytes are the size of the
+ * fetched values: the UTF-8 length of strings, the length of binary values and the width of numbers.
+ */
+public class QueryCounter implements Interceptor {
+
+    private static final ThreadLocal<Counts> ACTIVE = new ThreadLocal<>();
+
+    public record Result<T>(T value, QueryStats stats) {
+    }
+
+    public <T> Result<T> measure(Callable<T> action) throws Exception {
+        Counts previous = ACTIVE.get();
+        Counts counts = new Counts();
+        ACTIVE.set(counts);
+        try {
+            T value = action.call();
+            return new Result<>(value, counts.toStats());
+        } finally {
+            if (previous == null) {
+                ACTIVE.remove();
+            } else {
+                ACTIVE.set(previous);
+            }
+        }
+    }
+
+    public QueryStats count(Callable<?> action) throws Exception {
+        return measure(action).stats();
+    }
+
+    // Entities read into a persistence context, whether by a query, a find or a lazy fetch
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        Counts counts = ACTIVE.get();
+        if (counts != null) {
+            counts.entities++;
+        }
+        return false;
+    }
+
+    public DataSource wrap(DataSource dataSource) {
+        return (DataSource) proxy(dataSource);
+    }
+
+    private static final class Counts {
+        int statements;
+        long rows;
+        long bytes;
+        int entities;
+
+        QueryStats toStats() {
+            return new QueryStats(statements, rows, bytes, entities);
+        }
+    }
+
+    // Implements every JDBC interface of the target, so callers can still cast e.g. a Statement to PreparedStatement
+    private static Object proxy(Object target) {
+        Class<?>[] interfaces = Arrays.stream(ClassUtils.getAllInterfacesForClass(target.getClass()))
+                .filter(type -> type.getName().startsWith("java.sql.") || type.getName().startsWith("javax.sql."))
+                .toArray(Class<?>[]::new);
+        return Proxy.newProxyInstance(QueryCounter.class.getClassLoader(), interfaces, new Counting(target));
+    }
+
+    // Wraps connections, statements and result sets handed out by the target, counting on the way
+    private record Counting(Object target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            Counts counts = ACTIVE.get();
+            String name = method.getName();
+            if (target instanceof Statement && name.startsWith("execute") && counts != null) {
+                counts.statements++;
+            }
+            if (target instanceof ResultSet && counts != null) {
+                if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                    counts.rows++;
+                } else if (name.startsWith("get") && args != null && args.length >= 1
+                        && (args[0] instanceof Integer || args[0] instanceof String)) {
+                    counts.bytes += size(result);
+                }
+            }
+            return result instanceof Connection || result instanceof Statement || result instanceof ResultSet
+                    ? wrapResult(result) : result;
+        }
+
+        private static Object wrapResult(Object result) {
+            return Proxy.isProxyClass(result.getClass()) ? result : proxy(result);
+        }
+
+        private static long size(Object value) throws SQLException {
+            if (value == null) {
+                return 0;
+            }
+            if (value instanceof String s) {
+                return s.getBytes(StandardCharsets.UTF_8).length;
+            }
+            if (value instanceof byte[] b) {
+                return b.length;
+            }
+            if (value instanceof Blob blob) {
+                return blob.length();
+            }
+            if (value instanceof Clob clob) {
+                return clob.length();
+            }
+            if (value instanceof BigDecimal decimal) {
+                return decimal.unscaledValue().toByteArray().length;
+            }
+            if (value instanceof Integer || value instanceof Float) {
+                return 4;
+            }
+            if (value instanceof Short) {
+                return 2;
+            }
+            if (value instanceof Byte || value instanceof Boolean) {
+                return 1;
+            }
+            return 8;
+        }
+    }
+}
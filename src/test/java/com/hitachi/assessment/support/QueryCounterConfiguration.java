@@ -0,0 +1,33 @@
+package com.hitachi.assessment.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+// Import into a Spring Boot test to get a QueryCounter wired around the data source and Hibernate
+@TestConfiguration(proxyBeanMethods = false)
+public class QueryCounterConfiguration {
+
+    @Bean
+    public static QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSource(QueryCounter queryCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? queryCounter.wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountingInterceptor(QueryCounter queryCounter) {
+        return properties -> properties.put("hibernate.session_factory.interceptor", queryCounter);
+    }
+}
@@ -0,0 +1,32 @@
+package com.hitachi.assessment.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Database work counted by QueryCounter for one call, with the budget assertions used by the query guard tests
+public record QueryStats(int statements, long rows, long bytes, int entities) {
+
+    // Fails when the call executed more statements, loaded more entities or fetched more bytes than allowed
+    public QueryStats assertWithin(String call, int maxStatements, int maxEntities, long maxBytes) {
+        StringBuilder over = new StringBuilder();
+        if (statements > maxStatements) {
+            over.append(String.format("%n  statements %d > %d", statements, maxStatements));
+        }
+        if (entities > maxEntities) {
+            over.append(String.format("%n  entities loaded %d > %d", entities, maxEntities));
+        }
+        if (bytes > maxBytes) {
+            over.append(String.format("%n  bytes fetched %d > %d", bytes, maxBytes));
+        }
+        if (!over.isEmpty()) {
+            fail(call + " went over its query budget (" + this + "):" + over);
+        }
+        return this;
+    }
+
+    // Fails when a call over more data executed more statements, i.e. it issues a query per row
+    public void assertSameStatementsAs(String call, QueryStats smaller) {
+        assertEquals(smaller.statements(), statements,
+                call + " executes more statements for more data (N+1): " + smaller + " then " + this);
+    }
+}
@@ -0,0 +1,72 @@
+package com.hitachi.assessment.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetryRingBufferTest {
+
+    @Test
+    void drainsReadingsInOfferOrder() {
+        TelemetryRingBuffer ring = new TelemetryRingBuffer(8);
+        ring.offer(1L, 90, 100L);
+        ring.offer(2L, 80, 200L);
+
+        List<String> seen = new ArrayList<>();
+        assertEquals(2, ring.drain((id, level, ts) -> seen.add(id + ":" + level + ":" + ts)));
+
+        assertEquals(List.of("1:90:100", "2:80:200"), seen);
+        assertEquals(0, ring.drain((id, level, ts) -> fail("ring should be empty")));
+    }
+
+    @Test
+    void refusesReadingsWhenFullAndAcceptsAgainAfterDrain() {
+        TelemetryRingBuffer ring = new TelemetryRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i, 50, i));
+        }
+        assertFalse(ring.offer(99L, 50, 0L));
+
+        ring.drain((id, level, ts) -> { });
+
+        assertTrue(ring.offer(99L, 50, 0L));
+    }
+
+    @Test
+    void keepsEveryReadingFromConcurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        TelemetryRingBuffer ring = new TelemetryRingBuffer(1024);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            long droneId = p + 1;
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(droneId, i % 101, i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+
+        Map<Long, Long> lastTimestamp = new HashMap<>();
+        long[] total = {0};
+        while (done.getCount() > 0 || ring.size() > 0) {
+            ring.drain((id, level, ts) -> {
+                Long previous = lastTimestamp.put(id, ts);
+                assertTrue(previous == null || previous < ts, "readings of one producer stay in order");
+                assertEquals(ts % 101, level);
+                total[0]++;
+            });
+        }
+
+        assertEquals((long) producers * perProducer, total[0]);
+    }
+}
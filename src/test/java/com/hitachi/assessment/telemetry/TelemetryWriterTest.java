@@ -0,0 +1,144 @@
+package com.hitachi.assessment.telemetry;
+
+import com.hitachi.assessment.dto.DroneDTO;
+import com.hitachi.assessment.event.DroneChangedEvent;
+import com.hitachi.assessment.repository.DroneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetryWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DroneRepository droneRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private TelemetryWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new TelemetryWriter(jdbcTemplate, droneRepository, eventPublisher, 16, 1000, 2);
+    }
+
+    @Test
+    void coalescesToNewestReadingPerDroneAndWritesInBatches() {
+        writer.offer(2L, 70, 100L);
+        writer.offer(1L, 90, 100L);
+        writer.offer(2L, 60, 300L);
+        writer.offer(2L, 65, 200L); // older than 300, arrives late
+        writer.offer(3L, 40, 100L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(1);
+            return new int[batch.size()];
+        });
+
+        assertEquals(5, writer.drain());
+        writer.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture());
+        List<Object[]> first = batches.getAllValues().get(0);
+        assertArrayEquals(new Object[]{90, 1L}, first.get(0));
+        assertArrayEquals(new Object[]{60, 2L}, first.get(1));
+        assertArrayEquals(new Object[]{40, 3L}, batches.getAllValues().get(1).get(0));
+        assertEquals(2, writer.getStats().getCoalesced());
+    }
+
+    @Test
+    void publishesSnapshotsOnlyForDronesThatExist() {
+        writer.offer(1L, 20, 100L);
+        writer.offer(404L, 20, 100L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0});
+        DroneDTO snapshot = DroneDTO.builder().id(1L).batteryCapacity(20).build();
+        when(droneRepository.findSnapshotsByIdIn(List.of(1L))).thenReturn(List.of(snapshot));
+
+        writer.drain();
+        writer.flush();
+
+        ArgumentCaptor<DroneChangedEvent> event = ArgumentCaptor.forClass(DroneChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(List.of(snapshot), event.getValue().getDrones());
+        assertEquals(1, writer.getStats().getWritten());
+    }
+
+    @Test
+    void dropsReadingsOlderThanTheOneAlreadyWritten() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+        writer.offer(1L, 60, 300L);
+        writer.drain();
+        writer.flush();
+
+        writer.offer(1L, 65, 200L); // older than the written 300, arrives after the flush
+        writer.drain();
+        writer.flush();
+        writer.offer(1L, 55, 400L);
+        writer.drain();
+        writer.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture());
+        assertArrayEquals(new Object[]{60, 1L}, batches.getAllValues().get(0).get(0));
+        assertArrayEquals(new Object[]{55, 1L}, batches.getAllValues().get(1).get(0));
+        assertEquals(1, writer.getStats().getCoalesced());
+    }
+
+    @Test
+    void countsReadingsDroppedWhenBufferIsFull() {
+        for (int i = 0; i < 20; i++) {
+            writer.offer(1L, 50, i);
+        }
+
+        assertEquals(16, writer.getStats().getReceived());
+        assertEquals(4, writer.getStats().getDropped());
+    }
+
+    @Test
+    void idleWriterWakesBeforeTheFlushOnceTheBufferIsHalfFull() throws Exception {
+        TelemetryWriter slow = new TelemetryWriter(jdbcTemplate, droneRepository, eventPublisher, 16, 60_000, 2);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(1);
+            return new int[batch.size()];
+        });
+        slow.start();
+        try {
+            Thread.sleep(200);
+            for (int i = 0; i < 8; i++) {
+                slow.offer(i + 1, 50, 100L);
+            }
+
+            long deadline = System.currentTimeMillis() + 2000;
+            while (slow.getStats().getBuffered() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, slow.getStats().getBuffered());
+            assertEquals(0, slow.getStats().getFlushes());
+        } finally {
+            slow.stop();
+        }
+    }
+
+    @Test
+    void flushWithNothingBufferedTouchesNoDatabase() {
+        writer.flush();
+        verifyNoInteractions(jdbcTemplate, eventPublisher);
+    }
+}